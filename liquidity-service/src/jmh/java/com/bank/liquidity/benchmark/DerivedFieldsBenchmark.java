@@ -0,0 +1,100 @@
+package com.bank.liquidity.benchmark;
+
+import com.bank.liquidity.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение расчета производных полей позиции на BigDecimal и на Money.
+// Запуск: ./gradlew :liquidity-service:jmh (профилировщик gc показывает gc.alloc.rate.norm на операцию)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DerivedFieldsBenchmark {
+
+    private static final int POSITIONS = 1024;
+    private static final BigDecimal UNBOUNDED_RATIO = BigDecimal.valueOf(100);
+
+    private BigDecimal[] availableCash;
+    private BigDecimal[] requiredReserves;
+    private long[] availableCashMinor;
+    private long[] requiredReservesMinor;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        availableCash = new BigDecimal[POSITIONS];
+        requiredReserves = new BigDecimal[POSITIONS];
+        availableCashMinor = new long[POSITIONS];
+        requiredReservesMinor = new long[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            availableCashMinor[i] = random.nextLong(1, 100_000_000_000L);
+            requiredReservesMinor[i] = random.nextLong(1, 100_000_000_000L);
+            availableCash[i] = BigDecimal.valueOf(availableCashMinor[i], 2);
+            requiredReserves[i] = BigDecimal.valueOf(requiredReservesMinor[i], 2);
+        }
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole blackhole) {
+        int i = next();
+        BigDecimal cash = availableCash[i];
+        BigDecimal reserves = requiredReserves[i];
+
+        BigDecimal net = cash.subtract(reserves);
+        BigDecimal ratio = reserves.compareTo(BigDecimal.ZERO) > 0
+                ? cash.divide(reserves, 4, RoundingMode.HALF_UP)
+                : UNBOUNDED_RATIO;
+
+        blackhole.consume(net);
+        blackhole.consume(ratio);
+        blackhole.consume(net.compareTo(BigDecimal.ZERO) >= 0);
+    }
+
+    @Benchmark
+    public void fixedPoint(Blackhole blackhole) {
+        int i = next();
+        Money cash = Money.of(availableCash[i]);
+        Money reserves = Money.of(requiredReserves[i]);
+
+        Money net = cash.minus(reserves);
+        BigDecimal ratio = reserves.signum() > 0 ? cash.ratioTo(reserves, 4) : UNBOUNDED_RATIO;
+
+        blackhole.consume(net.toBigDecimal());
+        blackhole.consume(ratio);
+        blackhole.consume(net.signum() >= 0);
+    }
+
+    @Benchmark
+    public void fixedPointArithmeticOnly(Blackhole blackhole) {
+        // Только арифметика на минимальных единицах, без преобразования входов и результатов
+        int i = next();
+        long cash = availableCashMinor[i];
+        long reserves = requiredReservesMinor[i];
+
+        blackhole.consume(cash - reserves);
+        blackhole.consume(Money.divide(cash, reserves, 4));
+    }
+
+    private int next() {
+        index = (index + 1) & (POSITIONS - 1);
+        return index;
+    }
+}
@@ -0,0 +1,154 @@
+package com.bank.liquidity.benchmark;
+
+import com.bank.liquidity.dto.LiquidityPositionResponse;
+import com.bank.liquidity.model.LiquidityPosition;
+import com.bank.liquidity.repository.LiquidityPositionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Память на один запрос списочного эндпоинта: загрузка сущностей с маппингом в ответ против
+// JPQL-проекции прямо в LiquidityPositionResponse. Обе ветки читают в read-only транзакции, как сервис.
+// Запуск: ./gradlew :liquidity-service:jmh (профилировщик gc показывает gc.alloc.rate.norm на операцию)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListEndpointAllocationBenchmark {
+
+    private static final int BRANCHES = 100;
+    private static final int CURRENCIES = 20;
+    private static final String BRANCH = "BR0042";
+    private static final BigDecimal RATIO_THRESHOLD = new BigDecimal("1.10");
+
+    public enum Endpoint {
+        ALL,
+        BY_BRANCH,
+        NEGATIVE,
+        BELOW_RATIO
+    }
+
+    @Param({"ALL", "BY_BRANCH", "NEGATIVE", "BELOW_RATIO"})
+    private Endpoint endpoint;
+
+    private SingleConnectionDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private LiquidityPositionRepository repository;
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:list-endpoints;DB_CLOSE_DELAY=-1", "sa", "", true);
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.bank.liquidity.model");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+
+        repository = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory))
+                .getRepository(LiquidityPositionRepository.class);
+
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> repository.saveAll(positions()));
+
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<LiquidityPositionResponse> entities() {
+        return readOnlyTransaction.execute(status -> {
+            List<LiquidityPosition> positions = switch (endpoint) {
+                case ALL -> repository.findAll();
+                case BY_BRANCH -> repository.findByBranchCode(BRANCH);
+                case NEGATIVE -> repository.findNegativeLiquidityPositions();
+                case BELOW_RATIO -> repository.findAll().stream()
+                        .filter(position -> position.getLiquidityRatio().compareTo(RATIO_THRESHOLD) < 0)
+                        .toList();
+            };
+            return positions.stream().map(ListEndpointAllocationBenchmark::toResponse).toList();
+        });
+    }
+
+    @Benchmark
+    public List<LiquidityPositionResponse> projection() {
+        return readOnlyTransaction.execute(status -> switch (endpoint) {
+            case ALL -> repository.findAllResponses();
+            case BY_BRANCH -> repository.findResponsesByBranchCode(BRANCH);
+            case NEGATIVE -> repository.findNegativeLiquidityResponses();
+            case BELOW_RATIO -> repository.findResponsesBelowLiquidityRatio(RATIO_THRESHOLD);
+        });
+    }
+
+    // Маппинг, которым сервис пользовался до перехода на проекции
+    private static LiquidityPositionResponse toResponse(LiquidityPosition position) {
+        return LiquidityPositionResponse.builder()
+                .id(position.getId())
+                .currency(position.getCurrency())
+                .availableCash(position.getAvailableCash())
+                .requiredReserves(position.getRequiredReserves())
+                .netLiquidity(position.getNetLiquidity())
+                .liquidityRatio(position.getLiquidityRatio())
+                .calculationDate(position.getCalculationDate())
+                .branchCode(position.getBranchCode())
+                .status(position.getStatus())
+                .createdAt(position.getCreatedAt())
+                .updatedAt(position.getUpdatedAt())
+                .build();
+    }
+
+    private static List<LiquidityPosition> positions() {
+        Random random = new Random(42);
+        List<LiquidityPosition> positions = new ArrayList<>(BRANCHES * CURRENCIES);
+        for (int branch = 0; branch < BRANCHES; branch++) {
+            for (int currency = 0; currency < CURRENCIES; currency++) {
+                long reserves = 1_000_000 + random.nextInt(9_000_000);
+                // Примерно десятая часть позиций в дефиците
+                long cash = reserves * (90 + random.nextInt(100)) / 100;
+                positions.add(LiquidityPosition.builder()
+                        .branchCode(String.format("BR%04d", branch))
+                        .currency(String.format("C%02d", currency))
+                        .availableCash(BigDecimal.valueOf(cash, 2))
+                        .requiredReserves(BigDecimal.valueOf(reserves, 2))
+                        .build());
+            }
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,85 @@
+package com.bank.liquidity.benchmark;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.service.LiquidityStressEngine;
+import com.bank.liquidity.service.LiquidityStressSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Полный прогон стресс-теста: сценарии x позиции, при разной параллельности пула.
+// Запуск: ./gradlew :liquidity-service:jmh -Pjmh.includes=StressEngineBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StressEngineBenchmark {
+
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "JPY", "CHF", "CNY"};
+
+    @Param({"20000", "50000"})
+    private int positions;
+
+    @Param({"100", "500"})
+    private int scenarios;
+
+    @Param({"1", "0"})
+    private int parallelism;
+
+    private LiquidityStressEngine engine;
+    private LiquidityStressSnapshot snapshot;
+    private List<LiquidityStressEngine.Scenario> scenarioList;
+    private LiquidityStressEngine.Thresholds thresholds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LiquidityProperties properties = new LiquidityProperties();
+        properties.getStressTest().setParallelism(parallelism);
+        engine = new LiquidityStressEngine(properties);
+
+        Random random = new Random(42);
+        LiquidityStressSnapshot.Builder builder = LiquidityStressSnapshot.builder(positions);
+        for (int i = 0; i < positions; i++) {
+            builder.add(CURRENCIES[random.nextInt(CURRENCIES.length)],
+                    random.nextLong(1, 100_000_000_000L), random.nextLong(0, 100_000_000_000L));
+        }
+        snapshot = builder.build();
+
+        scenarioList = new ArrayList<>(scenarios);
+        for (int s = 0; s < scenarios; s++) {
+            long[] cashRetained = new long[snapshot.currencyCount()];
+            for (int c = 0; c < cashRetained.length; c++) {
+                cashRetained[c] = random.nextLong(5_000, 10_001);
+            }
+            scenarioList.add(new LiquidityStressEngine.Scenario("s" + s, cashRetained, random.nextLong(10_000, 15_000)));
+        }
+        thresholds = new LiquidityStressEngine.Thresholds(0L, 1.0, 0.5);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public List<LiquidityStressEngine.Outcome> runScenarios() {
+        return engine.run(snapshot, scenarioList, thresholds);
+    }
+}
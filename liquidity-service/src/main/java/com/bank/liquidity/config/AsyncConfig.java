@@ -1,30 +0,0 @@
-package com.bank.liquidity.config;
-
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-
-import java.util.concurrent.Executor;
-
-@Slf4j
-@Configuration
-@EnableAsync
-public class AsyncConfig {
-
-    @Bean(name = "liquidityTaskExecutor")
-    public Executor taskExecutor() {
-        log.info("Configuring async task executor for liquidity calculations");
-
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(10);
-        executor.setQueueCapacity(25);
-        executor.setThreadNamePrefix("LiquidityAsync-");
-        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
-        executor.initialize();
-
-        return executor;
-    }
-}
\ No newline at end of file
@@ -25,9 +25,9 @@ public class CacheConfig {
             .expireAfterWrite(5, TimeUnit.MINUTES)
             .expireAfterAccess(2, TimeUnit.MINUTES)
             .maximumSize(1000)
+            // Статистику hit/miss/eviction по каждому кэшу экспортирует actuator (метрики cache.*)
             .recordStats());
         
         return cacheManager;
     }
 }
-
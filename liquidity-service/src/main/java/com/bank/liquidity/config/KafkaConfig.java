@@ -0,0 +1,91 @@
+package com.bank.liquidity.config;
+
+import com.bank.liquidity.dto.TransactionMessage;
+import com.bank.liquidity.dto.TransactionStatusMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@EnableKafka
+@Configuration
+public class KafkaConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Bean
+    public ConsumerFactory<String, TransactionMessage> transactionConsumerFactory(LiquidityProperties properties) {
+        return new DefaultKafkaConsumerFactory<>(consumerProps(properties.getTransactions(), TransactionMessageDeserializer.class));
+    }
+
+    @Bean
+    public ConsumerFactory<String, TransactionStatusMessage> transactionStatusConsumerFactory(LiquidityProperties properties) {
+        return new DefaultKafkaConsumerFactory<>(
+                consumerProps(properties.getTransactions(), TransactionStatusMessageDeserializer.class));
+    }
+
+    // Пакетный слушатель с ручным подтверждением: вся пачка применяется одной транзакцией БД
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, TransactionMessage> transactionBatchContainerFactory(
+            ConsumerFactory<String, TransactionMessage> transactionConsumerFactory, LiquidityProperties properties) {
+        return batchContainerFactory(transactionConsumerFactory, properties.getTransactions());
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, TransactionStatusMessage> transactionStatusBatchContainerFactory(
+            ConsumerFactory<String, TransactionStatusMessage> transactionStatusConsumerFactory, LiquidityProperties properties) {
+        return batchContainerFactory(transactionStatusConsumerFactory, properties.getTransactions());
+    }
+
+    private Map<String, Object> consumerProps(LiquidityProperties.Transactions transactions,
+                                              Class<? extends Deserializer<?>> valueDeserializer) {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, transactions.getGroupId());
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, transactions.getAutoOffsetReset());
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, transactions.getMaxPollRecords());
+
+        // Смещения фиксирует контейнер после успешной записи пачки в базу
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        // Нечитаемые сообщения приходят в слушатель с value == null вместо бесконечного цикла ошибок
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, valueDeserializer);
+
+        log.info("Kafka consumer factory configured with bootstrap servers: {}, group: {}, deserializer: {}",
+                bootstrapServers, transactions.getGroupId(), valueDeserializer.getSimpleName());
+        return configProps;
+    }
+
+    private static <T> ConcurrentKafkaListenerContainerFactory<String, T> batchContainerFactory(
+            ConsumerFactory<String, T> consumerFactory, LiquidityProperties.Transactions transactions) {
+        ConcurrentKafkaListenerContainerFactory<String, T> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(transactions.getConcurrency());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setObservationEnabled(true);
+
+        // Пачка повторяется целиком: повторная доставка безопасна благодаря processed_transactions
+        factory.setCommonErrorHandler(new DefaultErrorHandler(
+                new FixedBackOff(transactions.getRetryBackoffMs(), transactions.getRetryAttempts())));
+        return factory;
+    }
+}
@@ -0,0 +1,128 @@
+package com.bank.liquidity.config;
+
+import com.bank.liquidity.model.RegulatoryBucket;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "liquidity")
+public class LiquidityProperties {
+
+    private Alerts alerts = new Alerts();
+    private Batch batch = new Batch();
+    private Metrics metrics = new Metrics();
+    private History history = new History();
+    private Transactions transactions = new Transactions();
+    private Stream stream = new Stream();
+    private StressTest stressTest = new StressTest();
+    private Regulatory regulatory = new Regulatory();
+    private WriteLanes writeLanes = new WriteLanes();
+
+    @Data
+    public static class Alerts {
+        private BigDecimal deficitThreshold = BigDecimal.ZERO;
+        private BigDecimal lowLiquidityThreshold = BigDecimal.ONE;
+        private BigDecimal criticalLiquidityThreshold = new BigDecimal("0.5");
+        private Pipeline pipeline = new Pipeline();
+    }
+
+    @Data
+    public static class Pipeline {
+        // Емкость очереди проверки алертов; при заполнении производители ждут offerTimeoutMs
+        private int queueCapacity = 10000;
+        private int batchSize = 500;
+        private long offerTimeoutMs = 200;
+    }
+
+    @Data
+    public static class Batch {
+        // Размер одного JDBC-батча при массовом upsert
+        private int chunkSize = 500;
+        // Максимальное количество позиций в одном запросе
+        private int maxSize = 10000;
+    }
+
+    @Data
+    public static class Metrics {
+        // Максимальное число серий gauge по паре филиал/валюта; новые пары сверх лимита не экспортируются
+        private int maxGaugeSeries = 2000;
+        // Серия удаляется из реестра, если позиция не обновлялась дольше этого времени
+        private Duration gaugeIdleExpiry = Duration.ofHours(6);
+        private long gaugeExpiryCheckIntervalMs = 60000;
+    }
+
+    @Data
+    public static class History {
+        // Сколько месячных партиций истории создается заранее
+        private int partitionsAhead = 3;
+        private String partitionCron = "0 0 1 * * *";
+        // Окно пересчета часовых агрегатов; должно покрывать задержку записи истории
+        private Duration rollupLookback = Duration.ofHours(2);
+        private long rollupIntervalMs = 300000;
+        // Глубина поиска состояния на момент времени, в месячных партициях
+        private int pointInTimeLookbackMonths = 12;
+        private int maxRangeRows = 10000;
+    }
+
+    @Data
+    public static class Transactions {
+        // Потребление топика transactions для внутридневного обновления availableCash
+        private boolean enabled = true;
+        private String topic = "transactions";
+        // Смены статуса: вклад неуспешных и отмененных транзакций вычитается из позиции
+        private String statusTopic = "transaction-status-updates";
+        private String groupId = "liquidity-service-transactions";
+        // Новая группа начинает с конца топика: более ранние транзакции уже учтены в снимках позиций
+        private String autoOffsetReset = "latest";
+        private int maxPollRecords = 500;
+        private int concurrency = 3;
+        private long retryBackoffMs = 1000;
+        private long retryAttempts = 9;
+        // Сколько хранятся отметки processed_transactions; должно перекрывать срок хранения топика,
+        // иначе повторная доставка старой транзакции применится к позиции второй раз
+        private Duration processedRetention = Duration.ofDays(7);
+        private long processedPurgeIntervalMs = 3600000;
+        private int processedPurgeBatchSize = 10000;
+    }
+
+    @Data
+    public static class Stream {
+        private int maxSubscribers = 5000;
+        // Буфер событий на подписчика; при переполнении вытесняется самое старое
+        private int bufferSize = 256;
+        private int senderThreads = 4;
+        private Duration emitterTimeout = Duration.ofMinutes(30);
+        private long heartbeatIntervalMs = 15000;
+    }
+
+    @Data
+    public static class StressTest {
+        // Потоки пула fork-join; 0 - по числу процессоров
+        private int parallelism = 0;
+        private int maxScenarios = 500;
+    }
+
+    @Data
+    public static class Regulatory {
+        // availableCash позиции учитывается как наличные в HQLA первого уровня
+        private boolean cashAsLevel1Hqla = true;
+        // Переопределение весов корзин (доля от 0 до 1), например haircut или run-off по требованию регулятора
+        private Map<RegulatoryBucket, BigDecimal> weights = new EnumMap<>(RegulatoryBucket.class);
+    }
+
+    @Data
+    public static class WriteLanes {
+        // Однопоточные полосы записи позиций; пара филиал/валюта всегда попадает в одну полосу
+        private int lanes = 16;
+        // Сколько запрос ждет записи своей пары в очереди; не начавшаяся запись отменяется с ошибкой,
+        // уже выполняющуюся запрос дожидается
+        private Duration writeTimeout = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,92 @@
+package com.bank.liquidity.config;
+
+import com.bank.liquidity.dto.TransactionMessage;
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BinaryMessageDecoder;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Значение топика transactions. transaction-service публикует событие Avro в single-object encoding
+ * (маркер C3 01 и отпечаток схемы писателя); схемы писателя - копии файлов transaction-service в resources/avro,
+ * новая версия добавляется сюда раньше, чем ее начнет писать transaction-service. Запись читается
+ * в проекцию transaction-message.avsc: только поля, нужные для позиций.
+ * Сообщения без маркера - JSON, записанный в outbox до перехода на Avro, - разбирает JsonDeserializer.
+ */
+public class TransactionMessageDeserializer implements Deserializer<TransactionMessage> {
+
+    static final List<String> WRITER_SCHEMAS = List.of("avro/transaction-event-v1.avsc");
+    private static final String READER_SCHEMA = "avro/transaction-message.avsc";
+    private static final byte MARKER_FIRST = (byte) 0xC3;
+    private static final byte MARKER_SECOND = 0x01;
+    // Масштаб decimal в схеме transaction-event
+    private static final int AMOUNT_SCALE = 2;
+
+    private final BinaryMessageDecoder<GenericRecord> decoder;
+    private final JsonDeserializer<TransactionMessage> jsonDeserializer =
+            new JsonDeserializer<>(TransactionMessage.class, false);
+
+    public TransactionMessageDeserializer() {
+        this.decoder = new BinaryMessageDecoder<>(GenericData.get(), parse(READER_SCHEMA));
+        WRITER_SCHEMAS.forEach(resource -> decoder.addSchema(parse(resource)));
+    }
+
+    @Override
+    public TransactionMessage deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length < 2 || data[0] != MARKER_FIRST || data[1] != MARKER_SECOND) {
+            return jsonDeserializer.deserialize(topic, data);
+        }
+        try {
+            GenericRecord record = decoder.decode(data);
+            return TransactionMessage.builder()
+                    .transactionId(record.get("transactionId").toString())
+                    .type(record.get("type").toString())
+                    .amount(decimal((ByteBuffer) record.get("amount")))
+                    .currency(record.get("currency").toString())
+                    .branchCode(record.get("branchCode") != null ? record.get("branchCode").toString() : null)
+                    .status(record.get("status").toString())
+                    .build();
+        } catch (IOException | AvroRuntimeException e) {
+            // В том числе MissingSchemaException: версия схемы писателя еще не добавлена в WRITER_SCHEMAS
+            throw new SerializationException("Malformed transaction event on topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+
+    private static BigDecimal decimal(ByteBuffer value) {
+        ByteBuffer buffer = value.duplicate();
+        byte[] unscaled = new byte[buffer.remaining()];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), AMOUNT_SCALE);
+    }
+
+    static Schema parse(String resource) {
+        try (InputStream in = TransactionMessageDeserializer.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Avro schema not found on classpath: " + resource);
+            }
+            return new Schema.Parser().parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read Avro schema: " + resource, e);
+        }
+    }
+}
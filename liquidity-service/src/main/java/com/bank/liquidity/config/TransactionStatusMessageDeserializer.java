@@ -0,0 +1,59 @@
+package com.bank.liquidity.config;
+
+import com.bank.liquidity.dto.TransactionStatusMessage;
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BinaryMessageDecoder;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Значение топика transaction-status-updates. Формат тот же, что у топика transactions
+ * (см. TransactionMessageDeserializer): Avro single-object encoding с копиями схем писателя
+ * transaction-service, проекция transaction-status-message.avsc и JSON для сообщений без маркера.
+ */
+public class TransactionStatusMessageDeserializer implements Deserializer<TransactionStatusMessage> {
+
+    static final List<String> WRITER_SCHEMAS = List.of("avro/transaction-status-update-event-v1.avsc");
+    private static final String READER_SCHEMA = "avro/transaction-status-message.avsc";
+    private static final byte MARKER_FIRST = (byte) 0xC3;
+    private static final byte MARKER_SECOND = 0x01;
+
+    private final BinaryMessageDecoder<GenericRecord> decoder;
+    private final JsonDeserializer<TransactionStatusMessage> jsonDeserializer =
+            new JsonDeserializer<>(TransactionStatusMessage.class, false);
+
+    public TransactionStatusMessageDeserializer() {
+        this.decoder = new BinaryMessageDecoder<>(GenericData.get(), TransactionMessageDeserializer.parse(READER_SCHEMA));
+        WRITER_SCHEMAS.forEach(resource -> decoder.addSchema(TransactionMessageDeserializer.parse(resource)));
+    }
+
+    @Override
+    public TransactionStatusMessage deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length < 2 || data[0] != MARKER_FIRST || data[1] != MARKER_SECOND) {
+            return jsonDeserializer.deserialize(topic, data);
+        }
+        try {
+            GenericRecord record = decoder.decode(data);
+            return TransactionStatusMessage.builder()
+                    .transactionId(record.get("transactionId").toString())
+                    .newStatus(record.get("newStatus").toString())
+                    .build();
+        } catch (IOException | AvroRuntimeException e) {
+            throw new SerializationException("Malformed transaction status event on topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
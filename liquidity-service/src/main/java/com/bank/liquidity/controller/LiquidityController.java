@@ -1,9 +1,18 @@
 package com.bank.liquidity.controller;
 
 import com.bank.liquidity.dto.ApiResponse;
+import com.bank.liquidity.dto.LiquidityBookConsistencyResponse;
+import com.bank.liquidity.dto.LiquidityPositionBatchRequest;
+import com.bank.liquidity.dto.LiquidityPositionBatchResponse;
+import com.bank.liquidity.dto.LiquidityPositionPageResponse;
 import com.bank.liquidity.dto.LiquidityPositionRequest;
 import com.bank.liquidity.dto.LiquidityPositionResponse;
+import com.bank.liquidity.dto.RegulatoryComponentsRequest;
+import com.bank.liquidity.dto.RegulatoryRatioResponse;
+import com.bank.liquidity.model.RegulatoryBucket;
 import com.bank.liquidity.service.LiquidityService;
+import com.bank.liquidity.service.RegulatoryRatioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,11 +21,18 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -25,7 +41,11 @@ import java.util.List;
 @Tag(name = "Liquidity Management", description = "API for managing bank liquidity positions")
 public class LiquidityController {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final LiquidityService liquidityService;
+    private final RegulatoryRatioService regulatoryRatioService;
+    private final ObjectMapper objectMapper;
 
     @Operation(summary = "Создать или обновить позицию ликвидности", 
                description = "Создает новую позицию ликвидности или обновляет существующую для филиала и валюты")
@@ -54,6 +74,27 @@ public class LiquidityController {
         }
     }
 
+    @Operation(summary = "Массово создать или обновить позиции ликвидности",
+               description = "Upsert позиций пачками JDBC по ключу (branchCode, currency); алерты и кэш обрабатываются один раз на весь батч")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Позиции успешно созданы/обновлены"),
+        @ApiResponse(responseCode = "400", description = "Неверные входные данные или слишком большой батч"),
+        @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    })
+    @PostMapping("/positions/batch")
+    public ResponseEntity<ApiResponse<LiquidityPositionBatchResponse>> createPositionsBatch(
+            @Valid @RequestBody LiquidityPositionBatchRequest request) {
+
+        log.info("Upserting batch of {} liquidity positions", request.getPositions().size());
+
+        LiquidityPositionBatchResponse response = liquidityService.createPositionsBatch(request.getPositions());
+
+        log.info("Liquidity position batch upserted: {} positions in {}ms",
+                response.getUpserted(), response.getDurationMs());
+
+        return ResponseEntity.ok(ApiResponse.success(response, "Liquidity positions upserted successfully"));
+    }
+
     @Operation(summary = "Получить все позиции ликвидности", 
                description = "Возвращает все позиции ликвидности по всем филиалам")
     @GetMapping("/positions")
@@ -67,6 +108,41 @@ public class LiquidityController {
         return ResponseEntity.ok(ApiResponse.success(positions));
     }
 
+    @Operation(summary = "Получить страницу позиций ликвидности",
+               description = "Keyset-пагинация по id: передайте nextCursor предыдущей страницы в параметре cursor")
+    @GetMapping("/positions/page")
+    public ResponseEntity<ApiResponse<LiquidityPositionPageResponse>> getPositionsPage(
+            @Parameter(description = "Курсор (id последней позиции предыдущей страницы)")
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "100") int size) {
+
+        log.debug("Fetching liquidity positions page after cursor: {}, size: {}", cursor, size);
+
+        LiquidityPositionPageResponse page = liquidityService.getPositionsPage(cursor, size);
+
+        log.debug("Retrieved page of {} liquidity positions, hasMore: {}", page.getSize(), page.isHasMore());
+
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    @Operation(summary = "Потоковая выгрузка позиций ликвидности",
+               description = "Отдает все позиции в формате NDJSON, читая строки курсором без загрузки таблицы в память")
+    @GetMapping(value = "/positions/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamPositions() {
+        log.debug("Streaming all liquidity positions as NDJSON");
+
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            long count = liquidityService.streamAllPositions(position -> writeLine(out, position));
+            out.flush();
+            log.debug("Streamed {} liquidity positions", count);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/positions/branch/{branchCode}")
     public ResponseEntity<ApiResponse<List<LiquidityPositionResponse>>> getPositionsByBranch(
             @PathVariable String branchCode) {
@@ -103,6 +179,81 @@ public class LiquidityController {
                 .orElse(ResponseEntity.ok(ApiResponse.error("No liquidity data found for currency: " + currency)));
     }
 
+    @GetMapping("/summary/branches")
+    public ResponseEntity<ApiResponse<Map<String, BigDecimal>>> getNetLiquidityByBranch() {
+        log.debug("Calculating net liquidity by branch");
+
+        return ResponseEntity.ok(ApiResponse.success(liquidityService.getNetLiquidityByBranch()));
+    }
+
+    @GetMapping("/summary/ratios")
+    public ResponseEntity<ApiResponse<Map<String, BigDecimal>>> getAverageLiquidityRatioByCurrency() {
+        log.debug("Calculating average liquidity ratio by currency");
+
+        return ResponseEntity.ok(ApiResponse.success(liquidityService.getAverageLiquidityRatioByCurrency()));
+    }
+
+    @GetMapping("/summary/low-ratio-count")
+    public ResponseEntity<ApiResponse<Long>> countPositionsBelowLiquidityRatio(
+            @RequestParam(defaultValue = "1.0") BigDecimal threshold) {
+
+        log.debug("Counting positions below liquidity ratio: {}", threshold);
+
+        return ResponseEntity.ok(ApiResponse.success(liquidityService.countPositionsBelowLiquidityRatio(threshold)));
+    }
+
+    @Operation(summary = "Проверить согласованность книги ликвидности",
+               description = "Сравнивает агрегаты книги в памяти с агрегатами, посчитанными в БД")
+    @GetMapping("/book/consistency")
+    public ResponseEntity<ApiResponse<LiquidityBookConsistencyResponse>> verifyLiquidityBook() {
+        log.info("Verifying liquidity book consistency");
+
+        LiquidityBookConsistencyResponse report = liquidityService.verifyLiquidityBook();
+
+        return ResponseEntity.ok(ApiResponse.success(report,
+                report.isConsistent() ? "Liquidity book is consistent" : "Liquidity book is inconsistent"));
+    }
+
+    @Operation(summary = "Задать регуляторную классификацию позиции",
+               description = "Заменяет суммы по корзинам LCR/NSFR для филиала и валюты; availableCash позиции учитывается как HQLA первого уровня")
+    @PutMapping("/positions/{branchCode}/{currency}/regulatory-components")
+    public ResponseEntity<ApiResponse<Map<RegulatoryBucket, BigDecimal>>> replaceRegulatoryComponents(
+            @PathVariable String branchCode,
+            @PathVariable String currency,
+            @Valid @RequestBody RegulatoryComponentsRequest request) {
+
+        log.info("Replacing regulatory components for branch: {}, currency: {}", branchCode, currency);
+
+        Map<RegulatoryBucket, BigDecimal> components =
+                regulatoryRatioService.replaceComponents(branchCode, currency, request);
+
+        return ResponseEntity.ok(ApiResponse.success(components, "Regulatory components updated successfully"));
+    }
+
+    @Operation(summary = "LCR и NSFR по банку",
+               description = "Коэффициенты покрытия ликвидности и чистого стабильного фондирования из агрегатов в памяти")
+    @GetMapping("/regulatory/ratios")
+    public ResponseEntity<ApiResponse<RegulatoryRatioResponse>> getBankRegulatoryRatios() {
+        log.debug("Fetching bank-wide regulatory ratios");
+
+        return regulatoryRatioService.getBankRatios()
+                .map(ratios -> ResponseEntity.ok(ApiResponse.success(ratios)))
+                .orElse(ResponseEntity.ok(ApiResponse.error("Regulatory ratios are not available yet")));
+    }
+
+    @Operation(summary = "LCR и NSFR по филиалу",
+               description = "Коэффициенты филиала по всем его валютам из агрегатов в памяти")
+    @GetMapping("/regulatory/ratios/branch/{branchCode}")
+    public ResponseEntity<ApiResponse<RegulatoryRatioResponse>> getBranchRegulatoryRatios(
+            @PathVariable String branchCode) {
+
+        log.debug("Fetching regulatory ratios for branch: {}", branchCode);
+
+        return regulatoryRatioService.getBranchRatios(branchCode)
+                .map(ratios -> ResponseEntity.ok(ApiResponse.success(ratios)))
+                .orElse(ResponseEntity.ok(ApiResponse.error("No regulatory data found for branch: " + branchCode)));
+    }
+
     @GetMapping("/positions/low-ratio")
     public ResponseEntity<ApiResponse<List<LiquidityPositionResponse>>> getPositionsBelowLiquidityRatio(
             @RequestParam(defaultValue = "1.0") BigDecimal threshold) {
@@ -115,4 +266,13 @@ public class LiquidityController {
 
         return ResponseEntity.ok(ApiResponse.success(positions));
     }
-}
\ No newline at end of file
+
+    private void writeLine(OutputStream out, LiquidityPositionResponse position) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(position));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write liquidity position to stream", e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.bank.liquidity.controller;
+
+import com.bank.liquidity.dto.ApiResponse;
+import com.bank.liquidity.dto.LiquidityHistoryPointResponse;
+import com.bank.liquidity.dto.LiquidityRollupResponse;
+import com.bank.liquidity.service.LiquidityHistoryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/liquidity/history")
+@RequiredArgsConstructor
+@Tag(name = "Liquidity History", description = "API for historical liquidity positions and aggregates")
+public class LiquidityHistoryController {
+
+    private final LiquidityHistoryService historyService;
+
+    @Operation(summary = "Позиция ликвидности на момент времени",
+               description = "Последнее состояние позиции филиала и валюты не позже указанного момента")
+    @GetMapping("/{branchCode}/{currency}/at")
+    public ResponseEntity<ApiResponse<LiquidityHistoryPointResponse>> getPositionAt(
+            @PathVariable String branchCode,
+            @PathVariable String currency,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+
+        log.debug("Fetching liquidity position for branch: {}, currency: {} at {}", branchCode, currency, at);
+
+        return historyService.getPositionAt(branchCode, currency, at)
+                .map(point -> ResponseEntity.ok(ApiResponse.success(point)))
+                .orElse(ResponseEntity.ok(ApiResponse.error(
+                        "No liquidity history found for branch: " + branchCode + ", currency: " + currency)));
+    }
+
+    @Operation(summary = "История позиции ликвидности за период",
+               description = "Сырые записи истории в интервале [from, to) в порядке времени расчета")
+    @GetMapping("/{branchCode}/{currency}/range")
+    public ResponseEntity<ApiResponse<List<LiquidityHistoryPointResponse>>> getHistory(
+            @PathVariable String branchCode,
+            @PathVariable String currency,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "1000") int limit) {
+
+        log.debug("Fetching liquidity history for branch: {}, currency: {} from {} to {}",
+                branchCode, currency, from, to);
+
+        List<LiquidityHistoryPointResponse> history = historyService.getHistory(branchCode, currency, from, to, limit);
+
+        log.debug("Retrieved {} liquidity history rows", history.size());
+
+        return ResponseEntity.ok(ApiResponse.success(history));
+    }
+
+    @Operation(summary = "Часовые или дневные агрегаты ликвидности",
+               description = "Минимум, максимум, среднее и последнее значение чистой ликвидности и коэффициента по интервалам")
+    @GetMapping("/{branchCode}/{currency}/rollups")
+    public ResponseEntity<ApiResponse<List<LiquidityRollupResponse>>> getRollups(
+            @PathVariable String branchCode,
+            @PathVariable String currency,
+            @RequestParam(defaultValue = "HOUR") LiquidityRollupResponse.Granularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        log.debug("Fetching {} liquidity rollups for branch: {}, currency: {}", granularity, branchCode, currency);
+
+        List<LiquidityRollupResponse> rollups = historyService.getRollups(branchCode, currency, granularity, from, to);
+
+        log.debug("Retrieved {} liquidity rollups", rollups.size());
+
+        return ResponseEntity.ok(ApiResponse.success(rollups));
+    }
+}
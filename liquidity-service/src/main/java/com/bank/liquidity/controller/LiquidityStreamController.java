@@ -0,0 +1,37 @@
+package com.bank.liquidity.controller;
+
+import com.bank.liquidity.service.LiquidityStreamHub;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/liquidity")
+@RequiredArgsConstructor
+@Tag(name = "Liquidity Stream", description = "Server-Sent Events stream of liquidity position and alert changes")
+public class LiquidityStreamController {
+
+    private final LiquidityStreamHub streamHub;
+
+    @Operation(summary = "Поток изменений позиций и алертов (SSE)",
+               description = "События snapshot (текущие позиции и открытые алерты), positions, alerts и resync "
+                       + "(часть событий потеряна, нужно перечитать состояние)")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@RequestParam(defaultValue = "true") boolean snapshot) {
+        log.debug("Opening liquidity stream (snapshot: {})", snapshot);
+
+        return streamHub.subscribe(snapshot)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+}
@@ -0,0 +1,41 @@
+package com.bank.liquidity.controller;
+
+import com.bank.liquidity.dto.ApiResponse;
+import com.bank.liquidity.dto.StressTestRequest;
+import com.bank.liquidity.dto.StressTestResponse;
+import com.bank.liquidity.service.LiquidityStressTestService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/liquidity/stress-tests")
+@RequiredArgsConstructor
+@Tag(name = "Liquidity Stress Tests", description = "API for running liquidity shock scenarios over all positions")
+public class LiquidityStressTestController {
+
+    private final LiquidityStressTestService stressTestService;
+
+    @Operation(summary = "Запустить стресс-тест ликвидности",
+               description = "Применяет сценарии (отток наличности по валютам, рост резервов) ко всем позициям; "
+                       + "возвращает дефициты, коэффициенты и число алертов, которые были бы созданы")
+    @PostMapping
+    public ResponseEntity<ApiResponse<StressTestResponse>> runStressTest(@Valid @RequestBody StressTestRequest request) {
+        log.info("Running liquidity stress test with {} scenarios", request.getScenarios().size());
+
+        StressTestResponse response = stressTestService.runStressTest(request);
+
+        log.info("Liquidity stress test completed over {} positions in {}ms",
+                response.getPositions(), response.getSnapshotLoadMs() + response.getComputeMs());
+
+        return ResponseEntity.ok(ApiResponse.success(response, "Stress test completed successfully"));
+    }
+}
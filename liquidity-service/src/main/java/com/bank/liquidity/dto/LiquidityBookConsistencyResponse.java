@@ -0,0 +1,23 @@
+package com.bank.liquidity.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LiquidityBookConsistencyResponse {
+    private boolean consistent;
+    private long bookPositions;
+    private long databasePositions;
+    private List<String> mismatches;
+    private LocalDateTime checkedAt;
+}
@@ -0,0 +1,18 @@
+package com.bank.liquidity.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LiquidityPositionBatchResponse {
+    private int received;
+    private int upserted;
+    private long durationMs;
+}
@@ -0,0 +1,21 @@
+package com.bank.liquidity.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LiquidityPositionPageResponse {
+    private List<LiquidityPositionResponse> items;
+    private Long nextCursor;
+    private boolean hasMore;
+    private int size;
+}
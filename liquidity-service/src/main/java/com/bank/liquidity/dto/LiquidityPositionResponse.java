@@ -26,4 +26,6 @@ public class LiquidityPositionResponse {
     private String status;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // Версия строки: кэши упорядочивают по ней изменения одной позиции
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.bank.liquidity.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LiquidityRollupResponse {
+
+    public enum Granularity {
+        HOUR, DAY
+    }
+
+    private Granularity granularity;
+    private String branchCode;
+    private String currency;
+    private LocalDateTime bucketStart;
+    private long samples;
+    private BigDecimal minNetLiquidity;
+    private BigDecimal maxNetLiquidity;
+    private BigDecimal avgNetLiquidity;
+    private BigDecimal lastNetLiquidity;
+    private BigDecimal minLiquidityRatio;
+    private BigDecimal maxLiquidityRatio;
+    private BigDecimal avgLiquidityRatio;
+    private BigDecimal lastLiquidityRatio;
+    private LocalDateTime lastCalculationDate;
+}
@@ -0,0 +1,20 @@
+package com.bank.liquidity.dto;
+
+import com.bank.liquidity.model.LiquidityAlert;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LiquidityStreamSnapshot {
+    private List<LiquidityPositionResponse> positions;
+    private List<LiquidityAlert> openAlerts;
+}
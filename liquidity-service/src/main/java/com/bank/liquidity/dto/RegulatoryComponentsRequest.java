@@ -0,0 +1,28 @@
+package com.bank.liquidity.dto;
+
+import com.bank.liquidity.model.RegulatoryBucket;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegulatoryComponentsRequest {
+
+    // Невзвешенные суммы по корзинам; корзины, отсутствующие в запросе, обнуляются
+    @NotNull(message = "Components are required")
+    private Map<RegulatoryBucket,
+            @NotNull(message = "Component amount is required")
+            @DecimalMin(value = "0.0", message = "Component amount cannot be negative")
+            @Digits(integer = 16, fraction = 2, message = "Component amount must have at most 2 decimal places")
+                    BigDecimal> components;
+}
@@ -0,0 +1,41 @@
+package com.bank.liquidity.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RegulatoryRatioResponse {
+
+    // null для банка в целом
+    private String branchCode;
+    private long positions;
+
+    // null, если знаменатель равен нулю
+    private BigDecimal liquidityCoverageRatio;
+    private BigDecimal netStableFundingRatio;
+
+    // Взвешенные составляющие LCR; уровни 2A/2B до применения лимитов 40% и 15%
+    private BigDecimal level1Assets;
+    private BigDecimal level2aAssets;
+    private BigDecimal level2bAssets;
+    private BigDecimal highQualityLiquidAssets;
+    private BigDecimal totalOutflows;
+    private BigDecimal totalInflows;
+    private BigDecimal netCashOutflows;
+
+    // Взвешенные составляющие NSFR
+    private BigDecimal availableStableFunding;
+    private BigDecimal requiredStableFunding;
+
+    private LocalDateTime calculatedAt;
+}
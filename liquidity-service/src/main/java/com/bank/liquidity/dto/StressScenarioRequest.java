@@ -0,0 +1,42 @@
+package com.bank.liquidity.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StressScenarioRequest {
+
+    @NotBlank(message = "Scenario name is required")
+    private String name;
+
+    // Отток наличности в процентах для валют, не указанных в cashOutflowPercentByCurrency
+    @NotNull(message = "Cash outflow percent is required")
+    @DecimalMin(value = "0.0", message = "Cash outflow percent cannot be negative")
+    @DecimalMax(value = "100.0", message = "Cash outflow percent cannot exceed 100")
+    @Digits(integer = 3, fraction = 2, message = "Cash outflow percent must have at most 2 decimal places")
+    private BigDecimal cashOutflowPercent;
+
+    private Map<String, @NotNull
+            @DecimalMin(value = "0.0", message = "Cash outflow percent cannot be negative")
+            @DecimalMax(value = "100.0", message = "Cash outflow percent cannot exceed 100")
+            @Digits(integer = 3, fraction = 2, message = "Cash outflow percent must have at most 2 decimal places")
+            BigDecimal> cashOutflowPercentByCurrency;
+
+    @DecimalMin(value = "0.0", message = "Reserve increase percent cannot be negative")
+    @DecimalMax(value = "1000.0", message = "Reserve increase percent cannot exceed 1000")
+    @Digits(integer = 4, fraction = 2, message = "Reserve increase percent must have at most 2 decimal places")
+    private BigDecimal reserveIncreasePercent;
+}
@@ -0,0 +1,28 @@
+package com.bank.liquidity.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StressScenarioResult {
+    private String name;
+    private long positionsInDeficit;
+    private BigDecimal totalDeficit;
+    private BigDecimal totalNetLiquidity;
+    private BigDecimal minLiquidityRatio;
+    private BigDecimal averageLiquidityRatio;
+    private long deficitAlerts;
+    private long lowLiquidityAlerts;
+    private long criticalAlerts;
+    private Map<String, BigDecimal> deficitByCurrency;
+}
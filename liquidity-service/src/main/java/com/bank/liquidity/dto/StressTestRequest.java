@@ -0,0 +1,20 @@
+package com.bank.liquidity.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StressTestRequest {
+
+    @NotEmpty(message = "Scenarios are required")
+    private List<@Valid StressScenarioRequest> scenarios;
+}
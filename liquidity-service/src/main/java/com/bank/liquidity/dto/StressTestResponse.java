@@ -0,0 +1,24 @@
+package com.bank.liquidity.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StressTestResponse {
+    private int positions;
+    private int scenarios;
+    private LocalDateTime snapshotTakenAt;
+    private long snapshotLoadMs;
+    private long computeMs;
+    private List<StressScenarioResult> results;
+}
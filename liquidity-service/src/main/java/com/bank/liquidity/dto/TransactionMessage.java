@@ -0,0 +1,23 @@
+package com.bank.liquidity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Транзакция из топика transactions (событие transaction-service, см. TransactionMessageDeserializer);
+// тип и статус строками, чтобы новые значения в transaction-service не ломали десериализацию
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionMessage {
+    private String transactionId;
+    private String type;
+    private BigDecimal amount;
+    private String currency;
+    private String branchCode;
+    private String status;
+}
@@ -0,0 +1,16 @@
+package com.bank.liquidity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Смена статуса из топика transaction-status-updates (см. TransactionStatusMessageDeserializer)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionStatusMessage {
+    private String transactionId;
+    private String newStatus;
+}
@@ -0,0 +1,17 @@
+package com.bank.liquidity.event;
+
+import com.bank.liquidity.model.LiquidityAlert;
+import lombok.Getter;
+
+import java.util.List;
+
+// Публикуется внутри транзакции, изменившей алерты; индекс открытых алертов применяет его после коммита
+@Getter
+public class LiquidityAlertChangedEvent {
+
+    private final List<LiquidityAlert> alerts;
+
+    public LiquidityAlertChangedEvent(List<LiquidityAlert> alerts) {
+        this.alerts = List.copyOf(alerts);
+    }
+}
@@ -0,0 +1,17 @@
+package com.bank.liquidity.event;
+
+import com.bank.liquidity.model.LiquidityPosition;
+import lombok.Getter;
+
+import java.util.List;
+
+// Публикуется после сохранения одной или нескольких позиций; слушатели получают его после коммита
+@Getter
+public class LiquidityPositionChangedEvent {
+
+    private final List<LiquidityPosition> positions;
+
+    public LiquidityPositionChangedEvent(List<LiquidityPosition> positions) {
+        this.positions = List.copyOf(positions);
+    }
+}
@@ -0,0 +1,23 @@
+package com.bank.liquidity.event;
+
+import com.bank.liquidity.model.RegulatoryBucket;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+// Публикуется после замены регуляторной классификации пары филиал/валюта; слушатели получают его после коммита
+@Getter
+public class RegulatoryComponentsChangedEvent {
+
+    private final String branchCode;
+    private final String currency;
+    private final Map<RegulatoryBucket, BigDecimal> components;
+
+    public RegulatoryComponentsChangedEvent(String branchCode, String currency,
+                                            Map<RegulatoryBucket, BigDecimal> components) {
+        this.branchCode = branchCode;
+        this.currency = currency;
+        this.components = Map.copyOf(components);
+    }
+}
@@ -20,7 +20,7 @@ public class LiquidityHealthIndicator implements HealthIndicator {
     public Health health() {
         try {
             long totalPositions = positionRepository.count();
-            long negativePositions = positionRepository.findNegativeLiquidityPositions().size();
+            long negativePositions = positionRepository.countNegativeLiquidityPositions();
             long criticalPositions = positionRepository.countPositionsBelowLiquidityRatio(new BigDecimal("0.5"));
 
             Health.Builder status = totalPositions > 0 ? Health.up() : Health.unknown();
@@ -11,7 +11,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
@@ -23,7 +23,12 @@ public class LiquidityAlert {
     }
 
     public enum AlertStatus {
-        ACTIVE, ACKNOWLEDGED, RESOLVED
+        ACTIVE, ACKNOWLEDGED, RESOLVED;
+
+        // Открытым считается алерт, который еще не закрыт; на одну пару филиал/валюта и тип он один
+        public boolean isOpen() {
+            return this != RESOLVED;
+        }
     }
 
     @Id
@@ -66,4 +71,13 @@ public class LiquidityAlert {
     private String acknowledgedBy;
 
     private String resolutionNotes;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer occurrenceCount = 1;
+
+    private LocalDateTime lastSeenAt;
+
+    @Version
+    private Long version;
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 
 @Data
@@ -16,13 +17,17 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "liquidity_positions", indexes = {
-        @Index(name = "idx_branch_currency", columnList = "branchCode, currency"),
+@Table(name = "liquidity_positions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_liquidity_positions_branch_currency", columnNames = {"branchCode", "currency"})
+}, indexes = {
         @Index(name = "idx_calculation_date", columnList = "calculationDate"),
         @Index(name = "idx_net_liquidity", columnList = "netLiquidity")
 })
 public class LiquidityPosition {
 
+    private static final int RATIO_SCALE = 4;
+    private static final BigDecimal UNBOUNDED_RATIO = BigDecimal.valueOf(100);
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -60,20 +65,28 @@ public class LiquidityPosition {
     @Version
     private Long version;
 
+    // Вызывается JPA перед записью и вручную при массовом upsert через JDBC
     @PrePersist
     @PreUpdate
-    private void calculateDerivedFields() {
+    public void calculateDerivedFields() {
         if (availableCash != null && requiredReserves != null) {
-            this.netLiquidity = availableCash.subtract(requiredReserves);
-
-            if (requiredReserves.compareTo(BigDecimal.ZERO) > 0) {
-                this.liquidityRatio = availableCash.divide(requiredReserves, 4, java.math.RoundingMode.HALF_UP);
+            if (Money.isExact(availableCash) && Money.isExact(requiredReserves)) {
+                // Суммы со шкалой до 2 знаков считаются в long без промежуточных BigDecimal
+                Money cash = Money.of(availableCash);
+                Money reserves = Money.of(requiredReserves);
+                Money net = cash.minus(reserves);
+
+                this.netLiquidity = net.toBigDecimal();
+                this.liquidityRatio = reserves.signum() > 0 ? cash.ratioTo(reserves, RATIO_SCALE) : UNBOUNDED_RATIO;
             } else {
-                this.liquidityRatio = BigDecimal.valueOf(100); // Infinite ratio if no reserves required
+                this.netLiquidity = availableCash.subtract(requiredReserves);
+                this.liquidityRatio = requiredReserves.compareTo(BigDecimal.ZERO) > 0
+                        ? availableCash.divide(requiredReserves, RATIO_SCALE, RoundingMode.HALF_UP)
+                        : UNBOUNDED_RATIO; // Infinite ratio if no reserves required
             }
 
             if (this.status == null) {
-                this.status = netLiquidity.compareTo(BigDecimal.ZERO) >= 0 ? "HEALTHY" : "DEFICIT";
+                this.status = netLiquidity.signum() >= 0 ? "HEALTHY" : "DEFICIT";
             }
         }
 
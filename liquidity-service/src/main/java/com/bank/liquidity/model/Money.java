@@ -0,0 +1,115 @@
+package com.bank.liquidity.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Денежная сумма с фиксированной точкой: long в минимальных единицах (шкала 2, как у колонок NUMERIC(15, 2)).
+// Округление везде HALF_UP, как в прежних вычислениях на BigDecimal
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0L);
+
+    // Целая часть суммы, при которой значение со шкалой 2 гарантированно помещается в long
+    private static final int MAX_INTEGER_DIGITS = 16;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+            10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L,
+            10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinorUnits(long minorUnits) {
+        return minorUnits == 0L ? ZERO : new Money(minorUnits);
+    }
+
+    // Значения с более мелкой шкалой округляются HALF_UP; для точных вычислений проверяйте isExact
+    public static Money of(BigDecimal amount) {
+        return ofMinorUnits(toScaledLong(amount, SCALE));
+    }
+
+    // true, если сумма представима без округления и без переполнения
+    public static boolean isExact(BigDecimal amount) {
+        return amount.scale() <= SCALE && amount.precision() - amount.scale() <= MAX_INTEGER_DIGITS;
+    }
+
+    public static long toScaledLong(BigDecimal value, int scale) {
+        BigDecimal scaled = value.scale() == scale ? value : value.setScale(scale, RoundingMode.HALF_UP);
+        return scaled.unscaledValue().longValueExact();
+    }
+
+    // dividend / divisor с заданной шкалой и округлением HALF_UP, результат в единицах 10^-scale
+    public static long divide(long dividend, long divisor, int scale) {
+        if (divisor == 0L) {
+            throw new ArithmeticException("Division by zero");
+        }
+        long scaled = Math.multiplyExact(dividend, POWERS_OF_TEN[scale]);
+        long quotient = scaled / divisor;
+        long remainder = Math.abs(scaled % divisor);
+        // Округление от нуля, если остаток не меньше половины делителя
+        if (remainder != 0L && remainder >= Math.abs(divisor) - remainder) {
+            quotient += Long.signum(scaled) == Long.signum(divisor) ? 1L : -1L;
+        }
+        return quotient;
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Money plus(Money other) {
+        return ofMinorUnits(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinorUnits(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0L;
+    }
+
+    // Отношение двух сумм с заданной шкалой; при переполнении long считается через BigDecimal с тем же результатом
+    public BigDecimal ratioTo(Money denominator, int scale) {
+        if (Math.abs(minorUnits) <= Long.MAX_VALUE / POWERS_OF_TEN[scale]) {
+            return BigDecimal.valueOf(divide(minorUnits, denominator.minorUnits, scale), scale);
+        }
+        return BigDecimal.valueOf(minorUnits)
+                .divide(BigDecimal.valueOf(denominator.minorUnits), scale, RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money other && minorUnits == other.minorUnits);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.bank.liquidity.model;
+
+// Корзины регуляторной классификации составляющих позиции (Базель III) с весами по умолчанию в базисных пунктах.
+// Для HQLA вес - это 1 - haircut, для оттоков и притоков - коэффициент run-off/inflow, для NSFR - коэффициенты ASF/RSF
+public enum RegulatoryBucket {
+
+    // LCR: высоколиквидные активы
+    HQLA_LEVEL_1(Component.HQLA_LEVEL_1, 10_000),
+    HQLA_LEVEL_2A(Component.HQLA_LEVEL_2A, 8_500),
+    HQLA_LEVEL_2B(Component.HQLA_LEVEL_2B, 5_000),
+
+    // LCR: оттоки за 30 дней стресса
+    OUTFLOW_RETAIL_STABLE(Component.OUTFLOWS, 500),
+    OUTFLOW_RETAIL_LESS_STABLE(Component.OUTFLOWS, 1_000),
+    OUTFLOW_WHOLESALE_OPERATIONAL(Component.OUTFLOWS, 2_500),
+    OUTFLOW_WHOLESALE_NON_OPERATIONAL(Component.OUTFLOWS, 4_000),
+    OUTFLOW_WHOLESALE_FINANCIAL(Component.OUTFLOWS, 10_000),
+    OUTFLOW_COMMITTED_FACILITIES(Component.OUTFLOWS, 1_000),
+
+    // LCR: притоки за 30 дней стресса
+    INFLOW_RETAIL_WHOLESALE(Component.INFLOWS, 5_000),
+    INFLOW_FINANCIAL(Component.INFLOWS, 10_000),
+
+    // NSFR: доступное стабильное фондирование
+    ASF_CAPITAL(Component.AVAILABLE_STABLE_FUNDING, 10_000),
+    ASF_RETAIL_STABLE(Component.AVAILABLE_STABLE_FUNDING, 9_500),
+    ASF_RETAIL_LESS_STABLE(Component.AVAILABLE_STABLE_FUNDING, 9_000),
+    ASF_WHOLESALE_OPERATIONAL(Component.AVAILABLE_STABLE_FUNDING, 5_000),
+    ASF_WHOLESALE_OTHER(Component.AVAILABLE_STABLE_FUNDING, 0),
+
+    // NSFR: требуемое стабильное фондирование
+    RSF_HQLA_LEVEL_1(Component.REQUIRED_STABLE_FUNDING, 500),
+    RSF_HQLA_LEVEL_2A(Component.REQUIRED_STABLE_FUNDING, 1_500),
+    RSF_HQLA_LEVEL_2B(Component.REQUIRED_STABLE_FUNDING, 5_000),
+    RSF_LOANS_FINANCIAL_SHORT_TERM(Component.REQUIRED_STABLE_FUNDING, 1_000),
+    RSF_LOANS_NON_FINANCIAL(Component.REQUIRED_STABLE_FUNDING, 5_000),
+    RSF_RESIDENTIAL_MORTGAGES(Component.REQUIRED_STABLE_FUNDING, 6_500),
+    RSF_OTHER_LOANS(Component.REQUIRED_STABLE_FUNDING, 8_500),
+    RSF_OTHER_ASSETS(Component.REQUIRED_STABLE_FUNDING, 10_000);
+
+    private final Component component;
+    private final int defaultWeightBasisPoints;
+
+    RegulatoryBucket(Component component, int defaultWeightBasisPoints) {
+        this.component = component;
+        this.defaultWeightBasisPoints = defaultWeightBasisPoints;
+    }
+
+    public Component getComponent() {
+        return component;
+    }
+
+    public int getDefaultWeightBasisPoints() {
+        return defaultWeightBasisPoints;
+    }
+
+    // Взвешенные суммы, из которых собираются числители и знаменатели LCR и NSFR
+    public enum Component {
+        HQLA_LEVEL_1,
+        HQLA_LEVEL_2A,
+        HQLA_LEVEL_2B,
+        OUTFLOWS,
+        INFLOWS,
+        AVAILABLE_STABLE_FUNDING,
+        REQUIRED_STABLE_FUNDING
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,6 +17,11 @@ public interface LiquidityAlertRepository extends JpaRepository<LiquidityAlert,
 
     List<LiquidityAlert> findByStatus(LiquidityAlert.AlertStatus status);
 
+    List<LiquidityAlert> findByStatusIn(Collection<LiquidityAlert.AlertStatus> statuses);
+
+    List<LiquidityAlert> findByBranchCodeAndCurrencyAndStatusIn(String branchCode, String currency,
+                                                                Collection<LiquidityAlert.AlertStatus> statuses);
+
     List<LiquidityAlert> findByAlertTypeAndStatus(LiquidityAlert.AlertType alertType, LiquidityAlert.AlertStatus status);
 
     List<LiquidityAlert> findBySeverityGreaterThanEqual(Integer minSeverity);
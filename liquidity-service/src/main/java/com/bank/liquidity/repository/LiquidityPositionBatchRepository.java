@@ -0,0 +1,162 @@
+package com.bank.liquidity.repository;
+
+import com.bank.liquidity.model.LiquidityPosition;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.StringJoiner;
+
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class LiquidityPositionBatchRepository {
+
+    private static final String RETURNING_COLUMNS = """
+        RETURNING id, currency, available_cash, required_reserves, net_liquidity, liquidity_ratio,
+                  calculation_date, branch_code, status, created_at, updated_at, version
+        """;
+
+    private static final String UPSERT_INSERT = """
+        INSERT INTO liquidity_positions (currency, available_cash, required_reserves, net_liquidity,
+                                         calculation_date, branch_code, status, liquidity_ratio,
+                                         created_at, updated_at, version)
+        VALUES
+        """;
+
+    private static final String UPSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final int UPSERT_ROW_PARAMETERS = 10;
+
+    private static final String UPSERT_CONFLICT = """
+
+        ON CONFLICT (branch_code, currency) DO UPDATE SET
+            available_cash = EXCLUDED.available_cash,
+            required_reserves = EXCLUDED.required_reserves,
+            net_liquidity = EXCLUDED.net_liquidity,
+            calculation_date = EXCLUDED.calculation_date,
+            status = EXCLUDED.status,
+            liquidity_ratio = EXCLUDED.liquidity_ratio,
+            updated_at = EXCLUDED.updated_at,
+            version = liquidity_positions.version + 1
+        """ + RETURNING_COLUMNS;
+
+    private static final Comparator<LiquidityPosition> KEY_ORDER = Comparator
+            .comparing(LiquidityPosition::getBranchCode)
+            .thenComparing(LiquidityPosition::getCurrency);
+
+    // Сдвиг наличности одним атомарным UPDATE: строка блокируется только на время оператора, без чтения
+    // и проверки версии. Производные поля считаются как в LiquidityPosition.calculateDerivedFields
+    // (SET видит значения строки до изменения), статус не меняется
+    private static final String ADD_CASH_SQL = """
+        UPDATE liquidity_positions SET
+            available_cash = available_cash + ?,
+            net_liquidity = available_cash + ? - required_reserves,
+            liquidity_ratio = CASE WHEN required_reserves > 0
+                THEN ROUND((available_cash + ?) / required_reserves, 4) ELSE 100 END,
+            calculation_date = ?,
+            updated_at = ?,
+            version = version + 1
+        WHERE branch_code = ? AND currency = ?
+        """ + RETURNING_COLUMNS;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Записывает позиции и возвращает строки с id и новой версией, по которой книга и кэши отличают
+     * это состояние от более поздних записей полос и ленты транзакций. Позиции должны быть уникальны
+     * по (branchCode, currency) и иметь рассчитанные производные поля. Один многострочный
+     * INSERT ... ON CONFLICT на чанк, строки в порядке ключей - тот же порядок блокировки, что у addToAvailableCash.
+     */
+    public List<LiquidityPosition> upsertAll(List<LiquidityPosition> positions, int chunkSize) {
+        List<LiquidityPosition> sorted = positions.stream().sorted(KEY_ORDER).toList();
+        List<LiquidityPosition> upserted = new ArrayList<>(sorted.size());
+        int statements = 0;
+        for (int from = 0; from < sorted.size(); from += chunkSize) {
+            List<LiquidityPosition> chunk = sorted.subList(from, Math.min(from + chunkSize, sorted.size()));
+            upserted.addAll(jdbcTemplate.query(upsertSql(chunk.size()), LiquidityPositionBatchRepository::mapPosition,
+                    upsertArguments(chunk)));
+            statements++;
+        }
+
+        log.debug("Upserted {} liquidity positions in {} statements", upserted.size(), statements);
+        return upserted;
+    }
+
+    private static String upsertSql(int rows) {
+        StringJoiner values = new StringJoiner(", ", UPSERT_INSERT, UPSERT_CONFLICT);
+        for (int i = 0; i < rows; i++) {
+            values.add(UPSERT_ROW);
+        }
+        return values.toString();
+    }
+
+    private static Object[] upsertArguments(List<LiquidityPosition> chunk) {
+        Object[] arguments = new Object[chunk.size() * UPSERT_ROW_PARAMETERS];
+        int i = 0;
+        for (LiquidityPosition position : chunk) {
+            Timestamp calculationDate = Timestamp.valueOf(position.getCalculationDate());
+            arguments[i++] = position.getCurrency();
+            arguments[i++] = position.getAvailableCash();
+            arguments[i++] = position.getRequiredReserves();
+            arguments[i++] = position.getNetLiquidity();
+            arguments[i++] = calculationDate;
+            arguments[i++] = position.getBranchCode();
+            arguments[i++] = position.getStatus();
+            arguments[i++] = position.getLiquidityRatio();
+            arguments[i++] = calculationDate;
+            arguments[i++] = calculationDate;
+        }
+        return arguments;
+    }
+
+    /**
+     * Прибавляет суммы к availableCash позиций и возвращает измененные строки с новой версией; пары без
+     * позиции пропускаются. Вызывать в транзакции со сдвигами, отсортированными по (branchCode, currency):
+     * параллельные писатели блокируют строки в одном порядке и не встают друг другу крест-накрест.
+     */
+    public List<LiquidityPosition> addToAvailableCash(List<CashDelta> deltas, LocalDateTime calculationDate) {
+        Timestamp timestamp = Timestamp.valueOf(calculationDate);
+        List<LiquidityPosition> changed = new ArrayList<>(deltas.size());
+        for (CashDelta delta : deltas) {
+            changed.addAll(jdbcTemplate.query(ADD_CASH_SQL, LiquidityPositionBatchRepository::mapPosition,
+                    delta.amount(), delta.amount(), delta.amount(), timestamp, timestamp,
+                    delta.branchCode(), delta.currency()));
+        }
+        log.debug("Added cash to {} of {} liquidity positions", changed.size(), deltas.size());
+        return changed;
+    }
+
+    private static LiquidityPosition mapPosition(ResultSet rs, int rowNum) throws SQLException {
+        return LiquidityPosition.builder()
+                .id(rs.getLong("id"))
+                .currency(rs.getString("currency"))
+                .availableCash(rs.getBigDecimal("available_cash"))
+                .requiredReserves(rs.getBigDecimal("required_reserves"))
+                .netLiquidity(rs.getBigDecimal("net_liquidity"))
+                .liquidityRatio(rs.getBigDecimal("liquidity_ratio"))
+                .calculationDate(rs.getTimestamp("calculation_date").toLocalDateTime())
+                .branchCode(rs.getString("branch_code"))
+                .status(rs.getString("status"))
+                .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+                .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+                .version(rs.getLong("version"))
+                .build();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    public record CashDelta(String branchCode, String currency, BigDecimal amount) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.bank.liquidity.repository;
+
+import com.bank.liquidity.model.RegulatoryBucket;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@Repository
+@RequiredArgsConstructor
+public class LiquidityPositionComponentRepository {
+
+    private static final String DELETE_SQL = """
+        DELETE FROM liquidity_position_components
+        WHERE branch_code = ? AND currency = ?
+        """;
+
+    private static final String INSERT_SQL = """
+        INSERT INTO liquidity_position_components (branch_code, currency, bucket, amount, updated_at)
+        VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)
+        """;
+
+    private static final String SELECT_ALL_SQL = """
+        SELECT branch_code, currency, bucket, amount
+        FROM liquidity_position_components
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Заменяет классификацию пары филиал/валюта целиком; нулевые суммы не хранятся
+    public void replace(String branchCode, String currency, Map<RegulatoryBucket, BigDecimal> components) {
+        jdbcTemplate.update(DELETE_SQL, branchCode, currency);
+
+        List<Object[]> rows = new ArrayList<>(components.size());
+        components.forEach((bucket, amount) -> {
+            if (amount.signum() != 0) {
+                rows.add(new Object[]{branchCode, currency, bucket.name(), amount});
+            }
+        });
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+    }
+
+    // Строки читаются потоком: таблица растет вместе с числом позиций
+    public void forEach(Consumer<Component> consumer) {
+        jdbcTemplate.query(SELECT_ALL_SQL, rs -> {
+            consumer.accept(new Component(
+                    rs.getString("branch_code"),
+                    rs.getString("currency"),
+                    RegulatoryBucket.valueOf(rs.getString("bucket")),
+                    rs.getBigDecimal("amount")));
+        });
+    }
+
+    public record Component(String branchCode, String currency, RegulatoryBucket bucket, BigDecimal amount) {
+    }
+}
@@ -0,0 +1,216 @@
+package com.bank.liquidity.repository;
+
+import com.bank.liquidity.dto.LiquidityHistoryPointResponse;
+import com.bank.liquidity.dto.LiquidityRollupResponse;
+import com.bank.liquidity.dto.LiquidityRollupResponse.Granularity;
+import com.bank.liquidity.model.LiquidityPosition;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+
+// История позиций и агрегаты. Все выборки ограничены диапазоном calculation_date / bucket_start,
+// чтобы PostgreSQL читал только партиции и строки агрегатов нужного интервала
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class LiquidityPositionHistoryRepository {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final int AVERAGE_SCALE = 4;
+
+    private static final String APPEND_SQL = """
+        INSERT INTO liquidity_position_history (branch_code, currency, available_cash, required_reserves,
+                                                net_liquidity, liquidity_ratio, status, calculation_date)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String HISTORY_COLUMNS = """
+        SELECT branch_code, currency, available_cash, required_reserves, net_liquidity, liquidity_ratio,
+               status, calculation_date
+        FROM liquidity_position_history
+        """;
+
+    private static final String LATEST_IN_WINDOW_SQL = HISTORY_COLUMNS + """
+        WHERE branch_code = ? AND currency = ? AND calculation_date >= ? AND calculation_date < ?
+        ORDER BY calculation_date DESC, id DESC
+        LIMIT 1
+        """;
+
+    private static final String RANGE_SQL = HISTORY_COLUMNS + """
+        WHERE branch_code = ? AND currency = ? AND calculation_date >= ? AND calculation_date < ?
+        ORDER BY calculation_date, id
+        LIMIT ?
+        """;
+
+    private static final String ROLLUPS_SQL = """
+        SELECT granularity, bucket_start, branch_code, currency, samples,
+               min_net_liquidity, max_net_liquidity, sum_net_liquidity,
+               min_liquidity_ratio, max_liquidity_ratio, sum_liquidity_ratio, ratio_samples,
+               last_net_liquidity, last_liquidity_ratio, last_calculation_date
+        FROM liquidity_position_rollups
+        WHERE granularity = ? AND branch_code = ? AND currency = ? AND bucket_start >= ? AND bucket_start < ?
+        ORDER BY bucket_start
+        """;
+
+    private static final String ON_CONFLICT_REPLACE = """
+        ON CONFLICT (granularity, branch_code, currency, bucket_start) DO UPDATE SET
+            samples = EXCLUDED.samples,
+            min_net_liquidity = EXCLUDED.min_net_liquidity,
+            max_net_liquidity = EXCLUDED.max_net_liquidity,
+            sum_net_liquidity = EXCLUDED.sum_net_liquidity,
+            min_liquidity_ratio = EXCLUDED.min_liquidity_ratio,
+            max_liquidity_ratio = EXCLUDED.max_liquidity_ratio,
+            sum_liquidity_ratio = EXCLUDED.sum_liquidity_ratio,
+            ratio_samples = EXCLUDED.ratio_samples,
+            last_net_liquidity = EXCLUDED.last_net_liquidity,
+            last_liquidity_ratio = EXCLUDED.last_liquidity_ratio,
+            last_calculation_date = EXCLUDED.last_calculation_date,
+            updated_at = EXCLUDED.updated_at
+        """;
+
+    // Часовые агрегаты пересчитываются целиком по сырой истории, поэтому повторный запуск идемпотентен
+    private static final String ROLLUP_HOURS_SQL = """
+        INSERT INTO liquidity_position_rollups (granularity, bucket_start, branch_code, currency, samples,
+                                                min_net_liquidity, max_net_liquidity, sum_net_liquidity,
+                                                min_liquidity_ratio, max_liquidity_ratio, sum_liquidity_ratio,
+                                                ratio_samples, last_net_liquidity, last_liquidity_ratio,
+                                                last_calculation_date, updated_at)
+        SELECT 'HOUR', date_trunc('hour', calculation_date), branch_code, currency, COUNT(*),
+               MIN(net_liquidity), MAX(net_liquidity), SUM(net_liquidity),
+               MIN(liquidity_ratio), MAX(liquidity_ratio), SUM(liquidity_ratio), COUNT(liquidity_ratio),
+               (ARRAY_AGG(net_liquidity ORDER BY calculation_date DESC, id DESC))[1],
+               (ARRAY_AGG(liquidity_ratio ORDER BY calculation_date DESC, id DESC))[1],
+               MAX(calculation_date), CURRENT_TIMESTAMP
+        FROM liquidity_position_history
+        WHERE calculation_date >= ? AND calculation_date < ?
+        GROUP BY date_trunc('hour', calculation_date), branch_code, currency
+        """ + ON_CONFLICT_REPLACE;
+
+    // Дневные агрегаты собираются из часовых, сырая история за сутки повторно не читается
+    private static final String ROLLUP_DAYS_SQL = """
+        INSERT INTO liquidity_position_rollups (granularity, bucket_start, branch_code, currency, samples,
+                                                min_net_liquidity, max_net_liquidity, sum_net_liquidity,
+                                                min_liquidity_ratio, max_liquidity_ratio, sum_liquidity_ratio,
+                                                ratio_samples, last_net_liquidity, last_liquidity_ratio,
+                                                last_calculation_date, updated_at)
+        SELECT 'DAY', date_trunc('day', bucket_start), branch_code, currency, SUM(samples),
+               MIN(min_net_liquidity), MAX(max_net_liquidity), SUM(sum_net_liquidity),
+               MIN(min_liquidity_ratio), MAX(max_liquidity_ratio), SUM(sum_liquidity_ratio), SUM(ratio_samples),
+               (ARRAY_AGG(last_net_liquidity ORDER BY last_calculation_date DESC))[1],
+               (ARRAY_AGG(last_liquidity_ratio ORDER BY last_calculation_date DESC))[1],
+               MAX(last_calculation_date), CURRENT_TIMESTAMP
+        FROM liquidity_position_rollups
+        WHERE granularity = 'HOUR' AND bucket_start >= ? AND bucket_start < ?
+        GROUP BY date_trunc('day', bucket_start), branch_code, currency
+        """ + ON_CONFLICT_REPLACE;
+
+    private static final RowMapper<LiquidityHistoryPointResponse> HISTORY_ROW_MAPPER = (rs, rowNum) ->
+            LiquidityHistoryPointResponse.builder()
+                    .branchCode(rs.getString("branch_code"))
+                    .currency(rs.getString("currency"))
+                    .availableCash(rs.getBigDecimal("available_cash"))
+                    .requiredReserves(rs.getBigDecimal("required_reserves"))
+                    .netLiquidity(rs.getBigDecimal("net_liquidity"))
+                    .liquidityRatio(rs.getBigDecimal("liquidity_ratio"))
+                    .status(rs.getString("status"))
+                    .calculationDate(rs.getTimestamp("calculation_date").toLocalDateTime())
+                    .build();
+
+    private static final RowMapper<LiquidityRollupResponse> ROLLUP_ROW_MAPPER = (rs, rowNum) -> {
+        long samples = rs.getLong("samples");
+        long ratioSamples = rs.getLong("ratio_samples");
+        return LiquidityRollupResponse.builder()
+                .granularity(Granularity.valueOf(rs.getString("granularity")))
+                .bucketStart(rs.getTimestamp("bucket_start").toLocalDateTime())
+                .branchCode(rs.getString("branch_code"))
+                .currency(rs.getString("currency"))
+                .samples(samples)
+                .minNetLiquidity(rs.getBigDecimal("min_net_liquidity"))
+                .maxNetLiquidity(rs.getBigDecimal("max_net_liquidity"))
+                .avgNetLiquidity(average(rs.getBigDecimal("sum_net_liquidity"), samples))
+                .lastNetLiquidity(rs.getBigDecimal("last_net_liquidity"))
+                .minLiquidityRatio(rs.getBigDecimal("min_liquidity_ratio"))
+                .maxLiquidityRatio(rs.getBigDecimal("max_liquidity_ratio"))
+                .avgLiquidityRatio(average(rs.getBigDecimal("sum_liquidity_ratio"), ratioSamples))
+                .lastLiquidityRatio(rs.getBigDecimal("last_liquidity_ratio"))
+                .lastCalculationDate(rs.getTimestamp("last_calculation_date").toLocalDateTime())
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Позиции должны иметь рассчитанные производные поля и calculationDate
+    public int appendAll(List<LiquidityPosition> positions, int chunkSize) {
+        int[][] results = jdbcTemplate.batchUpdate(APPEND_SQL, positions, chunkSize, (ps, position) -> {
+            ps.setString(1, position.getBranchCode());
+            ps.setString(2, position.getCurrency());
+            ps.setBigDecimal(3, position.getAvailableCash());
+            ps.setBigDecimal(4, position.getRequiredReserves());
+            ps.setBigDecimal(5, position.getNetLiquidity());
+            ps.setBigDecimal(6, position.getLiquidityRatio());
+            ps.setString(7, position.getStatus());
+            ps.setTimestamp(8, Timestamp.valueOf(position.getCalculationDate()));
+        });
+
+        log.debug("Appended {} liquidity history rows in {} JDBC batches", positions.size(), results.length);
+        return positions.size();
+    }
+
+    // Последняя запись в окне [from, to); окно вызывающий код ограничивает одной месячной партицией
+    public Optional<LiquidityHistoryPointResponse> findLatestInWindow(String branchCode, String currency,
+                                                                      LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(LATEST_IN_WINDOW_SQL, HISTORY_ROW_MAPPER,
+                        branchCode, currency, Timestamp.valueOf(from), Timestamp.valueOf(to))
+                .stream()
+                .findFirst();
+    }
+
+    public List<LiquidityHistoryPointResponse> findRange(String branchCode, String currency,
+                                                         LocalDateTime from, LocalDateTime to, int limit) {
+        return jdbcTemplate.query(RANGE_SQL, HISTORY_ROW_MAPPER,
+                branchCode, currency, Timestamp.valueOf(from), Timestamp.valueOf(to), limit);
+    }
+
+    public List<LiquidityRollupResponse> findRollups(Granularity granularity, String branchCode, String currency,
+                                                     LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(ROLLUPS_SQL, ROLLUP_ROW_MAPPER,
+                granularity.name(), branchCode, currency, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    // Границы выравниваются вызывающим кодом по началу часа, иначе крайние часы пересчитаются по неполным данным
+    public int rollupHours(LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.update(ROLLUP_HOURS_SQL, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    // Границы выравниваются по началу суток
+    public int rollupDays(LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.update(ROLLUP_DAYS_SQL, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    public void createMonthlyPartition(YearMonth month) {
+        // Имя и границы строятся из YearMonth, пользовательский ввод в DDL не попадает
+        String sql = String.format(
+                "CREATE TABLE IF NOT EXISTS liquidity_position_history_p%s PARTITION OF liquidity_position_history "
+                        + "FOR VALUES FROM ('%s') TO ('%s')",
+                month.format(PARTITION_SUFFIX), month.atDay(1), month.plusMonths(1).atDay(1));
+        jdbcTemplate.execute(sql);
+    }
+
+    private static BigDecimal average(BigDecimal sum, long samples) {
+        if (sum == null || samples == 0) {
+            return null;
+        }
+        return sum.divide(BigDecimal.valueOf(samples), AVERAGE_SCALE, RoundingMode.HALF_UP);
+    }
+}
@@ -1,8 +1,14 @@
 package com.bank.liquidity.repository;
 
+import com.bank.liquidity.dto.LiquidityPositionResponse;
 import com.bank.liquidity.model.LiquidityPosition;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -10,14 +16,30 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface LiquidityPositionRepository extends JpaRepository<LiquidityPosition, Long> {
 
+    // Списки для API читаются сразу в LiquidityPositionResponse: без сущностей в контексте персистентности
+    // и без копирования полей в mapToResponse. Порядок аргументов - порядок полей LiquidityPositionResponse
+    String RESPONSE_SELECT = """
+        SELECT new com.bank.liquidity.dto.LiquidityPositionResponse(
+            lp.id, lp.currency, lp.availableCash, lp.requiredReserves, lp.netLiquidity, lp.liquidityRatio,
+            lp.calculationDate, lp.branchCode, lp.status, lp.createdAt, lp.updatedAt, lp.version)
+        FROM LiquidityPosition lp
+        """;
+
     List<LiquidityPosition> findByBranchCode(String branchCode);
 
     Optional<LiquidityPosition> findByBranchCodeAndCurrency(String branchCode, String currency);
 
+    // Для записи в полосе: строка блокируется до коммита, поэтому атомарные сдвиги наличности из Kafka
+    // ждут эту запись, а не приводят к ошибке проверки версии при ее сохранении
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT lp FROM LiquidityPosition lp WHERE lp.branchCode = :branchCode AND lp.currency = :currency")
+    Optional<LiquidityPosition> findForUpdate(@Param("branchCode") String branchCode, @Param("currency") String currency);
+
     List<LiquidityPosition> findByStatus(String status);
 
     List<LiquidityPosition> findByNetLiquidityLessThan(BigDecimal threshold);
@@ -27,6 +49,21 @@ public interface LiquidityPositionRepository extends JpaRepository<LiquidityPosi
     @Query("SELECT lp FROM LiquidityPosition lp WHERE lp.netLiquidity < 0")
     List<LiquidityPosition> findNegativeLiquidityPositions();
 
+    @Query("SELECT COUNT(lp) FROM LiquidityPosition lp WHERE lp.netLiquidity < 0")
+    long countNegativeLiquidityPositions();
+
+    @Query(RESPONSE_SELECT)
+    List<LiquidityPositionResponse> findAllResponses();
+
+    @Query(RESPONSE_SELECT + "WHERE lp.branchCode = :branchCode")
+    List<LiquidityPositionResponse> findResponsesByBranchCode(@Param("branchCode") String branchCode);
+
+    @Query(RESPONSE_SELECT + "WHERE lp.netLiquidity < 0")
+    List<LiquidityPositionResponse> findNegativeLiquidityResponses();
+
+    @Query(RESPONSE_SELECT + "WHERE lp.liquidityRatio < :threshold")
+    List<LiquidityPositionResponse> findResponsesBelowLiquidityRatio(@Param("threshold") BigDecimal threshold);
+
     @Query("SELECT SUM(lp.netLiquidity) FROM LiquidityPosition lp WHERE lp.currency = :currency")
     Optional<BigDecimal> getTotalNetLiquidityByCurrency(@Param("currency") String currency);
 
@@ -46,4 +83,21 @@ public interface LiquidityPositionRepository extends JpaRepository<LiquidityPosi
         LIMIT :limit
         """, nativeQuery = true)
     List<LiquidityPosition> findRecentPositions(@Param("since") LocalDateTime since, @Param("limit") int limit);
-}
\ No newline at end of file
+
+    // Keyset-пагинация по id: стоимость глубокой страницы равна стоимости первой
+    @Query(RESPONSE_SELECT + "WHERE lp.id > :afterId ORDER BY lp.id ASC LIMIT :limit")
+    List<LiquidityPositionResponse> findResponsePageAfterId(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    // Потоковое чтение через JDBC-курсор; вызывать только внутри транзакции и закрывать Stream
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT lp FROM LiquidityPosition lp ORDER BY lp.id ASC")
+    Stream<LiquidityPosition> streamAllOrderedById();
+
+    // Только поля для стресс-тестов (currency, availableCash, requiredReserves), без загрузки сущностей
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT lp.currency, lp.availableCash, lp.requiredReserves FROM LiquidityPosition lp")
+    Stream<Object[]> streamStressTestInputs();
+}
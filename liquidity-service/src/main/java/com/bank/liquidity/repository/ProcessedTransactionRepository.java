@@ -0,0 +1,123 @@
+package com.bank.liquidity.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class ProcessedTransactionRepository {
+
+    // Строка без delta_minor - отметка статуса, пришедшего раньше самой транзакции: вклад дописывается,
+    // а applied остается тем, что задал статус. Повторная доставка не возвращает строку
+    private static final String REGISTER_SQL = """
+        INSERT INTO processed_transactions (transaction_id, branch_code, currency, delta_minor, applied, processed_at)
+        SELECT t.id, t.branch_code, t.currency, t.delta_minor, t.applied, CURRENT_TIMESTAMP
+        FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::bigint[], ?::boolean[])
+            AS t(id, branch_code, currency, delta_minor, applied)
+        ON CONFLICT (transaction_id) DO UPDATE
+            SET branch_code = EXCLUDED.branch_code, currency = EXCLUDED.currency, delta_minor = EXCLUDED.delta_minor
+            WHERE processed_transactions.delta_minor IS NULL
+        RETURNING transaction_id, applied
+        """;
+    // Возвращаются только строки, у которых applied действительно сменился, и новые отметки;
+    // повтор того же статуса ничего не возвращает
+    private static final String TRANSITION_SQL = """
+        INSERT INTO processed_transactions (transaction_id, applied, processed_at)
+        SELECT t.id, t.applied, CURRENT_TIMESTAMP FROM unnest(?::varchar[], ?::boolean[]) AS t(id, applied)
+        ON CONFLICT (transaction_id) DO UPDATE SET applied = EXCLUDED.applied
+            WHERE processed_transactions.applied <> EXCLUDED.applied
+        RETURNING transaction_id, branch_code, currency, delta_minor, applied
+        """;
+    // Удаление порциями по idx_processed_transactions_processed_at: короткие транзакции без долгих блокировок
+    private static final String DELETE_BEFORE_SQL = """
+        DELETE FROM processed_transactions WHERE transaction_id IN (
+            SELECT transaction_id FROM processed_transactions WHERE processed_at < ? LIMIT ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Регистрирует транзакции одним запросом. Возвращает applied для тех, что регистрируются впервые:
+     * их вклад нужно прибавить к позиции, если applied == true. Идентификаторы в пачке должны быть уникальны.
+     */
+    public Map<String, Boolean> register(Collection<Registration> registrations) {
+        int size = registrations.size();
+        Object[] ids = new Object[size];
+        Object[] branchCodes = new Object[size];
+        Object[] currencies = new Object[size];
+        Object[] deltas = new Object[size];
+        Object[] applied = new Object[size];
+        int i = 0;
+        for (Registration registration : registrations) {
+            ids[i] = registration.transactionId();
+            branchCodes[i] = registration.branchCode();
+            currencies[i] = registration.currency();
+            deltas[i] = registration.deltaMinorUnits();
+            applied[i] = registration.applied();
+            i++;
+        }
+
+        Map<String, Boolean> registered = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(REGISTER_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", ids));
+            ps.setArray(2, connection.createArrayOf("varchar", branchCodes));
+            ps.setArray(3, connection.createArrayOf("varchar", currencies));
+            ps.setArray(4, connection.createArrayOf("bigint", deltas));
+            ps.setArray(5, connection.createArrayOf("boolean", applied));
+            return ps;
+        }, rs -> {
+            registered.put(rs.getString("transaction_id"), rs.getBoolean("applied"));
+        });
+        return registered;
+    }
+
+    /**
+     * Переводит транзакции в состояние applied, заданное их последним статусом. Возвращает только
+     * фактические переходы: вклад таких транзакций нужно прибавить (applied == true) или вычесть.
+     * Для еще не зарегистрированных транзакций остается отметка без вклада.
+     */
+    public List<Transition> transition(Map<String, Boolean> appliedByTransactionId) {
+        Object[] ids = appliedByTransactionId.keySet().toArray();
+        Object[] applied = appliedByTransactionId.values().toArray();
+
+        List<Transition> transitions = new ArrayList<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(TRANSITION_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", ids));
+            ps.setArray(2, connection.createArrayOf("boolean", applied));
+            return ps;
+        }, rs -> {
+            long delta = rs.getLong("delta_minor");
+            if (rs.wasNull()) {
+                return;
+            }
+            transitions.add(new Transition(rs.getString("transaction_id"), rs.getString("branch_code"),
+                    rs.getString("currency"), delta, rs.getBoolean("applied")));
+        });
+        return transitions;
+    }
+
+    public int deleteProcessedBefore(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update(DELETE_BEFORE_SQL, Timestamp.valueOf(cutoff), limit);
+    }
+
+    // deltaMinorUnits - вклад транзакции в availableCash со знаком, в минимальных единицах валюты
+    public record Registration(String transactionId, String branchCode, String currency,
+                               long deltaMinorUnits, boolean applied) {
+    }
+
+    public record Transition(String transactionId, String branchCode, String currency,
+                             long deltaMinorUnits, boolean applied) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.model.LiquidityAlert;
+import com.bank.liquidity.model.LiquidityPosition;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class LiquidityAlertEvaluator {
+
+    // Умножение на 0.5 точно: divide(2) с масштабом делимого округлил бы середину 0.75 до 0.8
+    private static final BigDecimal HALF = new BigDecimal("0.5");
+
+    private final LiquidityProperties properties;
+
+    // Возвращает алерты для условий, выполняющихся для позиции сейчас; открытие, обновление
+    // и закрытие существующих алертов решает LiquidityAlertIndex
+    public List<LiquidityAlert> evaluate(LiquidityPosition position) {
+        LiquidityProperties.Alerts thresholds = properties.getAlerts();
+        BigDecimal ratio = position.getLiquidityRatio();
+        List<LiquidityAlert> alerts = new ArrayList<>(3);
+
+        // Проверка на дефицит ликвидности
+        if (position.getNetLiquidity().compareTo(thresholds.getDeficitThreshold()) < 0) {
+            int severity = ratio.compareTo(thresholds.getCriticalLiquidityThreshold()) < 0 ? 9 : 8;
+            alerts.add(buildDeficitAlert(position, severity));
+        }
+
+        // Проверка на низкий коэффициент ликвидности; ниже середины интервала до критического порога серьезность выше
+        if (ratio.compareTo(thresholds.getLowLiquidityThreshold()) < 0) {
+            BigDecimal midpoint = thresholds.getLowLiquidityThreshold()
+                    .add(thresholds.getCriticalLiquidityThreshold())
+                    .multiply(HALF);
+            alerts.add(buildLowLiquidityAlert(position, ratio.compareTo(midpoint) < 0 ? 6 : 5));
+        }
+
+        // Проверка на критическую ликвидность; ниже половины критического порога - максимальная серьезность
+        if (ratio.compareTo(thresholds.getCriticalLiquidityThreshold()) < 0) {
+            BigDecimal severeThreshold = thresholds.getCriticalLiquidityThreshold().multiply(HALF);
+            alerts.add(buildCriticalLiquidityAlert(position, ratio.compareTo(severeThreshold) < 0 ? 10 : 9));
+        }
+
+        return alerts;
+    }
+
+    private LiquidityAlert buildDeficitAlert(LiquidityPosition position, int severity) {
+        return LiquidityAlert.builder()
+                .alertType(LiquidityAlert.AlertType.DEFICIT)
+                .status(LiquidityAlert.AlertStatus.ACTIVE)
+                .branchCode(position.getBranchCode())
+                .currency(position.getCurrency())
+                .deficitAmount(position.getNetLiquidity().abs())
+                .liquidityRatio(position.getLiquidityRatio())
+                .message(String.format("Liquidity deficit of %s %s in branch %s",
+                        position.getNetLiquidity().abs(), position.getCurrency(), position.getBranchCode()))
+                .severity(severity)
+                .build();
+    }
+
+    private LiquidityAlert buildLowLiquidityAlert(LiquidityPosition position, int severity) {
+        return LiquidityAlert.builder()
+                .alertType(LiquidityAlert.AlertType.LOW_LIQUIDITY)
+                .status(LiquidityAlert.AlertStatus.ACTIVE)
+                .branchCode(position.getBranchCode())
+                .currency(position.getCurrency())
+                .deficitAmount(BigDecimal.ZERO)
+                .liquidityRatio(position.getLiquidityRatio())
+                .message(String.format("Low liquidity ratio: %s in branch %s",
+                        position.getLiquidityRatio(), position.getBranchCode()))
+                .severity(severity)
+                .build();
+    }
+
+    private LiquidityAlert buildCriticalLiquidityAlert(LiquidityPosition position, int severity) {
+        return LiquidityAlert.builder()
+                .alertType(LiquidityAlert.AlertType.CRITICAL)
+                .status(LiquidityAlert.AlertStatus.ACTIVE)
+                .branchCode(position.getBranchCode())
+                .currency(position.getCurrency())
+                .deficitAmount(position.getNetLiquidity().abs())
+                .liquidityRatio(position.getLiquidityRatio())
+                .message(String.format("Critical liquidity situation in branch %s. Ratio: %s",
+                        position.getBranchCode(), position.getLiquidityRatio()))
+                .severity(severity)
+                .build();
+    }
+}
@@ -0,0 +1,177 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.event.LiquidityAlertChangedEvent;
+import com.bank.liquidity.model.LiquidityAlert;
+import com.bank.liquidity.model.LiquidityAlert.AlertStatus;
+import com.bank.liquidity.model.LiquidityAlert.AlertType;
+import com.bank.liquidity.model.LiquidityPosition;
+import com.bank.liquidity.repository.LiquidityAlertRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiquidityAlertIndex {
+
+    // Типы, которые конвейер открывает и закрывает сам; остальные закрываются только вручную
+    static final Set<AlertType> MANAGED_TYPES = EnumSet.of(AlertType.DEFICIT, AlertType.LOW_LIQUIDITY, AlertType.CRITICAL);
+
+    private static final List<AlertStatus> OPEN_STATUSES = List.of(AlertStatus.ACTIVE, AlertStatus.ACKNOWLEDGED);
+
+    private final LiquidityAlertRepository alertRepository;
+    private final Map<AlertKey, LiquidityAlert> openAlerts = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public void load() {
+        List<LiquidityAlert> alerts = alertRepository.findByStatusIn(OPEN_STATUSES);
+        alerts.forEach(this::apply);
+        loaded = true;
+        log.info("Loaded {} open liquidity alerts into alert index", alerts.size());
+    }
+
+    // Перечитывает открытые алерты пары филиал/валюта из базы, заменяя устаревшие записи индекса
+    public void refresh(String branchCode, String currency) {
+        List<LiquidityAlert> alerts =
+                alertRepository.findByBranchCodeAndCurrencyAndStatusIn(branchCode, currency, OPEN_STATUSES);
+        for (AlertType type : AlertType.values()) {
+            openAlerts.remove(new AlertKey(branchCode, currency, type));
+        }
+        alerts.forEach(alert -> openAlerts.put(AlertKey.of(alert), alert));
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return openAlerts.size();
+    }
+
+    public List<LiquidityAlert> getOpenAlerts() {
+        return List.copyOf(openAlerts.values());
+    }
+
+    public Optional<LiquidityAlert> findOpen(String branchCode, String currency, AlertType alertType) {
+        return Optional.ofNullable(openAlerts.get(new AlertKey(branchCode, currency, alertType)));
+    }
+
+    // Сверяет открытые алерты позиции с условиями, найденными оценщиком. Возвращает копии для сохранения:
+    // новые алерты, обновленные на месте открытые и автоматически закрытые; индекс меняется только после коммита
+    public List<LiquidityAlert> reconcile(LiquidityPosition position, List<LiquidityAlert> raised, LocalDateTime now) {
+        Map<AlertType, LiquidityAlert> raisedByType = new EnumMap<>(AlertType.class);
+        raised.forEach(alert -> raisedByType.put(alert.getAlertType(), alert));
+
+        List<LiquidityAlert> changes = new ArrayList<>(MANAGED_TYPES.size());
+        for (AlertType type : MANAGED_TYPES) {
+            LiquidityAlert current = openAlerts.get(new AlertKey(position.getBranchCode(), position.getCurrency(), type));
+            LiquidityAlert observed = raisedByType.get(type);
+
+            if (observed != null && current == null) {
+                changes.add(open(observed, now));
+            } else if (observed != null) {
+                changes.add(update(current, observed, now));
+            } else if (current != null) {
+                changes.add(resolve(current, position, now));
+            }
+        }
+        return changes;
+    }
+
+    // Индекс обновляется раньше остальных слушателей: из него строится снимок для LiquidityStreamHub
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlertsChanged(LiquidityAlertChangedEvent event) {
+        event.getAlerts().forEach(this::apply);
+    }
+
+    void apply(LiquidityAlert alert) {
+        AlertKey key = AlertKey.of(alert);
+        if (alert.getStatus().isOpen()) {
+            // Другой открытый алерт того же ключа новее текущего; для того же алерта сравниваются версии
+            openAlerts.merge(key, alert, (current, updated) ->
+                    !Objects.equals(current.getId(), updated.getId()) || version(updated) >= version(current)
+                            ? updated : current);
+        } else {
+            openAlerts.computeIfPresent(key, (k, current) ->
+                    Objects.equals(current.getId(), alert.getId()) && version(alert) >= version(current)
+                            ? null : current);
+        }
+    }
+
+    private LiquidityAlert open(LiquidityAlert observed, LocalDateTime now) {
+        if (observed.getAlertType() == AlertType.CRITICAL) {
+            log.error("CRITICAL liquidity alert raised for branch: {}, currency: {}, ratio: {}",
+                    observed.getBranchCode(), observed.getCurrency(), observed.getLiquidityRatio());
+        } else {
+            log.warn("{} alert raised for branch: {}, currency: {}, ratio: {}", observed.getAlertType(),
+                    observed.getBranchCode(), observed.getCurrency(), observed.getLiquidityRatio());
+        }
+        return observed.toBuilder()
+                .occurrenceCount(1)
+                .lastSeenAt(now)
+                .build();
+    }
+
+    private LiquidityAlert update(LiquidityAlert current, LiquidityAlert observed, LocalDateTime now) {
+        LiquidityAlert.LiquidityAlertBuilder builder = current.toBuilder()
+                .deficitAmount(observed.getDeficitAmount())
+                .liquidityRatio(observed.getLiquidityRatio())
+                .message(observed.getMessage())
+                .severity(observed.getSeverity())
+                .occurrenceCount(current.getOccurrenceCount() + 1)
+                .lastSeenAt(now);
+
+        int previousSeverity = current.getSeverity();
+        if (observed.getSeverity() != previousSeverity) {
+            log.warn("{} alert {} for branch: {}, currency: {} changed severity {} -> {}", current.getAlertType(),
+                    current.getId(), current.getBranchCode(), current.getCurrency(),
+                    previousSeverity, observed.getSeverity());
+        }
+        // Эскалация снимает подтверждение: алерт снова требует внимания
+        if (observed.getSeverity() > previousSeverity && current.getStatus() == AlertStatus.ACKNOWLEDGED) {
+            builder.status(AlertStatus.ACTIVE)
+                    .acknowledgedAt(null)
+                    .acknowledgedBy(null);
+        }
+        return builder.build();
+    }
+
+    private LiquidityAlert resolve(LiquidityAlert current, LiquidityPosition position, LocalDateTime now) {
+        log.info("{} alert {} auto-resolved for branch: {}, currency: {}, ratio: {}", current.getAlertType(),
+                current.getId(), current.getBranchCode(), current.getCurrency(), position.getLiquidityRatio());
+        return current.toBuilder()
+                .status(AlertStatus.RESOLVED)
+                .resolvedAt(now)
+                .lastSeenAt(now)
+                .resolutionNotes(String.format("Auto-resolved: position recovered (net liquidity %s, ratio %s)",
+                        position.getNetLiquidity(), position.getLiquidityRatio()))
+                .build();
+    }
+
+    private static long version(LiquidityAlert alert) {
+        return alert.getVersion() != null ? alert.getVersion() : 0L;
+    }
+
+    private record AlertKey(String branchCode, String currency, AlertType alertType) {
+
+        static AlertKey of(LiquidityAlert alert) {
+            return new AlertKey(alert.getBranchCode(), alert.getCurrency(), alert.getAlertType());
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.event.LiquidityAlertChangedEvent;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.bank.liquidity.model.LiquidityAlert;
+import com.bank.liquidity.model.LiquidityPosition;
+import com.bank.liquidity.repository.LiquidityAlertRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+public class LiquidityAlertPipeline {
+
+    private static final long POLL_TIMEOUT_MS = 500;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+
+    private final LiquidityAlertEvaluator alertEvaluator;
+    private final LiquidityAlertIndex alertIndex;
+    private final LiquidityAlertRepository alertRepository;
+    private final LiquidityMetricsService metricsService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockingQueue<PendingEvaluation> queue;
+    private final int batchSize;
+    private final long offerTimeoutMs;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public LiquidityAlertPipeline(LiquidityAlertEvaluator alertEvaluator,
+                                  LiquidityAlertIndex alertIndex,
+                                  LiquidityAlertRepository alertRepository,
+                                  LiquidityMetricsService metricsService,
+                                  TransactionTemplate transactionTemplate,
+                                  ApplicationEventPublisher eventPublisher,
+                                  LiquidityProperties properties) {
+        LiquidityProperties.Pipeline pipeline = properties.getAlerts().getPipeline();
+        this.alertEvaluator = alertEvaluator;
+        this.alertIndex = alertIndex;
+        this.alertRepository = alertRepository;
+        this.metricsService = metricsService;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(pipeline.getQueueCapacity());
+        this.batchSize = pipeline.getBatchSize();
+        this.offerTimeoutMs = pipeline.getOfferTimeoutMs();
+        metricsService.registerAlertQueueGauge(queue);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::runLoop, "liquidity-alert-pipeline");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Liquidity alert pipeline started (batch size: {}, queue capacity: {})",
+                batchSize, queue.remainingCapacity());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Воркер дочитывает очередь перед остановкой
+        running = false;
+        if (worker != null) {
+            worker.join(SHUTDOWN_TIMEOUT_MS);
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Liquidity alert pipeline stopped with {} pending evaluations", queue.size());
+        }
+    }
+
+    // Позиции попадают в очередь только после коммита, поэтому откаченные изменения не порождают алертов
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsChanged(LiquidityPositionChangedEvent event) {
+        submit(event.getPositions());
+    }
+
+    public int submit(List<LiquidityPosition> positions) {
+        long enqueuedAt = System.nanoTime();
+        boolean blocking = true;
+        int accepted = 0;
+
+        for (LiquidityPosition position : positions) {
+            // Производитель ждет освобождения места не дольше offerTimeoutMs; после первого таймаута
+            // остаток пачки отбрасывается без ожидания, чтобы не держать поток запроса
+            if (offer(new PendingEvaluation(position, enqueuedAt), blocking)) {
+                accepted++;
+            } else {
+                blocking = false;
+            }
+        }
+
+        int dropped = positions.size() - accepted;
+        if (dropped > 0) {
+            metricsService.recordAlertEvaluationsDropped(dropped);
+            log.error("Alert pipeline queue is full, dropped {} of {} position evaluations",
+                    dropped, positions.size());
+        }
+        return accepted;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    // Обрабатывает одну пачку из очереди; возвращает количество обработанных позиций
+    int drainOnce() {
+        PendingEvaluation first = queue.poll();
+        return first != null ? processBatch(first) : 0;
+    }
+
+    private boolean offer(PendingEvaluation evaluation, boolean blocking) {
+        if (!blocking) {
+            return queue.offer(evaluation);
+        }
+        try {
+            return queue.offer(evaluation, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void runLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                if (!alertIndex.isLoaded()) {
+                    alertIndex.load();
+                }
+                PendingEvaluation first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    processBatch(first);
+                }
+            } catch (InterruptedException e) {
+                log.debug("Liquidity alert pipeline worker interrupted");
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in liquidity alert pipeline: {}", e.getMessage(), e);
+                pauseAfterError();
+            }
+        }
+        log.info("Liquidity alert pipeline worker stopped");
+    }
+
+    private int processBatch(PendingEvaluation first) {
+        List<PendingEvaluation> batch = new ArrayList<>(Math.min(batchSize, queue.size() + 1));
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+
+        // Из нескольких изменений одной позиции в пачке важно только последнее
+        long now = System.nanoTime();
+        Map<String, LiquidityPosition> latestPositions = new LinkedHashMap<>();
+        for (PendingEvaluation pending : batch) {
+            metricsService.recordAlertPipelineLag(now - pending.enqueuedAt());
+            LiquidityPosition position = pending.position();
+            latestPositions.put(position.getBranchCode() + '|' + position.getCurrency(), position);
+        }
+        Collection<LiquidityPosition> positions = latestPositions.values();
+
+        try {
+            persistTransitions(positions);
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            // Индекс устарел (ручное подтверждение или другой экземпляр сервиса): перечитываем пары и повторяем один раз
+            log.warn("Alert index is stale for {} positions, reloading and retrying: {}",
+                    positions.size(), e.getMessage());
+            try {
+                positions.forEach(position -> alertIndex.refresh(position.getBranchCode(), position.getCurrency()));
+                persistTransitions(positions);
+            } catch (RuntimeException retryError) {
+                recordFailure(positions, retryError);
+            }
+        } catch (RuntimeException e) {
+            recordFailure(positions, e);
+        }
+
+        metricsService.recordAlertPipelineBatch(batch.size());
+        return batch.size();
+    }
+
+    private void persistTransitions(Collection<LiquidityPosition> positions) {
+        LocalDateTime now = LocalDateTime.now();
+        List<LiquidityAlert> changes = new ArrayList<>();
+        for (LiquidityPosition position : positions) {
+            changes.addAll(alertIndex.reconcile(position, alertEvaluator.evaluate(position), now));
+        }
+        if (changes.isEmpty()) {
+            log.debug("Evaluated {} positions, no alert changes", positions.size());
+            return;
+        }
+
+        List<LiquidityAlert> saved = transactionTemplate.execute(status -> {
+            // Загружаем изменяемые алерты одним запросом, чтобы merge не перечитывал их по одному
+            List<Long> existingIds = changes.stream()
+                    .map(LiquidityAlert::getId)
+                    .filter(Objects::nonNull)
+                    .toList();
+            if (!existingIds.isEmpty()) {
+                alertRepository.findAllById(existingIds);
+            }
+            List<LiquidityAlert> result = alertRepository.saveAll(changes);
+            // Индекс открытых алертов обновляется после коммита
+            eventPublisher.publishEvent(new LiquidityAlertChangedEvent(result));
+            return result;
+        });
+
+        if (saved != null) {
+            saved.forEach(this::recordTransition);
+        }
+        log.debug("Evaluated {} positions, {} alert changes persisted", positions.size(), changes.size());
+    }
+
+    private void recordTransition(LiquidityAlert alert) {
+        if (alert.getStatus() == LiquidityAlert.AlertStatus.RESOLVED) {
+            metricsService.recordAlertResolution(alert);
+        } else if (alert.getOccurrenceCount() == 1) {
+            metricsService.recordLiquidityAlert(alert);
+        } else {
+            metricsService.recordAlertUpdate(alert);
+        }
+    }
+
+    private void recordFailure(Collection<LiquidityPosition> positions, RuntimeException e) {
+        metricsService.recordAlertPipelineFailure(positions.size());
+        log.error("Failed to persist alert changes for {} positions: {}", positions.size(), e.getMessage(), e);
+    }
+
+    private void pauseAfterError() {
+        try {
+            Thread.sleep(POLL_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record PendingEvaluation(LiquidityPosition position, long enqueuedAt) {
+    }
+}
@@ -1,9 +1,11 @@
 package com.bank.liquidity.service;
 
+import com.bank.liquidity.event.LiquidityAlertChangedEvent;
 import com.bank.liquidity.model.LiquidityAlert;
 import com.bank.liquidity.repository.LiquidityAlertRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,6 +20,7 @@ public class LiquidityAlertService {
 
     private final LiquidityAlertRepository alertRepository;
     private final LiquidityMetricsService metricsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<LiquidityAlert> getAllAlerts() {
@@ -48,11 +51,16 @@ public class LiquidityAlertService {
 
         return alertRepository.findById(alertId)
                 .map(alert -> {
+                    // Закрытый алерт нельзя вернуть в открытое состояние: по этому ключу уже может быть новый
+                    if (alert.getStatus() == LiquidityAlert.AlertStatus.RESOLVED) {
+                        throw new IllegalArgumentException("Alert " + alertId + " is already resolved");
+                    }
                     alert.setStatus(LiquidityAlert.AlertStatus.ACKNOWLEDGED);
                     alert.setAcknowledgedAt(LocalDateTime.now());
                     alert.setAcknowledgedBy(acknowledgedBy);
 
                     LiquidityAlert updatedAlert = alertRepository.save(alert);
+                    eventPublisher.publishEvent(new LiquidityAlertChangedEvent(List.of(updatedAlert)));
                     metricsService.recordAlertAcknowledgment(updatedAlert);
 
                     log.info("Alert {} acknowledged by {}", alertId, acknowledgedBy);
@@ -74,6 +82,7 @@ public class LiquidityAlertService {
                     alert.setResolutionNotes(resolutionNotes);
 
                     LiquidityAlert updatedAlert = alertRepository.save(alert);
+                    eventPublisher.publishEvent(new LiquidityAlertChangedEvent(List.of(updatedAlert)));
                     metricsService.recordAlertResolution(updatedAlert);
 
                     log.info("Alert {} resolved", alertId);
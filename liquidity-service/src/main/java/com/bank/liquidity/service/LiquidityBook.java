@@ -0,0 +1,393 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.dto.LiquidityBookConsistencyResponse;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.bank.liquidity.model.LiquidityPosition;
+import com.bank.liquidity.model.Money;
+import com.bank.liquidity.repository.LiquidityPositionRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Write-through книга позиций ликвидности в памяти.
+ * Хранит по одной записи на пару (branchCode, currency) в целых минорных единицах
+ * и поддерживает текущие суммы по валютам и филиалам, поэтому сводные запросы не ходят в БД.
+ * События после коммита разных писателей могут прийти не в порядке коммитов: запись заменяется
+ * только позицией с версией строки не старше текущей.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiquidityBook {
+
+    // Границы корзин коэффициента ликвидности в сотых долях: 0.50, 1.00, 1.50, 2.00
+    static final long[] RATIO_BUCKET_BOUNDS = {50L, 100L, 150L, 200L};
+
+    private static final int AMOUNT_SCALE = 2;
+    private static final int RATIO_SCALE = 2;
+    private static final double RATIO_TOLERANCE = 0.0001;
+
+    private final LiquidityPositionRepository positionRepository;
+    private final EntityManager entityManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private BookState state = new BookState();
+    private List<Entry> pendingDuringRebuild;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+        log.info("Rebuilding liquidity book from liquidity_positions");
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        BookState rebuilt = new BookState();
+        try (Stream<LiquidityPosition> positions = positionRepository.streamAllOrderedById()) {
+            positions.forEach(position -> {
+                rebuilt.put(Entry.of(position));
+                entityManager.detach(position);
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild liquidity book, summaries will be served from the database", e);
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Изменения, закоммиченные во время чтения таблицы, накатываем поверх снимка
+            pendingDuringRebuild.forEach(rebuilt::put);
+            pendingDuringRebuild = null;
+            state = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Liquidity book rebuilt with {} positions in {}ms",
+                rebuilt.entries.size(), System.currentTimeMillis() - startTime);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsChanged(LiquidityPositionChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (LiquidityPosition position : event.getPositions()) {
+                Entry entry = Entry.of(position);
+                state.put(entry);
+                if (pendingDuringRebuild != null) {
+                    pendingDuringRebuild.add(entry);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<BigDecimal> getTotalNetLiquidityByCurrency(String currency) {
+        lock.readLock().lock();
+        try {
+            Aggregate aggregate = state.byCurrency.get(currency);
+            if (aggregate == null || aggregate.positions == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(toAmount(aggregate.netLiquidity));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, BigDecimal> getNetLiquidityByBranch() {
+        lock.readLock().lock();
+        try {
+            Map<String, BigDecimal> result = new TreeMap<>();
+            state.byBranch.forEach((branch, aggregate) -> result.put(branch, toAmount(aggregate.netLiquidity)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, BigDecimal> getAverageLiquidityRatioByCurrency() {
+        lock.readLock().lock();
+        try {
+            Map<String, BigDecimal> result = new TreeMap<>();
+            state.byCurrency.forEach((currency, aggregate) -> {
+                if (aggregate.ratioCount > 0) {
+                    result.put(currency, aggregate.averageRatio());
+                }
+            });
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countPositionsBelowLiquidityRatio(BigDecimal threshold) {
+        // Коэффициенты хранятся с точностью до сотых, поэтому ratio < threshold эквивалентно ratio < ceil(threshold)
+        long bound = threshold.setScale(RATIO_SCALE, RoundingMode.CEILING).unscaledValue().longValueExact();
+
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < RATIO_BUCKET_BOUNDS.length; i++) {
+                if (RATIO_BUCKET_BOUNDS[i] == bound) {
+                    long count = 0;
+                    for (int j = 0; j <= i; j++) {
+                        count += state.total.ratioBuckets[j];
+                    }
+                    return count;
+                }
+            }
+            // Порог не совпадает с границей корзины — считаем по записям в памяти
+            return state.entries.values().stream()
+                    .filter(entry -> entry.hasRatio && entry.ratio < bound)
+                    .count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public LiquidityBookConsistencyResponse verifyAgainstDatabase() {
+        log.info("Verifying liquidity book against the database");
+
+        long bookPositions;
+        Map<String, BigDecimal> bookByBranch;
+        Map<String, BigDecimal> bookRatios;
+        Map<String, BigDecimal> bookTotals = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            bookPositions = state.entries.size();
+            bookByBranch = getNetLiquidityByBranch();
+            bookRatios = getAverageLiquidityRatioByCurrency();
+            state.byCurrency.forEach((currency, aggregate) -> bookTotals.put(currency, toAmount(aggregate.netLiquidity)));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<String> mismatches = new ArrayList<>();
+        long databasePositions = positionRepository.count();
+        if (databasePositions != bookPositions) {
+            mismatches.add(String.format("Position count: book=%d, database=%d", bookPositions, databasePositions));
+        }
+
+        Map<String, BigDecimal> databaseByBranch = new HashMap<>();
+        for (Object[] row : positionRepository.getNetLiquidityByBranch()) {
+            databaseByBranch.put((String) row[0], (BigDecimal) row[1]);
+        }
+        compareAmounts("Net liquidity for branch", bookByBranch, databaseByBranch, mismatches);
+
+        Map<String, BigDecimal> databaseRatios = new HashMap<>();
+        for (Object[] row : positionRepository.getAverageLiquidityRatioByCurrency()) {
+            if (row[1] != null) {
+                databaseRatios.put((String) row[0], new BigDecimal(row[1].toString()));
+            }
+        }
+        Set<String> currencies = new TreeSet<>(bookRatios.keySet());
+        currencies.addAll(databaseRatios.keySet());
+        currencies.addAll(bookTotals.keySet());
+        for (String currency : currencies) {
+            BigDecimal bookRatio = bookRatios.get(currency);
+            BigDecimal databaseRatio = databaseRatios.get(currency);
+            if (bookRatio == null || databaseRatio == null
+                    || Math.abs(bookRatio.doubleValue() - databaseRatio.doubleValue()) > RATIO_TOLERANCE) {
+                if (bookRatio != null || databaseRatio != null) {
+                    mismatches.add(String.format("Average ratio for currency %s: book=%s, database=%s",
+                            currency, bookRatio, databaseRatio));
+                }
+            }
+
+            BigDecimal databaseTotal = positionRepository.getTotalNetLiquidityByCurrency(currency).orElse(null);
+            BigDecimal bookTotal = bookTotals.get(currency);
+            if (!amountsEqual(bookTotal, databaseTotal)) {
+                mismatches.add(String.format("Net liquidity for currency %s: book=%s, database=%s",
+                        currency, bookTotal, databaseTotal));
+            }
+        }
+
+        if (!mismatches.isEmpty()) {
+            log.warn("Liquidity book is inconsistent with the database: {}", mismatches);
+        }
+
+        return LiquidityBookConsistencyResponse.builder()
+                .consistent(mismatches.isEmpty())
+                .bookPositions(bookPositions)
+                .databasePositions(databasePositions)
+                .mismatches(mismatches)
+                .checkedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private void compareAmounts(String label, Map<String, BigDecimal> book, Map<String, BigDecimal> database,
+                                List<String> mismatches) {
+        Set<String> keys = new TreeSet<>(book.keySet());
+        keys.addAll(database.keySet());
+        for (String key : keys) {
+            if (!amountsEqual(book.get(key), database.get(key))) {
+                mismatches.add(String.format("%s %s: book=%s, database=%s",
+                        label, key, book.get(key), database.get(key)));
+            }
+        }
+    }
+
+    private static boolean amountsEqual(BigDecimal left, BigDecimal right) {
+        if (left == null || right == null) {
+            return left == right;
+        }
+        return left.compareTo(right) == 0;
+    }
+
+    private static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, AMOUNT_SCALE);
+    }
+
+    private static int bucketIndex(long ratio) {
+        for (int i = 0; i < RATIO_BUCKET_BOUNDS.length; i++) {
+            if (ratio < RATIO_BUCKET_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return RATIO_BUCKET_BOUNDS.length;
+    }
+
+    private static final class BookState {
+        private final Map<String, Entry> entries = new HashMap<>();
+        private final Map<String, Aggregate> byCurrency = new HashMap<>();
+        private final Map<String, Aggregate> byBranch = new HashMap<>();
+        private final Aggregate total = new Aggregate();
+
+        private void put(Entry entry) {
+            String key = entry.branchCode + '|' + entry.currency;
+            Entry previous = entries.get(key);
+            if (previous != null && entry.isOlderThan(previous)) {
+                return;
+            }
+            entries.put(key, entry);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+            apply(entry, 1);
+        }
+
+        private void apply(Entry entry, int sign) {
+            byCurrency.computeIfAbsent(entry.currency, k -> new Aggregate()).apply(entry, sign);
+            byBranch.computeIfAbsent(entry.branchCode, k -> new Aggregate()).apply(entry, sign);
+            total.apply(entry, sign);
+        }
+    }
+
+    private static final class Aggregate {
+        private long netLiquidity;
+        private long availableCash;
+        private long requiredReserves;
+        private int positions;
+        private long ratioSum;
+        private int ratioCount;
+        private final int[] ratioBuckets = new int[RATIO_BUCKET_BOUNDS.length + 1];
+
+        private void apply(Entry entry, int sign) {
+            netLiquidity += sign * entry.netLiquidity;
+            availableCash += sign * entry.availableCash;
+            requiredReserves += sign * entry.requiredReserves;
+            positions += sign;
+            if (entry.hasRatio) {
+                ratioSum += sign * entry.ratio;
+                ratioCount += sign;
+                ratioBuckets[bucketIndex(entry.ratio)] += sign;
+            }
+        }
+
+        private BigDecimal averageRatio() {
+            return BigDecimal.valueOf(ratioSum, RATIO_SCALE)
+                    .divide(BigDecimal.valueOf(ratioCount), 4, RoundingMode.HALF_UP);
+        }
+    }
+
+    private static final class Entry {
+        private final String branchCode;
+        private final String currency;
+        private final long availableCash;
+        private final long requiredReserves;
+        private final long netLiquidity;
+        private final long ratio;
+        private final boolean hasRatio;
+        // Версия строки liquidity_positions; null - неизвестна, такая запись не упорядочивается
+        private final Long version;
+
+        private Entry(String branchCode, String currency, long availableCash, long requiredReserves,
+                      long netLiquidity, long ratio, boolean hasRatio, Long version) {
+            this.branchCode = branchCode;
+            this.currency = currency;
+            this.availableCash = availableCash;
+            this.requiredReserves = requiredReserves;
+            this.netLiquidity = netLiquidity;
+            this.ratio = ratio;
+            this.hasRatio = hasRatio;
+            this.version = version;
+        }
+
+        private boolean isOlderThan(Entry other) {
+            return version != null && other.version != null && version < other.version;
+        }
+
+        private static Entry of(LiquidityPosition position) {
+            // Округляем так же, как PostgreSQL при записи в NUMERIC(15, 2) / NUMERIC(5, 2)
+            BigDecimal ratio = position.getLiquidityRatio();
+            return new Entry(
+                    position.getBranchCode(),
+                    position.getCurrency(),
+                    Money.toScaledLong(position.getAvailableCash(), AMOUNT_SCALE),
+                    Money.toScaledLong(position.getRequiredReserves(), AMOUNT_SCALE),
+                    Money.toScaledLong(position.getNetLiquidity(), AMOUNT_SCALE),
+                    ratio != null ? Money.toScaledLong(ratio, RATIO_SCALE) : 0L,
+                    ratio != null,
+                    position.getVersion());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.bank.liquidity.model.LiquidityPosition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Живые gauge коэффициента и чистой ликвидности по паре филиал/валюта.
+// Значения хранятся в изменяемых holder-ах, число серий ограничено, неактивные серии удаляются из реестра
+@Slf4j
+@Component
+public class LiquidityGaugeRegistry {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxSeries;
+    private final long idleExpiryNanos;
+    private final Map<SeriesKey, Series> series = new ConcurrentHashMap<>();
+    private final Counter rejectedSeries;
+
+    public LiquidityGaugeRegistry(MeterRegistry meterRegistry, LiquidityProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.maxSeries = properties.getMetrics().getMaxGaugeSeries();
+        this.idleExpiryNanos = properties.getMetrics().getGaugeIdleExpiry().toNanos();
+        this.rejectedSeries = Counter.builder("liquidity.gauges.rejected")
+                .description("Position updates not exported because the gauge series limit was reached")
+                .register(meterRegistry);
+        Gauge.builder("liquidity.gauges.series", series, Map::size)
+                .description("Live liquidity gauge series")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsChanged(LiquidityPositionChangedEvent event) {
+        event.getPositions().forEach(this::update);
+    }
+
+    public void update(LiquidityPosition position) {
+        SeriesKey key = new SeriesKey(position.getBranchCode(), position.getCurrency());
+        Series current = series.get(key);
+        if (current == null) {
+            // Лимит проверяется приблизительно: при гонке он может быть превышен на число параллельных писателей
+            if (series.size() >= maxSeries) {
+                rejectedSeries.increment();
+                log.debug("Gauge series limit {} reached, skipping branch: {}, currency: {}",
+                        maxSeries, key.branchCode(), key.currency());
+                return;
+            }
+            current = series.computeIfAbsent(key, this::register);
+        }
+        current.set(position.getLiquidityRatio(), position.getNetLiquidity(), monotonicTime());
+    }
+
+    @Scheduled(fixedDelayString = "${liquidity.metrics.gauge-expiry-check-interval-ms:60000}")
+    public void expireIdleSeries() {
+        long now = monotonicTime();
+        int expired = 0;
+        for (Map.Entry<SeriesKey, Series> entry : series.entrySet()) {
+            Series candidate = entry.getValue();
+            if (now - candidate.lastUpdated.get() > idleExpiryNanos && series.remove(entry.getKey(), candidate)) {
+                meterRegistry.remove(candidate.ratioGauge);
+                meterRegistry.remove(candidate.netGauge);
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            log.debug("Expired {} idle liquidity gauge series, {} remaining", expired, series.size());
+        }
+    }
+
+    public int size() {
+        return series.size();
+    }
+
+    private Series register(SeriesKey key) {
+        Series created = new Series(monotonicTime());
+        created.ratioGauge = Gauge.builder("liquidity.ratio", created, Series::ratio)
+                .tag("branch", key.branchCode())
+                .tag("currency", key.currency())
+                .description("Current liquidity ratio")
+                .strongReference(true)
+                .register(meterRegistry);
+        created.netGauge = Gauge.builder("liquidity.net", created, Series::net)
+                .tag("branch", key.branchCode())
+                .tag("currency", key.currency())
+                .description("Current net liquidity")
+                .strongReference(true)
+                .register(meterRegistry);
+        return created;
+    }
+
+    private long monotonicTime() {
+        return meterRegistry.config().clock().monotonicTime();
+    }
+
+    private record SeriesKey(String branchCode, String currency) {
+    }
+
+    private static final class Series {
+
+        // double хранится как биты long, чтобы обновление не создавало объектов
+        private final AtomicLong ratioBits = new AtomicLong(Double.doubleToRawLongBits(Double.NaN));
+        private final AtomicLong netBits = new AtomicLong(Double.doubleToRawLongBits(Double.NaN));
+        private final AtomicLong lastUpdated;
+        private Gauge ratioGauge;
+        private Gauge netGauge;
+
+        private Series(long now) {
+            this.lastUpdated = new AtomicLong(now);
+        }
+
+        private void set(BigDecimal ratio, BigDecimal net, long now) {
+            ratioBits.set(Double.doubleToRawLongBits(ratio != null ? ratio.doubleValue() : Double.NaN));
+            netBits.set(Double.doubleToRawLongBits(net != null ? net.doubleValue() : Double.NaN));
+            lastUpdated.set(now);
+        }
+
+        private double ratio() {
+            return Double.longBitsToDouble(ratioBits.get());
+        }
+
+        private double net() {
+            return Double.longBitsToDouble(netBits.get());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.repository.LiquidityPositionHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+
+// Создает месячные партиции истории заранее и поддерживает часовые и дневные агрегаты
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiquidityHistoryMaintenance {
+
+    private final LiquidityPositionHistoryRepository historyRepository;
+    private final LiquidityProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ensurePartitions();
+    }
+
+    @Scheduled(cron = "${liquidity.history.partition-cron:0 0 1 * * *}")
+    public void ensurePartitions() {
+        YearMonth current = YearMonth.now();
+        int partitionsAhead = properties.getHistory().getPartitionsAhead();
+        for (int i = 0; i <= partitionsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                historyRepository.createMonthlyPartition(month);
+            } catch (DataAccessException e) {
+                // Например, строки этого месяца уже попали в партицию по умолчанию
+                log.error("Failed to create liquidity history partition for {}: {}", month, e.getMessage());
+            }
+        }
+        log.debug("Liquidity history partitions ensured up to {}", current.plusMonths(partitionsAhead));
+    }
+
+    // Пересчитывает агрегаты за последние rollupLookback; незавершенные час и сутки пересчитываются при каждом запуске
+    @Scheduled(fixedDelayString = "${liquidity.history.rollup-interval-ms:300000}")
+    public void rollup() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = now.minus(properties.getHistory().getRollupLookback());
+        try {
+            long startTime = System.currentTimeMillis();
+            int hours = historyRepository.rollupHours(from.truncatedTo(ChronoUnit.HOURS), now);
+            int days = historyRepository.rollupDays(from.truncatedTo(ChronoUnit.DAYS), now);
+            log.debug("Liquidity history rolled up: {} hourly and {} daily buckets in {}ms",
+                    hours, days, System.currentTimeMillis() - startTime);
+        } catch (DataAccessException e) {
+            log.error("Failed to roll up liquidity history: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.dto.LiquidityHistoryPointResponse;
+import com.bank.liquidity.dto.LiquidityRollupResponse;
+import com.bank.liquidity.dto.LiquidityRollupResponse.Granularity;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.bank.liquidity.repository.LiquidityPositionHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LiquidityHistoryService {
+
+    private static final Duration MAX_HOURLY_RANGE = Duration.ofDays(31);
+    private static final Duration MAX_DAILY_RANGE = Duration.ofDays(366);
+
+    private final LiquidityPositionHistoryRepository historyRepository;
+    private final LiquidityProperties properties;
+
+    // История пишется в той же транзакции, что и позиции: откат изменения откатывает и запись истории
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onPositionsChanged(LiquidityPositionChangedEvent event) {
+        historyRepository.appendAll(event.getPositions(), properties.getBatch().getChunkSize());
+    }
+
+    // Состояние позиции на момент времени: месячные партиции просматриваются от нужной назад, по одной за запрос
+    public Optional<LiquidityHistoryPointResponse> getPositionAt(String branchCode, String currency, LocalDateTime at) {
+        log.debug("Fetching liquidity position history for branch: {}, currency: {} at {}", branchCode, currency, at);
+        // Верхняя граница окна исключающая; PostgreSQL хранит время с точностью до микросекунд
+        LocalDateTime upperBound = at.truncatedTo(ChronoUnit.MICROS).plus(1, ChronoUnit.MICROS);
+        YearMonth month = YearMonth.from(at);
+
+        for (int i = 0; i < properties.getHistory().getPointInTimeLookbackMonths(); i++) {
+            LocalDateTime monthStart = month.atDay(1).atStartOfDay();
+            Optional<LiquidityHistoryPointResponse> point =
+                    historyRepository.findLatestInWindow(branchCode, currency, monthStart, upperBound);
+            if (point.isPresent()) {
+                return point;
+            }
+            upperBound = monthStart;
+            month = month.minusMonths(1);
+        }
+        return Optional.empty();
+    }
+
+    public List<LiquidityHistoryPointResponse> getHistory(String branchCode, String currency,
+                                                          LocalDateTime from, LocalDateTime to, int limit) {
+        validateRange(from, to);
+        int maxRows = properties.getHistory().getMaxRangeRows();
+        if (limit < 1 || limit > maxRows) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxRows);
+        }
+        log.debug("Fetching liquidity position history for branch: {}, currency: {} from {} to {}",
+                branchCode, currency, from, to);
+        return historyRepository.findRange(branchCode, currency, from, to, limit);
+    }
+
+    public List<LiquidityRollupResponse> getRollups(String branchCode, String currency, Granularity granularity,
+                                                    LocalDateTime from, LocalDateTime to) {
+        validateRange(from, to);
+        Duration maxRange = granularity == Granularity.HOUR ? MAX_HOURLY_RANGE : MAX_DAILY_RANGE;
+        if (Duration.between(from, to).compareTo(maxRange) > 0) {
+            throw new IllegalArgumentException(
+                    granularity + " rollup range must not exceed " + maxRange.toDays() + " days");
+        }
+        log.debug("Fetching {} liquidity rollups for branch: {}, currency: {} from {} to {}",
+                granularity, branchCode, currency, from, to);
+        return historyRepository.findRollups(granularity, branchCode, currency, from, to);
+    }
+
+    private static void validateRange(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Range start must be before range end");
+        }
+    }
+}
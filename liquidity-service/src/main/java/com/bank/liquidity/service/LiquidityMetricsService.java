@@ -10,7 +10,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
@@ -29,23 +30,7 @@ public class LiquidityMetricsService {
                 "currency", position.getCurrency(),
                 "status", position.getStatus());
 
-        // Record liquidity ratio
-        meterRegistry.gauge("liquidity.ratio",
-                List.of(
-                        meterRegistry.config().tag("branch", position.getBranchCode()),
-                        meterRegistry.config().tag("currency", position.getCurrency())
-                ),
-                position.getLiquidityRatio(),
-                BigDecimal::doubleValue);
-
-        // Record net liquidity
-        meterRegistry.gauge("liquidity.net",
-                List.of(
-                        meterRegistry.config().tag("branch", position.getBranchCode()),
-                        meterRegistry.config().tag("currency", position.getCurrency())
-                ),
-                position.getNetLiquidity(),
-                BigDecimal::doubleValue);
+        // Текущие значения коэффициента и чистой ликвидности публикует LiquidityGaugeRegistry
 
         log.debug("Recorded metrics for liquidity position: {} (branch: {}, currency: {})",
                 position.getId(), position.getBranchCode(), position.getCurrency());
@@ -62,6 +47,12 @@ public class LiquidityMetricsService {
                 alert.getId(), alert.getAlertType(), alert.getSeverity());
     }
 
+    public void recordAlertUpdate(LiquidityAlert alert) {
+        incrementCounter("liquidity.alerts.updated",
+                "type", alert.getAlertType().name(),
+                "severity", alert.getSeverity().toString());
+    }
+
     public void recordAlertAcknowledgment(LiquidityAlert alert) {
         incrementCounter("liquidity.alerts.acknowledged",
                 "type", alert.getAlertType().name(),
@@ -84,6 +75,66 @@ public class LiquidityMetricsService {
                 "currency", currency);
     }
 
+    public void recordBatchUpsert(int positions, long duration) {
+        incrementCounter("liquidity.positions.batch.upserted");
+        meterRegistry.counter("liquidity.positions.batch.rows").increment(positions);
+        recordTimer("liquidity.positions.batch.duration", duration);
+    }
+
+    public void registerAlertQueueGauge(Collection<?> queue) {
+        Gauge.builder("liquidity.alerts.pipeline.queue.depth", queue, Collection::size)
+                .description("Position evaluations waiting in the alert pipeline")
+                .register(meterRegistry);
+    }
+
+    public void recordAlertPipelineLag(long lagNanos) {
+        recordTimer("liquidity.alerts.pipeline.lag", lagNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAlertPipelineBatch(int positions) {
+        meterRegistry.counter("liquidity.alerts.pipeline.evaluated").increment(positions);
+    }
+
+    public void recordAlertEvaluationsDropped(int positions) {
+        meterRegistry.counter("liquidity.alerts.pipeline.dropped").increment(positions);
+    }
+
+    public void recordAlertPipelineFailure(int positions) {
+        meterRegistry.counter("liquidity.alerts.pipeline.failed").increment(positions);
+    }
+
+    public void registerStreamSubscribersGauge(Collection<?> subscribers) {
+        Gauge.builder("liquidity.stream.subscribers", subscribers, Collection::size)
+                .description("Connected liquidity SSE subscribers")
+                .register(meterRegistry);
+    }
+
+    public void recordStreamEventsDropped(int events) {
+        meterRegistry.counter("liquidity.stream.dropped").increment(events);
+    }
+
+    public void recordTransactionFeedBatch(int received, int folded, int duplicates, int unmatched, long duration) {
+        meterRegistry.counter("liquidity.transactions.received").increment(received);
+        meterRegistry.counter("liquidity.transactions.folded").increment(folded);
+        meterRegistry.counter("liquidity.transactions.duplicates").increment(duplicates);
+        meterRegistry.counter("liquidity.transactions.unmatched").increment(unmatched);
+        recordTimer("liquidity.transactions.batch.duration", duration);
+    }
+
+    public void registerWriteLanesPendingGauge(Map<?, ?> pending) {
+        Gauge.builder("liquidity.positions.write.pending", pending, Map::size)
+                .description("Branch/currency pairs with a position write waiting in a write lane")
+                .register(meterRegistry);
+    }
+
+    public void recordPositionWriteCoalesced() {
+        meterRegistry.counter("liquidity.positions.write.coalesced").increment();
+    }
+
+    public void recordPositionWriteLaneWait(long waitNanos) {
+        recordTimer("liquidity.positions.write.lane.wait", waitNanos, TimeUnit.NANOSECONDS);
+    }
+
     private void incrementCounter(String name, String... tags) {
         String key = name + String.join("", tags);
         Counter counter = counters.computeIfAbsent(key,
@@ -95,12 +146,16 @@ public class LiquidityMetricsService {
     }
 
     private void recordTimer(String name, long duration, String... tags) {
+        recordTimer(name, duration, TimeUnit.MILLISECONDS, tags);
+    }
+
+    private void recordTimer(String name, long duration, TimeUnit unit, String... tags) {
         String key = name + String.join("", tags);
         Timer timer = timers.computeIfAbsent(key,
                 k -> Timer.builder(name)
                         .tags(tags)
                         .description("Liquidity service operation duration")
                         .register(meterRegistry));
-        timer.record(duration, TimeUnit.MILLISECONDS);
+        timer.record(duration, unit);
     }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.dto.LiquidityPositionResponse;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.bank.liquidity.model.LiquidityPosition;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiquidityPositionCacheUpdater {
+
+    static final String ALL_POSITIONS_CACHE = "liquidityPositions";
+    static final String BRANCH_POSITIONS_CACHE = "branchPositions";
+    static final String ALL_POSITIONS_KEY = "all";
+
+    private final CacheManager cacheManager;
+
+    // Вместо сброса всех записей обновляются только затронутые: список филиала и общий список.
+    // Выполняется первым, чтобы снимок для новых подписчиков LiquidityStreamHub уже содержал изменение
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsChanged(LiquidityPositionChangedEvent event) {
+        Cache allPositions = cacheManager.getCache(ALL_POSITIONS_CACHE);
+        Cache branchPositions = cacheManager.getCache(BRANCH_POSITIONS_CACHE);
+        if (allPositions == null || branchPositions == null) {
+            return;
+        }
+
+        Map<String, List<LiquidityPositionResponse>> updatesByBranch = new LinkedHashMap<>();
+        List<LiquidityPositionResponse> updates = new ArrayList<>();
+        Set<String> branchesToEvict = new LinkedHashSet<>();
+
+        for (LiquidityPosition position : event.getPositions()) {
+            if (position.getId() == null) {
+                // Пакетный upsert не возвращает id, такие записи нельзя сопоставить с кэшем
+                branchesToEvict.add(position.getBranchCode());
+                continue;
+            }
+            LiquidityPositionResponse response = LiquidityService.mapToResponse(position);
+            updates.add(response);
+            updatesByBranch.computeIfAbsent(position.getBranchCode(), branch -> new ArrayList<>()).add(response);
+        }
+
+        updatesByBranch.forEach((branchCode, branchUpdates) -> patch(branchPositions, branchCode, branchUpdates));
+        if (!updates.isEmpty()) {
+            patch(allPositions, ALL_POSITIONS_KEY, updates);
+        }
+
+        if (!branchesToEvict.isEmpty()) {
+            branchesToEvict.forEach(branchPositions::evict);
+            allPositions.evict(ALL_POSITIONS_KEY);
+        }
+
+        log.debug("Liquidity position caches updated: {} patched, {} branches evicted",
+                updates.size(), branchesToEvict.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void patch(Cache cache, Object key, List<LiquidityPositionResponse> updates) {
+        if (cache instanceof CaffeineCache caffeineCache) {
+            // computeIfPresent атомарен для ключа: параллельные записи не теряют обновления друг друга,
+            // а отсутствующая запись загрузится из базы при следующем чтении
+            caffeineCache.getNativeCache().asMap().computeIfPresent(key,
+                    (k, cached) -> merge((List<LiquidityPositionResponse>) cached, updates));
+        } else {
+            cache.evict(key);
+        }
+    }
+
+    // Copy-on-write: закэшированный список не меняется, поэтому уже выданные ссылки остаются согласованными.
+    // Событие, пришедшее позже более нового состояния строки, не откатывает запись в кэше
+    static List<LiquidityPositionResponse> merge(List<LiquidityPositionResponse> cached,
+                                                 List<LiquidityPositionResponse> updates) {
+        Map<Long, LiquidityPositionResponse> updatesById = new LinkedHashMap<>();
+        updates.forEach(update -> updatesById.put(update.getId(), update));
+
+        List<LiquidityPositionResponse> merged = new ArrayList<>(cached.size() + updatesById.size());
+        for (LiquidityPositionResponse existing : cached) {
+            LiquidityPositionResponse replacement = updatesById.remove(existing.getId());
+            merged.add(replacement != null && !isOlder(replacement, existing) ? replacement : existing);
+        }
+        merged.addAll(updatesById.values());
+        return merged;
+    }
+
+    private static boolean isOlder(LiquidityPositionResponse update, LiquidityPositionResponse existing) {
+        return update.getVersion() != null && existing.getVersion() != null && update.getVersion() < existing.getVersion();
+    }
+}
@@ -0,0 +1,155 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.dto.LiquidityPositionRequest;
+import com.bank.liquidity.dto.LiquidityPositionResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Полосы записи позиций: все записи одной пары (branchCode, currency) выполняются в одном потоке полосы,
+ * поэтому чтение и сохранение позиции не гоняются друг с другом. Пока запись пары ждет в очереди,
+ * новые запросы той же пары заменяют ее запрос и получают результат той же записи.
+ */
+@Slf4j
+@Component
+public class LiquidityPositionWriteLanes {
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+
+    private final Executor[] lanes;
+    private final ExecutorService[] ownedLanes;
+    private final LiquidityMetricsService metricsService;
+    private final Map<String, PendingWrite> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LiquidityPositionWriteLanes(LiquidityMetricsService metricsService, LiquidityProperties properties) {
+        int laneCount = properties.getWriteLanes().getLanes();
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("liquidity.write-lanes.lanes must be positive");
+        }
+        this.metricsService = metricsService;
+        this.ownedLanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = "liquidity-write-lane-" + i;
+            ownedLanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.lanes = ownedLanes;
+        metricsService.registerWriteLanesPendingGauge(pending);
+    }
+
+    // Для тестов: каждая полоса должна выполнять задачи последовательно
+    LiquidityPositionWriteLanes(LiquidityMetricsService metricsService, Executor... lanes) {
+        this.metricsService = metricsService;
+        this.ownedLanes = new ExecutorService[0];
+        this.lanes = lanes;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ExecutorService lane : ownedLanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : ownedLanes) {
+            if (!lane.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                log.warn("Liquidity write lane did not finish pending writes before shutdown");
+            }
+        }
+    }
+
+    public CompletableFuture<LiquidityPositionResponse> submit(
+            LiquidityPositionRequest request,
+            Function<LiquidityPositionRequest, LiquidityPositionResponse> writer) {
+
+        String key = request.getBranchCode() + '|' + request.getCurrency();
+        PendingWrite[] scheduled = new PendingWrite[1];
+
+        PendingWrite write = pending.compute(key, (k, queued) -> {
+            if (queued != null) {
+                // Запись еще не началась: последний запрос побеждает, как и при последовательном выполнении
+                queued.request = request;
+                queued.waiters++;
+                return queued;
+            }
+            scheduled[0] = new PendingWrite(request, writer);
+            return scheduled[0];
+        });
+
+        if (scheduled[0] == null) {
+            metricsService.recordPositionWriteCoalesced();
+            log.debug("Coalesced liquidity position write for branch: {}, currency: {}",
+                    request.getBranchCode(), request.getCurrency());
+        } else {
+            lanes[Math.floorMod(key.hashCode(), lanes.length)].execute(() -> run(key, scheduled[0]));
+        }
+        return write.result;
+    }
+
+    /**
+     * Отменяет запись, которую вернул submit, если она еще ждет в очереди и ее не ждут другие запросы.
+     * Возвращает false, если запись уже выполняется или выполнена: тогда ее результат будет закоммичен.
+     */
+    public boolean cancel(LiquidityPositionRequest request, CompletableFuture<LiquidityPositionResponse> result) {
+        String key = request.getBranchCode() + '|' + request.getCurrency();
+        boolean[] cancelled = new boolean[1];
+        pending.computeIfPresent(key, (k, queued) -> {
+            if (queued.result != result || queued.waiters > 1) {
+                return queued;
+            }
+            cancelled[0] = true;
+            return null;
+        });
+        if (cancelled[0]) {
+            result.cancel(false);
+        }
+        return cancelled[0];
+    }
+
+    public int getPendingWrites() {
+        return pending.size();
+    }
+
+    private void run(String key, PendingWrite write) {
+        // После удаления из очереди запрос больше не меняется; следующие запросы пары встают за этой записью.
+        // Запись, которой уже нет в очереди, отменена через cancel
+        if (!pending.remove(key, write)) {
+            return;
+        }
+        metricsService.recordPositionWriteLaneWait(System.nanoTime() - write.enqueuedAt);
+        try {
+            write.result.complete(write.writer.apply(write.request));
+        } catch (RuntimeException | Error e) {
+            write.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class PendingWrite {
+        private final Function<LiquidityPositionRequest, LiquidityPositionResponse> writer;
+        private final CompletableFuture<LiquidityPositionResponse> result = new CompletableFuture<>();
+        private final long enqueuedAt = System.nanoTime();
+        // Меняются только внутри pending.compute до удаления записи из очереди
+        private volatile LiquidityPositionRequest request;
+        private int waiters = 1;
+
+        private PendingWrite(LiquidityPositionRequest request,
+                             Function<LiquidityPositionRequest, LiquidityPositionResponse> writer) {
+            this.request = request;
+            this.writer = writer;
+        }
+    }
+}
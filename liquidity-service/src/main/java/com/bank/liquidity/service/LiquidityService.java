@@ -1,24 +1,39 @@
 package com.bank.liquidity.service;
 
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.dto.LiquidityBookConsistencyResponse;
+import com.bank.liquidity.dto.LiquidityPositionBatchResponse;
+import com.bank.liquidity.dto.LiquidityPositionPageResponse;
 import com.bank.liquidity.dto.LiquidityPositionRequest;
 import com.bank.liquidity.dto.LiquidityPositionResponse;
-import com.bank.liquidity.model.LiquidityAlert;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
 import com.bank.liquidity.model.LiquidityPosition;
-import com.bank.liquidity.repository.LiquidityAlertRepository;
+import com.bank.liquidity.repository.LiquidityPositionBatchRepository;
 import com.bank.liquidity.repository.LiquidityPositionRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.slf4j.MDC;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -26,178 +41,253 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class LiquidityService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final LiquidityPositionRepository positionRepository;
-    private final LiquidityAlertRepository alertRepository;
+    private final LiquidityPositionBatchRepository batchRepository;
     private final LiquidityMetricsService metricsService;
-
-    @org.springframework.cache.annotation.CacheEvict(value = {"liquidityPositions", "branchPositions"}, allEntries = true)
+    private final EntityManager entityManager;
+    private final LiquidityBook liquidityBook;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LiquidityProperties properties;
+    private final LiquidityPositionWriteLanes writeLanes;
+    private final TransactionTemplate transactionTemplate;
+
+    // Запись выполняется в полосе пары филиал/валюта в отдельной транзакции; поток запроса
+    // не держит соединение, пока ждет своей очереди. Кэши обновляет LiquidityPositionCacheUpdater после коммита
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public LiquidityPositionResponse createPosition(LiquidityPositionRequest request) {
         log.info("Creating liquidity position for branch: {}, currency: {}",
                 request.getBranchCode(), request.getCurrency());
 
-        String correlationId = MDC.get("correlationId");
-
-        // Проверка существования позиции для данного филиала и валюты
-        Optional<LiquidityPosition> existingPosition =
-                positionRepository.findByBranchCodeAndCurrency(request.getBranchCode(), request.getCurrency());
-
-        LiquidityPosition position;
-        if (existingPosition.isPresent()) {
-            // Обновление существующей позиции ликвидности
-            position = existingPosition.get();
-            position.setAvailableCash(request.getAvailableCash());
-            position.setRequiredReserves(request.getRequiredReserves());
-            log.debug("Updated existing liquidity position: {}", position.getId());
-        } else {
-            // Создание новой позиции ликвидности
-            position = LiquidityPosition.builder()
+        Duration timeout = properties.getWriteLanes().getWriteTimeout();
+        CompletableFuture<LiquidityPositionResponse> result = writeLanes.submit(request, this::writePosition);
+        try {
+            try {
+                return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (writeLanes.cancel(request, result)) {
+                    throw new IllegalStateException("Timed out after " + timeout.toMillis()
+                            + "ms waiting for liquidity position write of branch " + request.getBranchCode()
+                            + ", position was not written");
+                }
+                // Запись уже выполняется или ее ждут другие запросы: ошибка здесь разошлась бы с закоммиченной позицией
+                log.warn("Liquidity position write for branch: {}, currency: {} is still running after {}ms, waiting for it",
+                        request.getBranchCode(), request.getCurrency(), timeout.toMillis());
+                return result.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Liquidity position write failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for liquidity position write", e);
+        }
+    }
+
+    private LiquidityPositionResponse writePosition(LiquidityPositionRequest request) {
+        return transactionTemplate.execute(status -> {
+            // Проверка существования позиции для данного филиала и валюты
+            Optional<LiquidityPosition> existingPosition =
+                    positionRepository.findForUpdate(request.getBranchCode(), request.getCurrency());
+
+            LiquidityPosition position;
+            if (existingPosition.isPresent()) {
+                // Обновление существующей позиции ликвидности
+                position = existingPosition.get();
+                position.setAvailableCash(request.getAvailableCash());
+                position.setRequiredReserves(request.getRequiredReserves());
+                // Производные поля нужны до flush: запись истории выполняется перед коммитом
+                position.setCalculationDate(LocalDateTime.now());
+                position.calculateDerivedFields();
+                log.debug("Updated existing liquidity position: {}", position.getId());
+            } else {
+                // Создание новой позиции ликвидности
+                position = LiquidityPosition.builder()
+                        .currency(request.getCurrency())
+                        .availableCash(request.getAvailableCash())
+                        .requiredReserves(request.getRequiredReserves())
+                        .branchCode(request.getBranchCode())
+                        .build();
+                log.debug("Created new liquidity position");
+            }
+
+            LiquidityPosition savedPosition = positionRepository.save(position);
+
+            // История пишется перед коммитом; книга ликвидности, кэши и конвейер алертов обновляются после коммита
+            eventPublisher.publishEvent(new LiquidityPositionChangedEvent(List.of(savedPosition)));
+
+            // Запись метрик
+            metricsService.recordLiquidityPositionCreation(savedPosition);
+
+            log.info("Liquidity position {} created/updated successfully for branch: {}",
+                    savedPosition.getId(), savedPosition.getBranchCode());
+
+            return mapToResponse(savedPosition);
+        });
+    }
+
+    public LiquidityPositionBatchResponse createPositionsBatch(List<LiquidityPositionRequest> requests) {
+        int maxSize = properties.getBatch().getMaxSize();
+        if (requests.size() > maxSize) {
+            throw new IllegalArgumentException("Batch size must not exceed " + maxSize + " positions");
+        }
+        log.info("Upserting batch of {} liquidity positions", requests.size());
+
+        long startTime = System.currentTimeMillis();
+        LocalDateTime calculationDate = LocalDateTime.now();
+
+        // Последняя позиция для одной пары филиал/валюта побеждает; производные поля считаются до записи
+        Map<String, LiquidityPosition> positionsByKey = new LinkedHashMap<>();
+        for (LiquidityPositionRequest request : requests) {
+            LiquidityPosition position = LiquidityPosition.builder()
                     .currency(request.getCurrency())
                     .availableCash(request.getAvailableCash())
                     .requiredReserves(request.getRequiredReserves())
                     .branchCode(request.getBranchCode())
+                    .calculationDate(calculationDate)
                     .build();
-            log.debug("Created new liquidity position");
+            position.calculateDerivedFields();
+            positionsByKey.put(request.getBranchCode() + '|' + request.getCurrency(), position);
         }
+        List<LiquidityPosition> positions = new ArrayList<>(positionsByKey.values());
 
-        LiquidityPosition savedPosition = positionRepository.save(position);
+        List<LiquidityPosition> saved = batchRepository.upsertAll(positions, properties.getBatch().getChunkSize());
+        int upserted = saved.size();
 
-        // Асинхронная проверка на наличие алертов
-        checkForAlerts(savedPosition);
+        // Алерты и кэши по всему батчу обновляются после коммита; версии строк не дают событию батча
+        // перезаписать в книге и кэшах более позднее состояние, записанное полосой или лентой транзакций
+        eventPublisher.publishEvent(new LiquidityPositionChangedEvent(saved));
 
-        // Запись метрик
-        metricsService.recordLiquidityPositionCreation(savedPosition);
+        long duration = System.currentTimeMillis() - startTime;
+        metricsService.recordBatchUpsert(upserted, duration);
 
-        log.info("Liquidity position {} created/updated successfully for branch: {}",
-                savedPosition.getId(), savedPosition.getBranchCode());
+        log.info("Batch of {} liquidity positions upserted in {}ms", upserted, duration);
 
-        return mapToResponse(savedPosition);
+        return LiquidityPositionBatchResponse.builder()
+                .received(requests.size())
+                .upserted(upserted)
+                .durationMs(duration)
+                .build();
     }
 
     @org.springframework.cache.annotation.Cacheable(value = "liquidityPositions", key = "'all'")
     @Transactional(readOnly = true)
     public List<LiquidityPositionResponse> getAllPositions() {
         log.debug("Fetching all liquidity positions");
-        return positionRepository.findAll().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return positionRepository.findAllResponses();
+    }
+
+    @Transactional(readOnly = true)
+    public LiquidityPositionPageResponse getPositionsPage(Long afterId, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        long cursor = afterId != null ? afterId : 0L;
+        log.debug("Fetching liquidity positions page after id: {}, size: {}", cursor, size);
+
+        // Запрашиваем на одну строку больше, чтобы определить наличие следующей страницы
+        List<LiquidityPositionResponse> rows = positionRepository.findResponsePageAfterId(cursor, size + 1);
+        boolean hasMore = rows.size() > size;
+        List<LiquidityPositionResponse> items = hasMore ? rows.subList(0, size) : rows;
+
+        return LiquidityPositionPageResponse.builder()
+                .items(items)
+                .nextCursor(hasMore ? items.get(items.size() - 1).getId() : null)
+                .hasMore(hasMore)
+                .size(items.size())
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public long streamAllPositions(Consumer<LiquidityPositionResponse> consumer) {
+        log.debug("Streaming all liquidity positions");
+        long count = 0;
+        try (Stream<LiquidityPosition> positions = positionRepository.streamAllOrderedById()) {
+            for (LiquidityPosition position : (Iterable<LiquidityPosition>) positions::iterator) {
+                consumer.accept(mapToResponse(position));
+                // Отсоединяем сущность, чтобы контекст персистентности не рос вместе с таблицей
+                entityManager.detach(position);
+                count++;
+            }
+        }
+        log.debug("Streamed {} liquidity positions", count);
+        return count;
     }
 
     @org.springframework.cache.annotation.Cacheable(value = "branchPositions", key = "#branchCode")
     @Transactional(readOnly = true)
     public List<LiquidityPositionResponse> getPositionsByBranch(String branchCode) {
         log.debug("Fetching liquidity positions for branch: {}", branchCode);
-        return positionRepository.findByBranchCode(branchCode).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return positionRepository.findResponsesByBranchCode(branchCode);
     }
 
     @Transactional(readOnly = true)
     public List<LiquidityPositionResponse> getNegativePositions() {
         log.debug("Fetching negative liquidity positions");
-        return positionRepository.findNegativeLiquidityPositions().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return positionRepository.findNegativeLiquidityResponses();
     }
 
     @Transactional(readOnly = true)
     public Optional<BigDecimal> getTotalNetLiquidityByCurrency(String currency) {
         log.debug("Calculating total net liquidity for currency: {}", currency);
+        if (liquidityBook.isReady()) {
+            return liquidityBook.getTotalNetLiquidityByCurrency(currency);
+        }
         return positionRepository.getTotalNetLiquidityByCurrency(currency);
     }
 
     @Transactional(readOnly = true)
-    public List<LiquidityPositionResponse> getPositionsBelowLiquidityRatio(BigDecimal threshold) {
-        log.debug("Fetching positions below liquidity ratio: {}", threshold);
-        return positionRepository.findAll().stream()
-                .filter(position -> position.getLiquidityRatio().compareTo(threshold) < 0)
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
-    }
-
-    @Async("liquidityTaskExecutor")
-    public CompletableFuture<Void> checkForAlerts(LiquidityPosition position) {
-        log.debug("Checking alerts for position: {} (branch: {}, currency: {})",
-                position.getId(), position.getBranchCode(), position.getCurrency());
-
-        // Проверка на дефицит ликвидности
-        if (position.getNetLiquidity().compareTo(BigDecimal.ZERO) < 0) {
-            createDeficitAlert(position);
+    public Map<String, BigDecimal> getNetLiquidityByBranch() {
+        log.debug("Calculating net liquidity by branch");
+        if (liquidityBook.isReady()) {
+            return liquidityBook.getNetLiquidityByBranch();
         }
-
-        // Проверка на низкий коэффициент ликвидности (ниже 1.0)
-        if (position.getLiquidityRatio().compareTo(BigDecimal.ONE) < 0) {
-            createLowLiquidityAlert(position);
+        Map<String, BigDecimal> result = new HashMap<>();
+        for (Object[] row : positionRepository.getNetLiquidityByBranch()) {
+            result.put((String) row[0], (BigDecimal) row[1]);
         }
+        return result;
+    }
 
-        // Проверка на критическую ликвидность (ниже 0.5)
-        if (position.getLiquidityRatio().compareTo(new BigDecimal("0.5")) < 0) {
-            createCriticalLiquidityAlert(position);
+    @Transactional(readOnly = true)
+    public Map<String, BigDecimal> getAverageLiquidityRatioByCurrency() {
+        log.debug("Calculating average liquidity ratio by currency");
+        if (liquidityBook.isReady()) {
+            return liquidityBook.getAverageLiquidityRatioByCurrency();
         }
-
-        return CompletableFuture.completedFuture(null);
+        Map<String, BigDecimal> result = new HashMap<>();
+        for (Object[] row : positionRepository.getAverageLiquidityRatioByCurrency()) {
+            if (row[1] != null) {
+                result.put((String) row[0], new BigDecimal(row[1].toString()));
+            }
+        }
+        return result;
     }
 
-    private void createDeficitAlert(LiquidityPosition position) {
-        LiquidityAlert alert = LiquidityAlert.builder()
-                .alertType(LiquidityAlert.AlertType.DEFICIT)
-                .status(LiquidityAlert.AlertStatus.ACTIVE)
-                .branchCode(position.getBranchCode())
-                .currency(position.getCurrency())
-                .deficitAmount(position.getNetLiquidity().abs())
-                .liquidityRatio(position.getLiquidityRatio())
-                .message(String.format("Liquidity deficit of %s %s in branch %s",
-                        position.getNetLiquidity().abs(), position.getCurrency(), position.getBranchCode()))
-                .severity(8)
-                .build();
-
-        alertRepository.save(alert);
-        metricsService.recordLiquidityAlert(alert);
-
-        log.warn("Deficit alert created for branch: {}, currency: {}, deficit: {}",
-                position.getBranchCode(), position.getCurrency(), position.getNetLiquidity().abs());
+    @Transactional(readOnly = true)
+    public long countPositionsBelowLiquidityRatio(BigDecimal threshold) {
+        if (liquidityBook.isReady()) {
+            return liquidityBook.countPositionsBelowLiquidityRatio(threshold);
+        }
+        return positionRepository.countPositionsBelowLiquidityRatio(threshold);
     }
 
-    private void createLowLiquidityAlert(LiquidityPosition position) {
-        LiquidityAlert alert = LiquidityAlert.builder()
-                .alertType(LiquidityAlert.AlertType.LOW_LIQUIDITY)
-                .status(LiquidityAlert.AlertStatus.ACTIVE)
-                .branchCode(position.getBranchCode())
-                .currency(position.getCurrency())
-                .deficitAmount(BigDecimal.ZERO)
-                .liquidityRatio(position.getLiquidityRatio())
-                .message(String.format("Low liquidity ratio: %s in branch %s",
-                        position.getLiquidityRatio(), position.getBranchCode()))
-                .severity(5)
-                .build();
-
-        alertRepository.save(alert);
-        metricsService.recordLiquidityAlert(alert);
-
-        log.warn("Low liquidity alert created for branch: {}, currency: {}, ratio: {}",
-                position.getBranchCode(), position.getCurrency(), position.getLiquidityRatio());
+    @Transactional(readOnly = true)
+    public LiquidityBookConsistencyResponse verifyLiquidityBook() {
+        return liquidityBook.verifyAgainstDatabase();
     }
 
-    private void createCriticalLiquidityAlert(LiquidityPosition position) {
-        LiquidityAlert alert = LiquidityAlert.builder()
-                .alertType(LiquidityAlert.AlertType.CRITICAL)
-                .status(LiquidityAlert.AlertStatus.ACTIVE)
-                .branchCode(position.getBranchCode())
-                .currency(position.getCurrency())
-                .deficitAmount(position.getNetLiquidity().abs())
-                .liquidityRatio(position.getLiquidityRatio())
-                .message(String.format("Critical liquidity situation in branch %s. Ratio: %s",
-                        position.getBranchCode(), position.getLiquidityRatio()))
-                .severity(10)
-                .build();
-
-        alertRepository.save(alert);
-        metricsService.recordLiquidityAlert(alert);
-
-        log.error("CRITICAL liquidity alert created for branch: {}, currency: {}, ratio: {}",
-                position.getBranchCode(), position.getCurrency(), position.getLiquidityRatio());
+    @Transactional(readOnly = true)
+    public List<LiquidityPositionResponse> getPositionsBelowLiquidityRatio(BigDecimal threshold) {
+        log.debug("Fetching positions below liquidity ratio: {}", threshold);
+        return positionRepository.findResponsesBelowLiquidityRatio(threshold);
     }
 
-    private LiquidityPositionResponse mapToResponse(LiquidityPosition position) {
+    // Используется также LiquidityPositionCacheUpdater для точечного обновления кэшей
+    static LiquidityPositionResponse mapToResponse(LiquidityPosition position) {
         return LiquidityPositionResponse.builder()
                 .id(position.getId())
                 .currency(position.getCurrency())
@@ -210,6 +300,7 @@ public class LiquidityService {
                 .status(position.getStatus())
                 .createdAt(position.getCreatedAt())
                 .updatedAt(position.getUpdatedAt())
+                .version(position.getVersion())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,286 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.dto.LiquidityPositionResponse;
+import com.bank.liquidity.dto.LiquidityStreamSnapshot;
+import com.bank.liquidity.event.LiquidityAlertChangedEvent;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Раздача изменений позиций и алертов подписчикам SSE. Каждое событие сериализуется один раз,
+// у каждого подписчика свой ограниченный буфер: медленный клиент теряет старые события, а не тормозит остальных
+@Slf4j
+@Component
+public class LiquidityStreamHub {
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+    static final String POSITIONS_EVENT = "positions";
+    static final String ALERTS_EVENT = "alerts";
+    // Подписчик потерял события из-за переполнения буфера и должен перечитать состояние
+    static final String RESYNC_EVENT = "resync";
+
+    private final LiquidityService liquidityService;
+    private final LiquidityAlertIndex alertIndex;
+    private final LiquidityMetricsService metricsService;
+    private final ObjectMapper objectMapper;
+    private final Executor sender;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final long emitterTimeoutMs;
+
+    @Autowired
+    public LiquidityStreamHub(LiquidityService liquidityService,
+                              LiquidityAlertIndex alertIndex,
+                              LiquidityMetricsService metricsService,
+                              ObjectMapper objectMapper,
+                              LiquidityProperties properties) {
+        this(liquidityService, alertIndex, metricsService, objectMapper, properties,
+                Executors.newFixedThreadPool(properties.getStream().getSenderThreads(), senderThreadFactory()));
+    }
+
+    LiquidityStreamHub(LiquidityService liquidityService,
+                       LiquidityAlertIndex alertIndex,
+                       LiquidityMetricsService metricsService,
+                       ObjectMapper objectMapper,
+                       LiquidityProperties properties,
+                       Executor sender) {
+        LiquidityProperties.Stream stream = properties.getStream();
+        this.liquidityService = liquidityService;
+        this.alertIndex = alertIndex;
+        this.metricsService = metricsService;
+        this.objectMapper = objectMapper;
+        this.sender = sender;
+        this.maxSubscribers = stream.getMaxSubscribers();
+        this.bufferSize = stream.getBufferSize();
+        this.emitterTimeoutMs = stream.getEmitterTimeout().toMillis();
+        metricsService.registerStreamSubscribersGauge(subscribers);
+    }
+
+    // Пустой результат, если достигнут лимит подписчиков
+    public Optional<SseEmitter> subscribe(boolean withSnapshot) {
+        if (subscribers.size() >= maxSubscribers) {
+            log.warn("Liquidity stream subscriber limit {} reached, rejecting subscription", maxSubscribers);
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = register(emitter);
+        if (withSnapshot) {
+            // Снимок строится после регистрации: изменения, пришедшие раньше него, в нем уже учтены
+            LiquidityStreamSnapshot snapshot = LiquidityStreamSnapshot.builder()
+                    .positions(liquidityService.getAllPositions())
+                    .openAlerts(alertIndex.getOpenAlerts())
+                    .build();
+            serialize(SNAPSHOT_EVENT, snapshot).ifPresent(subscriber::enqueue);
+        }
+        log.debug("Liquidity stream subscriber connected, total: {}", subscribers.size());
+        return Optional.of(emitter);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsChanged(LiquidityPositionChangedEvent event) {
+        List<LiquidityPositionResponse> positions = event.getPositions().stream()
+                .map(LiquidityService::mapToResponse)
+                .toList();
+        publish(POSITIONS_EVENT, positions);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlertsChanged(LiquidityAlertChangedEvent event) {
+        publish(ALERTS_EVENT, event.getAlerts());
+    }
+
+    // Комментарий SSE держит соединение через прокси и выявляет отключившихся клиентов
+    @Scheduled(fixedDelayString = "${liquidity.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.enqueueIfIdle(StreamEvent.HEARTBEAT));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.close(true));
+        if (sender instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    Subscriber register(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscriber.close(false));
+        emitter.onTimeout(() -> subscriber.close(true));
+        emitter.onError(error -> subscriber.close(false));
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    private void publish(String name, Object payload) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        serialize(name, payload).ifPresent(event -> subscribers.forEach(subscriber -> subscriber.enqueue(event)));
+    }
+
+    private Optional<StreamEvent> serialize(String name, Object payload) {
+        try {
+            return Optional.of(new StreamEvent(sequence.incrementAndGet(), name, objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize liquidity stream event {}: {}", name, e.getMessage(), e);
+            return Optional.empty();
+        }
+    }
+
+    private static ThreadFactory senderThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "liquidity-stream-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    record StreamEvent(long id, String name, String data) {
+
+        static final StreamEvent HEARTBEAT = new StreamEvent(0, null, null);
+
+        SseEmitter.SseEventBuilder toSse() {
+            if (name == null) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            return SseEmitter.event()
+                    .id(String.valueOf(id))
+                    .name(name)
+                    .data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    final class Subscriber {
+
+        private final SseEmitter emitter;
+        // Доступ к буферу и счетчику потерь под монитором подписчика
+        private final ArrayDeque<StreamEvent> buffer = new ArrayDeque<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private int droppedSinceLastSend;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enqueue(StreamEvent event) {
+            boolean dropped = false;
+            synchronized (this) {
+                if (buffer.size() >= bufferSize) {
+                    buffer.pollFirst();
+                    droppedSinceLastSend++;
+                    dropped = true;
+                }
+                buffer.addLast(event);
+            }
+            if (dropped) {
+                metricsService.recordStreamEventsDropped(1);
+            }
+            scheduleDrain();
+        }
+
+        void enqueueIfIdle(StreamEvent event) {
+            synchronized (this) {
+                if (!buffer.isEmpty()) {
+                    return;
+                }
+                buffer.addLast(event);
+            }
+            scheduleDrain();
+        }
+
+        synchronized int pending() {
+            return buffer.size();
+        }
+
+        private void scheduleDrain() {
+            // Не более одной задачи отправки на подписчика: события уходят клиенту по порядку
+            if (!closed && draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                int dropped;
+                while (!closed) {
+                    StreamEvent event;
+                    synchronized (this) {
+                        event = buffer.pollFirst();
+                        dropped = droppedSinceLastSend;
+                        droppedSinceLastSend = 0;
+                    }
+                    if (event == null) {
+                        break;
+                    }
+                    if (dropped > 0) {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.id()))
+                                .name(RESYNC_EVENT)
+                                .data("{\"dropped\":" + dropped + "}", MediaType.APPLICATION_JSON));
+                    }
+                    emitter.send(event.toSse());
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Liquidity stream subscriber disconnected: {}", e.getMessage());
+                close(true);
+            } finally {
+                draining.set(false);
+            }
+            // Событие могло прийти между последним чтением буфера и сбросом флага
+            if (pending() > 0) {
+                scheduleDrain();
+            }
+        }
+
+        void close(boolean completeEmitter) {
+            closed = true;
+            if (subscribers.remove(this)) {
+                log.debug("Liquidity stream subscriber disconnected, total: {}", subscribers.size());
+            }
+            if (completeEmitter) {
+                try {
+                    emitter.complete();
+                } catch (IllegalStateException e) {
+                    // Соединение уже закрыто
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+// Применяет сценарии стресс-теста к снимку позиций в отдельном пуле fork-join.
+// Каждая пара (сценарий, диапазон позиций) делится пополам до LEAF_SIZE, частичные итоги сливаются
+@Slf4j
+@Component
+public class LiquidityStressEngine {
+
+    // Доли и надбавки задаются в базисных пунктах: 10 000 = 100%
+    public static final long BASIS_POINTS = 10_000;
+    static final double UNBOUNDED_RATIO = 100.0;
+    static final int LEAF_SIZE = 4096;
+
+    private final ForkJoinPool pool;
+
+    @Autowired
+    public LiquidityStressEngine(LiquidityProperties properties) {
+        this(properties.getStressTest().getParallelism() > 0
+                ? properties.getStressTest().getParallelism()
+                : Runtime.getRuntime().availableProcessors());
+    }
+
+    LiquidityStressEngine(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+        log.info("Liquidity stress engine started with parallelism {}", parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Результаты в порядке сценариев
+    public List<Outcome> run(LiquidityStressSnapshot snapshot, List<Scenario> scenarios, Thresholds thresholds) {
+        List<Slice> tasks = scenarios.stream()
+                .map(scenario -> new Slice(snapshot, scenario, thresholds, 0, snapshot.size()))
+                .toList();
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(tasks);
+            }
+        });
+        return tasks.stream().map(ForkJoinTask::join).toList();
+    }
+
+    // amount * basisPoints / 10 000 с округлением HALF_UP без переполнения для сумм NUMERIC(15, 2)
+    static long applyBasisPoints(long amount, long basisPoints) {
+        long whole = amount / BASIS_POINTS;
+        long remainder = amount % BASIS_POINTS;
+        long scaledRemainder = remainder * basisPoints;
+        long roundedRemainder = (scaledRemainder + (scaledRemainder >= 0 ? BASIS_POINTS / 2 : -BASIS_POINTS / 2))
+                / BASIS_POINTS;
+        return Math.addExact(Math.multiplyExact(whole, basisPoints), roundedRemainder);
+    }
+
+    // cashRetainedBasisPoints индексируется индексом валюты снимка
+    public record Scenario(String name, long[] cashRetainedBasisPoints, long reserveBasisPoints) {
+    }
+
+    // Пороги как у LiquidityAlertEvaluator; дефицит в минимальных единицах
+    public record Thresholds(long deficitThresholdMinor, double lowLiquidityRatio, double criticalLiquidityRatio) {
+    }
+
+    public static final class Outcome {
+
+        private long positions;
+        private long positionsInDeficit;
+        private long totalDeficitMinor;
+        private long totalNetLiquidityMinor;
+        private double minLiquidityRatio = Double.POSITIVE_INFINITY;
+        private double liquidityRatioSum;
+        private long deficitAlerts;
+        private long lowLiquidityAlerts;
+        private long criticalAlerts;
+        private final long[] deficitByCurrencyMinor;
+
+        Outcome(int currencies) {
+            this.deficitByCurrencyMinor = new long[currencies];
+        }
+
+        void merge(Outcome other) {
+            positions += other.positions;
+            positionsInDeficit += other.positionsInDeficit;
+            totalDeficitMinor = Math.addExact(totalDeficitMinor, other.totalDeficitMinor);
+            totalNetLiquidityMinor = Math.addExact(totalNetLiquidityMinor, other.totalNetLiquidityMinor);
+            minLiquidityRatio = Math.min(minLiquidityRatio, other.minLiquidityRatio);
+            liquidityRatioSum += other.liquidityRatioSum;
+            deficitAlerts += other.deficitAlerts;
+            lowLiquidityAlerts += other.lowLiquidityAlerts;
+            criticalAlerts += other.criticalAlerts;
+            for (int i = 0; i < deficitByCurrencyMinor.length; i++) {
+                deficitByCurrencyMinor[i] = Math.addExact(deficitByCurrencyMinor[i], other.deficitByCurrencyMinor[i]);
+            }
+        }
+
+        public long getPositions() {
+            return positions;
+        }
+
+        public long getPositionsInDeficit() {
+            return positionsInDeficit;
+        }
+
+        public long getTotalDeficitMinor() {
+            return totalDeficitMinor;
+        }
+
+        public long getTotalNetLiquidityMinor() {
+            return totalNetLiquidityMinor;
+        }
+
+        // NaN для пустого снимка
+        public double getMinLiquidityRatio() {
+            return positions > 0 ? minLiquidityRatio : Double.NaN;
+        }
+
+        public double getAverageLiquidityRatio() {
+            return positions > 0 ? liquidityRatioSum / positions : Double.NaN;
+        }
+
+        public long getDeficitAlerts() {
+            return deficitAlerts;
+        }
+
+        public long getLowLiquidityAlerts() {
+            return lowLiquidityAlerts;
+        }
+
+        public long getCriticalAlerts() {
+            return criticalAlerts;
+        }
+
+        public long getDeficitByCurrencyMinor(int currencyIndex) {
+            return deficitByCurrencyMinor[currencyIndex];
+        }
+    }
+
+    private static final class Slice extends RecursiveTask<Outcome> {
+
+        private final LiquidityStressSnapshot snapshot;
+        private final Scenario scenario;
+        private final Thresholds thresholds;
+        private final int from;
+        private final int to;
+
+        private Slice(LiquidityStressSnapshot snapshot, Scenario scenario, Thresholds thresholds, int from, int to) {
+            this.snapshot = snapshot;
+            this.scenario = scenario;
+            this.thresholds = thresholds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Outcome compute() {
+            if (to - from <= LEAF_SIZE) {
+                return computeDirectly();
+            }
+            int middle = (from + to) >>> 1;
+            Slice left = new Slice(snapshot, scenario, thresholds, from, middle);
+            left.fork();
+            Outcome outcome = new Slice(snapshot, scenario, thresholds, middle, to).compute();
+            outcome.merge(left.join());
+            return outcome;
+        }
+
+        private Outcome computeDirectly() {
+            Outcome outcome = new Outcome(snapshot.currencyCount());
+            long[] cashRetained = scenario.cashRetainedBasisPoints();
+            long reserveFactor = scenario.reserveBasisPoints();
+
+            for (int i = from; i < to; i++) {
+                int currency = snapshot.currencyIndex(i);
+                long cash = applyBasisPoints(snapshot.availableCash(i), cashRetained[currency]);
+                long reserves = applyBasisPoints(snapshot.requiredReserves(i), reserveFactor);
+                long net = cash - reserves;
+                double ratio = reserves > 0 ? (double) cash / reserves : UNBOUNDED_RATIO;
+
+                outcome.positions++;
+                outcome.totalNetLiquidityMinor += net;
+                outcome.liquidityRatioSum += ratio;
+                if (ratio < outcome.minLiquidityRatio) {
+                    outcome.minLiquidityRatio = ratio;
+                }
+                if (net < 0) {
+                    outcome.positionsInDeficit++;
+                    outcome.totalDeficitMinor -= net;
+                    outcome.deficitByCurrencyMinor[currency] -= net;
+                }
+                // Те же условия, что и в LiquidityAlertEvaluator
+                if (net < thresholds.deficitThresholdMinor()) {
+                    outcome.deficitAlerts++;
+                }
+                if (ratio < thresholds.lowLiquidityRatio()) {
+                    outcome.lowLiquidityAlerts++;
+                }
+                if (ratio < thresholds.criticalLiquidityRatio()) {
+                    outcome.criticalAlerts++;
+                }
+            }
+            return outcome;
+        }
+    }
+}
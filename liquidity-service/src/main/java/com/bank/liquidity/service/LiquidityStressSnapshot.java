@@ -0,0 +1,100 @@
+package com.bank.liquidity.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Позиции в виде параллельных массивов примитивов: суммы в минимальных единицах, валюта как индекс.
+// Неизменяем после build(), поэтому безопасно читается из потоков fork-join
+public final class LiquidityStressSnapshot {
+
+    private final long[] availableCash;
+    private final long[] requiredReserves;
+    private final int[] currencyIndex;
+    private final String[] currencies;
+    private final int size;
+
+    private LiquidityStressSnapshot(long[] availableCash, long[] requiredReserves, int[] currencyIndex,
+                                    String[] currencies, int size) {
+        this.availableCash = availableCash;
+        this.requiredReserves = requiredReserves;
+        this.currencyIndex = currencyIndex;
+        this.currencies = currencies;
+        this.size = size;
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int currencyCount() {
+        return currencies.length;
+    }
+
+    public String currency(int index) {
+        return currencies[index];
+    }
+
+    // -1, если позиций в валюте нет
+    public int indexOfCurrency(String currency) {
+        for (int i = 0; i < currencies.length; i++) {
+            if (currencies[i].equals(currency)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    long availableCash(int position) {
+        return availableCash[position];
+    }
+
+    long requiredReserves(int position) {
+        return requiredReserves[position];
+    }
+
+    int currencyIndex(int position) {
+        return currencyIndex[position];
+    }
+
+    public static final class Builder {
+
+        private long[] availableCash;
+        private long[] requiredReserves;
+        private int[] currencyIndex;
+        private final Map<String, Integer> currencies = new HashMap<>();
+        private int size;
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            availableCash = new long[capacity];
+            requiredReserves = new long[capacity];
+            currencyIndex = new int[capacity];
+        }
+
+        public Builder add(String currency, long availableCashMinor, long requiredReservesMinor) {
+            if (size == availableCash.length) {
+                int capacity = size + (size >> 1);
+                availableCash = Arrays.copyOf(availableCash, capacity);
+                requiredReserves = Arrays.copyOf(requiredReserves, capacity);
+                currencyIndex = Arrays.copyOf(currencyIndex, capacity);
+            }
+            availableCash[size] = availableCashMinor;
+            requiredReserves[size] = requiredReservesMinor;
+            currencyIndex[size] = currencies.computeIfAbsent(currency, key -> currencies.size());
+            size++;
+            return this;
+        }
+
+        public LiquidityStressSnapshot build() {
+            String[] names = new String[currencies.size()];
+            currencies.forEach((currency, index) -> names[index] = currency);
+            return new LiquidityStressSnapshot(Arrays.copyOf(availableCash, size), Arrays.copyOf(requiredReserves, size),
+                    Arrays.copyOf(currencyIndex, size), names, size);
+        }
+    }
+}
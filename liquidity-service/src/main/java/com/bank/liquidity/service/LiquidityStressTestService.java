@@ -0,0 +1,152 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.dto.StressScenarioRequest;
+import com.bank.liquidity.dto.StressScenarioResult;
+import com.bank.liquidity.dto.StressTestRequest;
+import com.bank.liquidity.dto.StressTestResponse;
+import com.bank.liquidity.model.Money;
+import com.bank.liquidity.repository.LiquidityPositionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class LiquidityStressTestService {
+
+    private static final int RATIO_SCALE = 4;
+
+    private final LiquidityPositionRepository positionRepository;
+    private final LiquidityStressEngine stressEngine;
+    private final LiquidityProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public LiquidityStressTestService(LiquidityPositionRepository positionRepository,
+                                      LiquidityStressEngine stressEngine,
+                                      LiquidityProperties properties,
+                                      PlatformTransactionManager transactionManager) {
+        this.positionRepository = positionRepository;
+        this.stressEngine = stressEngine;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public StressTestResponse runStressTest(StressTestRequest request) {
+        int maxScenarios = properties.getStressTest().getMaxScenarios();
+        if (request.getScenarios().size() > maxScenarios) {
+            throw new IllegalArgumentException("Stress test must not exceed " + maxScenarios + " scenarios");
+        }
+        log.info("Running liquidity stress test with {} scenarios", request.getScenarios().size());
+
+        // Соединение с базой занято только на время чтения снимка, расчет идет без него
+        long startTime = System.currentTimeMillis();
+        LocalDateTime snapshotTakenAt = LocalDateTime.now();
+        LiquidityStressSnapshot snapshot = readOnlyTransaction.execute(status -> loadSnapshot());
+        long snapshotLoadMs = System.currentTimeMillis() - startTime;
+
+        List<LiquidityStressEngine.Scenario> scenarios = request.getScenarios().stream()
+                .map(scenario -> compile(scenario, snapshot))
+                .toList();
+
+        long computeStart = System.currentTimeMillis();
+        List<LiquidityStressEngine.Outcome> outcomes = stressEngine.run(snapshot, scenarios, thresholds());
+        long computeMs = System.currentTimeMillis() - computeStart;
+
+        List<StressScenarioResult> results = new ArrayList<>(outcomes.size());
+        for (int i = 0; i < outcomes.size(); i++) {
+            results.add(toResult(request.getScenarios().get(i).getName(), outcomes.get(i), snapshot));
+        }
+
+        log.info("Liquidity stress test of {} scenarios over {} positions completed: snapshot {}ms, compute {}ms",
+                scenarios.size(), snapshot.size(), snapshotLoadMs, computeMs);
+
+        return StressTestResponse.builder()
+                .positions(snapshot.size())
+                .scenarios(scenarios.size())
+                .snapshotTakenAt(snapshotTakenAt)
+                .snapshotLoadMs(snapshotLoadMs)
+                .computeMs(computeMs)
+                .results(results)
+                .build();
+    }
+
+    private LiquidityStressSnapshot loadSnapshot() {
+        LiquidityStressSnapshot.Builder builder = LiquidityStressSnapshot.builder((int) positionRepository.count());
+        try (Stream<Object[]> rows = positionRepository.streamStressTestInputs()) {
+            rows.forEach(row -> builder.add((String) row[0],
+                    Money.toScaledLong((BigDecimal) row[1], Money.SCALE),
+                    Money.toScaledLong((BigDecimal) row[2], Money.SCALE)));
+        }
+        return builder.build();
+    }
+
+    private static LiquidityStressEngine.Scenario compile(StressScenarioRequest request, LiquidityStressSnapshot snapshot) {
+        long[] cashRetained = new long[snapshot.currencyCount()];
+        Arrays.fill(cashRetained, retainedBasisPoints(request.getCashOutflowPercent()));
+        if (request.getCashOutflowPercentByCurrency() != null) {
+            request.getCashOutflowPercentByCurrency().forEach((currency, outflow) -> {
+                int index = snapshot.indexOfCurrency(currency);
+                if (index >= 0) {
+                    cashRetained[index] = retainedBasisPoints(outflow);
+                }
+            });
+        }
+        BigDecimal reserveIncrease = request.getReserveIncreasePercent() != null
+                ? request.getReserveIncreasePercent() : BigDecimal.ZERO;
+        long reserveFactor = LiquidityStressEngine.BASIS_POINTS + Money.toScaledLong(reserveIncrease, 2);
+        return new LiquidityStressEngine.Scenario(request.getName(), cashRetained, reserveFactor);
+    }
+
+    // Процент с двумя знаками после запятой и есть число базисных пунктов
+    private static long retainedBasisPoints(BigDecimal outflowPercent) {
+        return LiquidityStressEngine.BASIS_POINTS - Money.toScaledLong(outflowPercent, 2);
+    }
+
+    private LiquidityStressEngine.Thresholds thresholds() {
+        LiquidityProperties.Alerts alerts = properties.getAlerts();
+        return new LiquidityStressEngine.Thresholds(
+                Money.toScaledLong(alerts.getDeficitThreshold(), Money.SCALE),
+                alerts.getLowLiquidityThreshold().doubleValue(),
+                alerts.getCriticalLiquidityThreshold().doubleValue());
+    }
+
+    private static StressScenarioResult toResult(String name, LiquidityStressEngine.Outcome outcome,
+                                                 LiquidityStressSnapshot snapshot) {
+        Map<String, BigDecimal> deficitByCurrency = new LinkedHashMap<>();
+        for (int i = 0; i < snapshot.currencyCount(); i++) {
+            long deficit = outcome.getDeficitByCurrencyMinor(i);
+            if (deficit > 0) {
+                deficitByCurrency.put(snapshot.currency(i), Money.ofMinorUnits(deficit).toBigDecimal());
+            }
+        }
+        return StressScenarioResult.builder()
+                .name(name)
+                .positionsInDeficit(outcome.getPositionsInDeficit())
+                .totalDeficit(Money.ofMinorUnits(outcome.getTotalDeficitMinor()).toBigDecimal())
+                .totalNetLiquidity(Money.ofMinorUnits(outcome.getTotalNetLiquidityMinor()).toBigDecimal())
+                .minLiquidityRatio(ratio(outcome.getMinLiquidityRatio()))
+                .averageLiquidityRatio(ratio(outcome.getAverageLiquidityRatio()))
+                .deficitAlerts(outcome.getDeficitAlerts())
+                .lowLiquidityAlerts(outcome.getLowLiquidityAlerts())
+                .criticalAlerts(outcome.getCriticalAlerts())
+                .deficitByCurrency(deficitByCurrency)
+                .build();
+    }
+
+    private static BigDecimal ratio(double value) {
+        return Double.isNaN(value) ? null : BigDecimal.valueOf(value).setScale(RATIO_SCALE, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,54 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.repository.ProcessedTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+// Удаляет отметки processed_transactions старше processedRetention: таблица дедупликации не растет без предела
+@Slf4j
+@Component
+public class ProcessedTransactionPurge {
+
+    private final ProcessedTransactionRepository processedRepository;
+    private final LiquidityProperties.Transactions properties;
+    private final Clock clock;
+
+    @Autowired
+    public ProcessedTransactionPurge(ProcessedTransactionRepository processedRepository,
+                                     LiquidityProperties properties) {
+        this(processedRepository, properties.getTransactions(), Clock.systemDefaultZone());
+    }
+
+    ProcessedTransactionPurge(ProcessedTransactionRepository processedRepository,
+                              LiquidityProperties.Transactions properties, Clock clock) {
+        this.processedRepository = processedRepository;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    @Scheduled(fixedDelayString = "${liquidity.transactions.processed-purge-interval-ms:3600000}")
+    public void purge() {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(properties.getProcessedRetention());
+        int batchSize = properties.getProcessedPurgeBatchSize();
+        long deleted = 0;
+        try {
+            int removed;
+            do {
+                removed = processedRepository.deleteProcessedBefore(cutoff, batchSize);
+                deleted += removed;
+            } while (removed == batchSize);
+        } catch (DataAccessException e) {
+            log.error("Failed to purge processed transactions before {}: {}", cutoff, e.getMessage());
+        }
+        if (deleted > 0) {
+            log.info("Purged {} processed transactions before {}", deleted, cutoff);
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.dto.RegulatoryRatioResponse;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.bank.liquidity.event.RegulatoryComponentsChangedEvent;
+import com.bank.liquidity.model.LiquidityPosition;
+import com.bank.liquidity.model.Money;
+import com.bank.liquidity.model.RegulatoryBucket;
+import com.bank.liquidity.repository.LiquidityPositionComponentRepository;
+import com.bank.liquidity.repository.LiquidityPositionRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Числители и знаменатели LCR и NSFR в памяти по филиалам и по банку в целом.
+ * Для каждой пары (branchCode, currency) хранится ее взвешенный вклад; при изменении позиции или ее
+ * классификации старый вклад вычитается из агрегатов и добавляется новый, поэтому чтение коэффициента - O(1).
+ */
+@Slf4j
+@Component
+public class RegulatoryRatioBook {
+
+    private static final int BUCKETS = RegulatoryBucket.values().length;
+    private static final int COMPONENTS = RegulatoryBucket.Component.values().length;
+    private static final int LEVEL_1 = RegulatoryBucket.Component.HQLA_LEVEL_1.ordinal();
+    private static final int LEVEL_2A = RegulatoryBucket.Component.HQLA_LEVEL_2A.ordinal();
+    private static final int LEVEL_2B = RegulatoryBucket.Component.HQLA_LEVEL_2B.ordinal();
+    private static final int OUTFLOWS = RegulatoryBucket.Component.OUTFLOWS.ordinal();
+    private static final int INFLOWS = RegulatoryBucket.Component.INFLOWS.ordinal();
+    private static final int ASF = RegulatoryBucket.Component.AVAILABLE_STABLE_FUNDING.ordinal();
+    private static final int RSF = RegulatoryBucket.Component.REQUIRED_STABLE_FUNDING.ordinal();
+
+    private static final int RATIO_SCALE = 4;
+
+    // Лимиты Базель III: уровень 2B - не более 15% HQLA, уровень 2 в целом - не более 40%, притоки - не более 75% оттоков
+    private static final BigDecimal LEVEL_2B_CAP_TO_LEVEL_1_AND_2A =
+            new BigDecimal("15").divide(new BigDecimal("85"), 10, RoundingMode.HALF_UP);
+    private static final BigDecimal LEVEL_2B_CAP_TO_LEVEL_1 = new BigDecimal("0.25");
+    private static final BigDecimal LEVEL_2_CAP_TO_LEVEL_1 =
+            new BigDecimal("2").divide(new BigDecimal("3"), 10, RoundingMode.HALF_UP);
+    private static final BigDecimal INFLOW_CAP = new BigDecimal("0.75");
+
+    private final LiquidityPositionRepository positionRepository;
+    private final LiquidityPositionComponentRepository componentRepository;
+    private final EntityManager entityManager;
+    private final long[] weights;
+    private final boolean cashAsLevel1Hqla;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private BookState state;
+    private List<Consumer<BookState>> pendingDuringRebuild;
+    private volatile boolean ready;
+
+    public RegulatoryRatioBook(LiquidityPositionRepository positionRepository,
+                               LiquidityPositionComponentRepository componentRepository,
+                               EntityManager entityManager,
+                               LiquidityProperties properties) {
+        this.positionRepository = positionRepository;
+        this.componentRepository = componentRepository;
+        this.entityManager = entityManager;
+        this.weights = resolveWeights(properties.getRegulatory().getWeights());
+        this.cashAsLevel1Hqla = properties.getRegulatory().isCashAsLevel1Hqla();
+        this.state = new BookState();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+        log.info("Rebuilding regulatory ratio book from liquidity_positions and liquidity_position_components");
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        BookState rebuilt = new BookState();
+        try {
+            try (Stream<LiquidityPosition> positions = positionRepository.streamAllOrderedById()) {
+                positions.forEach(position -> {
+                    rebuilt.putCash(position.getBranchCode(), position.getCurrency(), cashOf(position));
+                    entityManager.detach(position);
+                });
+            }
+            // Классификация хранится построчно, а заменяется целиком, поэтому сначала собираем ее по парам
+            Map<String, long[]> components = new HashMap<>();
+            componentRepository.forEach(component -> components
+                    .computeIfAbsent(key(component.branchCode(), component.currency()), k -> new long[BUCKETS])
+                    [component.bucket().ordinal()] = Money.toScaledLong(component.amount(), Money.SCALE));
+            components.forEach((key, amounts) -> {
+                int separator = key.indexOf('|');
+                rebuilt.putComponents(key.substring(0, separator), key.substring(separator + 1), amounts);
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild regulatory ratio book, LCR/NSFR will be unavailable", e);
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Изменения, закоммиченные во время чтения таблиц, накатываем поверх снимка
+            pendingDuringRebuild.forEach(update -> update.accept(rebuilt));
+            pendingDuringRebuild = null;
+            state = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Regulatory ratio book rebuilt with {} branch/currency pairs in {}ms",
+                rebuilt.entries.size(), System.currentTimeMillis() - startTime);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsChanged(LiquidityPositionChangedEvent event) {
+        for (LiquidityPosition position : event.getPositions()) {
+            String branchCode = position.getBranchCode();
+            String currency = position.getCurrency();
+            long cash = cashOf(position);
+            update(book -> book.putCash(branchCode, currency, cash));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onComponentsChanged(RegulatoryComponentsChangedEvent event) {
+        long[] amounts = new long[BUCKETS];
+        event.getComponents().forEach((bucket, amount) ->
+                amounts[bucket.ordinal()] = Money.toScaledLong(amount, Money.SCALE));
+        update(book -> book.putComponents(event.getBranchCode(), event.getCurrency(), amounts));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public RegulatoryRatioResponse getBankRatios() {
+        long[] sums;
+        long pairs;
+        lock.readLock().lock();
+        try {
+            sums = state.total.sums.clone();
+            pairs = state.total.pairs;
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toResponse(null, pairs, sums);
+    }
+
+    public Optional<RegulatoryRatioResponse> getBranchRatios(String branchCode) {
+        long[] sums;
+        long pairs;
+        lock.readLock().lock();
+        try {
+            Aggregate aggregate = state.byBranch.get(branchCode);
+            if (aggregate == null || aggregate.pairs == 0) {
+                return Optional.empty();
+            }
+            sums = aggregate.sums.clone();
+            pairs = aggregate.pairs;
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Optional.of(toResponse(branchCode, pairs, sums));
+    }
+
+    private void update(Consumer<BookState> update) {
+        lock.writeLock().lock();
+        try {
+            update.accept(state);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long cashOf(LiquidityPosition position) {
+        // Отрицательный остаток после внутридневных списаний не уменьшает HQLA ниже нуля
+        return cashAsLevel1Hqla ? Math.max(0L, Money.toScaledLong(position.getAvailableCash(), Money.SCALE)) : 0L;
+    }
+
+    static RegulatoryRatioResponse toResponse(String branchCode, long pairs, long[] sums) {
+        BigDecimal level1 = toAmount(sums[LEVEL_1]);
+        BigDecimal level2a = toAmount(sums[LEVEL_2A]);
+        BigDecimal level2b = toAmount(sums[LEVEL_2B]);
+
+        // Корректировки на превышение лимитов уровня 2B (15%) и уровня 2 в целом (40%)
+        BigDecimal adjustment15 = level2b.subtract(scale(level1.add(level2a).multiply(LEVEL_2B_CAP_TO_LEVEL_1_AND_2A)))
+                .max(level2b.subtract(scale(level1.multiply(LEVEL_2B_CAP_TO_LEVEL_1))))
+                .max(BigDecimal.ZERO.setScale(Money.SCALE));
+        BigDecimal adjustment40 = level2a.add(level2b).subtract(adjustment15)
+                .subtract(scale(level1.multiply(LEVEL_2_CAP_TO_LEVEL_1)))
+                .max(BigDecimal.ZERO.setScale(Money.SCALE));
+        BigDecimal hqla = level1.add(level2a).add(level2b).subtract(adjustment15).subtract(adjustment40);
+
+        BigDecimal outflows = toAmount(sums[OUTFLOWS]);
+        BigDecimal inflows = toAmount(sums[INFLOWS]);
+        BigDecimal netCashOutflows = outflows.subtract(inflows.min(scale(outflows.multiply(INFLOW_CAP))));
+
+        BigDecimal asf = toAmount(sums[ASF]);
+        BigDecimal rsf = toAmount(sums[RSF]);
+
+        return RegulatoryRatioResponse.builder()
+                .branchCode(branchCode)
+                .positions(pairs)
+                .liquidityCoverageRatio(netCashOutflows.signum() > 0
+                        ? hqla.divide(netCashOutflows, RATIO_SCALE, RoundingMode.HALF_UP) : null)
+                .netStableFundingRatio(rsf.signum() > 0 ? asf.divide(rsf, RATIO_SCALE, RoundingMode.HALF_UP) : null)
+                .level1Assets(level1)
+                .level2aAssets(level2a)
+                .level2bAssets(level2b)
+                .highQualityLiquidAssets(hqla)
+                .totalOutflows(outflows)
+                .totalInflows(inflows)
+                .netCashOutflows(netCashOutflows)
+                .availableStableFunding(asf)
+                .requiredStableFunding(rsf)
+                .calculatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static long[] resolveWeights(Map<RegulatoryBucket, BigDecimal> overrides) {
+        long[] result = new long[BUCKETS];
+        for (RegulatoryBucket bucket : RegulatoryBucket.values()) {
+            BigDecimal override = overrides.get(bucket);
+            if (override == null) {
+                result[bucket.ordinal()] = bucket.getDefaultWeightBasisPoints();
+                continue;
+            }
+            if (override.signum() < 0 || override.compareTo(BigDecimal.ONE) > 0) {
+                throw new IllegalArgumentException("Regulatory weight for " + bucket + " must be between 0 and 1");
+            }
+            result[bucket.ordinal()] = Money.toScaledLong(override, RATIO_SCALE);
+        }
+        return result;
+    }
+
+    private static BigDecimal scale(BigDecimal value) {
+        return value.setScale(Money.SCALE, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, Money.SCALE);
+    }
+
+    private static String key(String branchCode, String currency) {
+        return branchCode + '|' + currency;
+    }
+
+    private final class BookState {
+        private final Map<String, Entry> entries = new HashMap<>();
+        private final Map<String, Aggregate> byBranch = new HashMap<>();
+        private final Aggregate total = new Aggregate();
+
+        private void putCash(String branchCode, String currency, long cash) {
+            Entry previous = entries.get(key(branchCode, currency));
+            put(new Entry(branchCode, currency, cash,
+                    previous != null ? previous.components : new long[BUCKETS]));
+        }
+
+        private void putComponents(String branchCode, String currency, long[] components) {
+            Entry previous = entries.get(key(branchCode, currency));
+            put(new Entry(branchCode, currency, previous != null ? previous.cash : 0L, components));
+        }
+
+        private void put(Entry entry) {
+            Entry previous = entries.put(key(entry.branchCode, entry.currency), entry);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+            apply(entry, 1);
+        }
+
+        private void apply(Entry entry, int sign) {
+            byBranch.computeIfAbsent(entry.branchCode, k -> new Aggregate()).apply(entry, sign);
+            total.apply(entry, sign);
+        }
+    }
+
+    private static final class Aggregate {
+        private final long[] sums = new long[COMPONENTS];
+        private long pairs;
+
+        private void apply(Entry entry, int sign) {
+            for (int i = 0; i < COMPONENTS; i++) {
+                sums[i] = Math.addExact(sums[i], sign * entry.weighted[i]);
+            }
+            pairs += sign;
+        }
+    }
+
+    private final class Entry {
+        private final String branchCode;
+        private final String currency;
+        private final long cash;
+        private final long[] components;
+        // Взвешенный вклад пары по составляющим RegulatoryBucket.Component
+        private final long[] weighted = new long[COMPONENTS];
+
+        private Entry(String branchCode, String currency, long cash, long[] components) {
+            this.branchCode = branchCode;
+            this.currency = currency;
+            this.cash = cash;
+            this.components = components;
+
+            weighted[LEVEL_1] = cash;
+            for (RegulatoryBucket bucket : RegulatoryBucket.values()) {
+                long amount = components[bucket.ordinal()];
+                if (amount != 0L) {
+                    int component = bucket.getComponent().ordinal();
+                    weighted[component] = Math.addExact(weighted[component],
+                            LiquidityStressEngine.applyBasisPoints(amount, weights[bucket.ordinal()]));
+                }
+            }
+        }
+    }
+}
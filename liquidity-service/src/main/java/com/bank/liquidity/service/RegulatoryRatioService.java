@@ -0,0 +1,67 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.dto.RegulatoryComponentsRequest;
+import com.bank.liquidity.dto.RegulatoryRatioResponse;
+import com.bank.liquidity.event.RegulatoryComponentsChangedEvent;
+import com.bank.liquidity.model.RegulatoryBucket;
+import com.bank.liquidity.repository.LiquidityPositionComponentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RegulatoryRatioService {
+
+    private final LiquidityPositionComponentRepository componentRepository;
+    private final RegulatoryRatioBook ratioBook;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public Map<RegulatoryBucket, BigDecimal> replaceComponents(String branchCode, String currency,
+                                                               RegulatoryComponentsRequest request) {
+        log.info("Replacing regulatory components for branch: {}, currency: {}", branchCode, currency);
+        // Те же ограничения, что у LiquidityPositionRequest
+        if (branchCode.length() < 3 || branchCode.length() > 10) {
+            throw new IllegalArgumentException("Branch code must be between 3 and 10 characters");
+        }
+        if (currency.length() != 3) {
+            throw new IllegalArgumentException("Currency must be 3 characters");
+        }
+
+        Map<RegulatoryBucket, BigDecimal> components = new EnumMap<>(RegulatoryBucket.class);
+        request.getComponents().forEach((bucket, amount) -> {
+            if (amount.signum() != 0) {
+                components.put(bucket, amount);
+            }
+        });
+
+        componentRepository.replace(branchCode, currency, components);
+
+        // Книга LCR/NSFR пересчитывает вклад пары после коммита
+        eventPublisher.publishEvent(new RegulatoryComponentsChangedEvent(branchCode, currency, components));
+        return components;
+    }
+
+    public Optional<RegulatoryRatioResponse> getBankRatios() {
+        if (!ratioBook.isReady()) {
+            return Optional.empty();
+        }
+        return Optional.of(ratioBook.getBankRatios());
+    }
+
+    public Optional<RegulatoryRatioResponse> getBranchRatios(String branchCode) {
+        if (!ratioBook.isReady()) {
+            return Optional.empty();
+        }
+        return ratioBook.getBranchRatios(branchCode);
+    }
+}
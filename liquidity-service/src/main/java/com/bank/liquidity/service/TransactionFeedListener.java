@@ -0,0 +1,67 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.dto.TransactionMessage;
+import com.bank.liquidity.dto.TransactionStatusMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Внутридневное обновление позиций по топикам transactions и transaction-status-updates, которые публикует transaction-service
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionFeedListener {
+
+    private final TransactionPositionUpdater positionUpdater;
+
+    @KafkaListener(id = "liquidity-transaction-feed",
+            topics = "${liquidity.transactions.topic:transactions}",
+            containerFactory = "transactionBatchContainerFactory",
+            autoStartup = "${liquidity.transactions.enabled:true}")
+    public void onTransactions(List<ConsumerRecord<String, TransactionMessage>> records, Acknowledgment acknowledgment) {
+        List<TransactionMessage> messages = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, TransactionMessage> record : records) {
+            if (record.value() == null) {
+                log.warn("Skipping unreadable transaction record {}-{}@{}",
+                        record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            messages.add(record.value());
+        }
+
+        if (!messages.isEmpty()) {
+            positionUpdater.apply(messages);
+        }
+
+        // Смещения фиксируются только после коммита транзакции БД; при ошибке пачка будет доставлена повторно
+        acknowledgment.acknowledge();
+    }
+
+    @KafkaListener(id = "liquidity-transaction-status-feed",
+            topics = "${liquidity.transactions.status-topic:transaction-status-updates}",
+            containerFactory = "transactionStatusBatchContainerFactory",
+            autoStartup = "${liquidity.transactions.enabled:true}")
+    public void onStatusUpdates(List<ConsumerRecord<String, TransactionStatusMessage>> records,
+                                Acknowledgment acknowledgment) {
+        List<TransactionStatusMessage> messages = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, TransactionStatusMessage> record : records) {
+            if (record.value() == null) {
+                log.warn("Skipping unreadable transaction status record {}-{}@{}",
+                        record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            messages.add(record.value());
+        }
+
+        if (!messages.isEmpty()) {
+            positionUpdater.applyStatusChanges(messages);
+        }
+        acknowledgment.acknowledge();
+    }
+}
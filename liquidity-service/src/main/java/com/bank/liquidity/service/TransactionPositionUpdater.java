@@ -0,0 +1,181 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.dto.TransactionMessage;
+import com.bank.liquidity.dto.TransactionStatusMessage;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.bank.liquidity.model.LiquidityPosition;
+import com.bank.liquidity.model.Money;
+import com.bank.liquidity.repository.LiquidityPositionBatchRepository;
+import com.bank.liquidity.repository.LiquidityPositionBatchRepository.CashDelta;
+import com.bank.liquidity.repository.ProcessedTransactionRepository;
+import com.bank.liquidity.repository.ProcessedTransactionRepository.Registration;
+import com.bank.liquidity.repository.ProcessedTransactionRepository.Transition;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Применяет пачки транзакций и смен их статуса из Kafka к availableCash позиций, каждую одной транзакцией БД
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionPositionUpdater {
+
+    private static final Set<String> NOT_APPLIED_STATUSES = Set.of("FAILED", "CANCELLED", "REVERSED");
+    // Символ проекции для статусов, которых liquidity-service еще не знает
+    private static final String UNKNOWN_STATUS = "UNKNOWN";
+
+    private final LiquidityPositionBatchRepository batchRepository;
+    private final ProcessedTransactionRepository processedRepository;
+    private final LiquidityMetricsService metricsService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Возвращает количество транзакций, впервые примененных к позициям
+    @Transactional
+    public int apply(List<TransactionMessage> messages) {
+        long startTime = System.currentTimeMillis();
+
+        // Повтор одной транзакции внутри пачки учитывается один раз
+        Map<String, Registration> foldable = new LinkedHashMap<>();
+        for (TransactionMessage message : messages) {
+            if (isFoldable(message)) {
+                foldable.putIfAbsent(message.getTransactionId(), new Registration(message.getTransactionId(),
+                        message.getBranchCode(), message.getCurrency(), signedMinorUnits(message),
+                        isApplied(message.getStatus())));
+            }
+        }
+        if (foldable.isEmpty()) {
+            metricsService.recordTransactionFeedBatch(messages.size(), 0, 0, 0, System.currentTimeMillis() - startTime);
+            return 0;
+        }
+
+        // Уже обработанные транзакции (повторная доставка после сбоя) отсекаются по processed_transactions.
+        // Неуспешные транзакции тоже регистрируются: их вклад прибавится, если статус позже сменится
+        Map<String, Boolean> fresh = processedRepository.register(foldable.values());
+
+        Map<PositionKey, Long> deltas = new HashMap<>();
+        int applied = 0;
+        for (Registration registration : foldable.values()) {
+            if (Boolean.TRUE.equals(fresh.get(registration.transactionId()))) {
+                deltas.merge(new PositionKey(registration.branchCode(), registration.currency()),
+                        registration.deltaMinorUnits(), Math::addExact);
+                applied++;
+            }
+        }
+
+        List<LiquidityPosition> changed = applyDeltas(deltas);
+        publish(changed);
+
+        int duplicates = foldable.size() - fresh.size();
+        long duration = System.currentTimeMillis() - startTime;
+        metricsService.recordTransactionFeedBatch(messages.size(), applied, duplicates, deltas.size(), duration);
+
+        log.debug("Applied {} of {} transactions to {} liquidity positions ({} duplicates, {} unmatched positions) in {}ms",
+                applied, messages.size(), changed.size(), duplicates, deltas.size(), duration);
+        return applied;
+    }
+
+    /**
+     * Применяет смены статуса: вклад транзакции вычитается при переходе в FAILED, CANCELLED или REVERSED
+     * и прибавляется обратно при выходе из них. processed_transactions.applied хранит текущее состояние,
+     * поэтому повтор того же перехода позицию не меняет. Возвращает количество компенсированных транзакций.
+     */
+    @Transactional
+    public int applyStatusChanges(List<TransactionStatusMessage> messages) {
+        // Внутри пачки важен только последний статус транзакции: промежуточные переходы взаимно погашаются
+        Map<String, Boolean> appliedById = new LinkedHashMap<>();
+        for (TransactionStatusMessage message : messages) {
+            if (message.getTransactionId() != null && message.getNewStatus() != null
+                    && !UNKNOWN_STATUS.equals(message.getNewStatus())) {
+                appliedById.put(message.getTransactionId(), isApplied(message.getNewStatus()));
+            }
+        }
+        if (appliedById.isEmpty()) {
+            return 0;
+        }
+
+        Map<PositionKey, Long> deltas = new HashMap<>();
+        int compensated = 0;
+        for (Transition transition : processedRepository.transition(appliedById)) {
+            // Отметки, записанные до появления вклада в processed_transactions, хранят 0 и не компенсируются
+            if (transition.deltaMinorUnits() == 0 || transition.branchCode() == null) {
+                continue;
+            }
+            long delta = transition.applied() ? transition.deltaMinorUnits() : -transition.deltaMinorUnits();
+            deltas.merge(new PositionKey(transition.branchCode(), transition.currency()), delta, Math::addExact);
+            compensated++;
+        }
+
+        List<LiquidityPosition> changed = applyDeltas(deltas);
+        publish(changed);
+
+        log.debug("Compensated {} of {} transaction status changes on {} liquidity positions",
+                compensated, messages.size(), changed.size());
+        return compensated;
+    }
+
+    private void publish(List<LiquidityPosition> changed) {
+        if (!changed.isEmpty()) {
+            // Строки уже изменены в БД; история, кэши и алерты получают всю пачку разом с новыми версиями строк
+            eventPublisher.publishEvent(new LiquidityPositionChangedEvent(changed));
+        }
+    }
+
+    // Сдвигает availableCash найденных позиций и удаляет их ключи из deltas; оставшиеся ключи не имеют позиции
+    private List<LiquidityPosition> applyDeltas(Map<PositionKey, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return List.of();
+        }
+        // Один атомарный UPDATE на пару в порядке ключей: параллельные потребители и полосы записи
+        // не конфликтуют по версии и не блокируют строки крест-накрест
+        List<CashDelta> sorted = deltas.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(PositionKey.ORDER))
+                .map(entry -> new CashDelta(entry.getKey().branchCode(), entry.getKey().currency(),
+                        Money.ofMinorUnits(entry.getValue()).toBigDecimal()))
+                .toList();
+        List<LiquidityPosition> changed = batchRepository.addToAvailableCash(sorted, LocalDateTime.now());
+        changed.forEach(position -> deltas.remove(new PositionKey(position.getBranchCode(), position.getCurrency())));
+
+        // Без снимка позиции резервы неизвестны; транзакции остаются отмеченными, позицию задаст следующий снимок
+        deltas.keySet().forEach(key -> log.warn("No liquidity position for branch: {}, currency: {}, transactions skipped",
+                key.branchCode(), key.currency()));
+        return changed;
+    }
+
+    private static boolean isFoldable(TransactionMessage message) {
+        return message.getTransactionId() != null
+                && message.getBranchCode() != null
+                && message.getCurrency() != null
+                && message.getAmount() != null
+                && message.getType() != null
+                && switch (message.getType()) {
+                    case "DEPOSIT", "WITHDRAWAL", "TRANSFER" -> true;
+                    default -> false;
+                };
+    }
+
+    // Вклад неуспешных транзакций в позицию не входит
+    private static boolean isApplied(String status) {
+        return !NOT_APPLIED_STATUSES.contains(status);
+    }
+
+    // Поступления увеличивают наличность филиала, списания и исходящие переводы уменьшают
+    private static long signedMinorUnits(TransactionMessage message) {
+        long amount = Money.of(message.getAmount()).getMinorUnits();
+        return "DEPOSIT".equals(message.getType()) ? amount : -amount;
+    }
+
+    private record PositionKey(String branchCode, String currency) {
+        static final Comparator<PositionKey> ORDER =
+                Comparator.comparing(PositionKey::branchCode).thenComparing(PositionKey::currency);
+    }
+}
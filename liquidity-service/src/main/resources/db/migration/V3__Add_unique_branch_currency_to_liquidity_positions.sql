@@ -0,0 +1,13 @@
+-- Keep only the most recent row for each (branch_code, currency) before enforcing uniqueness
+DELETE FROM liquidity_positions lp
+USING liquidity_positions newer
+WHERE lp.branch_code = newer.branch_code
+  AND lp.currency = newer.currency
+  AND (lp.calculation_date, lp.id) < (newer.calculation_date, newer.id);
+
+-- One position per branch and currency; also serves as the conflict target for batch upserts
+ALTER TABLE liquidity_positions
+    ADD CONSTRAINT uk_liquidity_positions_branch_currency UNIQUE (branch_code, currency);
+
+-- The unique constraint index makes the plain composite index redundant
+DROP INDEX IF EXISTS idx_branch_currency;
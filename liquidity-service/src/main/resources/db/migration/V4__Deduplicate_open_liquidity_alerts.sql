@@ -0,0 +1,27 @@
+-- Track repeated observations of the same open alert instead of inserting new rows
+ALTER TABLE liquidity_alerts ADD COLUMN IF NOT EXISTS occurrence_count INTEGER NOT NULL DEFAULT 1;
+ALTER TABLE liquidity_alerts ADD COLUMN IF NOT EXISTS last_seen_at TIMESTAMP;
+ALTER TABLE liquidity_alerts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+UPDATE liquidity_alerts SET last_seen_at = created_at WHERE last_seen_at IS NULL;
+
+-- Keep only the most recent open alert for each (branch_code, currency, alert_type)
+UPDATE liquidity_alerts la
+SET status = 'RESOLVED',
+    resolved_at = CURRENT_TIMESTAMP,
+    resolution_notes = 'Superseded during alert de-duplication'
+FROM liquidity_alerts newer
+WHERE la.branch_code = newer.branch_code
+  AND la.currency = newer.currency
+  AND la.alert_type = newer.alert_type
+  AND la.status IN ('ACTIVE', 'ACKNOWLEDGED')
+  AND newer.status IN ('ACTIVE', 'ACKNOWLEDGED')
+  AND (la.created_at, la.id) < (newer.created_at, newer.id);
+
+-- At most one open alert per branch, currency and alert type
+CREATE UNIQUE INDEX IF NOT EXISTS uk_liquidity_alerts_open
+    ON liquidity_alerts(branch_code, currency, alert_type)
+    WHERE status IN ('ACTIVE', 'ACKNOWLEDGED');
+
+COMMENT ON COLUMN liquidity_alerts.occurrence_count IS 'Number of evaluations that observed this open alert';
+COMMENT ON COLUMN liquidity_alerts.last_seen_at IS 'Time of the last evaluation that observed this alert';
@@ -0,0 +1,63 @@
+-- Append-only history of liquidity positions, range-partitioned by month on calculation_date
+CREATE TABLE IF NOT EXISTS liquidity_position_history (
+    id BIGSERIAL,
+    branch_code VARCHAR(10) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    available_cash NUMERIC(15, 2) NOT NULL,
+    required_reserves NUMERIC(15, 2) NOT NULL,
+    net_liquidity NUMERIC(15, 2) NOT NULL,
+    liquidity_ratio NUMERIC(5, 2),
+    status VARCHAR(50),
+    calculation_date TIMESTAMP NOT NULL,
+    recorded_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (calculation_date, id)
+) PARTITION BY RANGE (calculation_date);
+
+-- Point-in-time and range lookups per branch and currency; created on every partition
+CREATE INDEX IF NOT EXISTS idx_history_branch_currency_date
+    ON liquidity_position_history(branch_code, currency, calculation_date DESC);
+
+-- Catches rows outside the pre-created monthly partitions (e.g. backdated calculation dates)
+CREATE TABLE IF NOT EXISTS liquidity_position_history_default
+    PARTITION OF liquidity_position_history DEFAULT;
+
+-- Current month and three months ahead; LiquidityHistoryMaintenance keeps creating partitions in advance
+DO $$
+DECLARE
+    month_start DATE;
+BEGIN
+    FOR i IN 0..3 LOOP
+        month_start := (date_trunc('month', CURRENT_DATE) + make_interval(months => i))::DATE;
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF liquidity_position_history FOR VALUES FROM (%L) TO (%L)',
+            'liquidity_position_history_p' || to_char(month_start, 'YYYY_MM'),
+            month_start,
+            (month_start + INTERVAL '1 month')::DATE);
+    END LOOP;
+END $$;
+
+-- Hourly and daily aggregates; averages are derived from sums and sample counts so buckets can be recomputed
+CREATE TABLE IF NOT EXISTS liquidity_position_rollups (
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    branch_code VARCHAR(10) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    samples BIGINT NOT NULL,
+    min_net_liquidity NUMERIC(15, 2) NOT NULL,
+    max_net_liquidity NUMERIC(15, 2) NOT NULL,
+    sum_net_liquidity NUMERIC(24, 2) NOT NULL,
+    min_liquidity_ratio NUMERIC(5, 2),
+    max_liquidity_ratio NUMERIC(5, 2),
+    sum_liquidity_ratio NUMERIC(20, 2),
+    ratio_samples BIGINT NOT NULL,
+    last_net_liquidity NUMERIC(15, 2) NOT NULL,
+    last_liquidity_ratio NUMERIC(5, 2),
+    last_calculation_date TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_liquidity_position_rollups PRIMARY KEY (granularity, branch_code, currency, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_rollups_bucket_start ON liquidity_position_rollups(granularity, bucket_start);
+
+COMMENT ON TABLE liquidity_position_history IS 'Append-only history of liquidity position changes, partitioned by month';
+COMMENT ON TABLE liquidity_position_rollups IS 'Hourly (HOUR) and daily (DAY) min/max/avg/last aggregates of position history';
@@ -0,0 +1,9 @@
+-- Transactions already folded into liquidity positions by the Kafka consumer; makes redelivery idempotent
+CREATE TABLE IF NOT EXISTS processed_transactions (
+    transaction_id VARCHAR(36) PRIMARY KEY,
+    processed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_processed_transactions_processed_at ON processed_transactions(processed_at);
+
+COMMENT ON TABLE processed_transactions IS 'Transaction ids from the transactions topic already applied to liquidity positions';
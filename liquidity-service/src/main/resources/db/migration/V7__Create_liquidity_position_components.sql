@@ -0,0 +1,12 @@
+-- Regulatory classification of a position into LCR/NSFR buckets; availableCash itself counts as Level 1 HQLA
+CREATE TABLE IF NOT EXISTS liquidity_position_components (
+    branch_code VARCHAR(10) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    bucket VARCHAR(40) NOT NULL,
+    amount NUMERIC(18, 2) NOT NULL CHECK (amount >= 0),
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (branch_code, currency, bucket)
+);
+
+COMMENT ON TABLE liquidity_position_components IS 'Unweighted LCR/NSFR bucket amounts per branch and currency';
+COMMENT ON COLUMN liquidity_position_components.bucket IS 'RegulatoryBucket name, e.g. HQLA_LEVEL_2A or OUTFLOW_RETAIL_STABLE';
@@ -0,0 +1,12 @@
+-- Remembers what each transaction contributed to a position so later status updates
+-- (FAILED, CANCELLED, REVERSED and back) can take it out of availableCash or put it back exactly once
+ALTER TABLE processed_transactions ADD COLUMN IF NOT EXISTS branch_code VARCHAR(10);
+ALTER TABLE processed_transactions ADD COLUMN IF NOT EXISTS currency VARCHAR(3);
+-- Rows written before this migration get 0: their amounts are unknown and they are never compensated.
+-- NULL marks a status update that arrived before the transaction itself
+ALTER TABLE processed_transactions ADD COLUMN IF NOT EXISTS delta_minor BIGINT DEFAULT 0;
+ALTER TABLE processed_transactions ALTER COLUMN delta_minor DROP DEFAULT;
+ALTER TABLE processed_transactions ADD COLUMN IF NOT EXISTS applied BOOLEAN NOT NULL DEFAULT TRUE;
+
+COMMENT ON COLUMN processed_transactions.delta_minor IS 'Signed amount in minor units the transaction adds to availableCash while applied';
+COMMENT ON COLUMN processed_transactions.applied IS 'Whether delta_minor is currently included in the position (false for failed, cancelled and reversed transactions)';
@@ -0,0 +1,33 @@
+package com.bank.liquidity.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private final ReadWriteRoutingDataSource routingDataSource =
+            new ReadWriteRoutingDataSource(mock(DataSource.class), mock(DataSource.class));
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void shouldRouteToWritePoolOutsideReadOnlyTransaction() {
+        assertEquals(ReadWriteRoutingDataSource.Route.WRITE, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void shouldRouteReadOnlyTransactionToReadPool() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(ReadWriteRoutingDataSource.Route.READ, routingDataSource.determineCurrentLookupKey());
+    }
+}
@@ -0,0 +1,87 @@
+package com.bank.liquidity.config;
+
+import com.bank.liquidity.dto.TransactionMessage;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionMessageDeserializerTest {
+
+    private final TransactionMessageDeserializer deserializer = new TransactionMessageDeserializer();
+
+    @AfterEach
+    void tearDown() {
+        deserializer.close();
+    }
+
+    @Test
+    void shouldReadAvroEventIntoProjection() throws Exception {
+        TransactionMessage message = deserializer.deserialize("transactions", avroEvent("feed-1", "WITHDRAWAL", "PENDING"));
+
+        assertEquals(TransactionMessage.builder()
+                .transactionId("feed-1")
+                .type("WITHDRAWAL")
+                .amount(new BigDecimal("250.75"))
+                .currency("USD")
+                .branchCode("NYC001")
+                .status("PENDING")
+                .build(), message);
+    }
+
+    @Test
+    void shouldFallBackToJsonForMessagesPublishedBeforeAvro() {
+        byte[] json = """
+                {"transactionId":"feed-2","type":"DEPOSIT","amount":100.00,"currency":"USD","branchCode":"NYC001",\
+                "status":"COMPLETED","accountNumber":"ACC123456","highValueTransaction":false}"""
+                .getBytes(StandardCharsets.UTF_8);
+
+        TransactionMessage message = deserializer.deserialize("transactions", json);
+
+        assertEquals("feed-2", message.getTransactionId());
+        assertEquals(0, new BigDecimal("100.00").compareTo(message.getAmount()));
+    }
+
+    @Test
+    void shouldRejectAvroPayloadWithUnknownSchema() {
+        byte[] unknownFingerprint = {(byte) 0xC3, 0x01, 1, 2, 3, 4, 5, 6, 7, 8, 0};
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("transactions", unknownFingerprint));
+    }
+
+    // Запись по схеме писателя transaction-service со всеми полями, в том числе ненужными liquidity-service
+    private static byte[] avroEvent(String transactionId, String type, String status) throws Exception {
+        Schema schema;
+        try (InputStream in = TransactionMessageDeserializerTest.class.getClassLoader()
+                .getResourceAsStream(TransactionMessageDeserializer.WRITER_SCHEMAS.get(0))) {
+            schema = new Schema.Parser().parse(in);
+        }
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("transactionId", transactionId);
+        record.put("type", new GenericData.EnumSymbol(schema.getField("type").schema(), type));
+        record.put("amount", ByteBuffer.wrap(new BigDecimal("250.75").unscaledValue().toByteArray()));
+        record.put("currency", "USD");
+        record.put("accountNumber", "ACC123456");
+        record.put("counterpartyAccountNumber", "ACC654321");
+        record.put("transactionDate", 1_710_079_200_000L);
+        record.put("status", new GenericData.EnumSymbol(schema.getField("status").schema(), status));
+        record.put("branchCode", "NYC001");
+        record.put("channel", "ONLINE");
+        record.put("description", "Cash withdrawal");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BinaryMessageEncoder<GenericRecord>(GenericData.get(), schema).encode(record, out);
+        return out.toByteArray();
+    }
+}
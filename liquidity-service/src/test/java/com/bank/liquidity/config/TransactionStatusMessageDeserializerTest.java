@@ -0,0 +1,67 @@
+package com.bank.liquidity.config;
+
+import com.bank.liquidity.dto.TransactionStatusMessage;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionStatusMessageDeserializerTest {
+
+    private final TransactionStatusMessageDeserializer deserializer = new TransactionStatusMessageDeserializer();
+
+    @AfterEach
+    void tearDown() {
+        deserializer.close();
+    }
+
+    @Test
+    void shouldReadAvroEventIntoProjection() throws Exception {
+        TransactionStatusMessage message = deserializer.deserialize("transaction-status-updates",
+                avroEvent("feed-1", "PENDING", "REVERSED"));
+
+        assertEquals(new TransactionStatusMessage("feed-1", "REVERSED"), message);
+    }
+
+    @Test
+    void shouldFallBackToJsonForMessagesPublishedBeforeAvro() {
+        byte[] json = """
+                {"transactionId":"feed-2","oldStatus":"PENDING","newStatus":"FAILED","amount":100.00}"""
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(new TransactionStatusMessage("feed-2", "FAILED"),
+                deserializer.deserialize("transaction-status-updates", json));
+    }
+
+    // Запись по схеме писателя transaction-service со всеми полями
+    private static byte[] avroEvent(String transactionId, String oldStatus, String newStatus) throws Exception {
+        Schema schema;
+        try (InputStream in = TransactionStatusMessageDeserializerTest.class.getClassLoader()
+                .getResourceAsStream(TransactionStatusMessageDeserializer.WRITER_SCHEMAS.get(0))) {
+            schema = new Schema.Parser().parse(in);
+        }
+        Schema statusSchema = schema.getField("oldStatus").schema();
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("transactionId", transactionId);
+        record.put("oldStatus", new GenericData.EnumSymbol(statusSchema, oldStatus));
+        record.put("newStatus", new GenericData.EnumSymbol(statusSchema, newStatus));
+        record.put("updateTime", 1_710_079_200_000L);
+        record.put("accountNumber", "ACC123456");
+        record.put("amount", ByteBuffer.wrap(new BigDecimal("250.75").unscaledValue().toByteArray()));
+        record.put("currency", "USD");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BinaryMessageEncoder<GenericRecord>(GenericData.get(), schema).encode(record, out);
+        return out.toByteArray();
+    }
+}
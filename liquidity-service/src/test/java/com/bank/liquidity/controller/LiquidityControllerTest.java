@@ -1,8 +1,10 @@
 package com.bank.liquidity.controller;
 
+import com.bank.liquidity.dto.LiquidityPositionPageResponse;
 import com.bank.liquidity.dto.LiquidityPositionRequest;
 import com.bank.liquidity.dto.LiquidityPositionResponse;
 import com.bank.liquidity.service.LiquidityService;
+import com.bank.liquidity.service.RegulatoryRatioService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +33,9 @@ class LiquidityControllerTest {
     @MockBean
     private LiquidityService liquidityService;
 
+    @MockBean
+    private RegulatoryRatioService regulatoryRatioService;
+
     @Test
     void shouldCreatePosition() throws Exception {
         LiquidityPositionRequest request = LiquidityPositionRequest.builder()
@@ -77,6 +82,31 @@ class LiquidityControllerTest {
                 .andExpect(jsonPath("$.data[0].branchCode").value("NYC001"));
     }
 
+    @Test
+    void shouldGetPositionsPage() throws Exception {
+        LiquidityPositionResponse response = LiquidityPositionResponse.builder()
+                .id(42L)
+                .currency("USD")
+                .branchCode("NYC001")
+                .build();
+        LiquidityPositionPageResponse page = LiquidityPositionPageResponse.builder()
+                .items(List.of(response))
+                .nextCursor(42L)
+                .hasMore(true)
+                .size(1)
+                .build();
+
+        when(liquidityService.getPositionsPage(10L, 1)).thenReturn(page);
+
+        mockMvc.perform(get("/api/liquidity/positions/page")
+                        .param("cursor", "10")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items[0].id").value(42))
+                .andExpect(jsonPath("$.data.nextCursor").value(42))
+                .andExpect(jsonPath("$.data.hasMore").value(true));
+    }
+
     @Test
     void shouldValidateRequest() throws Exception {
         LiquidityPositionRequest invalidRequest = LiquidityPositionRequest.builder()
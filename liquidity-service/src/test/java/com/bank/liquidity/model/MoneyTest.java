@@ -0,0 +1,64 @@
+package com.bank.liquidity.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void shouldMatchBigDecimalHalfUpDivision() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            long dividend = random.nextLong(-1_000_000_000_000L, 1_000_000_000_000L);
+            long divisor = random.nextLong(1, 1_000_000_000L) * (random.nextBoolean() ? 1 : -1);
+
+            BigDecimal expected = BigDecimal.valueOf(dividend, 2)
+                    .divide(BigDecimal.valueOf(divisor, 2), 4, RoundingMode.HALF_UP);
+
+            assertEquals(expected, BigDecimal.valueOf(Money.divide(dividend, divisor, 4), 4),
+                    () -> dividend + " / " + divisor);
+        }
+    }
+
+    @Test
+    void shouldRoundHalfUpAwayFromZero() {
+        assertEquals(new BigDecimal("0.6667"), Money.of(new BigDecimal("2.00")).ratioTo(Money.of(new BigDecimal("3.00")), 4));
+        assertEquals(new BigDecimal("0.13"), Money.of(new BigDecimal("0.125")).toBigDecimal());
+        assertEquals(new BigDecimal("-0.13"), Money.of(new BigDecimal("-0.125")).toBigDecimal());
+    }
+
+    @Test
+    void shouldFallBackToBigDecimalWhenScaledDividendOverflows() {
+        Money cash = Money.of(new BigDecimal("9999999999999.99"));
+        Money reserves = Money.of(new BigDecimal("3.00"));
+
+        assertEquals(new BigDecimal("9999999999999.99").divide(new BigDecimal("3.00"), 4, RoundingMode.HALF_UP),
+                cash.ratioTo(reserves, 4));
+    }
+
+    @Test
+    void shouldDetectValuesThatNeedRounding() {
+        assertTrue(Money.isExact(new BigDecimal("1000000.00")));
+        assertTrue(Money.isExact(new BigDecimal("5")));
+        assertFalse(Money.isExact(new BigDecimal("0.001")));
+    }
+
+    @Test
+    void shouldKeepDerivedFieldsIdenticalToBigDecimalCalculation() {
+        LiquidityPosition position = LiquidityPosition.builder()
+                .availableCash(new BigDecimal("1000000.00"))
+                .requiredReserves(new BigDecimal("300000.00"))
+                .build();
+
+        position.calculateDerivedFields();
+
+        assertEquals(new BigDecimal("700000.00"), position.getNetLiquidity());
+        assertEquals(new BigDecimal("3.3333"), position.getLiquidityRatio());
+        assertEquals("HEALTHY", position.getStatus());
+    }
+}
@@ -0,0 +1,44 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.model.LiquidityAlert;
+import com.bank.liquidity.model.LiquidityAlert.AlertType;
+import com.bank.liquidity.model.LiquidityPosition;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiquidityAlertEvaluatorTest {
+
+    // Пороги по умолчанию: низкий 1, критический 0.5 - середина 0.75, максимальная серьезность ниже 0.25
+    private final LiquidityAlertEvaluator evaluator = new LiquidityAlertEvaluator(new LiquidityProperties());
+
+    @Test
+    void shouldSplitLowLiquiditySeverityAtExactMidpoint() {
+        assertEquals(5, evaluate("770.00", "1000.00").get(AlertType.LOW_LIQUIDITY).getSeverity());
+        assertEquals(6, evaluate("740.00", "1000.00").get(AlertType.LOW_LIQUIDITY).getSeverity());
+    }
+
+    @Test
+    void shouldSplitCriticalSeverityAtHalfOfCriticalThreshold() {
+        assertEquals(9, evaluate("270.00", "1000.00").get(AlertType.CRITICAL).getSeverity());
+        assertEquals(10, evaluate("240.00", "1000.00").get(AlertType.CRITICAL).getSeverity());
+    }
+
+    private Map<AlertType, LiquidityAlert> evaluate(String cash, String reserves) {
+        LiquidityPosition position = LiquidityPosition.builder()
+                .branchCode("NYC001")
+                .currency("USD")
+                .availableCash(new BigDecimal(cash))
+                .requiredReserves(new BigDecimal(reserves))
+                .build();
+        position.calculateDerivedFields();
+        return evaluator.evaluate(position).stream()
+                .collect(Collectors.toMap(LiquidityAlert::getAlertType, Function.identity()));
+    }
+}
@@ -0,0 +1,126 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.event.LiquidityAlertChangedEvent;
+import com.bank.liquidity.model.LiquidityAlert;
+import com.bank.liquidity.model.LiquidityAlert.AlertStatus;
+import com.bank.liquidity.model.LiquidityAlert.AlertType;
+import com.bank.liquidity.model.LiquidityPosition;
+import com.bank.liquidity.repository.LiquidityAlertRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiquidityAlertIndexTest {
+
+    @Mock
+    private LiquidityAlertRepository alertRepository;
+
+    private LiquidityAlertEvaluator evaluator;
+    private LiquidityAlertIndex alertIndex;
+    private long nextId;
+
+    @BeforeEach
+    void setUp() {
+        evaluator = new LiquidityAlertEvaluator(new LiquidityProperties());
+        alertIndex = new LiquidityAlertIndex(alertRepository);
+        nextId = 1;
+    }
+
+    @Test
+    void shouldOpenOneAlertPerTypeAndUpdateItInPlace() {
+        commit(evaluate(position("800.00", "1000.00")));
+        LiquidityAlert opened = alertIndex.findOpen("NYC001", "USD", AlertType.LOW_LIQUIDITY).orElseThrow();
+
+        Map<AlertType, LiquidityAlert> changes = evaluate(position("700.00", "1000.00"));
+
+        assertEquals(2, changes.size());
+        LiquidityAlert updated = changes.get(AlertType.LOW_LIQUIDITY);
+        assertEquals(opened.getId(), updated.getId());
+        assertEquals(2, updated.getOccurrenceCount());
+        // 0.70 ниже середины интервала между критическим и низким порогом
+        assertEquals(6, updated.getSeverity());
+        assertEquals(5, opened.getSeverity());
+    }
+
+    @Test
+    void shouldReopenAcknowledgedAlertOnEscalation() {
+        commit(evaluate(position("800.00", "1000.00")));
+        LiquidityAlert acknowledged = alertIndex.findOpen("NYC001", "USD", AlertType.LOW_LIQUIDITY).orElseThrow()
+                .toBuilder()
+                .status(AlertStatus.ACKNOWLEDGED)
+                .acknowledgedBy("treasury")
+                .version(1L)
+                .build();
+        alertIndex.onAlertsChanged(new LiquidityAlertChangedEvent(List.of(acknowledged)));
+
+        LiquidityAlert escalated = evaluate(position("600.00", "1000.00")).get(AlertType.LOW_LIQUIDITY);
+
+        assertEquals(AlertStatus.ACTIVE, escalated.getStatus());
+        assertNull(escalated.getAcknowledgedBy());
+    }
+
+    @Test
+    void shouldAutoResolveOpenAlertsWhenPositionRecovers() {
+        commit(evaluate(position("300.00", "1000.00")));
+        assertEquals(3, alertIndex.size());
+
+        Map<AlertType, LiquidityAlert> changes = evaluate(position("1200.00", "1000.00"));
+
+        assertEquals(3, changes.size());
+        assertTrue(changes.values().stream().allMatch(alert -> alert.getStatus() == AlertStatus.RESOLVED));
+        commit(changes);
+        assertEquals(0, alertIndex.size());
+    }
+
+    @Test
+    void shouldIgnoreStaleVersionOfSameAlert() {
+        commit(evaluate(position("800.00", "1000.00")));
+        LiquidityAlert current = alertIndex.findOpen("NYC001", "USD", AlertType.LOW_LIQUIDITY).orElseThrow();
+        LiquidityAlert newer = current.toBuilder().version(2L).severity(6).build();
+        LiquidityAlert staleResolution = current.toBuilder().version(1L).status(AlertStatus.RESOLVED).build();
+
+        alertIndex.onAlertsChanged(new LiquidityAlertChangedEvent(List.of(newer, staleResolution)));
+
+        assertEquals(6, alertIndex.findOpen("NYC001", "USD", AlertType.LOW_LIQUIDITY).orElseThrow().getSeverity());
+    }
+
+    private Map<AlertType, LiquidityAlert> evaluate(LiquidityPosition position) {
+        return alertIndex.reconcile(position, evaluator.evaluate(position), LocalDateTime.now()).stream()
+                .collect(Collectors.toMap(LiquidityAlert::getAlertType, Function.identity()));
+    }
+
+    // Имитирует сохранение: новым алертам назначается id, версия увеличивается, индекс получает событие коммита
+    private void commit(Map<AlertType, LiquidityAlert> changes) {
+        List<LiquidityAlert> saved = changes.values().stream()
+                .map(alert -> alert.toBuilder()
+                        .id(alert.getId() != null ? alert.getId() : nextId++)
+                        .version(alert.getVersion() != null ? alert.getVersion() + 1 : 0L)
+                        .build())
+                .toList();
+        alertIndex.onAlertsChanged(new LiquidityAlertChangedEvent(saved));
+    }
+
+    private LiquidityPosition position(String cash, String reserves) {
+        LiquidityPosition position = LiquidityPosition.builder()
+                .branchCode("NYC001")
+                .currency("USD")
+                .availableCash(new BigDecimal(cash))
+                .requiredReserves(new BigDecimal(reserves))
+                .build();
+        position.calculateDerivedFields();
+        return position;
+    }
+}
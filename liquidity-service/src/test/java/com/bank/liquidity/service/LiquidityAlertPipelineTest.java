@@ -0,0 +1,111 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.event.LiquidityAlertChangedEvent;
+import com.bank.liquidity.model.LiquidityAlert;
+import com.bank.liquidity.model.LiquidityPosition;
+import com.bank.liquidity.repository.LiquidityAlertRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiquidityAlertPipelineTest {
+
+    @Mock
+    private LiquidityAlertRepository alertRepository;
+
+    @Mock
+    private LiquidityMetricsService metricsService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private LiquidityProperties properties;
+    private LiquidityAlertPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LiquidityProperties();
+        properties.getAlerts().getPipeline().setQueueCapacity(2);
+        properties.getAlerts().getPipeline().setOfferTimeoutMs(1);
+        // Воркер не запускается: пачки обрабатываются вызовом drainOnce()
+        pipeline = new LiquidityAlertPipeline(new LiquidityAlertEvaluator(properties),
+                new LiquidityAlertIndex(alertRepository), alertRepository, metricsService,
+                transactionTemplate, eventPublisher, properties);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldPersistAlertsForWholeBatchWithSingleSaveAll() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(alertRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        pipeline.submit(List.of(
+                position("NYC001", "USD", "300.00", "800.00"),
+                position("LON001", "EUR", "900.00", "1000.00")));
+
+        assertEquals(2, pipeline.drainOnce());
+        assertEquals(0, pipeline.getQueueDepth());
+
+        ArgumentCaptor<List<LiquidityAlert>> captor = ArgumentCaptor.forClass(List.class);
+        verify(alertRepository, times(1)).saveAll(captor.capture());
+        // NYC001: дефицит, низкий и критический коэффициент; LON001: дефицит и низкий коэффициент
+        assertEquals(5, captor.getValue().size());
+        verify(metricsService, times(5)).recordLiquidityAlert(any(LiquidityAlert.class));
+        verify(metricsService).recordAlertPipelineBatch(2);
+        verify(eventPublisher).publishEvent(any(LiquidityAlertChangedEvent.class));
+    }
+
+    @Test
+    void shouldDropEvaluationsWhenQueueIsFull() {
+        int accepted = pipeline.submit(List.of(
+                position("NYC001", "USD", "1000.00", "800.00"),
+                position("NYC001", "EUR", "1000.00", "800.00"),
+                position("LON001", "USD", "1000.00", "800.00")));
+
+        assertEquals(2, accepted);
+        assertEquals(2, pipeline.getQueueDepth());
+        verify(metricsService).recordAlertEvaluationsDropped(1);
+    }
+
+    @Test
+    void shouldSkipPersistenceWhenNoAlertsRaised() {
+        pipeline.submit(List.of(position("NYC001", "USD", "1000.00", "800.00")));
+
+        assertEquals(1, pipeline.drainOnce());
+
+        verifyNoInteractions(transactionTemplate, alertRepository, eventPublisher);
+        verify(metricsService, never()).recordAlertPipelineFailure(anyInt());
+    }
+
+    private LiquidityPosition position(String branch, String currency, String cash, String reserves) {
+        LiquidityPosition position = LiquidityPosition.builder()
+                .branchCode(branch)
+                .currency(currency)
+                .availableCash(new BigDecimal(cash))
+                .requiredReserves(new BigDecimal(reserves))
+                .build();
+        position.calculateDerivedFields();
+        return position;
+    }
+}
@@ -0,0 +1,88 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.bank.liquidity.model.LiquidityPosition;
+import com.bank.liquidity.repository.LiquidityPositionRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiquidityBookTest {
+
+    @Mock
+    private LiquidityPositionRepository positionRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private LiquidityBook liquidityBook;
+
+    @BeforeEach
+    void setUp() {
+        liquidityBook = new LiquidityBook(positionRepository, entityManager);
+    }
+
+    @Test
+    void shouldAggregatePositionsByCurrencyAndBranch() {
+        liquidityBook.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(
+                position("NYC001", "USD", "1000.00", "800.00", "1.25"),
+                position("NYC001", "EUR", "300.00", "400.00", "0.75"),
+                position("LON001", "USD", "500.00", "1000.00", "0.50"))));
+
+        assertEquals(3, liquidityBook.size());
+        assertEquals(Optional.of(new BigDecimal("-300.00")), liquidityBook.getTotalNetLiquidityByCurrency("USD"));
+        assertEquals(new BigDecimal("100.00"), liquidityBook.getNetLiquidityByBranch().get("NYC001"));
+        assertEquals(new BigDecimal("0.8750"), liquidityBook.getAverageLiquidityRatioByCurrency().get("USD"));
+        assertEquals(2, liquidityBook.countPositionsBelowLiquidityRatio(BigDecimal.ONE));
+        assertEquals(1, liquidityBook.countPositionsBelowLiquidityRatio(new BigDecimal("0.6")));
+    }
+
+    @Test
+    void shouldReplacePreviousEntryForSameBranchAndCurrency() {
+        liquidityBook.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(
+                position("NYC001", "USD", "1000.00", "800.00", "1.25"))));
+        liquidityBook.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(
+                position("NYC001", "USD", "400.00", "800.00", "0.5"))));
+
+        assertEquals(1, liquidityBook.size());
+        assertEquals(Optional.of(new BigDecimal("-400.00")), liquidityBook.getTotalNetLiquidityByCurrency("USD"));
+        assertEquals(1, liquidityBook.countPositionsBelowLiquidityRatio(BigDecimal.ONE));
+        assertTrue(liquidityBook.getTotalNetLiquidityByCurrency("EUR").isEmpty());
+    }
+
+    @Test
+    void shouldIgnoreEntryOlderThanTheBookedOne() {
+        LiquidityPosition newer = position("NYC001", "USD", "400.00", "800.00", "0.5");
+        newer.setVersion(3L);
+        LiquidityPosition older = position("NYC001", "USD", "1000.00", "800.00", "1.25");
+        older.setVersion(2L);
+
+        liquidityBook.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(newer)));
+        liquidityBook.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(older)));
+
+        assertEquals(Optional.of(new BigDecimal("-400.00")), liquidityBook.getTotalNetLiquidityByCurrency("USD"));
+    }
+
+    private LiquidityPosition position(String branch, String currency, String cash, String reserves, String ratio) {
+        BigDecimal availableCash = new BigDecimal(cash);
+        BigDecimal requiredReserves = new BigDecimal(reserves);
+        return LiquidityPosition.builder()
+                .branchCode(branch)
+                .currency(currency)
+                .availableCash(availableCash)
+                .requiredReserves(requiredReserves)
+                .netLiquidity(availableCash.subtract(requiredReserves))
+                .liquidityRatio(new BigDecimal(ratio))
+                .build();
+    }
+}
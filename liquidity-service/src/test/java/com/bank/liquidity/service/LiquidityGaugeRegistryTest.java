@@ -0,0 +1,85 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.bank.liquidity.model.LiquidityPosition;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiquidityGaugeRegistryTest {
+
+    private MockClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private LiquidityGaugeRegistry gaugeRegistry;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MockClock();
+        meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+        LiquidityProperties properties = new LiquidityProperties();
+        properties.getMetrics().setMaxGaugeSeries(2);
+        properties.getMetrics().setGaugeIdleExpiry(Duration.ofMinutes(10));
+        gaugeRegistry = new LiquidityGaugeRegistry(meterRegistry, properties);
+    }
+
+    @Test
+    void shouldReflectLatestValueOfExistingSeries() {
+        gaugeRegistry.update(position("NYC001", "USD", "1000.00", "800.00"));
+        gaugeRegistry.update(position("NYC001", "USD", "400.00", "800.00"));
+
+        assertEquals(0.5, ratioGauge("NYC001", "USD"));
+        assertEquals(-400.0, meterRegistry.get("liquidity.net").tags("branch", "NYC001", "currency", "USD").gauge().value());
+        assertEquals(1, meterRegistry.find("liquidity.ratio").gauges().size());
+    }
+
+    @Test
+    void shouldRejectSeriesAboveCardinalityCap() {
+        gaugeRegistry.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(
+                position("NYC001", "USD", "1000.00", "800.00"),
+                position("NYC001", "EUR", "1000.00", "800.00"),
+                position("LON001", "USD", "1000.00", "800.00"))));
+
+        assertEquals(2, gaugeRegistry.size());
+        assertNull(meterRegistry.find("liquidity.ratio").tags("branch", "LON001").gauge());
+        assertEquals(1.0, meterRegistry.get("liquidity.gauges.rejected").counter().count());
+    }
+
+    @Test
+    void shouldRemoveIdleSeriesFromRegistry() {
+        gaugeRegistry.update(position("NYC001", "USD", "1000.00", "800.00"));
+        clock.add(Duration.ofMinutes(6));
+        gaugeRegistry.update(position("LON001", "USD", "1000.00", "800.00"));
+        clock.add(Duration.ofMinutes(6));
+
+        gaugeRegistry.expireIdleSeries();
+
+        assertEquals(1, gaugeRegistry.size());
+        assertNull(meterRegistry.find("liquidity.ratio").tags("branch", "NYC001").gauge());
+        assertNull(meterRegistry.find("liquidity.net").tags("branch", "NYC001").gauge());
+        assertEquals(1.25, ratioGauge("LON001", "USD"));
+    }
+
+    private double ratioGauge(String branch, String currency) {
+        return meterRegistry.get("liquidity.ratio").tags("branch", branch, "currency", currency).gauge().value();
+    }
+
+    private LiquidityPosition position(String branch, String currency, String cash, String reserves) {
+        LiquidityPosition position = LiquidityPosition.builder()
+                .branchCode(branch)
+                .currency(currency)
+                .availableCash(new BigDecimal(cash))
+                .requiredReserves(new BigDecimal(reserves))
+                .build();
+        position.calculateDerivedFields();
+        return position;
+    }
+}
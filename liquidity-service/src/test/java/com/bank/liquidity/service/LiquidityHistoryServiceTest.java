@@ -0,0 +1,108 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.dto.LiquidityHistoryPointResponse;
+import com.bank.liquidity.dto.LiquidityRollupResponse.Granularity;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.bank.liquidity.model.LiquidityPosition;
+import com.bank.liquidity.repository.LiquidityPositionHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiquidityHistoryServiceTest {
+
+    @Mock
+    private LiquidityPositionHistoryRepository historyRepository;
+
+    private LiquidityProperties properties;
+    private LiquidityHistoryService historyService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LiquidityProperties();
+        historyService = new LiquidityHistoryService(historyRepository, properties);
+    }
+
+    @Test
+    void shouldAppendAllChangedPositionsInOneBatch() {
+        List<LiquidityPosition> positions = List.of(
+                LiquidityPosition.builder().branchCode("NYC001").currency("USD").build(),
+                LiquidityPosition.builder().branchCode("LON001").currency("EUR").build());
+
+        historyService.onPositionsChanged(new LiquidityPositionChangedEvent(positions));
+
+        verify(historyRepository).appendAll(positions, properties.getBatch().getChunkSize());
+    }
+
+    @Test
+    void shouldSearchPointInTimeMonthByMonthBackwards() {
+        LocalDateTime at = LocalDateTime.of(2024, 3, 10, 14, 0);
+        LiquidityHistoryPointResponse point = LiquidityHistoryPointResponse.builder()
+                .netLiquidity(new BigDecimal("100.00"))
+                .calculationDate(LocalDateTime.of(2024, 1, 31, 23, 0))
+                .build();
+        when(historyRepository.findLatestInWindow(eq("NYC001"), eq("USD"), any(), any()))
+                .thenReturn(Optional.empty(), Optional.empty(), Optional.of(point));
+
+        Optional<LiquidityHistoryPointResponse> result = historyService.getPositionAt("NYC001", "USD", at);
+
+        assertSame(point, result.orElseThrow());
+        InOrder inOrder = inOrder(historyRepository);
+        inOrder.verify(historyRepository).findLatestInWindow("NYC001", "USD",
+                LocalDateTime.of(2024, 3, 1, 0, 0), at.plusNanos(1_000));
+        inOrder.verify(historyRepository).findLatestInWindow("NYC001", "USD",
+                LocalDateTime.of(2024, 2, 1, 0, 0), LocalDateTime.of(2024, 3, 1, 0, 0));
+        inOrder.verify(historyRepository).findLatestInWindow("NYC001", "USD",
+                LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 2, 1, 0, 0));
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    void shouldStopPointInTimeSearchAtLookbackLimit() {
+        properties.getHistory().setPointInTimeLookbackMonths(2);
+        when(historyRepository.findLatestInWindow(any(), any(), any(), any())).thenReturn(Optional.empty());
+
+        assertTrue(historyService.getPositionAt("NYC001", "USD", LocalDateTime.now()).isEmpty());
+        verify(historyRepository, times(2)).findLatestInWindow(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectInvalidRanges() {
+        LocalDateTime from = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> historyService.getHistory("NYC001", "USD", from, from, 100));
+        assertThrows(IllegalArgumentException.class,
+                () -> historyService.getHistory("NYC001", "USD", from, from.plusDays(1), 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> historyService.getRollups("NYC001", "USD", Granularity.HOUR, from, from.plusDays(32)));
+        verify(historyRepository, never()).findRange(any(), any(), any(), any(), anyInt());
+        verify(historyRepository, never()).findRollups(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldReadDailyRollupsForLongRanges() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(90);
+
+        historyService.getRollups("NYC001", "USD", Granularity.DAY, from, to);
+
+        verify(historyRepository).findRollups(Granularity.DAY, "NYC001", "USD", from, to);
+    }
+}
@@ -0,0 +1,113 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.dto.LiquidityPositionResponse;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.bank.liquidity.model.LiquidityPosition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiquidityPositionCacheUpdaterTest {
+
+    private Cache allPositions;
+    private Cache branchPositions;
+    private LiquidityPositionCacheUpdater cacheUpdater;
+
+    @BeforeEach
+    void setUp() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
+                LiquidityPositionCacheUpdater.ALL_POSITIONS_CACHE,
+                LiquidityPositionCacheUpdater.BRANCH_POSITIONS_CACHE);
+        allPositions = cacheManager.getCache(LiquidityPositionCacheUpdater.ALL_POSITIONS_CACHE);
+        branchPositions = cacheManager.getCache(LiquidityPositionCacheUpdater.BRANCH_POSITIONS_CACHE);
+        cacheUpdater = new LiquidityPositionCacheUpdater(cacheManager);
+    }
+
+    @Test
+    void shouldPatchAffectedBranchAndAllListWithoutTouchingOtherBranches() {
+        List<LiquidityPositionResponse> nyc = new ArrayList<>(List.of(response(1L, "NYC001", "USD", "100.00")));
+        List<LiquidityPositionResponse> lon = new ArrayList<>(List.of(response(2L, "LON001", "EUR", "50.00")));
+        allPositions.put(LiquidityPositionCacheUpdater.ALL_POSITIONS_KEY, new ArrayList<>(List.of(nyc.get(0), lon.get(0))));
+        branchPositions.put("NYC001", nyc);
+        branchPositions.put("LON001", lon);
+
+        cacheUpdater.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(
+                position(1L, "NYC001", "USD", "300.00"),
+                position(3L, "NYC001", "EUR", "75.00"))));
+
+        List<LiquidityPositionResponse> patchedBranch = cachedList(branchPositions, "NYC001");
+        assertEquals(2, patchedBranch.size());
+        assertEquals(new BigDecimal("300.00"), patchedBranch.get(0).getAvailableCash());
+        assertEquals(3L, patchedBranch.get(1).getId());
+        // Исходный список не изменяется
+        assertEquals(new BigDecimal("100.00"), nyc.get(0).getAvailableCash());
+        assertSame(lon, branchPositions.get("LON001").get());
+
+        List<LiquidityPositionResponse> patchedAll = cachedList(allPositions, LiquidityPositionCacheUpdater.ALL_POSITIONS_KEY);
+        assertEquals(List.of(1L, 2L, 3L), patchedAll.stream().map(LiquidityPositionResponse::getId).toList());
+    }
+
+    @Test
+    void shouldNotPopulateMissingEntries() {
+        cacheUpdater.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(
+                position(1L, "NYC001", "USD", "300.00"))));
+
+        assertNull(branchPositions.get("NYC001"));
+        assertNull(allPositions.get(LiquidityPositionCacheUpdater.ALL_POSITIONS_KEY));
+    }
+
+    @Test
+    void shouldEvictBranchesOfPositionsWithoutIds() {
+        branchPositions.put("NYC001", List.of(response(1L, "NYC001", "USD", "100.00")));
+        branchPositions.put("LON001", List.of(response(2L, "LON001", "EUR", "50.00")));
+        allPositions.put(LiquidityPositionCacheUpdater.ALL_POSITIONS_KEY, List.of());
+
+        cacheUpdater.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(
+                position(null, "NYC001", "USD", "300.00"))));
+
+        assertNull(branchPositions.get("NYC001"));
+        assertNotNull(branchPositions.get("LON001"));
+        assertNull(allPositions.get(LiquidityPositionCacheUpdater.ALL_POSITIONS_KEY));
+    }
+
+    @Test
+    void shouldKeepCachedEntryWithNewerVersion() {
+        LiquidityPosition cached = position(1L, "NYC001", "USD", "300.00");
+        cached.setVersion(5L);
+        branchPositions.put("NYC001", List.of(LiquidityService.mapToResponse(cached)));
+
+        LiquidityPosition stale = position(1L, "NYC001", "USD", "100.00");
+        stale.setVersion(4L);
+        cacheUpdater.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(stale)));
+
+        assertEquals(new BigDecimal("300.00"), cachedList(branchPositions, "NYC001").get(0).getAvailableCash());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<LiquidityPositionResponse> cachedList(Cache cache, String key) {
+        return (List<LiquidityPositionResponse>) cache.get(key).get();
+    }
+
+    private LiquidityPositionResponse response(Long id, String branch, String currency, String cash) {
+        return LiquidityService.mapToResponse(position(id, branch, currency, cash));
+    }
+
+    private LiquidityPosition position(Long id, String branch, String currency, String cash) {
+        LiquidityPosition position = LiquidityPosition.builder()
+                .id(id)
+                .branchCode(branch)
+                .currency(currency)
+                .availableCash(new BigDecimal(cash))
+                .requiredReserves(new BigDecimal("100.00"))
+                .build();
+        position.calculateDerivedFields();
+        return position;
+    }
+}
@@ -0,0 +1,178 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.dto.LiquidityPositionRequest;
+import com.bank.liquidity.dto.LiquidityPositionResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiquidityPositionWriteLanesTest {
+
+    @Mock
+    private LiquidityMetricsService metricsService;
+
+    private ManualLane lane;
+    private LiquidityPositionWriteLanes writeLanes;
+    private List<LiquidityPositionRequest> written;
+
+    @BeforeEach
+    void setUp() {
+        lane = new ManualLane();
+        writeLanes = new LiquidityPositionWriteLanes(metricsService, lane);
+        written = new ArrayList<>();
+    }
+
+    @Test
+    void shouldCoalesceQueuedWritesOfSamePairIntoLastRequest() throws Exception {
+        CompletableFuture<LiquidityPositionResponse> first = writeLanes.submit(request("NYC001", "100.00"), this::write);
+        CompletableFuture<LiquidityPositionResponse> second = writeLanes.submit(request("NYC001", "200.00"), this::write);
+
+        assertSame(first, second);
+        assertEquals(1, lane.size());
+        assertEquals(1, writeLanes.getPendingWrites());
+
+        lane.runAll();
+
+        assertEquals(1, written.size());
+        assertEquals(new BigDecimal("200.00"), first.get().getAvailableCash());
+        assertEquals(0, writeLanes.getPendingWrites());
+        verify(metricsService).recordPositionWriteCoalesced();
+        verify(metricsService).recordPositionWriteLaneWait(anyLong());
+    }
+
+    @Test
+    void shouldQueueNewWriteBehindOneAlreadyRunning() throws Exception {
+        List<CompletableFuture<LiquidityPositionResponse>> submittedDuringWrite = new ArrayList<>();
+        CompletableFuture<LiquidityPositionResponse> first = writeLanes.submit(request("NYC001", "100.00"), current -> {
+            // Запрос, пришедший во время записи, не может присоединиться к ней и ждет следующей
+            submittedDuringWrite.add(writeLanes.submit(request("NYC001", "300.00"), this::write));
+            return write(current);
+        });
+
+        lane.runAll();
+
+        assertEquals(new BigDecimal("100.00"), first.get().getAvailableCash());
+        assertEquals(new BigDecimal("300.00"), submittedDuringWrite.get(0).get().getAvailableCash());
+        assertEquals(2, written.size());
+        verify(metricsService, never()).recordPositionWriteCoalesced();
+    }
+
+    @Test
+    void shouldKeepWritesOfDifferentPairsSeparate() throws Exception {
+        CompletableFuture<LiquidityPositionResponse> nyc = writeLanes.submit(request("NYC001", "100.00"), this::write);
+        CompletableFuture<LiquidityPositionResponse> lon = writeLanes.submit(request("LON001", "200.00"), this::write);
+
+        lane.runAll();
+
+        assertNotSame(nyc, lon);
+        assertEquals("NYC001", nyc.get().getBranchCode());
+        assertEquals("LON001", lon.get().getBranchCode());
+        assertEquals(2, written.size());
+    }
+
+    @Test
+    void shouldPropagateWriterFailureToAllCoalescedCallers() {
+        CompletableFuture<LiquidityPositionResponse> first = writeLanes.submit(request("NYC001", "100.00"), current -> {
+            throw new IllegalArgumentException("Invalid position");
+        });
+        CompletableFuture<LiquidityPositionResponse> second = writeLanes.submit(request("NYC001", "200.00"), this::write);
+
+        lane.runAll();
+
+        ExecutionException error = assertThrows(ExecutionException.class, second::get);
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        assertTrue(first.isCompletedExceptionally());
+        assertEquals(0, writeLanes.getPendingWrites());
+    }
+
+    @Test
+    void shouldCancelQueuedWriteSoItIsNeverApplied() {
+        LiquidityPositionRequest request = request("NYC001", "100.00");
+        CompletableFuture<LiquidityPositionResponse> result = writeLanes.submit(request, this::write);
+
+        assertTrue(writeLanes.cancel(request, result));
+        lane.runAll();
+
+        assertTrue(result.isCancelled());
+        assertTrue(written.isEmpty());
+        assertEquals(0, writeLanes.getPendingWrites());
+    }
+
+    @Test
+    void shouldNotCancelWriteThatCoalescedRequestStillWaitsFor() throws Exception {
+        LiquidityPositionRequest first = request("NYC001", "100.00");
+        CompletableFuture<LiquidityPositionResponse> result = writeLanes.submit(first, this::write);
+        writeLanes.submit(request("NYC001", "200.00"), this::write);
+
+        assertFalse(writeLanes.cancel(first, result));
+        lane.runAll();
+
+        assertEquals(new BigDecimal("200.00"), result.get().getAvailableCash());
+        assertEquals(1, written.size());
+    }
+
+    @Test
+    void shouldNotCancelWriteThatAlreadyRan() throws Exception {
+        LiquidityPositionRequest request = request("NYC001", "100.00");
+        CompletableFuture<LiquidityPositionResponse> result = writeLanes.submit(request, this::write);
+        lane.runAll();
+
+        assertFalse(writeLanes.cancel(request, result));
+        assertEquals(new BigDecimal("100.00"), result.get().getAvailableCash());
+    }
+
+    private LiquidityPositionResponse write(LiquidityPositionRequest request) {
+        written.add(request);
+        return LiquidityPositionResponse.builder()
+                .branchCode(request.getBranchCode())
+                .currency(request.getCurrency())
+                .availableCash(request.getAvailableCash())
+                .build();
+    }
+
+    private LiquidityPositionRequest request(String branch, String cash) {
+        return LiquidityPositionRequest.builder()
+                .branchCode(branch)
+                .currency("USD")
+                .availableCash(new BigDecimal(cash))
+                .requiredReserves(BigDecimal.ZERO)
+                .build();
+    }
+
+    // Полоса, задачи которой выполняются по команде теста
+    private static final class ManualLane implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        int size() {
+            return tasks.size();
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
@@ -1,23 +1,37 @@
 package com.bank.liquidity.service;
 
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.dto.LiquidityPositionBatchResponse;
+import com.bank.liquidity.dto.LiquidityPositionPageResponse;
 import com.bank.liquidity.dto.LiquidityPositionRequest;
 import com.bank.liquidity.dto.LiquidityPositionResponse;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
 import com.bank.liquidity.model.LiquidityPosition;
-import com.bank.liquidity.repository.LiquidityAlertRepository;
+import com.bank.liquidity.repository.LiquidityPositionBatchRepository;
 import com.bank.liquidity.repository.LiquidityPositionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,11 +41,28 @@ class LiquidityServiceTest {
     private LiquidityPositionRepository positionRepository;
 
     @Mock
-    private LiquidityAlertRepository alertRepository;
+    private LiquidityPositionBatchRepository batchRepository;
 
     @Mock
     private LiquidityMetricsService metricsService;
 
+    @Spy
+    private LiquidityProperties properties = new LiquidityProperties();
+
+    @Mock
+    private LiquidityBook liquidityBook;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    // Полоса выполняет запись сразу в потоке вызывающего
+    @Spy
+    private LiquidityPositionWriteLanes writeLanes =
+            new LiquidityPositionWriteLanes(mock(LiquidityMetricsService.class), Runnable::run);
+
     @InjectMocks
     private LiquidityService liquidityService;
 
@@ -58,7 +89,8 @@ class LiquidityServiceTest {
 
     @Test
     void shouldCreateNewPositionWhenNotExists() {
-        when(positionRepository.findByBranchCodeAndCurrency("NYC001", "USD"))
+        runTransactionCallbacks();
+        when(positionRepository.findForUpdate("NYC001", "USD"))
                 .thenReturn(Optional.empty());
         when(positionRepository.save(any(LiquidityPosition.class)))
                 .thenReturn(samplePosition);
@@ -72,11 +104,13 @@ class LiquidityServiceTest {
 
         verify(positionRepository).save(any(LiquidityPosition.class));
         verify(metricsService).recordLiquidityPositionCreation(any(LiquidityPosition.class));
+        verify(eventPublisher).publishEvent(any(LiquidityPositionChangedEvent.class));
     }
 
     @Test
     void shouldUpdateExistingPosition() {
-        when(positionRepository.findByBranchCodeAndCurrency("NYC001", "USD"))
+        runTransactionCallbacks();
+        when(positionRepository.findForUpdate("NYC001", "USD"))
                 .thenReturn(Optional.of(samplePosition));
         when(positionRepository.save(any(LiquidityPosition.class)))
                 .thenReturn(samplePosition);
@@ -87,9 +121,37 @@ class LiquidityServiceTest {
         verify(positionRepository).save(samplePosition);
     }
 
+    @Test
+    void shouldFailWithoutWritingWhenQueuedWriteTimesOut() {
+        properties.getWriteLanes().setWriteTimeout(Duration.ofMillis(1));
+        CompletableFuture<LiquidityPositionResponse> queued = new CompletableFuture<>();
+        doReturn(queued).when(writeLanes).submit(eq(validRequest), any());
+        doReturn(true).when(writeLanes).cancel(validRequest, queued);
+
+        assertThrows(IllegalStateException.class, () -> liquidityService.createPosition(validRequest));
+
+        verifyNoInteractions(positionRepository, eventPublisher);
+    }
+
+    @Test
+    void shouldReturnResultOfWriteThatStartedBeforeTimeout() {
+        properties.getWriteLanes().setWriteTimeout(Duration.ofMillis(1));
+        CompletableFuture<LiquidityPositionResponse> running = new CompletableFuture<>();
+        doReturn(running).when(writeLanes).submit(eq(validRequest), any());
+        // Запись успевает закоммититься, пока вызывающий пытается ее отменить
+        doAnswer(invocation -> {
+            running.complete(LiquidityService.mapToResponse(samplePosition));
+            return false;
+        }).when(writeLanes).cancel(validRequest, running);
+
+        LiquidityPositionResponse response = liquidityService.createPosition(validRequest);
+
+        assertEquals("NYC001", response.getBranchCode());
+    }
+
     @Test
     void shouldGetAllPositions() {
-        when(positionRepository.findAll()).thenReturn(List.of(samplePosition));
+        when(positionRepository.findAllResponses()).thenReturn(List.of(LiquidityService.mapToResponse(samplePosition)));
 
         List<LiquidityPositionResponse> responses = liquidityService.getAllPositions();
 
@@ -100,7 +162,8 @@ class LiquidityServiceTest {
 
     @Test
     void shouldGetPositionsByBranch() {
-        when(positionRepository.findByBranchCode("NYC001")).thenReturn(List.of(samplePosition));
+        when(positionRepository.findResponsesByBranchCode("NYC001"))
+                .thenReturn(List.of(LiquidityService.mapToResponse(samplePosition)));
 
         List<LiquidityPositionResponse> responses = liquidityService.getPositionsByBranch("NYC001");
 
@@ -108,4 +171,88 @@ class LiquidityServiceTest {
         assertEquals(1, responses.size());
         assertEquals("NYC001", responses.get(0).getBranchCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnKeysetPageWithNextCursor() {
+        LiquidityPosition secondPosition = LiquidityPosition.builder()
+                .id(2L)
+                .currency("EUR")
+                .availableCash(new BigDecimal("500000.00"))
+                .requiredReserves(new BigDecimal("400000.00"))
+                .branchCode("NYC001")
+                .build();
+        when(positionRepository.findResponsePageAfterId(0L, 2)).thenReturn(List.of(
+                LiquidityService.mapToResponse(samplePosition), LiquidityService.mapToResponse(secondPosition)));
+
+        LiquidityPositionPageResponse page = liquidityService.getPositionsPage(null, 1);
+
+        assertEquals(1, page.getSize());
+        assertTrue(page.isHasMore());
+        assertEquals(1L, page.getNextCursor());
+        assertEquals("USD", page.getItems().get(0).getCurrency());
+    }
+
+    @Test
+    void shouldRejectOversizedPage() {
+        assertThrows(IllegalArgumentException.class,
+                () -> liquidityService.getPositionsPage(null, LiquidityService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void shouldServeTotalNetLiquidityFromBookWhenReady() {
+        when(liquidityBook.isReady()).thenReturn(true);
+        when(liquidityBook.getTotalNetLiquidityByCurrency("USD")).thenReturn(Optional.of(new BigDecimal("200000.00")));
+
+        Optional<BigDecimal> total = liquidityService.getTotalNetLiquidityByCurrency("USD");
+
+        assertEquals(Optional.of(new BigDecimal("200000.00")), total);
+        verify(positionRepository, never()).getTotalNetLiquidityByCurrency(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldUpsertBatchDeduplicatedByBranchAndCurrency() {
+        LiquidityPositionRequest deficitRequest = LiquidityPositionRequest.builder()
+                .currency("USD")
+                .availableCash(new BigDecimal("300000.00"))
+                .requiredReserves(new BigDecimal("800000.00"))
+                .branchCode("NYC001")
+                .build();
+        when(batchRepository.upsertAll(anyList(), anyInt())).thenAnswer(invocation -> invocation
+                .<List<LiquidityPosition>>getArgument(0).stream()
+                .map(position -> {
+                    position.setId(1L);
+                    position.setVersion(4L);
+                    return position;
+                })
+                .toList());
+
+        LiquidityPositionBatchResponse response =
+                liquidityService.createPositionsBatch(List.of(validRequest, deficitRequest));
+
+        assertEquals(2, response.getReceived());
+        assertEquals(1, response.getUpserted());
+
+        ArgumentCaptor<List<LiquidityPosition>> captor = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository).upsertAll(captor.capture(), eq(500));
+        assertEquals(new BigDecimal("-500000.00"), captor.getValue().get(0).getNetLiquidity());
+        // Событие несет строки с версией из БД, чтобы книга и кэши не откатились к состоянию батча
+        ArgumentCaptor<LiquidityPositionChangedEvent> event = ArgumentCaptor.forClass(LiquidityPositionChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(4L, event.getValue().getPositions().get(0).getVersion());
+    }
+
+    @Test
+    void shouldRejectBatchAboveConfiguredMaximum() {
+        properties.getBatch().setMaxSize(1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> liquidityService.createPositionsBatch(List.of(validRequest, validRequest)));
+        verifyNoInteractions(batchRepository);
+    }
+
+    private void runTransactionCallbacks() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+}
@@ -0,0 +1,127 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.bank.liquidity.model.LiquidityPosition;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LiquidityStreamHubTest {
+
+    private final List<Runnable> pendingTasks = new ArrayList<>();
+    private LiquidityProperties properties;
+    private LiquidityMetricsService metricsService;
+    private LiquidityStreamHub streamHub;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LiquidityProperties();
+        properties.getStream().setBufferSize(2);
+        properties.getStream().setMaxSubscribers(2);
+        metricsService = mock(LiquidityMetricsService.class);
+        Executor manualExecutor = pendingTasks::add;
+        streamHub = new LiquidityStreamHub(mock(LiquidityService.class), mock(LiquidityAlertIndex.class),
+                metricsService, new ObjectMapper().findAndRegisterModules(), properties, manualExecutor);
+    }
+
+    @Test
+    void shouldDeliverEachChangeToEverySubscriberInOrder() {
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        streamHub.register(first);
+        streamHub.register(second);
+
+        streamHub.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(position("NYC001"))));
+        streamHub.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(position("LON001"))));
+        runPendingTasks();
+
+        for (RecordingEmitter emitter : List.of(first, second)) {
+            assertEquals(2, emitter.events.size());
+            assertTrue(emitter.events.get(0).contains("event:positions") && emitter.events.get(0).contains("NYC001"));
+            assertTrue(emitter.events.get(1).contains("LON001"));
+        }
+    }
+
+    @Test
+    void shouldDropOldestEventsAndAskSlowSubscriberToResync() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        streamHub.register(emitter);
+
+        for (String branch : List.of("B1", "B2", "B3", "B4")) {
+            streamHub.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(position(branch))));
+        }
+        runPendingTasks();
+
+        assertEquals(3, emitter.events.size());
+        assertTrue(emitter.events.get(0).contains("event:resync") && emitter.events.get(0).contains("\"dropped\":2"));
+        assertTrue(emitter.events.get(1).contains("B3"));
+        assertTrue(emitter.events.get(2).contains("B4"));
+        verify(metricsService, times(2)).recordStreamEventsDropped(1);
+    }
+
+    @Test
+    void shouldRejectSubscribersAboveLimit() {
+        assertTrue(streamHub.subscribe(false).isPresent());
+        assertTrue(streamHub.subscribe(false).isPresent());
+
+        assertTrue(streamHub.subscribe(false).isEmpty());
+        assertEquals(2, streamHub.getSubscriberCount());
+    }
+
+    @Test
+    void shouldRemoveSubscriberWhenSendFails() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.failOnSend = true;
+        streamHub.register(emitter);
+
+        streamHub.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(position("NYC001"))));
+        runPendingTasks();
+
+        assertEquals(0, streamHub.getSubscriberCount());
+    }
+
+    private void runPendingTasks() {
+        while (!pendingTasks.isEmpty()) {
+            pendingTasks.remove(0).run();
+        }
+    }
+
+    private static LiquidityPosition position(String branchCode) {
+        LiquidityPosition position = LiquidityPosition.builder()
+                .branchCode(branchCode)
+                .currency("USD")
+                .availableCash(new BigDecimal("100.00"))
+                .requiredReserves(new BigDecimal("50.00"))
+                .build();
+        position.calculateDerivedFields();
+        return position;
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new ArrayList<>();
+        private boolean failOnSend;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failOnSend) {
+                throw new IOException("Broken pipe");
+            }
+            events.add(builder.build().stream()
+                    .map(item -> String.valueOf(item.getData()))
+                    .collect(Collectors.joining()));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.bank.liquidity.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiquidityStressEngineTest {
+
+    private static final LiquidityStressEngine.Thresholds THRESHOLDS =
+            new LiquidityStressEngine.Thresholds(0L, 1.0, 0.5);
+
+    private final LiquidityStressEngine parallelEngine = new LiquidityStressEngine(4);
+    private final LiquidityStressEngine sequentialEngine = new LiquidityStressEngine(1);
+
+    @AfterEach
+    void tearDown() {
+        parallelEngine.shutdown();
+        sequentialEngine.shutdown();
+    }
+
+    @Test
+    void shouldApplyPerCurrencyOutflowAndReserveIncrease() {
+        LiquidityStressSnapshot snapshot = LiquidityStressSnapshot.builder(2)
+                .add("USD", 100_000L, 80_000L)
+                .add("EUR", 10_000L, 10_000L)
+                .build();
+        long[] cashRetained = {7_000L, 9_000L};
+        LiquidityStressEngine.Scenario scenario = new LiquidityStressEngine.Scenario("shock", cashRetained, 11_000L);
+
+        LiquidityStressEngine.Outcome outcome = parallelEngine.run(snapshot, List.of(scenario), THRESHOLDS).get(0);
+
+        // USD: 700.00 - 880.00 = -180.00; EUR: 90.00 - 110.00 = -20.00
+        assertEquals(2, outcome.getPositionsInDeficit());
+        assertEquals(20_000L, outcome.getTotalDeficitMinor());
+        assertEquals(-20_000L, outcome.getTotalNetLiquidityMinor());
+        assertEquals(18_000L, outcome.getDeficitByCurrencyMinor(snapshot.indexOfCurrency("USD")));
+        assertEquals(2_000L, outcome.getDeficitByCurrencyMinor(snapshot.indexOfCurrency("EUR")));
+        assertEquals(70_000.0 / 88_000.0, outcome.getMinLiquidityRatio(), 1e-12);
+        assertEquals(2, outcome.getDeficitAlerts());
+        assertEquals(2, outcome.getLowLiquidityAlerts());
+        assertEquals(0, outcome.getCriticalAlerts());
+    }
+
+    @Test
+    void shouldProduceSameResultsInParallelAsSequentially() {
+        Random random = new Random(7);
+        LiquidityStressSnapshot.Builder builder = LiquidityStressSnapshot.builder(0);
+        String[] currencies = {"USD", "EUR", "GBP", "JPY"};
+        for (int i = 0; i < 50_000; i++) {
+            builder.add(currencies[random.nextInt(currencies.length)],
+                    random.nextLong(1, 10_000_000_000L), random.nextLong(0, 10_000_000_000L));
+        }
+        LiquidityStressSnapshot snapshot = builder.build();
+
+        List<LiquidityStressEngine.Scenario> scenarios = new ArrayList<>();
+        for (int s = 0; s < 20; s++) {
+            long[] cashRetained = new long[snapshot.currencyCount()];
+            for (int c = 0; c < cashRetained.length; c++) {
+                cashRetained[c] = random.nextLong(0, 10_001);
+            }
+            scenarios.add(new LiquidityStressEngine.Scenario("s" + s, cashRetained, random.nextLong(10_000, 20_000)));
+        }
+
+        List<LiquidityStressEngine.Outcome> parallel = parallelEngine.run(snapshot, scenarios, THRESHOLDS);
+        List<LiquidityStressEngine.Outcome> sequential = sequentialEngine.run(snapshot, scenarios, THRESHOLDS);
+
+        for (int s = 0; s < scenarios.size(); s++) {
+            assertEquals(50_000, parallel.get(s).getPositions());
+            assertEquals(sequential.get(s).getTotalDeficitMinor(), parallel.get(s).getTotalDeficitMinor());
+            assertEquals(sequential.get(s).getTotalNetLiquidityMinor(), parallel.get(s).getTotalNetLiquidityMinor());
+            assertEquals(sequential.get(s).getPositionsInDeficit(), parallel.get(s).getPositionsInDeficit());
+            assertEquals(sequential.get(s).getLowLiquidityAlerts(), parallel.get(s).getLowLiquidityAlerts());
+            assertEquals(sequential.get(s).getMinLiquidityRatio(), parallel.get(s).getMinLiquidityRatio());
+        }
+    }
+
+    @Test
+    void shouldScaleByBasisPointsWithHalfUpRoundingWithoutOverflow() {
+        assertEquals(1L, LiquidityStressEngine.applyBasisPoints(1L, 5_000L));
+        assertEquals(0L, LiquidityStressEngine.applyBasisPoints(1L, 4_999L));
+        assertEquals(3L, LiquidityStressEngine.applyBasisPoints(2L, 15_000L));
+
+        long maxAmount = 99_999_999_999_999_99L;
+        long expected = BigInteger.valueOf(maxAmount).multiply(BigInteger.valueOf(110_000L))
+                .add(BigInteger.valueOf(5_000L))
+                .divide(BigInteger.valueOf(10_000L))
+                .longValueExact();
+        assertEquals(expected, LiquidityStressEngine.applyBasisPoints(maxAmount, 110_000L));
+    }
+
+    @Test
+    void shouldReturnEmptyOutcomeForEmptySnapshot() {
+        LiquidityStressSnapshot snapshot = LiquidityStressSnapshot.builder(0).build();
+        LiquidityStressEngine.Outcome outcome = parallelEngine.run(snapshot,
+                List.of(new LiquidityStressEngine.Scenario("empty", new long[0], 10_000L)), THRESHOLDS).get(0);
+
+        assertEquals(0, outcome.getPositions());
+        assertTrue(Double.isNaN(outcome.getAverageLiquidityRatio()));
+    }
+}
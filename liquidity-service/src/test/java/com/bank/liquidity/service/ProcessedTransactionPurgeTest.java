@@ -0,0 +1,59 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.repository.ProcessedTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessedTransactionPurgeTest {
+
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2024, 3, 8, 10, 0);
+
+    @Mock
+    private ProcessedTransactionRepository processedRepository;
+
+    private ProcessedTransactionPurge purge;
+
+    @BeforeEach
+    void setUp() {
+        LiquidityProperties.Transactions properties = new LiquidityProperties.Transactions();
+        properties.setProcessedRetention(Duration.ofDays(7));
+        properties.setProcessedPurgeBatchSize(100);
+        Clock clock = Clock.fixed(Instant.parse("2024-03-15T10:00:00Z"), ZoneOffset.UTC);
+        purge = new ProcessedTransactionPurge(processedRepository, properties, clock);
+    }
+
+    @Test
+    void shouldDeleteInBatchesUntilNothingOlderThanRetentionRemains() {
+        when(processedRepository.deleteProcessedBefore(CUTOFF, 100)).thenReturn(100, 100, 40);
+
+        purge.purge();
+
+        verify(processedRepository, times(3)).deleteProcessedBefore(CUTOFF, 100);
+    }
+
+    @Test
+    void shouldStopOnDatabaseError() {
+        when(processedRepository.deleteProcessedBefore(any(), anyInt()))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+
+        purge.purge();
+
+        verify(processedRepository, times(1)).deleteProcessedBefore(any(), anyInt());
+    }
+}
@@ -0,0 +1,131 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.dto.RegulatoryRatioResponse;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.bank.liquidity.event.RegulatoryComponentsChangedEvent;
+import com.bank.liquidity.model.LiquidityPosition;
+import com.bank.liquidity.model.RegulatoryBucket;
+import com.bank.liquidity.repository.LiquidityPositionComponentRepository;
+import com.bank.liquidity.repository.LiquidityPositionRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegulatoryRatioBookTest {
+
+    @Mock
+    private LiquidityPositionRepository positionRepository;
+
+    @Mock
+    private LiquidityPositionComponentRepository componentRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private LiquidityProperties properties;
+    private RegulatoryRatioBook ratioBook;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LiquidityProperties();
+        ratioBook = new RegulatoryRatioBook(positionRepository, componentRepository, entityManager, properties);
+    }
+
+    @Test
+    void shouldCapInflowsAtSeventyFivePercentOfOutflows() {
+        ratioBook.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(position("NYC001", "USD", "1000.00"))));
+        ratioBook.onComponentsChanged(new RegulatoryComponentsChangedEvent("NYC001", "USD", Map.of(
+                RegulatoryBucket.OUTFLOW_RETAIL_STABLE, new BigDecimal("10000.00"),
+                RegulatoryBucket.INFLOW_RETAIL_WHOLESALE, new BigDecimal("1000.00"))));
+
+        RegulatoryRatioResponse ratios = ratioBook.getBankRatios();
+
+        assertEquals(new BigDecimal("1000.00"), ratios.getHighQualityLiquidAssets());
+        assertEquals(new BigDecimal("500.00"), ratios.getTotalOutflows());
+        assertEquals(new BigDecimal("500.00"), ratios.getTotalInflows());
+        assertEquals(new BigDecimal("125.00"), ratios.getNetCashOutflows());
+        assertEquals(new BigDecimal("8.0000"), ratios.getLiquidityCoverageRatio());
+        assertNull(ratios.getNetStableFundingRatio());
+    }
+
+    @Test
+    void shouldLimitLevelTwoAssetsToFortyPercentOfHqla() {
+        ratioBook.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(position("NYC001", "USD", "100.00"))));
+        ratioBook.onComponentsChanged(new RegulatoryComponentsChangedEvent("NYC001", "USD", Map.of(
+                RegulatoryBucket.HQLA_LEVEL_2A, new BigDecimal("200.00"),
+                RegulatoryBucket.OUTFLOW_WHOLESALE_FINANCIAL, new BigDecimal("100.00"))));
+
+        RegulatoryRatioResponse ratios = ratioBook.getBankRatios();
+
+        assertEquals(new BigDecimal("170.00"), ratios.getLevel2aAssets());
+        assertEquals(new BigDecimal("166.67"), ratios.getHighQualityLiquidAssets());
+        assertEquals(new BigDecimal("1.6667"), ratios.getLiquidityCoverageRatio());
+    }
+
+    @Test
+    void shouldReplacePreviousContributionOfSamePair() {
+        ratioBook.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(
+                position("NYC001", "USD", "1000.00"),
+                position("LON001", "EUR", "500.00"))));
+        ratioBook.onComponentsChanged(new RegulatoryComponentsChangedEvent("NYC001", "USD", Map.of(
+                RegulatoryBucket.ASF_CAPITAL, new BigDecimal("500.00"),
+                RegulatoryBucket.RSF_OTHER_LOANS, new BigDecimal("400.00"))));
+
+        // Обновление остатка не теряет классификацию пары, новая классификация заменяет старую целиком
+        ratioBook.onPositionsChanged(new LiquidityPositionChangedEvent(List.of(position("NYC001", "USD", "300.00"))));
+        ratioBook.onComponentsChanged(new RegulatoryComponentsChangedEvent("NYC001", "USD", Map.of(
+                RegulatoryBucket.ASF_CAPITAL, new BigDecimal("680.00"),
+                RegulatoryBucket.RSF_OTHER_LOANS, new BigDecimal("400.00"))));
+
+        RegulatoryRatioResponse branch = ratioBook.getBranchRatios("NYC001").orElseThrow();
+        assertEquals(1, branch.getPositions());
+        assertEquals(new BigDecimal("300.00"), branch.getLevel1Assets());
+        assertEquals(new BigDecimal("340.00"), branch.getRequiredStableFunding());
+        assertEquals(new BigDecimal("2.0000"), branch.getNetStableFundingRatio());
+
+        RegulatoryRatioResponse bank = ratioBook.getBankRatios();
+        assertEquals(2, bank.getPositions());
+        assertEquals(new BigDecimal("800.00"), bank.getLevel1Assets());
+        assertEquals(new BigDecimal("680.00"), bank.getAvailableStableFunding());
+        assertTrue(ratioBook.getBranchRatios("PAR001").isEmpty());
+    }
+
+    @Test
+    void shouldApplyConfiguredWeightOverrides() {
+        properties.getRegulatory().getWeights().put(RegulatoryBucket.OUTFLOW_RETAIL_STABLE, new BigDecimal("0.03"));
+        ratioBook = new RegulatoryRatioBook(positionRepository, componentRepository, entityManager, properties);
+
+        ratioBook.onComponentsChanged(new RegulatoryComponentsChangedEvent("NYC001", "USD", Map.of(
+                RegulatoryBucket.OUTFLOW_RETAIL_STABLE, new BigDecimal("1000.00"))));
+
+        assertEquals(new BigDecimal("30.00"), ratioBook.getBankRatios().getTotalOutflows());
+    }
+
+    @Test
+    void shouldRejectWeightOutsideUnitInterval() {
+        properties.getRegulatory().getWeights().put(RegulatoryBucket.HQLA_LEVEL_2B, new BigDecimal("1.5"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new RegulatoryRatioBook(positionRepository, componentRepository, entityManager, properties));
+    }
+
+    private LiquidityPosition position(String branch, String currency, String cash) {
+        return LiquidityPosition.builder()
+                .branchCode(branch)
+                .currency(currency)
+                .availableCash(new BigDecimal(cash))
+                .requiredReserves(BigDecimal.ZERO)
+                .build();
+    }
+}
@@ -0,0 +1,127 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.config.KafkaConfig;
+import com.bank.liquidity.config.LiquidityProperties;
+import com.bank.liquidity.dto.TransactionMessage;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig(classes = {TransactionFeedListenerTest.TestConfig.class, KafkaConfig.class, TransactionFeedListener.class})
+@EmbeddedKafka(partitions = 1, topics = "transactions")
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "liquidity.transactions.auto-offset-reset=earliest",
+        "liquidity.transactions.concurrency=1",
+        "liquidity.transactions.retry-backoff-ms=50"
+})
+class TransactionFeedListenerTest {
+
+    private static final long TIMEOUT_MS = 15_000;
+
+    @MockBean
+    private TransactionPositionUpdater positionUpdater;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Autowired
+    private LiquidityProperties properties;
+
+    @Test
+    void shouldApplyTransactionsAndCommitOffsetsAfterApply() throws Exception {
+        long nextOffset = send(
+                transactionJson("feed-1", "DEPOSIT", "100.00"),
+                "not-json",
+                transactionJson("feed-2", "WITHDRAWAL", "40.00"));
+
+        awaitCommittedOffset(nextOffset);
+
+        assertEquals(Set.of("feed-1", "feed-2"), appliedTransactionIds());
+    }
+
+    @Test
+    void shouldRedeliverBatchWhenApplyFails() throws Exception {
+        when(positionUpdater.apply(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Database unavailable"))
+                .thenReturn(1);
+
+        long nextOffset = send(transactionJson("retry-1", "DEPOSIT", "10.00"));
+
+        awaitCommittedOffset(nextOffset);
+
+        // Смещение зафиксировано только после успешной повторной попытки с той же транзакцией
+        verify(positionUpdater, atLeast(2)).apply(anyList());
+        assertEquals(Set.of("retry-1"), appliedTransactionIds());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> appliedTransactionIds() {
+        ArgumentCaptor<List<TransactionMessage>> batches = ArgumentCaptor.forClass(List.class);
+        verify(positionUpdater, atLeastOnce()).apply(batches.capture());
+        return batches.getAllValues().stream()
+                .flatMap(List::stream)
+                .map(TransactionMessage::getTransactionId)
+                .collect(Collectors.toSet());
+    }
+
+    // Возвращает смещение, следующее за последним отправленным сообщением
+    private long send(String... values) throws Exception {
+        RecordMetadata last = null;
+        try (Producer<String, String> producer = new KafkaProducer<>(
+                KafkaTestUtils.producerProps(broker), new StringSerializer(), new StringSerializer())) {
+            for (String value : values) {
+                last = producer.send(new ProducerRecord<>("transactions", value)).get();
+            }
+        }
+        return last.offset() + 1;
+    }
+
+    private void awaitCommittedOffset(long expected) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            OffsetAndMetadata committed = KafkaTestUtils.getCurrentOffset(broker.getBrokersAsString(),
+                    properties.getTransactions().getGroupId(), "transactions", 0);
+            if (committed != null && committed.offset() >= expected) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        fail("Offset " + expected + " was not committed within " + TIMEOUT_MS + "ms");
+    }
+
+    private static String transactionJson(String transactionId, String type, String amount) {
+        return String.format("""
+                {"transactionId":"%s","type":"%s","amount":%s,"currency":"USD","branchCode":"NYC001",\
+                "status":"PENDING","accountNumber":"ACC123456","transactionDate":"2024-03-10T14:00:00"}""",
+                transactionId, type, amount);
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(LiquidityProperties.class)
+    static class TestConfig {
+    }
+}
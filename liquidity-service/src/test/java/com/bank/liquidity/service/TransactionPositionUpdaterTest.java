@@ -0,0 +1,216 @@
+package com.bank.liquidity.service;
+
+import com.bank.liquidity.dto.TransactionMessage;
+import com.bank.liquidity.dto.TransactionStatusMessage;
+import com.bank.liquidity.event.LiquidityPositionChangedEvent;
+import com.bank.liquidity.model.LiquidityPosition;
+import com.bank.liquidity.repository.LiquidityPositionBatchRepository;
+import com.bank.liquidity.repository.LiquidityPositionBatchRepository.CashDelta;
+import com.bank.liquidity.repository.ProcessedTransactionRepository;
+import com.bank.liquidity.repository.ProcessedTransactionRepository.Registration;
+import com.bank.liquidity.repository.ProcessedTransactionRepository.Transition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionPositionUpdaterTest {
+
+    @Mock
+    private LiquidityPositionBatchRepository batchRepository;
+
+    @Mock
+    private ProcessedTransactionRepository processedRepository;
+
+    @Mock
+    private LiquidityMetricsService metricsService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private TransactionPositionUpdater positionUpdater;
+
+    @Test
+    void shouldFoldNetAmountsIntoAvailableCashOncePerPosition() {
+        LiquidityPosition nyc = position("NYC001", "USD", "1100.00", "800.00");
+        when(processedRepository.register(anyCollection())).thenAnswer(invocation -> invocation
+                .<Collection<Registration>>getArgument(0).stream()
+                .collect(Collectors.toMap(Registration::transactionId, Registration::applied)));
+        when(batchRepository.addToAvailableCash(anyList(), any())).thenReturn(List.of(nyc));
+
+        int applied = positionUpdater.apply(List.of(
+                message("tx-1", "DEPOSIT", "250.00", "NYC001", "USD"),
+                message("tx-2", "WITHDRAWAL", "100.50", "NYC001", "USD"),
+                message("tx-3", "TRANSFER", "49.50", "NYC001", "USD"),
+                message("tx-4", "PAYMENT", "999.00", "NYC001", "USD")));
+
+        assertEquals(3, applied);
+        verify(batchRepository).addToAvailableCash(eq(List.of(new CashDelta("NYC001", "USD", new BigDecimal("100.00")))), any());
+
+        ArgumentCaptor<LiquidityPositionChangedEvent> event = ArgumentCaptor.forClass(LiquidityPositionChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(List.of(nyc), event.getValue().getPositions());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void shouldSkipAlreadyProcessedAndRepeatedTransactions() {
+        LiquidityPosition nyc = position("NYC001", "USD", "1010.00", "800.00");
+        when(processedRepository.register(anyCollection())).thenReturn(Map.of("tx-2", true));
+        when(batchRepository.addToAvailableCash(anyList(), any())).thenReturn(List.of(nyc));
+
+        int applied = positionUpdater.apply(List.of(
+                message("tx-1", "DEPOSIT", "500.00", "NYC001", "USD"),
+                message("tx-2", "DEPOSIT", "10.00", "NYC001", "USD"),
+                message("tx-2", "DEPOSIT", "10.00", "NYC001", "USD")));
+
+        assertEquals(1, applied);
+        verify(batchRepository).addToAvailableCash(eq(List.of(new CashDelta("NYC001", "USD", new BigDecimal("10.00")))), any());
+
+        ArgumentCaptor<Collection<Registration>> registrations = ArgumentCaptor.forClass(Collection.class);
+        verify(processedRepository).register(registrations.capture());
+        assertEquals(List.of(
+                        new Registration("tx-1", "NYC001", "USD", 50_000, true),
+                        new Registration("tx-2", "NYC001", "USD", 1_000, true)),
+                List.copyOf(registrations.getValue()));
+        verify(metricsService).recordTransactionFeedBatch(eq(3), eq(1), eq(1), eq(0), anyLong());
+    }
+
+    @Test
+    void shouldNotTouchDatabaseWhenNothingIsFoldable() {
+        assertEquals(0, positionUpdater.apply(List.of(message("tx-1", "REFUND", "10.00", "NYC001", "USD"))));
+
+        verifyNoInteractions(processedRepository, batchRepository, eventPublisher);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void shouldRegisterFailedTransactionWithoutApplyingIt() {
+        TransactionMessage failed = message("tx-1", "WITHDRAWAL", "10.00", "NYC001", "USD");
+        failed.setStatus("FAILED");
+        when(processedRepository.register(anyCollection())).thenReturn(Map.of("tx-1", false));
+
+        assertEquals(0, positionUpdater.apply(List.of(failed)));
+
+        ArgumentCaptor<Collection<Registration>> registrations = ArgumentCaptor.forClass(Collection.class);
+        verify(processedRepository).register(registrations.capture());
+        assertEquals(List.of(new Registration("tx-1", "NYC001", "USD", -1_000, false)), List.copyOf(registrations.getValue()));
+        verifyNoInteractions(batchRepository, eventPublisher);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void shouldCompensateTransactionsLeavingAndReturningToAppliedStatus() {
+        LiquidityPosition nyc = position("NYC001", "USD", "810.00", "800.00");
+        when(processedRepository.transition(anyMap())).thenReturn(List.of(
+                new Transition("tx-1", "NYC001", "USD", 25_000, false),
+                new Transition("tx-2", "NYC001", "USD", -5_000, false),
+                new Transition("tx-3", "NYC001", "USD", 1_000, true)));
+        when(batchRepository.addToAvailableCash(anyList(), any())).thenReturn(List.of(nyc));
+
+        int compensated = positionUpdater.applyStatusChanges(List.of(
+                status("tx-1", "COMPLETED"),
+                status("tx-1", "REVERSED"),
+                status("tx-2", "FAILED"),
+                status("tx-3", "COMPLETED"),
+                status("tx-4", "UNKNOWN")));
+
+        assertEquals(3, compensated);
+        // Отменены поступление 250.00 и списание 50.00, возвращено поступление 10.00
+        verify(batchRepository).addToAvailableCash(eq(List.of(new CashDelta("NYC001", "USD", new BigDecimal("-190.00")))), any());
+        verify(eventPublisher).publishEvent(any(LiquidityPositionChangedEvent.class));
+
+        ArgumentCaptor<Map<String, Boolean>> applied = ArgumentCaptor.forClass(Map.class);
+        verify(processedRepository).transition(applied.capture());
+        assertEquals(Map.of("tx-1", false, "tx-2", false, "tx-3", true), applied.getValue());
+    }
+
+    @Test
+    void shouldIgnoreRepeatedStatusChanges() {
+        when(processedRepository.transition(anyMap())).thenReturn(List.of());
+
+        assertEquals(0, positionUpdater.applyStatusChanges(List.of(status("tx-1", "FAILED"))));
+
+        verifyNoInteractions(batchRepository, eventPublisher);
+    }
+
+    @Test
+    void shouldUpdatePositionsInKeyOrder() {
+        when(processedRepository.register(anyCollection())).thenAnswer(invocation -> invocation
+                .<Collection<Registration>>getArgument(0).stream()
+                .collect(Collectors.toMap(Registration::transactionId, Registration::applied)));
+        when(batchRepository.addToAvailableCash(anyList(), any())).thenReturn(List.of(
+                position("LON001", "EUR", "10.00", "0.00"),
+                position("NYC001", "EUR", "20.00", "0.00"),
+                position("NYC001", "USD", "30.00", "0.00")));
+
+        positionUpdater.apply(List.of(
+                message("tx-1", "DEPOSIT", "30.00", "NYC001", "USD"),
+                message("tx-2", "DEPOSIT", "20.00", "NYC001", "EUR"),
+                message("tx-3", "DEPOSIT", "10.00", "LON001", "EUR")));
+
+        // Один порядок блокировки строк для всех потребителей исключает взаимоблокировки
+        verify(batchRepository).addToAvailableCash(eq(List.of(
+                new CashDelta("LON001", "EUR", new BigDecimal("10.00")),
+                new CashDelta("NYC001", "EUR", new BigDecimal("20.00")),
+                new CashDelta("NYC001", "USD", new BigDecimal("30.00")))), any());
+    }
+
+    @Test
+    void shouldLeavePositionsUntouchedWhenNoSnapshotExists() {
+        when(processedRepository.register(anyCollection())).thenReturn(Map.of("tx-1", true));
+        when(batchRepository.addToAvailableCash(anyList(), any())).thenReturn(List.of());
+
+        assertEquals(1, positionUpdater.apply(List.of(message("tx-1", "DEPOSIT", "10.00", "LON001", "EUR"))));
+
+        verifyNoInteractions(eventPublisher);
+        verify(metricsService).recordTransactionFeedBatch(eq(1), eq(1), eq(0), eq(1), anyLong());
+    }
+
+    private static TransactionMessage message(String id, String type, String amount, String branchCode, String currency) {
+        return TransactionMessage.builder()
+                .transactionId(id)
+                .type(type)
+                .amount(new BigDecimal(amount))
+                .branchCode(branchCode)
+                .currency(currency)
+                .status("PENDING")
+                .build();
+    }
+
+    private static TransactionStatusMessage status(String id, String newStatus) {
+        return TransactionStatusMessage.builder().transactionId(id).newStatus(newStatus).build();
+    }
+
+    private static LiquidityPosition position(String branchCode, String currency, String cash, String reserves) {
+        LiquidityPosition position = LiquidityPosition.builder()
+                .id(1L)
+                .branchCode(branchCode)
+                .currency(currency)
+                .availableCash(new BigDecimal(cash))
+                .requiredReserves(new BigDecimal(reserves))
+                .build();
+        position.calculateDerivedFields();
+        return position;
+    }
+}
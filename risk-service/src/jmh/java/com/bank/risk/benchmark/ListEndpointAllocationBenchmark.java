@@ -0,0 +1,163 @@
+package com.bank.risk.benchmark;
+
+import com.bank.risk.dto.RiskAssessmentResponse;
+import com.bank.risk.model.RiskAssessment;
+import com.bank.risk.repository.RiskAssessmentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Память на один запрос списочного эндпоинта: загрузка сущностей с маппингом в ответ против
+// JPQL-проекции прямо в RiskAssessmentResponse. Обе ветки читают в read-only транзакции, как сервис.
+// Запуск: ./gradlew :risk-service:jmh (профилировщик gc показывает gc.alloc.rate.norm на операцию)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListEndpointAllocationBenchmark {
+
+    private static final int BRANCHES = 100;
+    private static final int ASSESSMENTS_PER_BRANCH = 40;
+    private static final String BRANCH = "BR0042";
+    private static final BigDecimal HIGH_RISK_THRESHOLD = new BigDecimal("75");
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "JPY"};
+
+    public enum Endpoint {
+        ALL,
+        BY_BRANCH,
+        HIGH_RISK,
+        CRITICAL
+    }
+
+    @Param({"ALL", "BY_BRANCH", "HIGH_RISK", "CRITICAL"})
+    private Endpoint endpoint;
+
+    private SingleConnectionDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private RiskAssessmentRepository repository;
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:list-endpoints;DB_CLOSE_DELAY=-1", "sa", "", true);
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.bank.risk.model");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+
+        repository = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory))
+                .getRepository(RiskAssessmentRepository.class);
+
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> repository.saveAll(assessments()));
+
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<RiskAssessmentResponse> entities() {
+        return readOnlyTransaction.execute(status -> {
+            List<RiskAssessment> assessments = switch (endpoint) {
+                case ALL -> repository.findAll();
+                case BY_BRANCH -> repository.findByBranchCode(BRANCH);
+                case HIGH_RISK -> repository.findHighRiskAssessments(HIGH_RISK_THRESHOLD);
+                case CRITICAL -> repository.findByRiskLevel(RiskAssessment.RiskLevel.CRITICAL);
+            };
+            return assessments.stream().map(ListEndpointAllocationBenchmark::toResponse).toList();
+        });
+    }
+
+    @Benchmark
+    public List<RiskAssessmentResponse> projection() {
+        return readOnlyTransaction.execute(status -> switch (endpoint) {
+            case ALL -> repository.findAllResponses();
+            case BY_BRANCH -> repository.findResponsesByBranchCode(BRANCH);
+            case HIGH_RISK -> repository.findHighRiskResponses(HIGH_RISK_THRESHOLD);
+            case CRITICAL -> repository.findResponsesByRiskLevel(RiskAssessment.RiskLevel.CRITICAL);
+        });
+    }
+
+    // Маппинг, которым сервис пользовался до перехода на проекции
+    private static RiskAssessmentResponse toResponse(RiskAssessment assessment) {
+        return RiskAssessmentResponse.builder()
+                .id(assessment.getId())
+                .branchCode(assessment.getBranchCode())
+                .currency(assessment.getCurrency())
+                .riskScore(assessment.getRiskScore())
+                .riskLevel(assessment.getRiskLevel())
+                .assessmentDate(assessment.getAssessmentDate())
+                .liquidityRisk(assessment.getLiquidityRisk())
+                .volatilityRisk(assessment.getVolatilityRisk())
+                .concentrationRisk(assessment.getConcentrationRisk())
+                .marketRisk(assessment.getMarketRisk())
+                .recommendations(assessment.getRecommendations())
+                .riskFactors(assessment.getRiskFactors())
+                .createdAt(assessment.getCreatedAt())
+                .updatedAt(assessment.getUpdatedAt())
+                .build();
+    }
+
+    private static List<RiskAssessment> assessments() {
+        Random random = new Random(42);
+        List<RiskAssessment> assessments = new ArrayList<>(BRANCHES * ASSESSMENTS_PER_BRANCH);
+        for (int branch = 0; branch < BRANCHES; branch++) {
+            for (int i = 0; i < ASSESSMENTS_PER_BRANCH; i++) {
+                // Уровень риска выставляется в @PrePersist по баллу
+                assessments.add(RiskAssessment.builder()
+                        .branchCode(String.format("BR%04d", branch))
+                        .currency(CURRENCIES[i % CURRENCIES.length])
+                        .liquidityRisk(score(random))
+                        .volatilityRisk(score(random))
+                        .concentrationRisk(score(random))
+                        .marketRisk(score(random))
+                        .riskScore(score(random))
+                        .riskFactors("Moderate risk factors across all categories")
+                        .recommendations("LOW: Normal operations. Continue periodic risk reviews. ")
+                        .build());
+            }
+        }
+        return assessments;
+    }
+
+    private static BigDecimal score(Random random) {
+        return BigDecimal.valueOf(random.nextInt(10_000), 2);
+    }
+}
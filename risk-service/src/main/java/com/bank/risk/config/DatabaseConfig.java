@@ -1,15 +1,23 @@
 package com.bank.risk.config;
 
+import com.zaxxer.hikari.HikariDataSource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.util.StringUtils;
 
 import javax.sql.DataSource;
 
@@ -20,6 +28,41 @@ import javax.sql.DataSource;
 @EnableJpaRepositories(basePackages = "com.bank.risk.repository")
 public class DatabaseConfig {
 
+    // Пул записи: настройки spring.datasource.hikari
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource writeDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Пул чтения: реплика из spring.datasource.read.url или, если она не задана, отдельный пул к основной БД,
+    // чтобы отчеты не забирали соединения у записи. Настройки пула - spring.datasource.read.hikari
+    @Bean
+    @ConfigurationProperties("spring.datasource.read.hikari")
+    public HikariDataSource readDataSource(DataSourceProperties properties,
+                                           @Value("${spring.datasource.read.url:}") String url,
+                                           @Value("${spring.datasource.read.username:}") String username,
+                                           @Value("${spring.datasource.read.password:}") String password) {
+        boolean replica = StringUtils.hasText(url);
+        log.info("Configuring read-only data source: {}",
+                replica ? "replica " + url : "dedicated pool on the primary database");
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(replica ? url : properties.determineUrl())
+                .username(StringUtils.hasText(username) ? username : properties.determineUsername())
+                .password(StringUtils.hasText(password) ? password : properties.determinePassword())
+                .build();
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+                                 @Qualifier("readDataSource") DataSource readDataSource) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(writeDataSource, readDataSource));
+    }
+
     @Bean
     public LocalContainerEntityManagerFactoryBean entityManagerFactory(
             EntityManagerFactoryBuilder builder, DataSource dataSource) {
@@ -24,6 +24,10 @@ import java.time.LocalDateTime;
 })
 public class RiskAssessment {
 
+    private static final BigDecimal LOW_RISK_MAX = new BigDecimal("25");
+    private static final BigDecimal MEDIUM_RISK_MAX = new BigDecimal("50");
+    private static final BigDecimal HIGH_RISK_MAX = new BigDecimal("75");
+
     public enum RiskLevel {
         LOW, MEDIUM, HIGH, CRITICAL
     }
@@ -83,11 +87,11 @@ public class RiskAssessment {
         }
 
         if (this.riskScore != null) {
-            if (this.riskScore.compareTo(new BigDecimal("25")) <= 0) {
+            if (this.riskScore.compareTo(LOW_RISK_MAX) <= 0) {
                 this.riskLevel = RiskLevel.LOW;
-            } else if (this.riskScore.compareTo(new BigDecimal("50")) <= 0) {
+            } else if (this.riskScore.compareTo(MEDIUM_RISK_MAX) <= 0) {
                 this.riskLevel = RiskLevel.MEDIUM;
-            } else if (this.riskScore.compareTo(new BigDecimal("75")) <= 0) {
+            } else if (this.riskScore.compareTo(HIGH_RISK_MAX) <= 0) {
                 this.riskLevel = RiskLevel.HIGH;
             } else {
                 this.riskLevel = RiskLevel.CRITICAL;
@@ -1,5 +1,6 @@
 package com.bank.risk.repository;
 
+import com.bank.risk.dto.RiskAssessmentResponse;
 import com.bank.risk.model.RiskAssessment;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -14,6 +15,16 @@ import java.util.Optional;
 @Repository
 public interface RiskAssessmentRepository extends JpaRepository<RiskAssessment, Long> {
 
+    // Списки для API читаются сразу в RiskAssessmentResponse, минуя сущности и mapToResponse.
+    // Порядок аргументов совпадает с порядком полей RiskAssessmentResponse (@AllArgsConstructor)
+    String RESPONSE_SELECT = """
+        SELECT new com.bank.risk.dto.RiskAssessmentResponse(
+            ra.id, ra.branchCode, ra.currency, ra.riskScore, ra.riskLevel, ra.assessmentDate,
+            ra.liquidityRisk, ra.volatilityRisk, ra.concentrationRisk, ra.marketRisk,
+            ra.recommendations, ra.riskFactors, ra.createdAt, ra.updatedAt)
+        FROM RiskAssessment ra
+        """;
+
     List<RiskAssessment> findByBranchCode(String branchCode);
 
     List<RiskAssessment> findByBranchCodeAndCurrency(String branchCode, String currency);
@@ -29,6 +40,18 @@ public interface RiskAssessmentRepository extends JpaRepository<RiskAssessment,
     @Query("SELECT ra FROM RiskAssessment ra WHERE ra.riskScore >= :threshold ORDER BY ra.riskScore DESC")
     List<RiskAssessment> findHighRiskAssessments(@Param("threshold") BigDecimal threshold);
 
+    @Query(RESPONSE_SELECT)
+    List<RiskAssessmentResponse> findAllResponses();
+
+    @Query(RESPONSE_SELECT + "WHERE ra.branchCode = :branchCode")
+    List<RiskAssessmentResponse> findResponsesByBranchCode(@Param("branchCode") String branchCode);
+
+    @Query(RESPONSE_SELECT + "WHERE ra.riskLevel = :riskLevel")
+    List<RiskAssessmentResponse> findResponsesByRiskLevel(@Param("riskLevel") RiskAssessment.RiskLevel riskLevel);
+
+    @Query(RESPONSE_SELECT + "WHERE ra.riskScore >= :threshold ORDER BY ra.riskScore DESC")
+    List<RiskAssessmentResponse> findHighRiskResponses(@Param("threshold") BigDecimal threshold);
+
     @Query("SELECT ra.branchCode, AVG(ra.riskScore) FROM RiskAssessment ra GROUP BY ra.branchCode")
     List<Object[]> getAverageRiskScoreByBranch();
 
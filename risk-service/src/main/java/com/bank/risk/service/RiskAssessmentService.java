@@ -28,6 +28,16 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class RiskAssessmentService {
 
+    private static final int SCORE_SCALE = 2;
+    private static final int WEIGHT_SCALE = 4;
+    private static final long WEIGHT_FACTOR = 10_000L;
+    // Ограничение целой части, при котором произведение оценки и веса гарантированно помещается в long
+    private static final int MAX_FIXED_POINT_INTEGER_DIGITS = 6;
+
+    private static final BigDecimal HIGH_FACTOR_RISK = new BigDecimal("50");
+    private static final BigDecimal SEVERE_FACTOR_RISK = new BigDecimal("70");
+    private static final BigDecimal RISK_INCREASE_THRESHOLD = new BigDecimal("15");
+
     private final RiskAssessmentRepository assessmentRepository;
     private final RiskAlertRepository alertRepository;
     private final RiskMetricsService metricsService;
@@ -77,17 +87,13 @@ public class RiskAssessmentService {
     @Transactional(readOnly = true)
     public List<RiskAssessmentResponse> getAllAssessments() {
         log.debug("Fetching all risk assessments");
-        return assessmentRepository.findAll().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return assessmentRepository.findAllResponses();
     }
 
     @Transactional(readOnly = true)
     public List<RiskAssessmentResponse> getAssessmentsByBranch(String branchCode) {
         log.debug("Fetching risk assessments for branch: {}", branchCode);
-        return assessmentRepository.findByBranchCode(branchCode).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return assessmentRepository.findResponsesByBranchCode(branchCode);
     }
 
     @Transactional(readOnly = true)
@@ -101,17 +107,13 @@ public class RiskAssessmentService {
     public List<RiskAssessmentResponse> getHighRiskAssessments() {
         log.debug("Fetching high risk assessments");
         BigDecimal threshold = riskConfig.getThresholds().getHighRiskMax();
-        return assessmentRepository.findHighRiskAssessments(threshold).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return assessmentRepository.findHighRiskResponses(threshold);
     }
 
     @Transactional(readOnly = true)
     public List<RiskAssessmentResponse> getCriticalRiskAssessments() {
         log.debug("Fetching critical risk assessments");
-        return assessmentRepository.findByRiskLevel(RiskAssessment.RiskLevel.CRITICAL).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return assessmentRepository.findResponsesByRiskLevel(RiskAssessment.RiskLevel.CRITICAL);
     }
 
     @Transactional(readOnly = true)
@@ -158,29 +160,74 @@ public class RiskAssessmentService {
     }
 
     private BigDecimal calculateWeightedRiskScore(RiskAssessmentRequest request) {
+        RiskConfig.RiskWeights weights = riskConfig.getWeights();
+
+        if (fitsFixedPoint(request, weights)) {
+            // Оценки со шкалой до 2 знаков и веса до 4 знаков считаются в long: сумма произведений имеет шкалу 6
+            long weightedScore = weightedTerm(request.getLiquidityRisk(), weights.getLiquidityWeight())
+                    + weightedTerm(request.getVolatilityRisk(), weights.getVolatilityWeight())
+                    + weightedTerm(request.getConcentrationRisk(), weights.getConcentrationWeight())
+                    + weightedTerm(request.getMarketRisk(), weights.getMarketWeight());
+            return BigDecimal.valueOf(roundHalfUp(weightedScore, WEIGHT_FACTOR), SCORE_SCALE);
+        }
+
         BigDecimal weightedScore = BigDecimal.ZERO;
 
-        weightedScore = weightedScore.add(request.getLiquidityRisk().multiply(riskConfig.getWeights().getLiquidityWeight()));
-        weightedScore = weightedScore.add(request.getVolatilityRisk().multiply(riskConfig.getWeights().getVolatilityWeight()));
-        weightedScore = weightedScore.add(request.getConcentrationRisk().multiply(riskConfig.getWeights().getConcentrationWeight()));
-        weightedScore = weightedScore.add(request.getMarketRisk().multiply(riskConfig.getWeights().getMarketWeight()));
+        weightedScore = weightedScore.add(request.getLiquidityRisk().multiply(weights.getLiquidityWeight()));
+        weightedScore = weightedScore.add(request.getVolatilityRisk().multiply(weights.getVolatilityWeight()));
+        weightedScore = weightedScore.add(request.getConcentrationRisk().multiply(weights.getConcentrationWeight()));
+        weightedScore = weightedScore.add(request.getMarketRisk().multiply(weights.getMarketWeight()));
+
+        return weightedScore.setScale(SCORE_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private static boolean fitsFixedPoint(RiskAssessmentRequest request, RiskConfig.RiskWeights weights) {
+        return fitsFixedPoint(request.getLiquidityRisk(), SCORE_SCALE)
+                && fitsFixedPoint(request.getVolatilityRisk(), SCORE_SCALE)
+                && fitsFixedPoint(request.getConcentrationRisk(), SCORE_SCALE)
+                && fitsFixedPoint(request.getMarketRisk(), SCORE_SCALE)
+                && fitsFixedPoint(weights.getLiquidityWeight(), WEIGHT_SCALE)
+                && fitsFixedPoint(weights.getVolatilityWeight(), WEIGHT_SCALE)
+                && fitsFixedPoint(weights.getConcentrationWeight(), WEIGHT_SCALE)
+                && fitsFixedPoint(weights.getMarketWeight(), WEIGHT_SCALE);
+    }
 
-        return weightedScore.setScale(2, RoundingMode.HALF_UP);
+    private static boolean fitsFixedPoint(BigDecimal value, int scale) {
+        return value.scale() <= scale && value.precision() - value.scale() <= MAX_FIXED_POINT_INTEGER_DIGITS;
+    }
+
+    private static long weightedTerm(BigDecimal score, BigDecimal weight) {
+        return Math.multiplyExact(toScaledLong(score, SCORE_SCALE), toScaledLong(weight, WEIGHT_SCALE));
+    }
+
+    private static long toScaledLong(BigDecimal value, int scale) {
+        BigDecimal scaled = value.scale() == scale ? value : value.setScale(scale, RoundingMode.HALF_UP);
+        return scaled.unscaledValue().longValueExact();
+    }
+
+    // Деление на положительный делитель с округлением HALF_UP (от нуля при остатке не меньше половины)
+    private static long roundHalfUp(long value, long divisor) {
+        long quotient = value / divisor;
+        long remainder = Math.abs(value % divisor);
+        if (remainder != 0 && remainder >= divisor - remainder) {
+            quotient += value < 0 ? -1 : 1;
+        }
+        return quotient;
     }
 
     private String buildRiskFactorsDescription(RiskAssessmentRequest request) {
         StringBuilder factors = new StringBuilder();
 
-        if (request.getLiquidityRisk().compareTo(new BigDecimal("50")) > 0) {
+        if (request.getLiquidityRisk().compareTo(HIGH_FACTOR_RISK) > 0) {
             factors.append("High liquidity risk; ");
         }
-        if (request.getVolatilityRisk().compareTo(new BigDecimal("50")) > 0) {
+        if (request.getVolatilityRisk().compareTo(HIGH_FACTOR_RISK) > 0) {
             factors.append("High volatility risk; ");
         }
-        if (request.getConcentrationRisk().compareTo(new BigDecimal("50")) > 0) {
+        if (request.getConcentrationRisk().compareTo(HIGH_FACTOR_RISK) > 0) {
             factors.append("High concentration risk; ");
         }
-        if (request.getMarketRisk().compareTo(new BigDecimal("50")) > 0) {
+        if (request.getMarketRisk().compareTo(HIGH_FACTOR_RISK) > 0) {
             factors.append("High market risk; ");
         }
 
@@ -209,10 +256,10 @@ public class RiskAssessmentService {
         }
 
         // Специфические рекомендации на основе факторов риска
-        if (request.getLiquidityRisk().compareTo(new BigDecimal("70")) > 0) {
+        if (request.getLiquidityRisk().compareTo(SEVERE_FACTOR_RISK) > 0) {
             recommendations.append("Focus on liquidity management and reserve adequacy. ");
         }
-        if (request.getConcentrationRisk().compareTo(new BigDecimal("70")) > 0) {
+        if (request.getConcentrationRisk().compareTo(SEVERE_FACTOR_RISK) > 0) {
             recommendations.append("Diversify exposures to reduce concentration risk. ");
         }
 
@@ -310,7 +357,7 @@ public class RiskAssessmentService {
             RiskAssessment previous = recentAssessments.get(1);
             BigDecimal riskIncrease = assessment.getRiskScore().subtract(previous.getRiskScore());
 
-            if (riskIncrease.compareTo(new BigDecimal("15")) > 0) { // 15% increase threshold
+            if (riskIncrease.compareTo(RISK_INCREASE_THRESHOLD) > 0) { // 15% increase threshold
                 createRiskIncreaseAlert(assessment, previous, riskIncrease);
             }
         }
@@ -0,0 +1,97 @@
+package com.bank.transaction.benchmark;
+
+import com.bank.transaction.event.TransactionEvent;
+import com.bank.transaction.event.TransactionEventCodec;
+import com.bank.transaction.model.Transaction;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Сообщение топика transactions: сущность Transaction в JSON (как раньше писал outbox) против TransactionEvent
+// в Avro через TransactionEventCodec. Размеры сообщений печатаются при подготовке, пропускная способность
+// сериализации и разбора - результат бенчмарка. Запуск: ./gradlew :transaction-service:jmh
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    // Настройки ObjectMapper Spring Boot, которым outbox сериализовал сущность
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private final TransactionEventCodec codec = new TransactionEventCodec();
+
+    private Transaction transaction;
+    private byte[] json;
+    private byte[] avro;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 10, 14, 0, 5);
+        // Сохраненная строка: заполнены id, версия и отметки времени, как у сущности после INSERT
+        transaction = Transaction.builder()
+                .id(1_234_567L)
+                .transactionId("3f1c2a9e-7b4d-4e8a-9c61-0d5f2b7e8a41")
+                .type(Transaction.TransactionType.TRANSFER)
+                .amount(new BigDecimal("15250.75"))
+                .currency("USD")
+                .accountNumber("ACC0000042")
+                .counterpartyAccountNumber("ACC0000317")
+                .transactionDate(now)
+                .status(Transaction.TransactionStatus.PENDING)
+                .description("Supplier invoice 2024-0311")
+                .branchCode("NYC001")
+                .channel("ONLINE")
+                .referenceNumber("INV-2024-0311")
+                .category("TRANSFER")
+                .createdAt(now)
+                .updatedAt(now)
+                .version(0L)
+                .build();
+
+        json = objectMapper.writeValueAsBytes(transaction);
+        avro = codec.encode(TransactionEvent.from(transaction));
+        System.out.printf("%nPayload size: JSON entity %d bytes, Avro event %d bytes%n", json.length, avro.length);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public byte[] avroSerialize() {
+        return codec.encode(TransactionEvent.from(transaction));
+    }
+
+    @Benchmark
+    public Transaction jsonDeserialize() throws Exception {
+        return objectMapper.readValue(json, Transaction.class);
+    }
+
+    @Benchmark
+    public TransactionEvent avroDeserialize() {
+        return codec.decodeTransaction(avro);
+    }
+}
@@ -0,0 +1,180 @@
+package com.bank.transaction.benchmark;
+
+import com.bank.transaction.dto.TransactionResponse;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.repository.TransactionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Память на один запрос списочного эндпоинта: загрузка сущностей с маппингом в ответ против
+// JPQL-проекции прямо в TransactionResponse. Обе ветки читают в read-only транзакции, как сервис.
+// Запуск: ./gradlew :transaction-service:jmh (профилировщик gc показывает gc.alloc.rate.norm на операцию)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListEndpointAllocationBenchmark {
+
+    private static final int ACCOUNTS = 200;
+    private static final int TRANSACTIONS_PER_ACCOUNT = 25;
+    private static final String ACCOUNT = "ACC0000042";
+    private static final int RECENT_LIMIT = 10;
+    private static final BigDecimal MIN_AMOUNT = new BigDecimal("10000");
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    public enum Endpoint {
+        ALL,
+        BY_ACCOUNT,
+        RECENT_BY_ACCOUNT,
+        BY_STATUS,
+        BY_AMOUNT
+    }
+
+    @Param({"ALL", "BY_ACCOUNT", "RECENT_BY_ACCOUNT", "BY_STATUS", "BY_AMOUNT"})
+    private Endpoint endpoint;
+
+    private SingleConnectionDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionRepository repository;
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:list-endpoints;DB_CLOSE_DELAY=-1", "sa", "", true);
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.bank.transaction.model");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+
+        repository = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory))
+                .getRepository(TransactionRepository.class);
+
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> repository.saveAll(transactions()));
+
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<TransactionResponse> entities() {
+        return readOnlyTransaction.execute(status -> {
+            List<Transaction> transactions = switch (endpoint) {
+                case ALL -> repository.findAll();
+                case BY_ACCOUNT -> repository.findByAccountNumber(ACCOUNT);
+                case RECENT_BY_ACCOUNT -> repository.findRecentTransactionsByAccount(ACCOUNT, RECENT_LIMIT);
+                case BY_STATUS -> repository.findByStatus(Transaction.TransactionStatus.FAILED);
+                case BY_AMOUNT -> repository.findByAmountGreaterThanEqual(MIN_AMOUNT);
+            };
+            return transactions.stream().map(ListEndpointAllocationBenchmark::toResponse).toList();
+        });
+    }
+
+    @Benchmark
+    public List<TransactionResponse> projection() {
+        return readOnlyTransaction.execute(status -> switch (endpoint) {
+            case ALL -> repository.findAllResponses();
+            // Первая страница истории размером во всю историю счета - те же строки, что и у сущностей
+            case BY_ACCOUNT -> repository.findAccountHistory(ACCOUNT, HISTORY_END, Long.MAX_VALUE,
+                    HISTORY_START, TRANSACTIONS_PER_ACCOUNT);
+            case RECENT_BY_ACCOUNT -> repository.findRecentResponsesByAccount(ACCOUNT, RECENT_LIMIT);
+            case BY_STATUS -> repository.findResponsesByStatus(Transaction.TransactionStatus.FAILED);
+            case BY_AMOUNT -> repository.findResponsesByAmountGreaterThanEqual(MIN_AMOUNT);
+        });
+    }
+
+    // Маппинг, которым сервис пользовался до перехода на проекции
+    private static TransactionResponse toResponse(Transaction transaction) {
+        return TransactionResponse.builder()
+                .id(transaction.getId())
+                .transactionId(transaction.getTransactionId())
+                .type(transaction.getType())
+                .amount(transaction.getAmount())
+                .currency(transaction.getCurrency())
+                .accountNumber(transaction.getAccountNumber())
+                .counterpartyAccountNumber(transaction.getCounterpartyAccountNumber())
+                .transactionDate(transaction.getTransactionDate())
+                .status(transaction.getStatus())
+                .description(transaction.getDescription())
+                .failureReason(transaction.getFailureReason())
+                .branchCode(transaction.getBranchCode())
+                .channel(transaction.getChannel())
+                .balanceAfter(transaction.getBalanceAfter())
+                .balanceBefore(transaction.getBalanceBefore())
+                .referenceNumber(transaction.getReferenceNumber())
+                .category(transaction.getCategory())
+                .createdAt(transaction.getCreatedAt())
+                .updatedAt(transaction.getUpdatedAt())
+                .highValueTransaction(transaction.isHighValueTransaction())
+                .suspiciousTransaction(transaction.isSuspiciousTransaction())
+                .build();
+    }
+
+    private static List<Transaction> transactions() {
+        Random random = new Random(42);
+        Transaction.TransactionType[] types = Transaction.TransactionType.values();
+        Transaction.TransactionStatus[] statuses = Transaction.TransactionStatus.values();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        List<Transaction> transactions = new ArrayList<>(ACCOUNTS * TRANSACTIONS_PER_ACCOUNT);
+        for (int account = 0; account < ACCOUNTS; account++) {
+            for (int i = 0; i < TRANSACTIONS_PER_ACCOUNT; i++) {
+                // Суммы до 20 000: примерно половина выше порога крупной транзакции
+                BigDecimal amount = BigDecimal.valueOf(100 + random.nextInt(2_000_000), 2);
+                transactions.add(Transaction.builder()
+                        .type(types[random.nextInt(types.length)])
+                        .amount(amount)
+                        .currency("USD")
+                        .accountNumber(String.format("ACC%07d", account))
+                        .transactionDate(start.plusMinutes(random.nextInt(525_600)))
+                        .status(statuses[random.nextInt(statuses.length)])
+                        .description("Benchmark transaction")
+                        .branchCode("NYC001")
+                        .channel("ONLINE")
+                        .category("TRANSFER")
+                        .build());
+            }
+        }
+        return transactions;
+    }
+}
@@ -2,14 +2,13 @@ package com.bank.transaction.config;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 import org.springframework.retry.annotation.EnableRetry;
 import org.springframework.retry.backoff.ExponentialBackOffPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
@@ -26,40 +25,30 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // Производитель ретранслятора outbox - единственный в сервисе: события уже закодированы TransactionEventCodec
+    // при записи в outbox и отправляются как есть. Крупные пачки: ретранслятор отправляет сотни сообщений подряд
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
+    public KafkaTemplate<String, byte[]> outboxKafkaTemplate() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        
-        // Настройки надежности
-        configProps.put(ProducerConfig.ACKS_CONFIG, "all"); // Ожидание подтверждения от всех реплик
-        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
-        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+
+        // Идемпотентный производитель сохраняет порядок внутри партиции при повторах
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
-        
-        // Настройки таймаутов
-        configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 120000); // 2 минуты
-        configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 30000); // 30 секунд
-        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 5000); // 5 секунд
-        
-        // Настройки повторных попыток с задержкой
-        configProps.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 1000);
-        
-        // Настройки сжатия
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 30000);
+        configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 15000);
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 5000);
+        configProps.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 500);
+
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 5);
         configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "snappy");
-        
-        log.info("Kafka producer factory configured with bootstrap servers: {}", bootstrapServers);
-        
-        return new DefaultKafkaProducerFactory<>(configProps);
-    }
 
-    // Создание KafkaTemplate для отправки сообщений
-    @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory());
-        template.setObservationEnabled(true); // Включение наблюдения Micrometer
+        KafkaTemplate<String, byte[]> template = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configProps));
+        template.setObservationEnabled(true);
         return template;
     }
 
@@ -0,0 +1,32 @@
+package com.bank.transaction.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Направляет соединения read-only транзакций в пул чтения, остальные - в пул записи.
+ * Флаг read-only выставляется после начала транзакции, поэтому маршрутизатор должен стоять
+ * за LazyConnectionDataSourceProxy: соединение берется только при первом запросе к БД.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        WRITE,
+        READ
+    }
+
+    public ReadWriteRoutingDataSource(DataSource writeDataSource, DataSource readDataSource) {
+        setTargetDataSources(Map.<Object, Object>of(Route.WRITE, writeDataSource, Route.READ, readDataSource));
+        setDefaultTargetDataSource(writeDataSource);
+        afterPropertiesSet();
+    }
+
+    // Без транзакции (миграции, JdbcTemplate вне @Transactional) используется пул записи
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.READ : Route.WRITE;
+    }
+}
@@ -0,0 +1,139 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.model.TransactionAlert;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "transaction")
+public class TransactionProperties {
+
+    private Outbox outbox = new Outbox();
+    private Batch batch = new Batch();
+    private Idempotency idempotency = new Idempotency();
+    private FailedAttempts failedAttempts = new FailedAttempts();
+    private AlertRules alertRules = new AlertRules();
+    private Ledger ledger = new Ledger();
+    private Partitions partitions = new Partitions();
+
+    @Data
+    public static class Outbox {
+        // Ретранслятор outbox -> Kafka; выключается в тестах и на экземплярах, которые не должны публиковать
+        private boolean relayEnabled = true;
+        // Сколько сообщений одна итерация отправляет пачкой и подтверждает одним UPDATE
+        private int batchSize = 500;
+        // Интервал опроса, когда новых записей нет; коммиты этого экземпляра будят ретранслятор сразу
+        private long pollIntervalMs = 1000;
+        // Сколько ретранслятор ждет подтверждения пачки от брокера
+        private long sendTimeoutMs = 30000;
+        // Экспоненциальная пауза после неудачной отправки
+        private long initialBackoffMs = 500;
+        private long maxBackoffMs = 60000;
+        // После стольких неудачных попыток сообщение откладывается (failed_at), чтобы не блокировать очередь
+        private int maxAttempts = 20;
+        // Отправленные сообщения удаляются по истечении этого срока
+        private Duration retention = Duration.ofDays(3);
+    }
+
+    @Data
+    public static class Batch {
+        // Строк на один flush: размер JDBC-батча вставки и порог очистки контекста персистентности
+        private int chunkSize = 1000;
+        // Максимальное количество транзакций в одном запросе
+        private int maxSize = 100000;
+    }
+
+    @Data
+    public static class Idempotency {
+        // Ожидаемое число ключей (channel, referenceNumber) за окно и допустимая доля ложных срабатываний фильтра
+        private int expectedKeys = 1000000;
+        private double falsePositiveRate = 0.01;
+        // Окно "недавних" ключей: фильтр хранит два поколения и сбрасывает старшее раз в окно
+        private Duration window = Duration.ofHours(24);
+        // Кэш ответов для повторов; промах кэша при срабатывании фильтра уходит в БД
+        private int cacheMaxSize = 10000;
+        private Duration cacheTtl = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class FailedAttempts {
+        // Окно подсчета неудачных транзакций для правил типа FAILED_ATTEMPTS
+        private Duration window = Duration.ofHours(1);
+        // Корзин в кольцевом буфере на счет; точность границы окна - window / buckets
+        private int buckets = 60;
+    }
+
+    @Data
+    public static class Ledger {
+        // Однопоточных полос проводок; каждая держит соединение на время проводки, поэтому не больше пула записи
+        private int lanes = 8;
+        // Сколько запрос ждет проводки в очереди полосы
+        private Duration writeTimeout = Duration.ofSeconds(30);
+        // Остатков счетов в памяти; вытесненный остаток при следующем обращении читается из account_balances
+        private int maxCachedAccounts = 1000000;
+    }
+
+    @Data
+    public static class Partitions {
+
+        public enum RetentionAction {
+            // Партиция отсоединяется и остается отдельной таблицей для архивации
+            DETACH,
+            // Партиция удаляется вместе с данными
+            DROP
+        }
+
+        // Обслуживание партиций transactions; выключается в тестах (H2) и на экземплярах без прав на DDL
+        private boolean maintenanceEnabled = true;
+        // Сколько месяцев вперед партиции создаются заранее
+        private int partitionsAhead = 3;
+        private String partitionCron = "0 0 1 * * *";
+        // Сколько месяцев, включая текущий, остаются в таблице; 0 - хранить все
+        private int retentionMonths = 0;
+        private RetentionAction retentionAction = RetentionAction.DETACH;
+    }
+
+    @Data
+    public static class AlertRules {
+        // Сколько счетов держат оконное состояние и известных контрагентов; давно неактивные вытесняются
+        private int maxTrackedAccounts = 100000;
+        // Правила в порядке вычисления; меняются через Config Server и POST /actuator/refresh без рестарта
+        private List<AlertRule> definitions = new ArrayList<>();
+    }
+
+    @Data
+    public static class AlertRule {
+
+        public enum Type {
+            // Сумма транзакции от minAmount
+            AMOUNT,
+            // count транзакций счета за window
+            VELOCITY,
+            // count транзакций с суммой в [minAmount, maxAmount) за window - дробление сумм под порогом
+            STRUCTURING,
+            // count переводов новым для счета контрагентам за window
+            NEW_COUNTERPARTY_BURST,
+            // От count неудачных транзакций за окно transaction.failed-attempts.window
+            FAILED_ATTEMPTS
+        }
+
+        private String name;
+        private Type type;
+        private boolean enabled = true;
+        private TransactionAlert.AlertType alertType = TransactionAlert.AlertType.UNUSUAL_PATTERN;
+        private int severity = 5;
+        // Начало текста алерта; по умолчанию имя правила
+        private String description;
+        private BigDecimal minAmount;
+        private BigDecimal maxAmount;
+        private int count;
+        private Duration window;
+    }
+}
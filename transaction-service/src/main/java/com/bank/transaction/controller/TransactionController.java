@@ -1,10 +1,16 @@
 package com.bank.transaction.controller;
 
+import com.bank.transaction.dto.AccountBalanceResponse;
 import com.bank.transaction.dto.ApiResponse;
+import com.bank.transaction.dto.TransactionBatchRequest;
+import com.bank.transaction.dto.TransactionBatchResponse;
+import com.bank.transaction.dto.TransactionPageResponse;
 import com.bank.transaction.dto.TransactionRequest;
 import com.bank.transaction.dto.TransactionResponse;
 import com.bank.transaction.dto.TransactionStatusUpdate;
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.TransactionIdempotencyService;
+import com.bank.transaction.service.TransactionIngestionService;
 import com.bank.transaction.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,10 +20,12 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
@@ -28,9 +36,11 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionIngestionService ingestionService;
+    private final TransactionIdempotencyService idempotencyService;
 
     @Operation(summary = "Создать транзакцию", 
-               description = "Создает новую банковскую транзакцию")
+               description = "Создает новую банковскую транзакцию; повтор с тем же channel и referenceNumber возвращает исходную транзакцию")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Транзакция успешно создана"),
         @ApiResponse(responseCode = "400", description = "Неверные входные данные"),
@@ -44,7 +54,8 @@ public class TransactionController {
 
         long startTime = System.currentTimeMillis();
         try {
-            TransactionResponse response = transactionService.createTransaction(request);
+            // Повтор с тем же (channel, referenceNumber) возвращает исходную транзакцию
+            TransactionResponse response = idempotencyService.createTransaction(request);
 
             log.info("Transaction created successfully: {} for account: {}",
                     response.getTransactionId(), response.getAccountNumber());
@@ -57,6 +68,28 @@ public class TransactionController {
         }
     }
 
+    @Operation(summary = "Загрузить пакет транзакций",
+               description = "Вставка пачками JDBC с id из пула последовательности; алерты и события outbox формируются один раз на весь пакет")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Пакет успешно загружен"),
+        @ApiResponse(responseCode = "400", description = "Неверные входные данные или слишком большой пакет"),
+        @ApiResponse(responseCode = "409", description = "referenceNumber уже использован в этом канале"),
+        @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<TransactionBatchResponse>> createTransactionsBatch(
+            @Valid @RequestBody TransactionBatchRequest request) {
+
+        log.info("Ingesting batch of {} transactions", request.getTransactions().size());
+
+        TransactionBatchResponse response = ingestionService.ingest(request.getTransactions());
+
+        log.info("Transaction batch ingested: {} transactions in {}ms ({} rows/s)",
+                response.getInserted(), response.getDurationMs(), response.getRowsPerSecond());
+
+        return ResponseEntity.ok(ApiResponse.success(response, "Transactions ingested successfully"));
+    }
+
     @Operation(summary = "Получить все транзакции", 
                description = "Возвращает список всех транзакций")
     @GetMapping
@@ -99,17 +132,24 @@ public class TransactionController {
                 .orElse(ResponseEntity.ok(ApiResponse.error("Transaction not found")));
     }
 
+    @Operation(summary = "История транзакций счета",
+               description = "Страница от новых к старым; nextCursor ответа передается в cursor следующего запроса с теми же фильтрами")
     @GetMapping("/account/{accountNumber}")
-    public ResponseEntity<ApiResponse<List<TransactionResponse>>> getTransactionsByAccount(
-            @PathVariable String accountNumber) {
+    public ResponseEntity<ApiResponse<TransactionPageResponse>> getTransactionsByAccount(
+            @PathVariable String accountNumber,
+            @Parameter(description = "Курсор из nextCursor предыдущей страницы") @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Transaction.TransactionType type) {
 
         log.debug("Fetching transactions for account: {}", accountNumber);
 
-        List<TransactionResponse> transactions = transactionService.getTransactionsByAccount(accountNumber);
+        TransactionPageResponse page = transactionService.getTransactionsByAccount(accountNumber, cursor, size, from, to, type);
 
-        log.debug("Retrieved {} transactions for account: {}", transactions.size(), accountNumber);
+        log.debug("Retrieved {} transactions for account: {}", page.getItems().size(), accountNumber);
 
-        return ResponseEntity.ok(ApiResponse.success(transactions));
+        return ResponseEntity.ok(ApiResponse.success(page));
     }
 
     @GetMapping("/account/{accountNumber}/recent")
@@ -126,6 +166,12 @@ public class TransactionController {
         return ResponseEntity.ok(ApiResponse.success(transactions));
     }
 
+    @GetMapping("/account/{accountNumber}/balance")
+    public ResponseEntity<ApiResponse<AccountBalanceResponse>> getAccountBalance(@PathVariable String accountNumber) {
+        log.debug("Fetching balance for account: {}", accountNumber);
+        return ResponseEntity.ok(ApiResponse.success(transactionService.getAccountBalance(accountNumber)));
+    }
+
     @GetMapping("/status/{status}")
     public ResponseEntity<ApiResponse<List<TransactionResponse>>> getTransactionsByStatus(
             @PathVariable Transaction.TransactionStatus status) {
@@ -0,0 +1,20 @@
+package com.bank.transaction.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionBatchRequest {
+
+    @NotEmpty(message = "Transactions are required")
+    private List<@Valid TransactionRequest> transactions;
+}
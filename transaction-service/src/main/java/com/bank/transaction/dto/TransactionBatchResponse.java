@@ -0,0 +1,20 @@
+package com.bank.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionBatchResponse {
+    private int received;
+    private int inserted;
+    private int alertsCreated;
+    private long durationMs;
+    private long rowsPerSecond;
+}
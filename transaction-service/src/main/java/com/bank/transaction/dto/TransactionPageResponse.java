@@ -0,0 +1,18 @@
+package com.bank.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPageResponse {
+    private List<TransactionResponse> items;
+    // Передается в cursor следующего запроса с теми же фильтрами; null - страница последняя
+    private String nextCursor;
+}
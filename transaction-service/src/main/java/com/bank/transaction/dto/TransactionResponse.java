@@ -37,4 +37,19 @@ public class TransactionResponse {
     private LocalDateTime updatedAt;
     private boolean highValueTransaction;
     private boolean suspiciousTransaction;
+
+    // Конструктор для JPQL-проекций TransactionRepository: признаки крупной и подозрительной транзакции
+    // считаются по сумме с теми же порогами, что и в Transaction
+    public TransactionResponse(Long id, String transactionId, Transaction.TransactionType type, BigDecimal amount,
+                               String currency, String accountNumber, String counterpartyAccountNumber,
+                               LocalDateTime transactionDate, Transaction.TransactionStatus status,
+                               String description, String failureReason, String branchCode, String channel,
+                               BigDecimal balanceAfter, BigDecimal balanceBefore, String referenceNumber,
+                               String category, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, transactionId, type, amount, currency, accountNumber, counterpartyAccountNumber, transactionDate,
+                status, description, failureReason, branchCode, channel, balanceAfter, balanceBefore,
+                referenceNumber, category, createdAt, updatedAt,
+                amount != null && amount.compareTo(Transaction.HIGH_VALUE_THRESHOLD) >= 0,
+                amount != null && amount.compareTo(Transaction.SUSPICIOUS_THRESHOLD) >= 0);
+    }
 }
\ No newline at end of file
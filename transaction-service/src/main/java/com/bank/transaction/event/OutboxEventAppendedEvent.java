@@ -0,0 +1,14 @@
+package com.bank.transaction.event;
+
+import lombok.Getter;
+
+// Публикуется при записи сообщения в outbox; после коммита будит ретранслятор, не дожидаясь очередного опроса
+@Getter
+public class OutboxEventAppendedEvent {
+
+    private final String topic;
+
+    public OutboxEventAppendedEvent(String topic) {
+        this.topic = topic;
+    }
+}
@@ -0,0 +1,32 @@
+package com.bank.transaction.event;
+
+import com.bank.transaction.model.TransactionAlert;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Событие топика transaction-alerts (avro/transaction-alert-event-v*.avsc); поля разбора алерта не публикуются
+public record TransactionAlertEvent(
+        TransactionAlert.AlertType alertType,
+        String transactionId,
+        String accountNumber,
+        BigDecimal amount,
+        String currency,
+        int severity,
+        String message,
+        String details,
+        LocalDateTime createdAt) {
+
+    public static TransactionAlertEvent from(TransactionAlert alert) {
+        return new TransactionAlertEvent(
+                alert.getAlertType(),
+                alert.getTransactionId(),
+                alert.getAccountNumber(),
+                alert.getAmount(),
+                alert.getCurrency(),
+                alert.getSeverity(),
+                alert.getMessage(),
+                alert.getDetails(),
+                alert.getCreatedAt());
+    }
+}
@@ -0,0 +1,41 @@
+package com.bank.transaction.event;
+
+import com.bank.transaction.model.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Событие топиков transactions и high-value-transactions (avro/transaction-event-v*.avsc).
+// Только поля, нужные потребителям: без id, версии и служебных отметок времени сущности
+public record TransactionEvent(
+        String transactionId,
+        Transaction.TransactionType type,
+        BigDecimal amount,
+        String currency,
+        String accountNumber,
+        String counterpartyAccountNumber,
+        LocalDateTime transactionDate,
+        Transaction.TransactionStatus status,
+        String branchCode,
+        String channel,
+        String referenceNumber,
+        String category,
+        String description) {
+
+    public static TransactionEvent from(Transaction transaction) {
+        return new TransactionEvent(
+                transaction.getTransactionId(),
+                transaction.getType(),
+                transaction.getAmount(),
+                transaction.getCurrency(),
+                transaction.getAccountNumber(),
+                transaction.getCounterpartyAccountNumber(),
+                transaction.getTransactionDate(),
+                transaction.getStatus(),
+                transaction.getBranchCode(),
+                transaction.getChannel(),
+                transaction.getReferenceNumber(),
+                transaction.getCategory(),
+                transaction.getDescription());
+    }
+}
@@ -0,0 +1,265 @@
+package com.bank.transaction.event;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionAlert;
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BinaryMessageDecoder;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.apache.avro.message.SchemaStore;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Бинарная кодировка событий Kafka: Avro single-object encoding - маркер C3 01, 8 байт отпечатка схемы
+ * (CRC-64-AVRO) и запись без имен полей. Схемы лежат в resources/avro, по файлу на версию; SchemaStore
+ * со всеми версиями заменяет реестр схем: читатель находит схему писателя по отпечатку и приводит запись
+ * к своей версии по правилам эволюции Avro. Пишется всегда последняя версия из списка.
+ * Новая версия - новый файл в конце списка; старые файлы не меняются и не удаляются, а потребители
+ * получают файл новой версии раньше, чем ее начнет писать transaction-service.
+ */
+@Component
+public class TransactionEventCodec {
+
+    static final List<String> TRANSACTION_SCHEMAS = List.of("avro/transaction-event-v1.avsc");
+    static final List<String> ALERT_SCHEMAS = List.of("avro/transaction-alert-event-v1.avsc");
+    static final List<String> STATUS_UPDATE_SCHEMAS = List.of("avro/transaction-status-update-event-v1.avsc");
+
+    // Масштаб денежных колонок transactions и transaction_alerts
+    private static final int AMOUNT_SCALE = 2;
+    private static final String UNKNOWN_SYMBOL = "UNKNOWN";
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private final EventType<TransactionEvent> transactions;
+    private final EventType<TransactionAlertEvent> alerts;
+    private final EventType<TransactionStatusUpdateEvent> statusUpdates;
+
+    public TransactionEventCodec() {
+        SchemaStore.Cache schemaStore = new SchemaStore.Cache();
+        this.transactions = new EventType<>(load(TRANSACTION_SCHEMAS), schemaStore,
+                TransactionEventCodec::transactionRecord, TransactionEventCodec::toTransactionEvent);
+        this.alerts = new EventType<>(load(ALERT_SCHEMAS), schemaStore,
+                TransactionEventCodec::alertRecord, TransactionEventCodec::toAlertEvent);
+        this.statusUpdates = new EventType<>(load(STATUS_UPDATE_SCHEMAS), schemaStore,
+                TransactionEventCodec::statusUpdateRecord, TransactionEventCodec::toStatusUpdateEvent);
+    }
+
+    public byte[] encode(Object event) {
+        if (event instanceof TransactionEvent transactionEvent) {
+            return transactions.encode(transactionEvent);
+        }
+        if (event instanceof TransactionAlertEvent alertEvent) {
+            return alerts.encode(alertEvent);
+        }
+        if (event instanceof TransactionStatusUpdateEvent statusUpdateEvent) {
+            return statusUpdates.encode(statusUpdateEvent);
+        }
+        throw new IllegalArgumentException("Unsupported event type: " + event.getClass().getName());
+    }
+
+    public TransactionEvent decodeTransaction(byte[] payload) {
+        return transactions.decode(payload);
+    }
+
+    public TransactionAlertEvent decodeAlert(byte[] payload) {
+        return alerts.decode(payload);
+    }
+
+    public TransactionStatusUpdateEvent decodeStatusUpdate(byte[] payload) {
+        return statusUpdates.decode(payload);
+    }
+
+    private static List<Schema> load(List<String> resources) {
+        return resources.stream().map(TransactionEventCodec::parse).toList();
+    }
+
+    private static Schema parse(String resource) {
+        try (InputStream in = TransactionEventCodec.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Avro schema not found on classpath: " + resource);
+            }
+            return new Schema.Parser().parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read Avro schema: " + resource, e);
+        }
+    }
+
+    private static GenericRecord transactionRecord(Schema schema, TransactionEvent event) {
+        GenericData.Record record = new GenericData.Record(schema);
+        record.put("transactionId", event.transactionId());
+        record.put("type", symbol(schema, "type", event.type()));
+        record.put("amount", unscaled(event.amount()));
+        record.put("currency", event.currency());
+        record.put("accountNumber", event.accountNumber());
+        record.put("counterpartyAccountNumber", event.counterpartyAccountNumber());
+        record.put("transactionDate", epochMillis(event.transactionDate()));
+        record.put("status", symbol(schema, "status", event.status()));
+        record.put("branchCode", event.branchCode());
+        record.put("channel", event.channel());
+        record.put("referenceNumber", event.referenceNumber());
+        record.put("category", event.category());
+        record.put("description", event.description());
+        return record;
+    }
+
+    private static TransactionEvent toTransactionEvent(GenericRecord record) {
+        return new TransactionEvent(
+                string(record.get("transactionId")),
+                enumValue(Transaction.TransactionType.class, record.get("type")),
+                decimal(record.get("amount")),
+                string(record.get("currency")),
+                string(record.get("accountNumber")),
+                string(record.get("counterpartyAccountNumber")),
+                localDateTime(record.get("transactionDate")),
+                enumValue(Transaction.TransactionStatus.class, record.get("status")),
+                string(record.get("branchCode")),
+                string(record.get("channel")),
+                string(record.get("referenceNumber")),
+                string(record.get("category")),
+                string(record.get("description")));
+    }
+
+    private static GenericRecord alertRecord(Schema schema, TransactionAlertEvent event) {
+        GenericData.Record record = new GenericData.Record(schema);
+        record.put("alertType", symbol(schema, "alertType", event.alertType()));
+        record.put("transactionId", event.transactionId());
+        record.put("accountNumber", event.accountNumber());
+        record.put("amount", unscaled(event.amount()));
+        record.put("currency", event.currency());
+        record.put("severity", event.severity());
+        record.put("message", event.message());
+        record.put("details", event.details());
+        record.put("createdAt", epochMillis(event.createdAt()));
+        return record;
+    }
+
+    private static TransactionAlertEvent toAlertEvent(GenericRecord record) {
+        return new TransactionAlertEvent(
+                enumValue(TransactionAlert.AlertType.class, record.get("alertType")),
+                string(record.get("transactionId")),
+                string(record.get("accountNumber")),
+                decimal(record.get("amount")),
+                string(record.get("currency")),
+                (Integer) record.get("severity"),
+                string(record.get("message")),
+                string(record.get("details")),
+                localDateTime(record.get("createdAt")));
+    }
+
+    private static GenericRecord statusUpdateRecord(Schema schema, TransactionStatusUpdateEvent event) {
+        GenericData.Record record = new GenericData.Record(schema);
+        record.put("transactionId", event.transactionId());
+        record.put("oldStatus", symbol(schema, "oldStatus", event.oldStatus()));
+        record.put("newStatus", symbol(schema, "newStatus", event.newStatus()));
+        record.put("failureReason", event.failureReason());
+        record.put("updateTime", epochMillis(event.updateTime()));
+        record.put("accountNumber", event.accountNumber());
+        record.put("amount", unscaled(event.amount()));
+        record.put("currency", event.currency());
+        return record;
+    }
+
+    private static TransactionStatusUpdateEvent toStatusUpdateEvent(GenericRecord record) {
+        return new TransactionStatusUpdateEvent(
+                string(record.get("transactionId")),
+                enumValue(Transaction.TransactionStatus.class, record.get("oldStatus")),
+                enumValue(Transaction.TransactionStatus.class, record.get("newStatus")),
+                string(record.get("failureReason")),
+                localDateTime(record.get("updateTime")),
+                string(record.get("accountNumber")),
+                decimal(record.get("amount")),
+                string(record.get("currency")));
+    }
+
+    // Значение, которого нет в схеме (например, при новом статусе), пишется как UNKNOWN
+    private static GenericData.EnumSymbol symbol(Schema schema, String field, Enum<?> value) {
+        Schema enumSchema = schema.getField(field).schema();
+        String name = value != null && enumSchema.hasEnumSymbol(value.name()) ? value.name() : UNKNOWN_SYMBOL;
+        return new GenericData.EnumSymbol(enumSchema, name);
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, Object symbol) {
+        String name = symbol.toString();
+        return UNKNOWN_SYMBOL.equals(name) ? null : Enum.valueOf(type, name);
+    }
+
+    // decimal(15, 2): масштаб приводится к схеме так же, как его округлила бы колонка numeric(15, 2)
+    private static ByteBuffer unscaled(BigDecimal amount) {
+        return ByteBuffer.wrap(amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().toByteArray());
+    }
+
+    private static BigDecimal decimal(Object value) {
+        ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+        byte[] unscaled = new byte[buffer.remaining()];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), AMOUNT_SCALE);
+    }
+
+    // local-timestamp-millis: локальное время без зоны, как в колонках TIMESTAMP
+    private static Long epochMillis(LocalDateTime value) {
+        return value != null ? value.toInstant(ZoneOffset.UTC).toEpochMilli() : null;
+    }
+
+    private static LocalDateTime localDateTime(Object value) {
+        return value != null ? LocalDateTime.ofInstant(Instant.ofEpochMilli((Long) value), ZoneOffset.UTC) : null;
+    }
+
+    private static String string(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    // Кодер и декодер одного типа события; оба потокобезопасны (буферы Avro - в ThreadLocal)
+    private static final class EventType<T> {
+
+        final Schema schema;
+        private final BinaryMessageEncoder<GenericRecord> encoder;
+        private final BinaryMessageDecoder<GenericRecord> decoder;
+        private final BiFunction<Schema, T, GenericRecord> toRecord;
+        private final Function<GenericRecord, T> fromRecord;
+
+        EventType(List<Schema> versions, SchemaStore.Cache schemaStore,
+                  BiFunction<Schema, T, GenericRecord> toRecord, Function<GenericRecord, T> fromRecord) {
+            this.schema = versions.get(versions.size() - 1);
+            versions.forEach(schemaStore::addSchema);
+            this.encoder = new BinaryMessageEncoder<>(GenericData.get(), schema);
+            this.decoder = new BinaryMessageDecoder<>(GenericData.get(), schema, schemaStore);
+            this.toRecord = toRecord;
+            this.fromRecord = fromRecord;
+        }
+
+        byte[] encode(T event) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+            try {
+                encoder.encode(toRecord.apply(schema, event), out);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to encode " + schema.getName(), e);
+            }
+            return out.toByteArray();
+        }
+
+        T decode(byte[] payload) {
+            try {
+                return fromRecord.apply(decoder.decode(payload));
+            } catch (IOException | AvroRuntimeException e) {
+                // Нет маркера single-object encoding или схема писателя неизвестна (MissingSchemaException)
+                throw new IllegalArgumentException("Malformed " + schema.getName() + " payload", e);
+            }
+        }
+    }
+}
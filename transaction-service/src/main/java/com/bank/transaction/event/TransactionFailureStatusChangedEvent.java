@@ -0,0 +1,20 @@
+package com.bank.transaction.event;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// Транзакция перешла в статус FAILED или вышла из него; после коммита обновляет FailedTransactionWindow
+@Getter
+public class TransactionFailureStatusChangedEvent {
+
+    private final String accountNumber;
+    private final LocalDateTime transactionDate;
+    private final boolean failed;
+
+    public TransactionFailureStatusChangedEvent(String accountNumber, LocalDateTime transactionDate, boolean failed) {
+        this.accountNumber = accountNumber;
+        this.transactionDate = transactionDate;
+        this.failed = failed;
+    }
+}
@@ -0,0 +1,30 @@
+package com.bank.transaction.event;
+
+import com.bank.transaction.model.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Событие топика transaction-status-updates (avro/transaction-status-update-event-v*.avsc)
+public record TransactionStatusUpdateEvent(
+        String transactionId,
+        Transaction.TransactionStatus oldStatus,
+        Transaction.TransactionStatus newStatus,
+        String failureReason,
+        LocalDateTime updateTime,
+        String accountNumber,
+        BigDecimal amount,
+        String currency) {
+
+    public static TransactionStatusUpdateEvent from(Transaction transaction, Transaction.TransactionStatus oldStatus) {
+        return new TransactionStatusUpdateEvent(
+                transaction.getTransactionId(),
+                oldStatus,
+                transaction.getStatus(),
+                transaction.getFailureReason(),
+                LocalDateTime.now(),
+                transaction.getAccountNumber(),
+                transaction.getAmount(),
+                transaction.getCurrency());
+    }
+}
@@ -20,7 +20,7 @@ public class TransactionHealthIndicator implements HealthIndicator {
     public Health health() {
         try {
             long totalTransactions = transactionRepository.count();
-            long failedTransactions = transactionRepository.findByStatus(Transaction.TransactionStatus.FAILED).size();
+            long failedTransactions = transactionRepository.countByStatus(Transaction.TransactionStatus.FAILED);
             long activeAlerts = alertRepository.countByStatus(TransactionAlert.AlertStatus.ACTIVE);
 
             Health.Builder status = totalTransactions > 0 ? Health.up() : Health.unknown();
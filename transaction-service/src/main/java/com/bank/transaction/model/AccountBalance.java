@@ -0,0 +1,34 @@
+package com.bank.transaction.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Текущий остаток счета. Меняется только условными UPDATE AccountBalanceRepository: version растет на единицу
+// с каждой проводкой, поэтому @Version здесь нет - сверка версии и есть условие записи
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "account_balances")
+public class AccountBalance {
+
+    @Id
+    @Column(length = 20)
+    private String accountNumber;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal balance;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,53 @@
+package com.bank.transaction.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// Сообщение Kafka, записанное в той же транзакции БД, что и изменение, о котором оно сообщает.
+// Id выдается базой при вставке: события одного ключа, записанные друг за другом, получают возрастающие id
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "transaction_outbox", indexes = {
+        @Index(name = "idx_transaction_outbox_pending", columnList = "sentAt, failedAt, id"),
+        @Index(name = "idx_transaction_outbox_sent_at", columnList = "sentAt")
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String topic;
+
+    @Column(length = 100)
+    private String messageKey;
+
+    // Событие в бинарной кодировке TransactionEventCodec
+    @Column(nullable = false)
+    private byte[] payload;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+
+    // Сообщение отложено после maxAttempts неудачных отправок и больше не блокирует очередь
+    private LocalDateTime failedAt;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(length = 500)
+    private String lastError;
+}
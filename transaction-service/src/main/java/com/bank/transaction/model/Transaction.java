@@ -16,15 +16,16 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "transactions", indexes = {
-        @Index(name = "idx_account_number", columnList = "accountNumber"),
-        @Index(name = "idx_transaction_date", columnList = "transactionDate"),
-        @Index(name = "idx_status", columnList = "status"),
-        @Index(name = "idx_type", columnList = "type"),
-        @Index(name = "idx_transaction_id", columnList = "transactionId", unique = true)
-})
+// Таблица разбита на месячные партиции по transactionDate (V7__Partition_transactions_by_month): уникальность
+// на ней возможна только с ключом партиционирования, поэтому transactionId не уникален, а ключ идемпотентности
+// (channel, referenceNumber) хранится в transaction_reference_keys. Индексы ведут миграции Flyway
+@Table(name = "transactions")
 public class Transaction {
 
+    // Пороги создаются один раз: сравнение compareTo с константой не выделяет память на каждый вызов
+    public static final BigDecimal HIGH_VALUE_THRESHOLD = new BigDecimal("10000");
+    public static final BigDecimal SUSPICIOUS_THRESHOLD = new BigDecimal("50000");
+
     public enum TransactionType {
         DEPOSIT, WITHDRAWAL, TRANSFER, PAYMENT, REFUND
     }
@@ -33,11 +34,14 @@ public class Transaction {
         PENDING, PROCESSING, COMPLETED, FAILED, CANCELLED, REVERSED
     }
 
+    // Пул из 50 id на один nextval: при IDENTITY Hibernate вставляет строки по одной и не использует JDBC-батчи.
+    // allocationSize должен совпадать с INCREMENT BY последовательности (V2__Use_pooled_sequence_for_transaction_ids)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
-    @Column(nullable = false, unique = true, length = 36)
+    @Column(nullable = false, length = 36)
     private String transactionId;
 
     @Column(nullable = false, length = 20)
@@ -110,10 +114,10 @@ public class Transaction {
     }
 
     public boolean isHighValueTransaction() {
-        return this.amount != null && this.amount.compareTo(new BigDecimal("10000")) >= 0;
+        return this.amount != null && this.amount.compareTo(HIGH_VALUE_THRESHOLD) >= 0;
     }
 
     public boolean isSuspiciousTransaction() {
-        return this.amount != null && this.amount.compareTo(new BigDecimal("50000")) >= 0;
+        return this.amount != null && this.amount.compareTo(SUSPICIOUS_THRESHOLD) >= 0;
     }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.model.AccountBalance;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// Остатки пакетной загрузки в ее транзакции БД: блокировка строк в порядке номера счета
+// и запись новых остатков JDBC-батчами
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class AccountBalanceBatchRepository {
+
+    // Строки блокируются в порядке номера счета: параллельные пакеты с общими счетами не встают друг другу крест-накрест
+    private static final String LOCK_SQL = """
+        SELECT account_number, balance, version, updated_at FROM account_balances
+        WHERE account_number IN (%s)
+        ORDER BY account_number
+        FOR UPDATE
+        """;
+    private static final String UPDATE_SQL = """
+        UPDATE account_balances SET balance = ?, version = ?, updated_at = ?
+        WHERE account_number = ?
+        """;
+    // Нулевой остаток для счетов без строки, чтобы их можно было заблокировать вместе с остальными; версия 1,
+    // как у строки после первой проводки: полоса, ожидавшая строку с версией 0, перечитает остаток
+    private static final String INSERT_MISSING_SQL = """
+        INSERT INTO account_balances (account_number, balance, version, updated_at)
+        VALUES (?, 0, 1, ?)
+        ON CONFLICT (account_number) DO NOTHING
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Только внутри транзакции: блокировки держатся до ее завершения
+    public List<AccountBalance> lockAll(Collection<String> accountNumbers) {
+        if (accountNumbers.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(accountNumbers.size(), "?"));
+        return jdbcTemplate.query(LOCK_SQL.formatted(placeholders), (rs, rowNum) -> AccountBalance.builder()
+                .accountNumber(rs.getString("account_number"))
+                .balance(rs.getBigDecimal("balance"))
+                .version(rs.getLong("version"))
+                .updatedAt(rs.getTimestamp("updated_at").toLocalDateTime())
+                .build(), accountNumbers.toArray());
+    }
+
+    public void updateAll(List<AccountBalance> balances, int chunkSize) {
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_SQL, balances, chunkSize, (ps, balance) -> {
+            ps.setBigDecimal(1, balance.getBalance());
+            ps.setLong(2, balance.getVersion());
+            ps.setTimestamp(3, updatedAt);
+            ps.setString(4, balance.getAccountNumber());
+        });
+        log.debug("Updated {} account balances", balances.size());
+    }
+
+    public void insertMissing(List<String> accountNumbers, int chunkSize) {
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_MISSING_SQL, accountNumbers, chunkSize, (ps, accountNumber) -> {
+            ps.setString(1, accountNumber);
+            ps.setTimestamp(2, updatedAt);
+        });
+    }
+}
@@ -0,0 +1,37 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.model.AccountBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Repository
+public interface AccountBalanceRepository extends JpaRepository<AccountBalance, String> {
+
+    // Проводка по остатку, из которого она посчитана: 0 строк - остаток уже изменил другой писатель
+    @Modifying
+    @Query("""
+        UPDATE AccountBalance b SET b.balance = :balance, b.version = b.version + 1, b.updatedAt = :updatedAt
+        WHERE b.accountNumber = :accountNumber AND b.version = :version
+        """)
+    int advance(@Param("accountNumber") String accountNumber,
+                @Param("balance") BigDecimal balance,
+                @Param("version") long version,
+                @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Первая проводка счета: 0 строк - строку уже создал другой писатель
+    @Modifying
+    @Query(value = """
+        INSERT INTO account_balances (account_number, balance, version, updated_at)
+        VALUES (:accountNumber, :balance, 1, :updatedAt)
+        ON CONFLICT (account_number) DO NOTHING
+        """, nativeQuery = true)
+    int insertIfAbsent(@Param("accountNumber") String accountNumber,
+                       @Param("balance") BigDecimal balance,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+}
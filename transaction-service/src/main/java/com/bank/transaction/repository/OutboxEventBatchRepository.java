@@ -0,0 +1,39 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.model.OutboxEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class OutboxEventBatchRepository {
+
+    // id выдает база; JDBC-батч не требует возврата ключей, поэтому IDENTITY здесь не мешает пакетной вставке
+    private static final String INSERT_SQL = """
+        INSERT INTO transaction_outbox (topic, message_key, payload, created_at, attempts)
+        VALUES (?, ?, ?, ?, 0)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Строки вставляются в порядке списка, поэтому сохраняют его и в очереди ретранслятора
+    public int insertAll(List<OutboxEvent> events, int chunkSize) {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        int[][] results = jdbcTemplate.batchUpdate(INSERT_SQL, events, chunkSize, (ps, event) -> {
+            ps.setString(1, event.getTopic());
+            ps.setString(2, event.getMessageKey());
+            ps.setBytes(3, event.getPayload());
+            ps.setTimestamp(4, createdAt);
+        });
+
+        log.debug("Inserted {} outbox messages in {} JDBC batches", events.size(), results.length);
+        return events.size();
+    }
+}
@@ -0,0 +1,41 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Транзакционная advisory-блокировка: в каждый момент очередь разбирает один экземпляр сервиса,
+    // поэтому сообщения уходят в Kafka в порядке записи. Снимается при завершении транзакции
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockKey)", nativeQuery = true)
+    boolean tryLockRelay(@Param("lockKey") long lockKey);
+
+    @Query(value = """
+        SELECT * FROM transaction_outbox o
+        WHERE o.sent_at IS NULL
+        AND o.failed_at IS NULL
+        ORDER BY o.id ASC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<OutboxEvent> findNextBatch(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.sentAt = :sentAt WHERE o.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent o WHERE o.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+
+    @Query("SELECT COUNT(o) FROM OutboxEvent o WHERE o.sentAt IS NULL AND o.failedAt IS NULL")
+    long countPending();
+}
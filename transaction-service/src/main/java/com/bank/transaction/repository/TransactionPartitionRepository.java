@@ -0,0 +1,111 @@
+package com.bank.transaction.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// DDL месячных партиций transactions (V7__Partition_transactions_by_month). Имена партиций - transactions_pYYYY_MM
+@Repository
+@RequiredArgsConstructor
+public class TransactionPartitionRepository {
+
+    private static final String PARTITION_PREFIX = "transactions_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    // Партиция по умолчанию (transactions_default) под шаблон имени не попадает
+    private static final String PARTITIONS_SQL = """
+        SELECT child.relname FROM pg_inherits
+        JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+        JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+        WHERE parent.relname = 'transactions' AND parent.relnamespace = to_regnamespace(current_schema())
+        """;
+    private static final String DELETE_REFERENCE_KEYS_SQL =
+            "DELETE FROM transaction_reference_keys WHERE transaction_date >= ? AND transaction_date < ?";
+    // Строки месяца переходят из партиции по умолчанию в еще не присоединенную таблицу партиции: триггер
+    // ключей идемпотентности на ней не срабатывает, ключи этих строк уже записаны
+    private static final String MOVE_DEFAULT_ROWS_SQL = """
+        WITH moved AS (
+            DELETE FROM transactions_default WHERE transaction_date >= ? AND transaction_date < ? RETURNING *
+        )
+        INSERT INTO %s SELECT * FROM moved
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void createMonthlyPartition(YearMonth month) {
+        // Имя и границы строятся из YearMonth, пользовательский ввод в DDL не попадает
+        String sql = String.format(
+                "CREATE TABLE IF NOT EXISTS %s PARTITION OF transactions FOR VALUES FROM ('%s') TO ('%s')",
+                partitionName(month), month.atDay(1), month.plusMonths(1).atDay(1));
+        jdbcTemplate.execute(sql);
+    }
+
+    /**
+     * Создает партицию месяца, строки которого уже лежат в transactions_default (тогда CREATE ... PARTITION OF
+     * отклоняется): в одной транзакции создает таблицу партиции, переносит в нее строки месяца из партиции
+     * по умолчанию и присоединяет ее. Индексы и триггер таблицы transactions появляются на партиции при
+     * присоединении. Возвращает число перенесенных строк.
+     */
+    @Transactional
+    public int createMonthlyPartitionFromDefault(YearMonth month) {
+        String partition = partitionName(month);
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE transactions INCLUDING DEFAULTS)");
+        int moved = jdbcTemplate.update(String.format(MOVE_DEFAULT_ROWS_SQL, partition),
+                Timestamp.valueOf(month.atDay(1).atStartOfDay()),
+                Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+        jdbcTemplate.execute(String.format("ALTER TABLE transactions ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+                partition, month.atDay(1), month.plusMonths(1).atDay(1)));
+        return moved;
+    }
+
+    // Месяцы присоединенных партиций в порядке возрастания
+    public List<YearMonth> findMonthlyPartitions() {
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : jdbcTemplate.queryForList(PARTITIONS_SQL, String.class)) {
+            if (!name.startsWith(PARTITION_PREFIX)) {
+                continue;
+            }
+            try {
+                months.add(YearMonth.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX));
+            } catch (DateTimeParseException e) {
+                // Таблица, присоединенная вручную под другим именем, обслуживанием не затрагивается
+            }
+        }
+        months.sort(null);
+        return months;
+    }
+
+    // Отсоединенная партиция остается таблицей с тем же именем и индексами. Ключи идемпотентности месяца
+    // удаляются в той же транзакции (DDL в PostgreSQL транзакционен): без партиции они не остаются и не
+    // пропадают, пока партиция на месте. Возвращает число удаленных ключей
+    @Transactional
+    public int detachPartition(YearMonth month) {
+        jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partitionName(month));
+        return deleteReferenceKeys(month);
+    }
+
+    @Transactional
+    public int dropPartition(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(month));
+        return deleteReferenceKeys(month);
+    }
+
+    // Только ключи месяца убранной партиции: строки более ранних дат в transactions_default остаются
+    // в таблице, и их ключи должны продолжать отсекать повторы
+    private int deleteReferenceKeys(YearMonth month) {
+        return jdbcTemplate.update(DELETE_REFERENCE_KEYS_SQL,
+                Timestamp.valueOf(month.atDay(1).atStartOfDay()),
+                Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -1,21 +1,47 @@
 package com.bank.transaction.repository;
 
+import com.bank.transaction.dto.TransactionResponse;
 import com.bank.transaction.model.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+// Таблица transactions разбита на месячные партиции по transaction_date. Запросы с границами по transactionDate
+// читают только партиции своего диапазона; поиск по id, transactionId, статусу или ключу идемпотентности
+// проверяет индекс каждой присоединенной партиции
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
+    // Списки для API читаются сразу в TransactionResponse, минуя сущности и mapToResponse.
+    // Порядок аргументов - порядок параметров проекционного конструктора TransactionResponse
+    String RESPONSE_SELECT = """
+        SELECT new com.bank.transaction.dto.TransactionResponse(
+            t.id, t.transactionId, t.type, t.amount, t.currency, t.accountNumber, t.counterpartyAccountNumber,
+            t.transactionDate, t.status, t.description, t.failureReason, t.branchCode, t.channel,
+            t.balanceAfter, t.balanceBefore, t.referenceNumber, t.category, t.createdAt, t.updatedAt)
+        FROM Transaction t
+        """;
+
     Optional<Transaction> findByTransactionId(String transactionId);
 
+    // Счет транзакции для выбора полосы AccountLedger. Пул записи (не read-only): реплика может еще
+    // не видеть только что созданную транзакцию
+    @Transactional
+    @Query("SELECT t.accountNumber FROM Transaction t WHERE t.id = :id")
+    Optional<String> findAccountNumberById(@Param("id") Long id);
+
+    @Transactional
+    @Query("SELECT t.accountNumber FROM Transaction t WHERE t.transactionId = :transactionId")
+    Optional<String> findAccountNumberByTransactionId(@Param("transactionId") String transactionId);
+
     List<Transaction> findByAccountNumber(String accountNumber);
 
     List<Transaction> findByAccountNumberAndTransactionDateBetween(
@@ -36,6 +62,70 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     List<Transaction> findRecentTransactionsByAccount(@Param("accountNumber") String accountNumber,
                                                       @Param("limit") int limit);
 
+    long countByStatus(Transaction.TransactionStatus status);
+
+    @Query(RESPONSE_SELECT)
+    List<TransactionResponse> findAllResponses();
+
+    // Страница истории счета по ключу (transactionDate DESC, id DESC): строки строго после позиции (beforeDate, beforeId)
+    // в порядке индекса idx_transactions_account_history. Сравнение кортежей PostgreSQL выполняет как одну границу
+    // диапазона индекса, поэтому чтение начинается сразу с позиции курсора, без пропуска предыдущих страниц
+    @Query(RESPONSE_SELECT + """
+        WHERE t.accountNumber = :accountNumber
+        AND (t.transactionDate, t.id) < (:beforeDate, :beforeId)
+        AND t.transactionDate >= :since
+        ORDER BY t.transactionDate DESC, t.id DESC
+        LIMIT :limit
+        """)
+    List<TransactionResponse> findAccountHistory(@Param("accountNumber") String accountNumber,
+                                                 @Param("beforeDate") LocalDateTime beforeDate,
+                                                 @Param("beforeId") long beforeId,
+                                                 @Param("since") LocalDateTime since,
+                                                 @Param("limit") int limit);
+
+    // То же с фильтром по типу: type входит в INCLUDE индекса и проверяется до чтения строк таблицы
+    @Query(RESPONSE_SELECT + """
+        WHERE t.accountNumber = :accountNumber
+        AND (t.transactionDate, t.id) < (:beforeDate, :beforeId)
+        AND t.transactionDate >= :since
+        AND t.type = :type
+        ORDER BY t.transactionDate DESC, t.id DESC
+        LIMIT :limit
+        """)
+    List<TransactionResponse> findAccountHistoryByType(@Param("accountNumber") String accountNumber,
+                                                       @Param("type") Transaction.TransactionType type,
+                                                       @Param("beforeDate") LocalDateTime beforeDate,
+                                                       @Param("beforeId") long beforeId,
+                                                       @Param("since") LocalDateTime since,
+                                                       @Param("limit") int limit);
+
+    @Query(RESPONSE_SELECT + "WHERE t.accountNumber = :accountNumber ORDER BY t.transactionDate DESC, t.id DESC LIMIT :limit")
+    List<TransactionResponse> findRecentResponsesByAccount(@Param("accountNumber") String accountNumber,
+                                                           @Param("limit") int limit);
+
+    // Поиск по ключу идемпотентности; выражение и условие <> '' совпадают с частичным индексом
+    // idx_transactions_channel_reference, иначе планировщик не сможет использовать его в generic-плане.
+    // Уникальность ключа обеспечивает transaction_reference_keys, здесь только чтение исходной транзакции
+    @Query(RESPONSE_SELECT + """
+        WHERE COALESCE(t.channel, '') = :channel AND t.referenceNumber = :referenceNumber AND t.referenceNumber <> ''
+        """)
+    Optional<TransactionResponse> findResponseByChannelAndReferenceNumber(@Param("channel") String channel,
+                                                                          @Param("referenceNumber") String referenceNumber);
+
+    @Query(RESPONSE_SELECT + "WHERE t.status = :status")
+    List<TransactionResponse> findResponsesByStatus(@Param("status") Transaction.TransactionStatus status);
+
+    @Query(RESPONSE_SELECT + "WHERE t.amount >= :minAmount")
+    List<TransactionResponse> findResponsesByAmountGreaterThanEqual(@Param("minAmount") BigDecimal minAmount);
+
+    // transactionDate по умолчанию - момент создания; условие по нему отсекает партиции старше окна
+    @Query("""
+        SELECT t.channel, t.referenceNumber FROM Transaction t
+        WHERE t.referenceNumber IS NOT NULL AND t.referenceNumber <> '' AND t.createdAt >= :since
+        AND t.transactionDate >= :since
+        """)
+    List<Object[]> findReferenceKeysCreatedSince(@Param("since") LocalDateTime since);
+
     @Query("SELECT t FROM Transaction t WHERE t.amount >= :threshold AND t.status = 'COMPLETED'")
     List<Transaction> findHighValueCompletedTransactions(@Param("threshold") BigDecimal threshold);
 
@@ -52,6 +142,25 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     Long countFailedTransactionsSince(@Param("accountNumber") String accountNumber,
                                       @Param("since") LocalDateTime since);
 
+    // Известные контрагенты счета для правил NEW_COUNTERPARTY_BURST; текущая транзакция уже сохранена и исключается
+    @Query("""
+        SELECT DISTINCT t.counterpartyAccountNumber FROM Transaction t
+        WHERE t.accountNumber = :accountNumber AND t.counterpartyAccountNumber IS NOT NULL
+        AND t.transactionId <> :excludedTransactionId
+        """)
+    List<String> findCounterpartiesByAccountNumber(@Param("accountNumber") String accountNumber,
+                                                   @Param("excludedTransactionId") String excludedTransactionId);
+
+    @Query("""
+        SELECT DISTINCT t.accountNumber, t.counterpartyAccountNumber FROM Transaction t
+        WHERE t.accountNumber IN :accountNumbers AND t.counterpartyAccountNumber IS NOT NULL
+        """)
+    List<Object[]> findCounterpartiesByAccountNumbers(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    // Восстановление FailedTransactionWindow при старте
+    @Query("SELECT t.accountNumber, t.transactionDate FROM Transaction t WHERE t.status = 'FAILED' AND t.transactionDate >= :since")
+    List<Object[]> findFailedTransactionDatesSince(@Param("since") LocalDateTime since);
+
     @Query(value = """
         SELECT * FROM transactions t 
         WHERE t.transaction_date >= :since 
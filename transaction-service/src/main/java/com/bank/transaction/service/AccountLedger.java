@@ -0,0 +1,373 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.model.AccountBalance;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.repository.AccountBalanceBatchRepository;
+import com.bank.transaction.repository.AccountBalanceRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Книга остатков счетов. Счета распределены по фиксированному набору однопоточных полос по хешу номера счета:
+ * проводки одного счета выполняются в потоке его полосы строго по очереди, поэтому balanceBefore/balanceAfter
+ * назначаются из остатка в памяти без блокировок строк и чтения истории. Текущий остаток читается за O(1)
+ * из памяти, а хранится в account_balances: строка меняется условным UPDATE по версии в одной транзакции БД
+ * с самой транзакцией. Если остаток изменил другой писатель (другой экземпляр сервиса или пакетная загрузка),
+ * UPDATE не находит строку с ожидаемой версией - остаток перечитывается из БД и проводка пересчитывается.
+ * Остаток - сумма транзакций счета со знаком их типа без транзакций в статусах FAILED, CANCELLED и REVERSED.
+ * Смена статуса через эту границу проводит сторно суммы транзакции (или ее возврат) в полосе счета вместе
+ * с самим статусом (adjust). Пакетная загрузка сдвигает остатки своих счетов в своей транзакции БД (lockBatch).
+ */
+@Slf4j
+@Component
+public class AccountLedger {
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+    private static final int MAX_POSTING_ATTEMPTS = 3;
+    private static final int LOCK_QUERY_CHUNK_SIZE = 1000;
+    // Состояния проводки в очереди полосы: снять с очереди можно только еще не начатую
+    private static final int QUEUED = 0;
+    private static final int STARTED = 1;
+    private static final int CANCELLED = 2;
+    // Статусы, не входящие в остаток; тот же набор исключает миграция V8__Exclude_failed_transactions_from_balances
+    private static final Set<Transaction.TransactionStatus> NOT_POSTED_STATUSES = Set.of(
+            Transaction.TransactionStatus.FAILED,
+            Transaction.TransactionStatus.CANCELLED,
+            Transaction.TransactionStatus.REVERSED);
+
+    private final Executor[] lanes;
+    private final ExecutorService[] ownedLanes;
+    private final AccountBalanceRepository balanceRepository;
+    private final AccountBalanceBatchRepository balanceBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionMetricsService metricsService;
+    private final Duration writeTimeout;
+    // Остаток и версия строки account_balances; при гонке записей побеждает старшая версия
+    private final Cache<String, Balance> balances;
+
+    @Autowired
+    public AccountLedger(AccountBalanceRepository balanceRepository,
+                         AccountBalanceBatchRepository balanceBatchRepository,
+                         TransactionTemplate transactionTemplate,
+                         TransactionMetricsService metricsService,
+                         TransactionProperties properties) {
+        this(balanceRepository, balanceBatchRepository, transactionTemplate, metricsService,
+                properties.getLedger(), createLanes(properties.getLedger().getLanes()));
+    }
+
+    // Для тестов: каждая полоса должна выполнять задачи последовательно
+    AccountLedger(AccountBalanceRepository balanceRepository,
+                  AccountBalanceBatchRepository balanceBatchRepository,
+                  TransactionTemplate transactionTemplate,
+                  TransactionMetricsService metricsService,
+                  TransactionProperties.Ledger properties,
+                  Executor... lanes) {
+        this.balanceRepository = balanceRepository;
+        this.balanceBatchRepository = balanceBatchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.metricsService = metricsService;
+        this.writeTimeout = properties.getWriteTimeout();
+        this.lanes = lanes;
+        List<ExecutorService> owned = new ArrayList<>();
+        for (Executor lane : lanes) {
+            if (lane instanceof ExecutorService executorService) {
+                owned.add(executorService);
+            }
+        }
+        this.ownedLanes = owned.toArray(ExecutorService[]::new);
+        this.balances = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxCachedAccounts())
+                .recordStats()
+                .build();
+        metricsService.monitorCache("accountBalances", balances);
+    }
+
+    private static Executor[] createLanes(int laneCount) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("transaction.ledger.lanes must be positive");
+        }
+        Executor[] lanes = new Executor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = "account-ledger-lane-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return lanes;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ExecutorService lane : ownedLanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : ownedLanes) {
+            if (!lane.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                log.warn("Account ledger lane did not finish pending postings before shutdown");
+            }
+        }
+    }
+
+    // Пишет транзакцию по остаткам до и после проводки; выполняется в транзакции БД полосы вместе с account_balances
+    @FunctionalInterface
+    public interface Posting<T> {
+        T write(BigDecimal balanceBefore, BigDecimal balanceAfter);
+    }
+
+    // Проводка, сумма которой зависит от состояния, прочитанного в транзакции БД полосы
+    public interface Adjustment<T> extends Posting<T> {
+        // Вызывается в транзакции БД полосы до изменения остатка, при повторе проводки - заново
+        BigDecimal amount();
+    }
+
+    public static BigDecimal signedAmount(Transaction.TransactionType type, BigDecimal amount) {
+        return switch (type) {
+            case DEPOSIT, REFUND -> amount;
+            case WITHDRAWAL, TRANSFER, PAYMENT -> amount.negate();
+        };
+    }
+
+    // Вклад транзакции в остаток при данном статусе; статус еще не сохраненной транзакции (null) - PENDING
+    public static BigDecimal postedAmount(Transaction transaction, Transaction.TransactionStatus status) {
+        return status != null && NOT_POSTED_STATUSES.contains(status)
+                ? BigDecimal.ZERO
+                : signedAmount(transaction.getType(), transaction.getAmount());
+    }
+
+    /**
+     * Проводит сумму по счету в полосе счета и возвращает результат writer. Ошибка writer откатывает
+     * и транзакцию, и изменение остатка. Поток запроса не держит соединение, пока проводка ждет очереди.
+     * Если за writeTimeout проводка не началась, она снимается с очереди и не выполняется - ошибка означает,
+     * что ничего не записано. Начавшаяся проводка дожидается завершения: ее результат уже не отменить.
+     */
+    public <T> T post(String accountNumber, BigDecimal amount, Posting<T> writer) {
+        return enqueue(accountNumber, () -> amount, writer);
+    }
+
+    // Как post, но сумму определяет adjustment в транзакции БД полосы; нулевая сумма остаток не меняет
+    public <T> T adjust(String accountNumber, Adjustment<T> adjustment) {
+        return enqueue(accountNumber, adjustment::amount, adjustment);
+    }
+
+    private <T> T enqueue(String accountNumber, Supplier<BigDecimal> amount, Posting<T> writer) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger state = new AtomicInteger(QUEUED);
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        long enqueuedAt = System.nanoTime();
+
+        lanes[Math.floorMod(accountNumber.hashCode(), lanes.length)].execute(() -> {
+            if (!state.compareAndSet(QUEUED, STARTED)) {
+                return;
+            }
+            metricsService.recordLedgerLaneWait(System.nanoTime() - enqueuedAt);
+            if (context != null) {
+                MDC.setContextMap(context);
+            }
+            try {
+                result.complete(postInLane(accountNumber, amount, writer));
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            } finally {
+                MDC.clear();
+            }
+        });
+
+        try {
+            try {
+                return result.get(writeTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (state.compareAndSet(QUEUED, CANCELLED)) {
+                    throw new IllegalStateException("Timed out waiting for ledger lane of account " + accountNumber
+                            + ", posting was not applied", e);
+                }
+                log.warn("Ledger posting for account {} started after {} ms, waiting for it to finish",
+                        accountNumber, writeTimeout.toMillis());
+                return result.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Ledger posting failed for account " + accountNumber, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for ledger posting", e);
+        }
+    }
+
+    public BigDecimal getBalance(String accountNumber) {
+        Balance balance = balances.getIfPresent(accountNumber);
+        return (balance != null ? balance : load(accountNumber)).amount();
+    }
+
+    /**
+     * Блокирует остатки счетов пакетной загрузки в транзакции БД вызывающего: строки account_balances
+     * блокируются в порядке номера счета (чанками запроса) до любой вставки, поэтому параллельные пакеты
+     * с общими счетами не встают друг другу крест-накрест. Новые остатки пишутся в той же транзакции, что
+     * и строки пакета (BatchPosting.write), и коммитятся или откатываются вместе с ними; проводки полос
+     * по этим счетам ждут коммита пакета и продолжают от его остатков. Вызывать только внутри транзакции.
+     */
+    public BatchPosting lockBatch(Collection<String> accountNumbers, int chunkSize) {
+        BatchPosting batch = new BatchPosting(chunkSize);
+        List<String> accounts = accountNumbers.stream().distinct().sorted().toList();
+        for (int from = 0; from < accounts.size(); from += LOCK_QUERY_CHUNK_SIZE) {
+            batch.lock(accounts.subList(from, Math.min(from + LOCK_QUERY_CHUNK_SIZE, accounts.size())));
+        }
+        return batch;
+    }
+
+    private <T> T postInLane(String accountNumber, Supplier<BigDecimal> amount, Posting<T> writer) {
+        Balance current = balances.getIfPresent(accountNumber);
+        if (current == null) {
+            current = load(accountNumber);
+        }
+        for (int attempt = 1; ; attempt++) {
+            Balance before = current;
+            try {
+                Posted<T> posted = transactionTemplate.execute(status -> {
+                    BigDecimal delta = amount.get();
+                    if (delta.signum() == 0) {
+                        return new Posted<>(writer.write(before.amount(), before.amount()), null);
+                    }
+                    Balance after = new Balance(before.amount().add(delta), before.version() + 1);
+                    // Сначала остаток: при конфликте версии writer не выполняется и ничего не пишет
+                    if (!advance(accountNumber, before, after)) {
+                        throw new StaleBalanceException();
+                    }
+                    return new Posted<>(writer.write(before.amount(), after.amount()), after);
+                });
+                if (posted.balance() != null) {
+                    remember(accountNumber, posted.balance());
+                }
+                return posted.result();
+            } catch (StaleBalanceException e) {
+                metricsService.recordLedgerStalePosting();
+                if (attempt == MAX_POSTING_ATTEMPTS) {
+                    throw new IllegalStateException("Balance of account " + accountNumber
+                            + " kept changing concurrently, posting abandoned after " + attempt + " attempts");
+                }
+                log.debug("Balance of account {} changed by another writer (version {}), reloading",
+                        accountNumber, before.version());
+                current = load(accountNumber);
+            }
+        }
+    }
+
+    private boolean advance(String accountNumber, Balance before, Balance after) {
+        LocalDateTime now = LocalDateTime.now();
+        if (before.version() == 0) {
+            return balanceRepository.insertIfAbsent(accountNumber, after.amount(), now) == 1;
+        }
+        return balanceRepository.advance(accountNumber, after.amount(), before.version(), now) == 1;
+    }
+
+    // Читаем из пула записи: реплика может отставать на проводки, которые уже закоммичены
+    private Balance load(String accountNumber) {
+        Balance loaded = transactionTemplate.execute(status -> balanceRepository.findById(accountNumber)
+                .map(row -> new Balance(row.getBalance(), row.getVersion()))
+                .orElse(Balance.EMPTY));
+        return remember(accountNumber, loaded);
+    }
+
+    private Balance remember(String accountNumber, Balance balance) {
+        return balances.asMap().merge(accountNumber, balance,
+                (known, fresh) -> fresh.version() >= known.version() ? fresh : known);
+    }
+
+    // version 0 - строки account_balances еще нет
+    private record Balance(BigDecimal amount, long version) {
+        static final Balance EMPTY = new Balance(BigDecimal.ZERO, 0);
+    }
+
+    // balance == null - проводка не меняла остаток
+    private record Posted<T>(T result, Balance balance) {
+    }
+
+    private static final class StaleBalanceException extends RuntimeException {
+        StaleBalanceException() {
+            super(null, null, false, false);
+        }
+    }
+
+    // Заблокированные остатки одного пакета
+    public final class BatchPosting {
+
+        private final int chunkSize;
+        // Строки account_balances счетов пакета, заблокированные до коммита
+        private final Map<String, AccountBalance> locked = new HashMap<>();
+        // Текущие остатки счетов пакета при назначении транзакциям, начиная с остатков до пакета
+        private final Map<String, BigDecimal> running = new HashMap<>();
+
+        private BatchPosting(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        private void lock(List<String> accounts) {
+            balanceBatchRepository.insertMissing(accounts, chunkSize);
+            for (AccountBalance row : balanceBatchRepository.lockAll(accounts)) {
+                locked.put(row.getAccountNumber(), row);
+                running.put(row.getAccountNumber(), row.getBalance());
+            }
+        }
+
+        // Назначает остатки транзакциям чанка в порядке списка; вызывается до вставки чанка
+        public void assign(List<Transaction> transactions) {
+            for (Transaction transaction : transactions) {
+                BigDecimal before = running.get(transaction.getAccountNumber());
+                if (before == null) {
+                    throw new IllegalStateException("No balance locked for account " + transaction.getAccountNumber());
+                }
+                BigDecimal after = before.add(postedAmount(transaction, transaction.getStatus()));
+                transaction.setBalanceBefore(before);
+                transaction.setBalanceAfter(after);
+                running.put(transaction.getAccountNumber(), after);
+            }
+        }
+
+        // Пишет остатки после пакета в account_balances; вызывается в транзакции пакета после вставки всех чанков
+        public void write() {
+            List<AccountBalance> rows = locked.values().stream()
+                    .sorted(Comparator.comparing(AccountBalance::getAccountNumber))
+                    .toList();
+            for (AccountBalance row : rows) {
+                row.setBalance(running.get(row.getAccountNumber()));
+                row.setVersion(row.getVersion() + 1);
+            }
+            balanceBatchRepository.updateAll(rows, chunkSize);
+        }
+
+        // После коммита пакета полосы продолжают от его остатков без перечитывания из БД
+        public void committed() {
+            locked.values().forEach(row -> remember(row.getAccountNumber(), new Balance(row.getBalance(), row.getVersion())));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.event.TransactionFailureStatusChangedEvent;
+import com.bank.transaction.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Скользящее окно неудачных транзакций по счетам для алерта MULTIPLE_FAILED_ATTEMPTS вместо COUNT-запроса
+ * на каждое создание транзакции. Окно делится на корзины (кольцевой буфер на счет), счетчик окна поддерживается
+ * инкрементально, поэтому ответ - O(1). Транзакция относится к корзине по transactionDate, как и в
+ * countFailedTransactionsSince; точность границы окна - одна корзина.
+ * Заполняется переходами в FAILED и из него после коммита, при старте восстанавливается из БД.
+ * Счетчики локальны для экземпляра: видны смены статуса, прошедшие через этот экземпляр, и восстановленные при старте.
+ */
+@Slf4j
+@Component
+public class FailedTransactionWindow {
+
+    private final TransactionRepository transactionRepository;
+    private final Clock clock;
+    private final int bucketCount;
+    private final long bucketMillis;
+    private final long sweepIntervalMillis;
+    private final ConcurrentHashMap<String, AccountWindow> accounts = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepAt = new AtomicLong();
+
+    @Autowired
+    public FailedTransactionWindow(TransactionRepository transactionRepository, TransactionProperties properties) {
+        this(transactionRepository, properties, Clock.systemDefaultZone());
+    }
+
+    FailedTransactionWindow(TransactionRepository transactionRepository, TransactionProperties properties, Clock clock) {
+        TransactionProperties.FailedAttempts failedAttempts = properties.getFailedAttempts();
+        if (failedAttempts.getBuckets() < 1) {
+            throw new IllegalArgumentException("transaction.failed-attempts.buckets must be positive");
+        }
+        this.transactionRepository = transactionRepository;
+        this.clock = clock;
+        this.bucketCount = failedAttempts.getBuckets();
+        this.bucketMillis = Math.max(1, failedAttempts.getWindow().toMillis() / bucketCount);
+        this.sweepIntervalMillis = bucketMillis * bucketCount;
+        this.nextSweepAt.set(clock.millis() + sweepIntervalMillis);
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        LocalDateTime since = LocalDateTime.now(clock).minus(getWindow());
+        List<Object[]> failures = transactionRepository.findFailedTransactionDatesSince(since);
+        failures.forEach(row -> add((String) row[0], (LocalDateTime) row[1], 1));
+        log.info("Failed transaction window rebuilt from {} failures across {} accounts", failures.size(), accounts.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFailureStatusChanged(TransactionFailureStatusChangedEvent event) {
+        add(event.getAccountNumber(), event.getTransactionDate(), event.isFailed() ? 1 : -1);
+    }
+
+    // Количество неудачных транзакций счета за окно
+    public int count(String accountNumber) {
+        AccountWindow window = accounts.get(accountNumber);
+        return window != null ? window.count(currentBucket()) : 0;
+    }
+
+    public Duration getWindow() {
+        return Duration.ofMillis(bucketMillis * bucketCount);
+    }
+
+    int trackedAccounts() {
+        return accounts.size();
+    }
+
+    private void add(String accountNumber, LocalDateTime transactionDate, int delta) {
+        if (accountNumber == null || transactionDate == null) {
+            return;
+        }
+        long now = currentBucket();
+        long bucket = Math.min(transactionDate.atZone(clock.getZone()).toInstant().toEpochMilli() / bucketMillis, now);
+        if (bucket <= now - bucketCount) {
+            return;
+        }
+        // compute выполняется атомарно для ключа, поэтому очистка не может потерять параллельное обновление
+        accounts.compute(accountNumber, (key, window) -> {
+            if (window == null) {
+                if (delta < 0) {
+                    return null;
+                }
+                window = new AccountWindow(bucketCount);
+            }
+            window.add(bucket, delta, now);
+            return window;
+        });
+        sweepIfDue();
+    }
+
+    // Счета без неудач в окне удаляются, чтобы память зависела от числа недавно проблемных счетов, а не всех
+    private void sweepIfDue() {
+        long now = clock.millis();
+        long due = nextSweepAt.get();
+        if (now < due || !nextSweepAt.compareAndSet(due, now + sweepIntervalMillis)) {
+            return;
+        }
+        long bucket = currentBucket();
+        int before = accounts.size();
+        accounts.keySet().forEach(account ->
+                accounts.computeIfPresent(account, (key, window) -> window.count(bucket) == 0 ? null : window));
+        log.debug("Evicted {} idle accounts from failed transaction window", before - accounts.size());
+    }
+
+    private long currentBucket() {
+        return clock.millis() / bucketMillis;
+    }
+
+    private static final class AccountWindow {
+
+        private final int[] counts;
+        private long head;
+        private int total;
+
+        AccountWindow(int bucketCount) {
+            this.counts = new int[bucketCount];
+        }
+
+        synchronized void add(long bucket, int delta, long now) {
+            advance(now);
+            int index = (int) (bucket % counts.length);
+            int updated = Math.max(0, counts[index] + delta);
+            total += updated - counts[index];
+            counts[index] = updated;
+        }
+
+        synchronized int count(long now) {
+            advance(now);
+            return total;
+        }
+
+        // Обнуляет корзины, вышедшие из окна с прошлого обращения; не больше одного круга
+        private void advance(long now) {
+            if (now <= head) {
+                return;
+            }
+            long steps = Math.min(now - head, counts.length);
+            for (long i = 1; i <= steps; i++) {
+                int index = (int) ((head + i) % counts.length);
+                total -= counts[index];
+                counts[index] = 0;
+            }
+            head = now;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.bank.transaction.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Bloom-фильтр недавних ключей идемпотентности. Ответ "нет" означает, что ключ точно не добавлялся
+ * за последнее окно, и повторную проверку в кэше или БД можно пропустить; "возможно" требует проверки.
+ * Хранит два поколения: новые ключи пишутся в текущее, раз в окно старшее поколение отбрасывается,
+ * поэтому ключ помнится от одного до двух окон, а память не растет со временем.
+ */
+class RecentKeyFilter {
+
+    private final int bitCount;
+    private final int hashCount;
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+    private volatile long rotateAt;
+
+    RecentKeyFilter(int expectedKeys, double falsePositiveRate, Duration window) {
+        this(expectedKeys, falsePositiveRate, window, System::nanoTime);
+    }
+
+    RecentKeyFilter(int expectedKeys, double falsePositiveRate, Duration window, LongSupplier nanoClock) {
+        if (expectedKeys < 1) {
+            throw new IllegalArgumentException("Expected keys must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        // Классический расчет: m = -n ln p / (ln 2)^2 бит, k = m / n * ln 2 хеш-функций
+        long bits = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Math.max(bits, Long.SIZE), Integer.MAX_VALUE - Long.SIZE);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * Math.log(2)));
+        this.windowNanos = window.toNanos();
+        this.nanoClock = nanoClock;
+        this.current = new Generation(bitCount);
+        this.previous = new Generation(bitCount);
+        this.rotateAt = nanoClock.getAsLong() + windowNanos;
+    }
+
+    boolean mightContain(String key) {
+        rotateIfDue();
+        long hash = hash(key);
+        return current.mightContain(hash, hashCount) || previous.mightContain(hash, hashCount);
+    }
+
+    void put(String key) {
+        rotateIfDue();
+        current.put(hash(key), hashCount);
+    }
+
+    int getBitCount() {
+        return bitCount;
+    }
+
+    int getHashCount() {
+        return hashCount;
+    }
+
+    private void rotateIfDue() {
+        if (nanoClock.getAsLong() - rotateAt < 0) {
+            return;
+        }
+        synchronized (this) {
+            long now = nanoClock.getAsLong();
+            if (now - rotateAt < 0) {
+                return;
+            }
+            previous = current;
+            current = new Generation(bitCount);
+            rotateAt = now + windowNanos;
+        }
+    }
+
+    // FNV-1a по символам с финальным перемешиванием murmur3; две половины дают независимые индексы
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Generation {
+
+        private final AtomicLongArray words;
+        private final int bitCount;
+
+        Generation(int bitCount) {
+            this.bitCount = bitCount;
+            this.words = new AtomicLongArray((bitCount + Long.SIZE - 1) / Long.SIZE);
+        }
+
+        // Двойное хеширование (Kirsch-Mitzenmacher): i-й индекс = h1 + i * h2
+        void put(long hash, int hashCount) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long value = words.get(word);
+                while ((value & mask) == 0 && !words.compareAndSet(word, value, value | mask)) {
+                    value = words.get(word);
+                }
+            }
+        }
+
+        boolean mightContain(long hash, int hashCount) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.bank.transaction.service;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Позиция в истории счета: ключ (transactionDate, id) последней строки страницы. Клиент получает ее
+ * непрозрачной строкой base64url и передает обратно без изменений; следующая страница начинается
+ * строго после этой строки в порядке (transactionDate DESC, id DESC).
+ */
+record TransactionCursor(LocalDateTime transactionDate, long id) {
+
+    // Границы для первой страницы и запросов без диапазона дат; в пределах типа TIMESTAMP PostgreSQL
+    static final LocalDateTime MIN_DATE = LocalDateTime.of(1900, 1, 1, 0, 0);
+    static final LocalDateTime MAX_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    // Первая страница: все строки до to включительно
+    static TransactionCursor first(LocalDateTime to) {
+        return new TransactionCursor(to != null ? to : MAX_DATE, Long.MAX_VALUE);
+    }
+
+    String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+                .putLong(transactionDate.toEpochSecond(ZoneOffset.UTC))
+                .putInt(transactionDate.getNano())
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    static TransactionCursor decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        if (bytes.length != ENCODED_BYTES) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            LocalDateTime transactionDate = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+            return new TransactionCursor(transactionDate, buffer.getLong());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+    }
+}
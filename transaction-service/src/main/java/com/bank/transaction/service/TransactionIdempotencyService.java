@@ -0,0 +1,134 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.dto.TransactionResponse;
+import com.bank.transaction.repository.TransactionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Идемпотентное создание транзакций: каналы повторяют POST /api/transactions по таймауту с тем же
+ * (channel, referenceNumber). Повтор получает исходный ответ без второй вставки, сообщения outbox и алертов.
+ * Проверка в три ступени: кэш последних ответов, Bloom-фильтр недавних ключей (отсекает обращение к БД
+ * для новых ключей) и первичный ключ uk_transactions_channel_reference таблицы transaction_reference_keys
+ * (заполняется триггером при вставке в transactions) как окончательный арбитр для параллельных повторов
+ * и ключей, которых нет в памяти этого экземпляра.
+ */
+@Slf4j
+@Service
+public class TransactionIdempotencyService {
+
+    static final String REFERENCE_INDEX = "uk_transactions_channel_reference";
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final TransactionService transactionService;
+    private final TransactionRepository transactionRepository;
+    private final TransactionMetricsService metricsService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionProperties.Idempotency properties;
+    private final RecentKeyFilter recentKeys;
+    private final Cache<String, TransactionResponse> responses;
+
+    public TransactionIdempotencyService(TransactionService transactionService,
+                                         TransactionRepository transactionRepository,
+                                         TransactionMetricsService metricsService,
+                                         TransactionTemplate transactionTemplate,
+                                         TransactionProperties properties) {
+        this.transactionService = transactionService;
+        this.transactionRepository = transactionRepository;
+        this.metricsService = metricsService;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties.getIdempotency();
+        this.recentKeys = new RecentKeyFilter(this.properties.getExpectedKeys(),
+                this.properties.getFalsePositiveRate(), this.properties.getWindow());
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(this.properties.getCacheMaxSize())
+                .expireAfterWrite(this.properties.getCacheTtl())
+                .recordStats()
+                .build();
+        metricsService.monitorCache("transactionIdempotencyResponses", responses);
+    }
+
+    // После рестарта фильтр пуст и повторы ушли бы в БД только через конфликт индекса; загружаем ключи за окно
+    @PostConstruct
+    public void warmUp() {
+        LocalDateTime since = LocalDateTime.now().minus(properties.getWindow());
+        List<Object[]> keys = transactionRepository.findReferenceKeysCreatedSince(since);
+        keys.forEach(row -> recentKeys.put(key((String) row[0], (String) row[1])));
+        log.info("Idempotency filter warmed up with {} reference keys ({} bits, {} hashes)",
+                keys.size(), recentKeys.getBitCount(), recentKeys.getHashCount());
+    }
+
+    public TransactionResponse createTransaction(TransactionRequest request) {
+        String referenceNumber = request.getReferenceNumber();
+        if (referenceNumber == null || referenceNumber.isEmpty()) {
+            return transactionService.createTransaction(request);
+        }
+        String channel = request.getChannel() != null ? request.getChannel() : "";
+        String key = key(channel, referenceNumber);
+
+        TransactionResponse cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return replay(cached, "cache");
+        }
+
+        if (recentKeys.mightContain(key)) {
+            Optional<TransactionResponse> original = findOriginal(channel, referenceNumber);
+            if (original.isPresent()) {
+                responses.put(key, original.get());
+                return replay(original.get(), "database");
+            }
+            metricsService.recordIdempotencyFilterFalsePositive();
+        }
+
+        TransactionResponse response;
+        try {
+            response = transactionService.createTransaction(request);
+        } catch (DataIntegrityViolationException e) {
+            // Параллельный повтор (или другой экземпляр) вставил оригинал первым; транзакция этого запроса откатилась
+            if (!isReferenceConflict(e)) {
+                throw e;
+            }
+            TransactionResponse original = findOriginal(channel, referenceNumber).orElseThrow(() -> e);
+            recentKeys.put(key);
+            responses.put(key, original);
+            return replay(original, "conflict");
+        }
+
+        recentKeys.put(key);
+        responses.put(key, response);
+        return response;
+    }
+
+    // Читаем из пула записи: на реплике только что закоммиченного оригинала может еще не быть
+    private Optional<TransactionResponse> findOriginal(String channel, String referenceNumber) {
+        return transactionTemplate.execute(status ->
+                transactionRepository.findResponseByChannelAndReferenceNumber(channel, referenceNumber));
+    }
+
+    private TransactionResponse replay(TransactionResponse original, String source) {
+        metricsService.recordIdempotentReplay(source);
+        log.info("Replayed transaction {} for reference {} (channel: {}, source: {})",
+                original.getTransactionId(), original.getReferenceNumber(), original.getChannel(), source);
+        return original;
+    }
+
+    private static boolean isReferenceConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains(REFERENCE_INDEX);
+    }
+
+    private static String key(String channel, String referenceNumber) {
+        return (channel != null ? channel : "") + KEY_SEPARATOR + referenceNumber;
+    }
+}
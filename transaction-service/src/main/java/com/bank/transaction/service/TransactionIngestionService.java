@@ -0,0 +1,151 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.dto.TransactionBatchResponse;
+import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.event.TransactionAlertEvent;
+import com.bank.transaction.event.TransactionEvent;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionAlert;
+import com.bank.transaction.repository.TransactionAlertRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пакетная загрузка транзакций (выгрузки core banking на конец дня). Строки вставляются чанками:
+ * id берутся из пула последовательности, поэтому один flush на чанк уходит JDBC-батчами, после чего
+ * контекст персистентности очищается. Правила алертов вычисляются в памяти (контрагенты счетов пакета
+ * загружаются заранее одним запросом на группу счетов), сообщения пишутся в outbox пачками.
+ * Остатки до и после назначает AccountLedger от остатков счетов, заблокированных в транзакции загрузки.
+ * Пакет вместе с остатками загружается целиком или не загружается вовсе.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionIngestionService {
+
+    private final EntityManager entityManager;
+    private final TransactionRuleEngine ruleEngine;
+    private final TransactionAlertRepository alertRepository;
+    private final TransactionOutbox outbox;
+    private final TransactionMetricsService metricsService;
+    private final TransactionProperties properties;
+    private final AccountLedger ledger;
+    private final TransactionTemplate transactionTemplate;
+
+    public TransactionBatchResponse ingest(List<TransactionRequest> requests) {
+        TransactionProperties.Batch batch = properties.getBatch();
+        if (requests.size() > batch.getMaxSize()) {
+            throw new IllegalArgumentException("Batch size must not exceed " + batch.getMaxSize() + " transactions");
+        }
+        log.info("Ingesting batch of {} transactions", requests.size());
+
+        long startTime = System.nanoTime();
+        int chunkSize = batch.getChunkSize();
+
+        Inserted result = transactionTemplate.execute(status -> insert(requests, chunkSize));
+        result.balances().committed();
+        int inserted = result.rows();
+        int alertsCreated = result.alerts();
+
+        long durationNanos = System.nanoTime() - startTime;
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        long rowsPerSecond = durationNanos > 0 ? inserted * 1_000_000_000L / durationNanos : inserted;
+        metricsService.recordBatchIngestion(inserted, durationMs);
+
+        log.info("Ingested {} transactions in {}ms ({} rows/s), {} alerts created",
+                inserted, durationMs, rowsPerSecond, alertsCreated);
+
+        return TransactionBatchResponse.builder()
+                .received(requests.size())
+                .inserted(inserted)
+                .alertsCreated(alertsCreated)
+                .durationMs(durationMs)
+                .rowsPerSecond(rowsPerSecond)
+                .build();
+    }
+
+    // Вставка пакета в одной транзакции БД
+    private Inserted insert(List<TransactionRequest> requests, int chunkSize) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(chunkSize);
+
+        // Остатки счетов пакета сдвигаются в этой же транзакции: откат пакета откатывает и их
+        List<String> accounts = requests.stream().map(TransactionRequest::getAccountNumber).toList();
+        AccountLedger.BatchPosting balances = ledger.lockBatch(accounts, chunkSize);
+
+        // До первой вставки: иначе контрагенты из строк самого пакета посчитались бы уже известными
+        ruleEngine.preloadCounterparties(accounts);
+
+        int inserted = 0;
+        int alertsCreated = 0;
+        for (int from = 0; from < requests.size(); from += chunkSize) {
+            List<TransactionRequest> chunk = requests.subList(from, Math.min(from + chunkSize, requests.size()));
+            List<Transaction> transactions = new ArrayList<>(chunk.size());
+            for (TransactionRequest request : chunk) {
+                transactions.add(TransactionService.toTransaction(request));
+            }
+            balances.assign(transactions);
+            transactions.forEach(entityManager::persist);
+            entityManager.flush();
+
+            alertsCreated += publishChunk(transactions);
+            inserted += transactions.size();
+
+            // Чанк записан: сущности больше не нужны контексту, память не растет с размером пакета
+            entityManager.clear();
+        }
+        balances.write();
+        return new Inserted(inserted, alertsCreated, balances);
+    }
+
+    // Алерты и сообщения чанка; порядок сообщений тот же, что и при создании транзакций по одной
+    private int publishChunk(List<Transaction> transactions) {
+        List<List<TransactionAlert>> alertsByTransaction = new ArrayList<>(transactions.size());
+        List<TransactionAlert> alerts = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            List<TransactionAlert> transactionAlerts = ruleEngine.evaluate(transaction);
+            alertsByTransaction.add(transactionAlerts);
+            alerts.addAll(transactionAlerts);
+        }
+
+        // Алерты сохраняются до построения событий, чтобы в Kafka ушло время их создания
+        saveAlerts(alerts);
+
+        List<TransactionOutbox.Message> messages = new ArrayList<>(transactions.size() + alerts.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            String key = transaction.getTransactionId();
+            TransactionEvent event = TransactionEvent.from(transaction);
+            messages.add(new TransactionOutbox.Message(TransactionService.TRANSACTIONS_TOPIC, key, event));
+
+            for (TransactionAlert alert : alertsByTransaction.get(i)) {
+                messages.add(new TransactionOutbox.Message(TransactionService.ALERTS_TOPIC, key,
+                        TransactionAlertEvent.from(alert)));
+                if (alert.getAlertType() == TransactionAlert.AlertType.SUSPICIOUS_ACTIVITY) {
+                    messages.add(new TransactionOutbox.Message(TransactionService.HIGH_VALUE_TOPIC, key, event));
+                }
+            }
+        }
+        outbox.appendAll(messages);
+        return alerts.size();
+    }
+
+    private void saveAlerts(List<TransactionAlert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        alertRepository.saveAll(alerts);
+        alerts.forEach(metricsService::recordTransactionAlert);
+    }
+
+    private record Inserted(int rows, int alerts, AccountLedger.BatchPosting balances) {
+    }
+}
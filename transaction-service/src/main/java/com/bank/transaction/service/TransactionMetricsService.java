@@ -2,15 +2,18 @@ package com.bank.transaction.service;
 
 import com.bank.transaction.model.Transaction;
 import com.bank.transaction.model.TransactionAlert;
+import com.github.benmanes.caffeine.cache.Cache;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
@@ -123,6 +126,80 @@ public class TransactionMetricsService {
                 "status", status);
     }
 
+    public void recordBatchIngestion(int rows, long durationMs) {
+        Counter.builder("transactions.batch.rows")
+                .description("Transactions inserted through batch ingestion")
+                .register(meterRegistry)
+                .increment(rows);
+        recordTimer("transactions.batch.duration", durationMs);
+    }
+
+    public void recordIdempotentReplay(String source) {
+        incrementCounter("transactions.idempotent.replays", "source", source);
+    }
+
+    // Фильтр ответил "возможно", а в БД ключа нет: рост показывает, что expected-keys занижен для окна
+    public void recordIdempotencyFilterFalsePositive() {
+        incrementCounter("transactions.idempotency.filter.false_positives");
+    }
+
+    public void monitorCache(String name, Cache<?, ?> cache) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    // Счетчик и таймер на правило создаются при компиляции правил, чтобы вычисление не искало их в реестре
+    public Counter ruleHitCounter(String rule) {
+        return Counter.builder("transaction.rules.hits")
+                .tag("rule", rule)
+                .description("Transactions matched by an alert rule")
+                .register(meterRegistry);
+    }
+
+    public Timer ruleLatencyTimer(String rule) {
+        return Timer.builder("transaction.rules.evaluation")
+                .tag("rule", rule)
+                .description("Alert rule evaluation time per transaction")
+                .register(meterRegistry);
+    }
+
+    public void recordOutboxPublished(int count, Duration oldestMessageLag) {
+        Counter.builder("transaction.outbox.published")
+                .description("Outbox messages acknowledged by Kafka")
+                .register(meterRegistry)
+                .increment(count);
+        // Задержка от записи в outbox до подтверждения брокером для самого старого сообщения пачки
+        Timer.builder("transaction.outbox.lag")
+                .description("Delay between outbox write and Kafka acknowledgement")
+                .register(meterRegistry)
+                .record(oldestMessageLag);
+    }
+
+    public void recordOutboxPublishFailure(String topic) {
+        incrementCounter("transaction.outbox.failures", "topic", topic);
+    }
+
+    public void recordOutboxMessageParked(String topic) {
+        incrementCounter("transaction.outbox.parked", "topic", topic);
+    }
+
+    // Сколько проводка ждала своей очереди в полосе счета
+    public void recordLedgerLaneWait(long waitNanos) {
+        Timer.builder("transaction.ledger.lane.wait")
+                .description("Time a posting waits in its account ledger lane")
+                .register(meterRegistry)
+                .record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Остаток счета изменил другой писатель (другой экземпляр или пакетная загрузка); проводка пересчитана
+    public void recordLedgerStalePosting() {
+        incrementCounter("transaction.ledger.stale_postings");
+    }
+
+    // Шаг обслуживания партиций, оставшийся невыполненным: create или retention
+    public void recordPartitionMaintenanceFailure(String step) {
+        incrementCounter("transaction.partitions.failures", "step", step);
+    }
+
     private void incrementCounter(String name, String... tags) {
         String key = name + String.join("", tags);
         Counter counter = counters.computeIfAbsent(key,
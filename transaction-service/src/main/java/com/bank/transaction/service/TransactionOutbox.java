@@ -0,0 +1,82 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.event.OutboxEventAppendedEvent;
+import com.bank.transaction.event.TransactionEventCodec;
+import com.bank.transaction.model.OutboxEvent;
+import com.bank.transaction.repository.OutboxEventBatchRepository;
+import com.bank.transaction.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запись сообщений Kafka в таблицу transaction_outbox в текущей транзакции БД.
+ * Полезная нагрузка - событие из пакета event, закодированное {@link TransactionEventCodec} при записи.
+ * Сообщение уходит в брокер только если транзакция зафиксирована; отправкой занимается
+ * {@link TransactionOutboxRelay}, поэтому время ответа API не зависит от доступности Kafka.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionOutbox {
+
+    private static final int INSERT_CHUNK_SIZE = 1000;
+
+    private final OutboxEventRepository outboxRepository;
+    private final OutboxEventBatchRepository outboxBatchRepository;
+    private final TransactionEventCodec eventCodec;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String topic, String key, Object payload) {
+        OutboxEvent event = OutboxEvent.builder()
+                .topic(topic)
+                .messageKey(key)
+                .payload(encode(topic, payload))
+                .build();
+
+        outboxRepository.save(event);
+        eventPublisher.publishEvent(new OutboxEventAppendedEvent(topic));
+
+        log.debug("Outbox message appended for topic: {}, key: {}", topic, key);
+    }
+
+    // Пакетная запись: сообщения вставляются JDBC-батчами в порядке списка
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int appendAll(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        List<OutboxEvent> events = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            events.add(OutboxEvent.builder()
+                    .topic(message.topic())
+                    .messageKey(message.key())
+                    .payload(encode(message.topic(), message.payload()))
+                    .build());
+        }
+
+        int appended = outboxBatchRepository.insertAll(events, INSERT_CHUNK_SIZE);
+        eventPublisher.publishEvent(new OutboxEventAppendedEvent(messages.get(0).topic()));
+
+        log.debug("Appended {} outbox messages", appended);
+        return appended;
+    }
+
+    private byte[] encode(String topic, Object payload) {
+        try {
+            return eventCodec.encode(payload);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Failed to serialize outbox message for topic: " + topic, e);
+        }
+    }
+
+    public record Message(String topic, String key, Object payload) {
+    }
+}
@@ -0,0 +1,230 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.event.OutboxEventAppendedEvent;
+import com.bank.transaction.model.OutboxEvent;
+import com.bank.transaction.repository.OutboxEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ретранслятор transaction_outbox -> Kafka. Разбирает очередь по возрастанию id пачками до batchSize,
+ * отправляет пачку целиком и одним UPDATE отмечает подтвержденные брокером сообщения.
+ * При ошибке отправки очередь останавливается на первом неподтвержденном сообщении и повторяется
+ * с экспоненциальной паузой, поэтому порядок сообщений сохраняется (доставка - at-least-once).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "transaction.outbox", name = "relay-enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionOutboxRelay {
+
+    // Ключ advisory-блокировки, общий для всех экземпляров сервиса
+    private static final long RELAY_LOCK_KEY = 0x74786E5F6F7574L;
+    private static final long PURGE_INTERVAL_MS = 3_600_000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxEventRepository outboxRepository;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final TransactionMetricsService metricsService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionProperties.Outbox properties;
+    private final Semaphore wakeups = new Semaphore(0);
+
+    private volatile boolean running;
+    private Thread worker;
+    // Меняются только потоком ретранслятора
+    private long backoffMs;
+    private long nextPurgeAt;
+
+    public TransactionOutboxRelay(OutboxEventRepository outboxRepository,
+                                  KafkaTemplate<String, byte[]> outboxKafkaTemplate,
+                                  TransactionMetricsService metricsService,
+                                  TransactionTemplate transactionTemplate,
+                                  TransactionProperties properties) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = outboxKafkaTemplate;
+        this.metricsService = metricsService;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties.getOutbox();
+        if (this.properties.getBatchSize() < 1) {
+            throw new IllegalArgumentException("transaction.outbox.batch-size must be positive");
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::runLoop, "transaction-outbox-relay");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Transaction outbox relay started (batch size: {}, poll interval: {} ms)",
+                properties.getBatchSize(), properties.getPollIntervalMs());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(SHUTDOWN_TIMEOUT_MS);
+        }
+    }
+
+    // Будит ретранслятор после коммита транзакции, записавшей сообщение; откаченные записи его не будят
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventAppended(OutboxEventAppendedEvent event) {
+        wakeups.release();
+    }
+
+    // Отправляет одну пачку; возвращает количество сообщений, подтвержденных брокером
+    int relayOnce() {
+        Integer published = transactionTemplate.execute(status -> {
+            if (!outboxRepository.tryLockRelay(RELAY_LOCK_KEY)) {
+                return 0;
+            }
+            List<OutboxEvent> batch = outboxRepository.findNextBatch(properties.getBatchSize());
+            return batch.isEmpty() ? 0 : publish(batch);
+        });
+        return published != null ? published : 0;
+    }
+
+    long getBackoffMs() {
+        return backoffMs;
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                int published = relayOnce();
+                purgeIfDue();
+                if (backoffMs > 0) {
+                    Thread.sleep(backoffMs);
+                } else if (published < properties.getBatchSize()) {
+                    // Очередь разобрана: ждем коммита с новым сообщением или очередного опроса
+                    wakeups.tryAcquire(properties.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+                    wakeups.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                log.debug("Transaction outbox relay interrupted");
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in transaction outbox relay: {}", e.getMessage(), e);
+                pauseAfterError();
+            }
+        }
+        log.info("Transaction outbox relay stopped");
+    }
+
+    private int publish(List<OutboxEvent> batch) {
+        List<CompletableFuture<SendResult<String, byte[]>>> sends = new ArrayList<>(batch.size());
+        Throwable failure = null;
+        for (OutboxEvent event : batch) {
+            try {
+                sends.add(kafkaTemplate.send(event.getTopic(), event.getMessageKey(), event.getPayload()));
+            } catch (RuntimeException e) {
+                // Брокер недоступен (истек max.block.ms): остаток пачки не отправляем
+                failure = e;
+                break;
+            }
+        }
+
+        // Подтверждения проверяются по порядку; сообщения после первой ошибки будут отправлены повторно
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getSendTimeoutMs());
+        List<Long> sentIds = new ArrayList<>(sends.size());
+        for (CompletableFuture<SendResult<String, byte[]>> send : sends) {
+            try {
+                send.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+                break;
+            } catch (TimeoutException e) {
+                failure = e;
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+                break;
+            }
+            sentIds.add(batch.get(sentIds.size()).getId());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!sentIds.isEmpty()) {
+            outboxRepository.markSent(sentIds, now);
+            metricsService.recordOutboxPublished(sentIds.size(), Duration.between(batch.get(0).getCreatedAt(), now));
+        }
+
+        if (failure != null) {
+            recordFailure(batch.get(sentIds.size()), failure, now);
+        } else {
+            backoffMs = 0;
+        }
+
+        log.debug("Relayed {} of {} outbox messages", sentIds.size(), batch.size());
+        return sentIds.size();
+    }
+
+    private void recordFailure(OutboxEvent event, Throwable failure, LocalDateTime now) {
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(truncate(String.valueOf(failure)));
+        metricsService.recordOutboxPublishFailure(event.getTopic());
+
+        int maxAttempts = properties.getMaxAttempts();
+        if (maxAttempts > 0 && event.getAttempts() >= maxAttempts) {
+            // Сообщение, которое брокер не принимает (например, слишком большое), не должно останавливать очередь
+            event.setFailedAt(now);
+            metricsService.recordOutboxMessageParked(event.getTopic());
+            log.error("Outbox message {} for topic {} parked after {} attempts: {}",
+                    event.getId(), event.getTopic(), event.getAttempts(), failure.getMessage());
+        } else {
+            log.warn("Failed to relay outbox message {} for topic {} (attempt {}): {}",
+                    event.getId(), event.getTopic(), event.getAttempts(), failure.getMessage());
+        }
+
+        backoffMs = backoffMs == 0
+                ? properties.getInitialBackoffMs()
+                : Math.min(backoffMs * 2, properties.getMaxBackoffMs());
+    }
+
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        if (now < nextPurgeAt) {
+            return;
+        }
+        nextPurgeAt = now + PURGE_INTERVAL_MS;
+        LocalDateTime before = LocalDateTime.now().minus(properties.getRetention());
+        Integer deleted = transactionTemplate.execute(status -> outboxRepository.deleteSentBefore(before));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} relayed outbox messages sent before {}", deleted, before);
+        }
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private void pauseAfterError() {
+        try {
+            Thread.sleep(properties.getPollIntervalMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.repository.TransactionPartitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Обслуживание месячных партиций transactions: создает партиции на partitionsAhead месяцев вперед
+ * и убирает месяцы старше retentionMonths целиком (DETACH или DROP партиции вместо DELETE строк)
+ * вместе с их ключами идемпотентности из transaction_reference_keys. Строки месяца, попавшие в партицию
+ * по умолчанию до создания его партиции, переносятся в новую партицию.
+ * Ошибки отдельных шагов логируются и считаются в transaction.partitions.failures, шаг повторяется
+ * при следующем запуске.
+ */
+@Slf4j
+@Component
+public class TransactionPartitionMaintenance {
+
+    private final TransactionPartitionRepository partitionRepository;
+    private final TransactionMetricsService metricsService;
+    private final TransactionProperties.Partitions properties;
+    private final Clock clock;
+
+    @Autowired
+    public TransactionPartitionMaintenance(TransactionPartitionRepository partitionRepository,
+                                           TransactionMetricsService metricsService,
+                                           TransactionProperties properties) {
+        this(partitionRepository, metricsService, properties.getPartitions(), Clock.systemDefaultZone());
+    }
+
+    TransactionPartitionMaintenance(TransactionPartitionRepository partitionRepository,
+                                    TransactionMetricsService metricsService,
+                                    TransactionProperties.Partitions properties, Clock clock) {
+        this.partitionRepository = partitionRepository;
+        this.metricsService = metricsService;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${transaction.partitions.partition-cron:0 0 1 * * *}")
+    public void maintain() {
+        if (!properties.isMaintenanceEnabled()) {
+            return;
+        }
+        YearMonth current = YearMonth.now(clock);
+        ensurePartitions(current);
+        if (properties.getRetentionMonths() > 0) {
+            applyRetention(current.minusMonths(properties.getRetentionMonths() - 1L));
+        }
+    }
+
+    private void ensurePartitions(YearMonth current) {
+        int partitionsAhead = properties.getPartitionsAhead();
+        for (int i = 0; i <= partitionsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                partitionRepository.createMonthlyPartition(month);
+            } catch (DataAccessException e) {
+                // Обычно строки этого месяца уже попали в партицию по умолчанию
+                log.warn("Failed to create transactions partition for {}, moving its rows from the default partition: {}",
+                        month, e.getMessage());
+                createFromDefault(month);
+            }
+        }
+        log.debug("Transactions partitions ensured up to {}", current.plusMonths(partitionsAhead));
+    }
+
+    // Пока партиции нет, строки месяца копятся в партиции по умолчанию, и retention их не уберет
+    private void createFromDefault(YearMonth month) {
+        try {
+            int moved = partitionRepository.createMonthlyPartitionFromDefault(month);
+            log.warn("Transactions partition for {} created with {} rows moved from the default partition", month, moved);
+        } catch (DataAccessException e) {
+            metricsService.recordPartitionMaintenanceFailure("create");
+            log.error("Failed to create transactions partition for {}, its rows stay in the default partition: {}",
+                    month, e.getMessage());
+        }
+    }
+
+    // Убирает партиции месяцев раньше firstRetainedMonth
+    private void applyRetention(YearMonth firstRetainedMonth) {
+        List<YearMonth> expired;
+        try {
+            expired = partitionRepository.findMonthlyPartitions().stream()
+                    .filter(month -> month.isBefore(firstRetainedMonth))
+                    .toList();
+        } catch (DataAccessException e) {
+            log.error("Failed to list transactions partitions: {}", e.getMessage());
+            return;
+        }
+
+        // Ключи удаляются вместе с партицией своего месяца: ключи строк, оставшихся в таблице (в том числе
+        // в партиции по умолчанию), продолжают отсекать повторы старых запросов
+        for (YearMonth month : expired) {
+            try {
+                int deletedKeys = properties.getRetentionAction() == TransactionProperties.Partitions.RetentionAction.DROP
+                        ? partitionRepository.dropPartition(month)
+                        : partitionRepository.detachPartition(month);
+                log.info("Transactions partition for {} removed by retention ({}) with {} reference keys",
+                        month, properties.getRetentionAction(), deletedKeys);
+            } catch (DataAccessException e) {
+                metricsService.recordPartitionMaintenanceFailure("retention");
+                log.error("Failed to remove transactions partition for {}: {}", month, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionAlert;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Правило алерта, скомпилированное из TransactionProperties.AlertRule в предикат над транзакцией
+ * и оконным состоянием счета. Оконное правило хранит в состоянии счета кольцо из count отметок времени
+ * подходящих транзакций и срабатывает, когда самая старая из них моложе окна, поэтому проверка - O(1)
+ * при любом числе транзакций счета. После срабатывания оконное правило молчит для счета до конца окна,
+ * чтобы серия транзакций давала один алерт, а не алерт на каждую транзакцию.
+ */
+abstract class TransactionRule {
+
+    static final int MAX_WINDOW_COUNT = 10000;
+    private static final int MAX_MESSAGE_LENGTH = 255;
+
+    final String name;
+    final TransactionAlert.AlertType alertType;
+    final int severity;
+    final Counter hits;
+    final Timer latency;
+    private final String description;
+
+    TransactionRule(TransactionProperties.AlertRule definition, TransactionMetricsService metricsService) {
+        this.name = definition.getName();
+        this.alertType = definition.getAlertType();
+        this.severity = definition.getSeverity();
+        this.description = definition.getDescription() != null ? definition.getDescription() : definition.getName();
+        this.hits = metricsService.ruleHitCounter(name);
+        this.latency = metricsService.ruleLatencyTimer(name);
+    }
+
+    // Возвращает описание срабатывания для текста алерта или null; now - время транзакции в миллисекундах
+    abstract String match(Transaction transaction, AccountState state, long now, boolean newCounterparty);
+
+    // Слот в состоянии счета: размер кольца отметок времени, 0 - только отметка последнего срабатывания, -1 - без состояния
+    int ringSize() {
+        return -1;
+    }
+
+    boolean tracksCounterparties() {
+        return false;
+    }
+
+    TransactionAlert toAlert(Transaction transaction, String match) {
+        String message = description + ": " + match;
+        return TransactionAlert.builder()
+                .alertType(alertType)
+                .status(TransactionAlert.AlertStatus.ACTIVE)
+                .transactionId(transaction.getTransactionId())
+                .accountNumber(transaction.getAccountNumber())
+                .amount(transaction.getAmount())
+                .currency(transaction.getCurrency())
+                .message(message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message)
+                .severity(severity)
+                .details("Rule " + name)
+                .build();
+    }
+
+    static TransactionRule compile(TransactionProperties.AlertRule definition, int slot,
+                                   FailedTransactionWindow failedTransactionWindow,
+                                   TransactionMetricsService metricsService) {
+        if (definition.getName() == null || definition.getName().isBlank()) {
+            throw new IllegalArgumentException("Alert rule name is required");
+        }
+        if (definition.getType() == null) {
+            throw new IllegalArgumentException("Alert rule " + definition.getName() + ": type is required");
+        }
+        if (definition.getAlertType() == null) {
+            throw new IllegalArgumentException("Alert rule " + definition.getName() + ": alert-type is required");
+        }
+        if (definition.getSeverity() < 1 || definition.getSeverity() > 10) {
+            throw new IllegalArgumentException("Alert rule " + definition.getName() + ": severity must be between 1 and 10");
+        }
+        return switch (definition.getType()) {
+            case AMOUNT -> new AmountRule(definition, metricsService);
+            case VELOCITY -> new VelocityRule(definition, slot, metricsService);
+            case STRUCTURING -> new StructuringRule(definition, slot, metricsService);
+            case NEW_COUNTERPARTY_BURST -> new NewCounterpartyBurstRule(definition, slot, metricsService);
+            case FAILED_ATTEMPTS -> new FailedAttemptsRule(definition, slot, failedTransactionWindow, metricsService);
+        };
+    }
+
+    static String formatWindow(Duration window) {
+        long seconds = window.toSeconds();
+        if (seconds % 3600 == 0) {
+            return seconds / 3600 + "h";
+        }
+        if (seconds % 60 == 0) {
+            return seconds / 60 + "m";
+        }
+        return seconds + "s";
+    }
+
+    private static BigDecimal requireAmount(TransactionProperties.AlertRule definition, BigDecimal amount, String property) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Alert rule " + definition.getName() + ": " + property + " is required");
+        }
+        return amount;
+    }
+
+    private static int requireCount(TransactionProperties.AlertRule definition) {
+        if (definition.getCount() < 1 || definition.getCount() > MAX_WINDOW_COUNT) {
+            throw new IllegalArgumentException("Alert rule " + definition.getName()
+                    + ": count must be between 1 and " + MAX_WINDOW_COUNT);
+        }
+        return definition.getCount();
+    }
+
+    private static Duration requireWindow(TransactionProperties.AlertRule definition) {
+        if (definition.getWindow() == null || definition.getWindow().toMillis() <= 0) {
+            throw new IllegalArgumentException("Alert rule " + definition.getName() + ": window must be positive");
+        }
+        return definition.getWindow();
+    }
+
+    // Оконное состояние счета; поля меняются под монитором самого состояния.
+    // Копия для транзакции БД записывает свои изменения, чтобы после коммита повторить их на общем состоянии
+    static final class AccountState {
+
+        final long[][] rings;
+        final int[] positions;
+        final long[] lastFiredAt;
+        private final List<Change> changes;
+
+        AccountState(int[] ringSizes) {
+            this.rings = new long[ringSizes.length][];
+            this.positions = new int[ringSizes.length];
+            this.lastFiredAt = new long[ringSizes.length];
+            for (int slot = 0; slot < ringSizes.length; slot++) {
+                if (ringSizes[slot] > 0) {
+                    rings[slot] = new long[ringSizes[slot]];
+                    Arrays.fill(rings[slot], Long.MIN_VALUE);
+                }
+            }
+            Arrays.fill(lastFiredAt, Long.MIN_VALUE);
+            this.changes = null;
+        }
+
+        private AccountState(AccountState source) {
+            this.rings = new long[source.rings.length][];
+            for (int slot = 0; slot < rings.length; slot++) {
+                if (source.rings[slot] != null) {
+                    rings[slot] = source.rings[slot].clone();
+                }
+            }
+            this.positions = source.positions.clone();
+            this.lastFiredAt = source.lastFiredAt.clone();
+            this.changes = new ArrayList<>();
+        }
+
+        AccountState copy() {
+            return new AccountState(this);
+        }
+
+        List<Change> changes() {
+            return changes != null ? changes : List.of();
+        }
+
+        // Повторяет изменения копии; отметки параллельных транзакций ложатся в кольцо в порядке коммитов
+        void apply(List<Change> applied) {
+            for (Change change : applied) {
+                if (change.fired()) {
+                    lastFiredAt[change.slot()] = Math.max(lastFiredAt[change.slot()], change.at());
+                } else {
+                    record(change.slot(), change.at());
+                }
+            }
+        }
+
+        // Записывает отметку в кольцо слота и возвращает самую старую из последних отметок
+        long record(int slot, long now) {
+            long[] ring = rings[slot];
+            int position = positions[slot];
+            ring[position] = now;
+            position = position + 1 == ring.length ? 0 : position + 1;
+            positions[slot] = position;
+            if (changes != null) {
+                changes.add(new Change(slot, now, false));
+            }
+            return ring[position];
+        }
+
+        // Не срабатывать повторно для счета, пока не прошло окно с прошлого срабатывания
+        boolean fire(int slot, long now, long windowMillis) {
+            long last = lastFiredAt[slot];
+            if (last != Long.MIN_VALUE && now - last < windowMillis) {
+                return false;
+            }
+            lastFiredAt[slot] = now;
+            if (changes != null) {
+                changes.add(new Change(slot, now, true));
+            }
+            return true;
+        }
+
+        record Change(int slot, long at, boolean fired) {
+        }
+    }
+
+    private static final class AmountRule extends TransactionRule {
+
+        private final BigDecimal minAmount;
+
+        AmountRule(TransactionProperties.AlertRule definition, TransactionMetricsService metricsService) {
+            super(definition, metricsService);
+            this.minAmount = requireAmount(definition, definition.getMinAmount(), "min-amount");
+        }
+
+        @Override
+        String match(Transaction transaction, AccountState state, long now, boolean newCounterparty) {
+            if (transaction.getAmount() == null || transaction.getAmount().compareTo(minAmount) < 0) {
+                return null;
+            }
+            return String.format("%s %s for account %s",
+                    transaction.getAmount(), transaction.getCurrency(), transaction.getAccountNumber());
+        }
+    }
+
+    // count подходящих транзакций за окно: кольцо хранит отметки последних count из них
+    private abstract static class WindowRule extends TransactionRule {
+
+        final int slot;
+        final int count;
+        final long windowMillis;
+        final String window;
+
+        WindowRule(TransactionProperties.AlertRule definition, int slot, TransactionMetricsService metricsService) {
+            super(definition, metricsService);
+            this.slot = slot;
+            this.count = requireCount(definition);
+            Duration duration = requireWindow(definition);
+            this.windowMillis = duration.toMillis();
+            this.window = formatWindow(duration);
+        }
+
+        abstract boolean accepts(Transaction transaction, boolean newCounterparty);
+
+        abstract String describe(Transaction transaction);
+
+        @Override
+        int ringSize() {
+            return count;
+        }
+
+        @Override
+        String match(Transaction transaction, AccountState state, long now, boolean newCounterparty) {
+            if (!accepts(transaction, newCounterparty)) {
+                return null;
+            }
+            long oldest = state.record(slot, now);
+            if (oldest == Long.MIN_VALUE || now - oldest >= windowMillis || !state.fire(slot, now, windowMillis)) {
+                return null;
+            }
+            return describe(transaction);
+        }
+    }
+
+    private static final class VelocityRule extends WindowRule {
+
+        VelocityRule(TransactionProperties.AlertRule definition, int slot, TransactionMetricsService metricsService) {
+            super(definition, slot, metricsService);
+        }
+
+        @Override
+        boolean accepts(Transaction transaction, boolean newCounterparty) {
+            return true;
+        }
+
+        @Override
+        String describe(Transaction transaction) {
+            return String.format("%d transactions within %s for account %s", count, window, transaction.getAccountNumber());
+        }
+    }
+
+    private static final class StructuringRule extends WindowRule {
+
+        private final BigDecimal minAmount;
+        private final BigDecimal maxAmount;
+
+        StructuringRule(TransactionProperties.AlertRule definition, int slot, TransactionMetricsService metricsService) {
+            super(definition, slot, metricsService);
+            this.minAmount = requireAmount(definition, definition.getMinAmount(), "min-amount");
+            this.maxAmount = requireAmount(definition, definition.getMaxAmount(), "max-amount");
+            if (minAmount.compareTo(maxAmount) >= 0) {
+                throw new IllegalArgumentException("Alert rule " + definition.getName()
+                        + ": min-amount must be below max-amount");
+            }
+        }
+
+        @Override
+        boolean accepts(Transaction transaction, boolean newCounterparty) {
+            BigDecimal amount = transaction.getAmount();
+            return amount != null && amount.compareTo(minAmount) >= 0 && amount.compareTo(maxAmount) < 0;
+        }
+
+        @Override
+        String describe(Transaction transaction) {
+            return String.format("%d transactions between %s and %s %s within %s for account %s",
+                    count, minAmount, maxAmount, transaction.getCurrency(), window, transaction.getAccountNumber());
+        }
+    }
+
+    private static final class NewCounterpartyBurstRule extends WindowRule {
+
+        NewCounterpartyBurstRule(TransactionProperties.AlertRule definition, int slot,
+                                 TransactionMetricsService metricsService) {
+            super(definition, slot, metricsService);
+        }
+
+        @Override
+        boolean tracksCounterparties() {
+            return true;
+        }
+
+        @Override
+        boolean accepts(Transaction transaction, boolean newCounterparty) {
+            return newCounterparty;
+        }
+
+        @Override
+        String describe(Transaction transaction) {
+            return String.format("%d new counterparties within %s for account %s",
+                    count, window, transaction.getAccountNumber());
+        }
+    }
+
+    // Счетчик неудач ведет FailedTransactionWindow; в состоянии счета только отметка последнего срабатывания
+    private static final class FailedAttemptsRule extends TransactionRule {
+
+        private final int slot;
+        private final int threshold;
+        private final long windowMillis;
+        private final String window;
+        private final FailedTransactionWindow failedTransactionWindow;
+
+        FailedAttemptsRule(TransactionProperties.AlertRule definition, int slot,
+                           FailedTransactionWindow failedTransactionWindow, TransactionMetricsService metricsService) {
+            super(definition, metricsService);
+            this.slot = slot;
+            this.threshold = requireCount(definition);
+            this.windowMillis = failedTransactionWindow.getWindow().toMillis();
+            this.window = formatWindow(failedTransactionWindow.getWindow());
+            this.failedTransactionWindow = failedTransactionWindow;
+        }
+
+        @Override
+        int ringSize() {
+            return 0;
+        }
+
+        @Override
+        String match(Transaction transaction, AccountState state, long now, boolean newCounterparty) {
+            int failedCount = failedTransactionWindow.count(transaction.getAccountNumber());
+            if (failedCount < threshold || !state.fire(slot, now, windowMillis)) {
+                return null;
+            }
+            return String.format("%d failed transactions within %s for account %s",
+                    failedCount, window, transaction.getAccountNumber());
+        }
+    }
+}
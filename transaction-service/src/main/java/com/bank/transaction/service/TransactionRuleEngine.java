@@ -0,0 +1,275 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionAlert;
+import com.bank.transaction.repository.TransactionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.endpoint.event.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Движок правил алертов по транзакциям. Правила из transaction.alert-rules.definitions компилируются
+ * в TransactionRule и вычисляются за один проход по транзакции над оконным состоянием ее счета в памяти.
+ * После POST /actuator/refresh правила перекомпилируются; при ошибке в конфигурации остаются прежние.
+ * Новый набор правил начинает окна с нуля, известные контрагенты счетов сохраняются.
+ * Внутри транзакции БД правила вычисляются над копией состояния счета, а новые контрагенты откладываются;
+ * общее состояние получает изменения только после коммита, поэтому откат не засчитывает транзакции в окна.
+ */
+@Slf4j
+@Component
+public class TransactionRuleEngine {
+
+    private static final int COUNTERPARTY_QUERY_CHUNK_SIZE = 1000;
+    private static final Duration MIN_STATE_RETENTION = Duration.ofMinutes(1);
+
+    private final TransactionProperties properties;
+    private final FailedTransactionWindow failedTransactionWindow;
+    private final TransactionRepository transactionRepository;
+    private final TransactionMetricsService metricsService;
+    // Контрагенты, с которыми счет уже работал; загружаются из БД при первом обращении к счету
+    private final Cache<String, Set<String>> counterparties;
+
+    private volatile RuleSet ruleSet;
+
+    public TransactionRuleEngine(TransactionProperties properties,
+                                 FailedTransactionWindow failedTransactionWindow,
+                                 TransactionRepository transactionRepository,
+                                 TransactionMetricsService metricsService) {
+        this.properties = properties;
+        this.failedTransactionWindow = failedTransactionWindow;
+        this.transactionRepository = transactionRepository;
+        this.metricsService = metricsService;
+        this.counterparties = Caffeine.newBuilder()
+                .maximumSize(properties.getAlertRules().getMaxTrackedAccounts())
+                .expireAfterAccess(Duration.ofDays(1))
+                .build();
+        // Ошибка в правилах при старте не дает сервису подняться
+        this.ruleSet = compile(properties.getAlertRules());
+        log.info("Compiled {} transaction alert rules: {}", ruleSet.rules.length, ruleSet.names());
+    }
+
+    // Config Server: свойства уже перепривязаны к TransactionProperties к моменту события
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh() {
+        reload();
+    }
+
+    synchronized boolean reload() {
+        try {
+            RuleSet compiled = compile(properties.getAlertRules());
+            ruleSet = compiled;
+            log.info("Reloaded {} transaction alert rules: {}", compiled.rules.length, compiled.names());
+            return true;
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid transaction alert rules, keeping the previous {} rules: {}",
+                    ruleSet.rules.length, e.getMessage());
+            return false;
+        }
+    }
+
+    // Вычисляет все правила для транзакции и обновляет окна ее счета; возвращает несохраненные алерты
+    public List<TransactionAlert> evaluate(Transaction transaction) {
+        RuleSet rules = this.ruleSet;
+        if (rules.rules.length == 0) {
+            return List.of();
+        }
+        long now = transaction.getTransactionDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        StagedChanges staged = stagedChanges(rules);
+        boolean newCounterparty = rules.tracksCounterparties && isNewCounterparty(transaction, staged);
+        TransactionRule.AccountState state = rules.state(transaction.getAccountNumber());
+
+        if (staged != null) {
+            return match(rules, transaction, staged.state(transaction.getAccountNumber(), state), now, newCounterparty);
+        }
+        synchronized (state) {
+            return match(rules, transaction, state, now, newCounterparty);
+        }
+    }
+
+    private static List<TransactionAlert> match(RuleSet rules, Transaction transaction, TransactionRule.AccountState state,
+                                                long now, boolean newCounterparty) {
+        List<TransactionAlert> alerts = null;
+        for (TransactionRule rule : rules.rules) {
+            long start = System.nanoTime();
+            String match = rule.match(transaction, state, now, newCounterparty);
+            rule.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (match != null) {
+                rule.hits.increment();
+                if (alerts == null) {
+                    alerts = new ArrayList<>(2);
+                }
+                alerts.add(rule.toAlert(transaction, match));
+            }
+        }
+        return alerts != null ? alerts : List.of();
+    }
+
+    // Изменения текущей транзакции БД для набора правил; без транзакции состояние меняется сразу
+    private StagedChanges stagedChanges(RuleSet rules) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        StagedChanges staged = (StagedChanges) TransactionSynchronizationManager.getResource(rules);
+        if (staged == null) {
+            staged = new StagedChanges(rules);
+            TransactionSynchronizationManager.bindResource(rules, staged);
+            TransactionSynchronizationManager.registerSynchronization(staged);
+        }
+        return staged;
+    }
+
+    // Пакетная загрузка: контрагенты всех счетов пакета одним запросом на группу счетов до вставки строк
+    public void preloadCounterparties(Collection<String> accountNumbers) {
+        if (!ruleSet.tracksCounterparties) {
+            return;
+        }
+        List<String> missing = accountNumbers.stream()
+                .filter(account -> counterparties.getIfPresent(account) == null)
+                .distinct()
+                .toList();
+        for (int from = 0; from < missing.size(); from += COUNTERPARTY_QUERY_CHUNK_SIZE) {
+            List<String> chunk = missing.subList(from, Math.min(from + COUNTERPARTY_QUERY_CHUNK_SIZE, missing.size()));
+            Map<String, Set<String>> loaded = transactionRepository.findCounterpartiesByAccountNumbers(chunk).stream()
+                    .collect(Collectors.groupingBy(row -> (String) row[0],
+                            Collectors.mapping(row -> (String) row[1], Collectors.toCollection(HashSet::new))));
+            for (String account : chunk) {
+                Set<String> known = ConcurrentHashMap.newKeySet();
+                known.addAll(loaded.getOrDefault(account, Set.of()));
+                counterparties.put(account, known);
+            }
+        }
+    }
+
+    private boolean isNewCounterparty(Transaction transaction, StagedChanges staged) {
+        String counterparty = transaction.getCounterpartyAccountNumber();
+        if (counterparty == null) {
+            return false;
+        }
+        Set<String> known = counterparties.get(transaction.getAccountNumber(), account -> {
+            Set<String> loaded = ConcurrentHashMap.newKeySet();
+            loaded.addAll(transactionRepository.findCounterpartiesByAccountNumber(account, transaction.getTransactionId()));
+            return loaded;
+        });
+        if (staged == null) {
+            return known.add(counterparty);
+        }
+        return !known.contains(counterparty) && staged.counterparties
+                .computeIfAbsent(transaction.getAccountNumber(), account -> new HashSet<>())
+                .add(counterparty);
+    }
+
+    private RuleSet compile(TransactionProperties.AlertRules config) {
+        List<TransactionRule> compiled = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (TransactionProperties.AlertRule definition : config.getDefinitions()) {
+            if (!definition.isEnabled()) {
+                continue;
+            }
+            TransactionRule rule = TransactionRule.compile(definition, compiled.size(),
+                    failedTransactionWindow, metricsService);
+            if (!names.add(rule.name)) {
+                throw new IllegalArgumentException("Duplicate alert rule name: " + rule.name);
+            }
+            compiled.add(rule);
+        }
+        return new RuleSet(compiled, config.getMaxTrackedAccounts(), stateRetention(config));
+    }
+
+    // Состояние счета нужно, пока не истекло самое длинное окно
+    private Duration stateRetention(TransactionProperties.AlertRules config) {
+        Duration retention = failedTransactionWindow.getWindow();
+        for (TransactionProperties.AlertRule definition : config.getDefinitions()) {
+            if (definition.getWindow() != null && definition.getWindow().compareTo(retention) > 0) {
+                retention = definition.getWindow();
+            }
+        }
+        return retention.compareTo(MIN_STATE_RETENTION) > 0 ? retention : MIN_STATE_RETENTION;
+    }
+
+    private static final class RuleSet {
+
+        final TransactionRule[] rules;
+        final int[] ringSizes;
+        final boolean tracksCounterparties;
+        final Cache<String, TransactionRule.AccountState> states;
+
+        RuleSet(List<TransactionRule> rules, int maxTrackedAccounts, Duration stateRetention) {
+            this.rules = rules.toArray(TransactionRule[]::new);
+            this.ringSizes = rules.stream().mapToInt(TransactionRule::ringSize).toArray();
+            this.tracksCounterparties = rules.stream().anyMatch(TransactionRule::tracksCounterparties);
+            this.states = Caffeine.newBuilder()
+                    .maximumSize(maxTrackedAccounts)
+                    .expireAfterAccess(stateRetention)
+                    .build();
+        }
+
+        TransactionRule.AccountState state(String accountNumber) {
+            return states.get(accountNumber, account -> new TransactionRule.AccountState(ringSizes));
+        }
+
+        List<String> names() {
+            return Arrays.stream(rules).map(rule -> rule.name).toList();
+        }
+    }
+
+    // Копии состояний счетов и новые контрагенты одной транзакции БД; переносятся в общее состояние после коммита
+    private final class StagedChanges implements TransactionSynchronization {
+
+        private final RuleSet rules;
+        private final Map<String, TransactionRule.AccountState> states = new HashMap<>();
+        private final Map<String, Set<String>> counterparties = new HashMap<>();
+
+        StagedChanges(RuleSet rules) {
+            this.rules = rules;
+        }
+
+        TransactionRule.AccountState state(String accountNumber, TransactionRule.AccountState shared) {
+            return states.computeIfAbsent(accountNumber, account -> {
+                synchronized (shared) {
+                    return shared.copy();
+                }
+            });
+        }
+
+        @Override
+        public void afterCommit() {
+            states.forEach((account, copy) -> {
+                TransactionRule.AccountState shared = rules.state(account);
+                synchronized (shared) {
+                    shared.apply(copy.changes());
+                }
+            });
+            // Вытесненный из кэша счет перечитает контрагентов из БД вместе с закоммиченными строками
+            counterparties.forEach((account, added) -> TransactionRuleEngine.this.counterparties.asMap()
+                    .computeIfPresent(account, (key, known) -> {
+                        known.addAll(added);
+                        return known;
+                    }));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(rules);
+        }
+    }
+}
@@ -1,24 +1,30 @@
 package com.bank.transaction.service;
 
+import com.bank.transaction.dto.AccountBalanceResponse;
+import com.bank.transaction.dto.TransactionPageResponse;
 import com.bank.transaction.dto.TransactionRequest;
 import com.bank.transaction.dto.TransactionResponse;
 import com.bank.transaction.dto.TransactionStatusUpdate;
+import com.bank.transaction.event.TransactionAlertEvent;
+import com.bank.transaction.event.TransactionEvent;
+import com.bank.transaction.event.TransactionFailureStatusChangedEvent;
+import com.bank.transaction.event.TransactionStatusUpdateEvent;
 import com.bank.transaction.model.Transaction;
 import com.bank.transaction.model.TransactionAlert;
 import com.bank.transaction.repository.TransactionAlertRepository;
 import com.bank.transaction.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.slf4j.MDC;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -26,39 +32,48 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class TransactionService {
 
+    static final String TRANSACTIONS_TOPIC = "transactions";
+    static final String STATUS_UPDATES_TOPIC = "transaction-status-updates";
+    static final String ALERTS_TOPIC = "transaction-alerts";
+    static final String HIGH_VALUE_TOPIC = "high-value-transactions";
+    static final int MAX_PAGE_SIZE = 500;
+
     private final TransactionRepository transactionRepository;
     private final TransactionAlertRepository alertRepository;
     private final TransactionMetricsService metricsService;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-
+    private final TransactionOutbox outbox;
+    private final TransactionRuleEngine ruleEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AccountLedger ledger;
+
+    // Транзакция проводится в полосе ее счета (AccountLedger): остатки до и после назначаются по порядку проводок
+    // счета, а запись идет в транзакции БД полосы вместе с остатком в account_balances
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TransactionResponse createTransaction(TransactionRequest request) {
         log.info("Creating transaction for account: {}, type: {}, amount: {}",
                 request.getAccountNumber(), request.getType(), request.getAmount());
 
-        String correlationId = MDC.get("correlationId");
+        return ledger.post(request.getAccountNumber(),
+                AccountLedger.signedAmount(request.getType(), request.getAmount()),
+                (balanceBefore, balanceAfter) -> writeTransaction(request, balanceBefore, balanceAfter));
+    }
 
+    private TransactionResponse writeTransaction(TransactionRequest request,
+                                                 BigDecimal balanceBefore, BigDecimal balanceAfter) {
         // Создание объекта транзакции из запроса
-        Transaction transaction = Transaction.builder()
-                .type(request.getType())
-                .amount(request.getAmount())
-                .currency(request.getCurrency())
-                .accountNumber(request.getAccountNumber())
-                .counterpartyAccountNumber(request.getCounterpartyAccountNumber())
-                .description(request.getDescription())
-                .branchCode(request.getBranchCode())
-                .channel(request.getChannel())
-                .referenceNumber(request.getReferenceNumber())
-                .category(request.getCategory())
-                .build();
+        Transaction transaction = toTransaction(request);
+        transaction.setBalanceBefore(balanceBefore);
+        transaction.setBalanceAfter(balanceAfter);
 
-        // Сохранение транзакции в базе данных (транзакция БД)
-        Transaction savedTransaction = transactionRepository.save(transaction);
+        // Сохранение транзакции в базе данных (транзакция БД). Flush сразу: нарушение уникального индекса
+        // по referenceNumber должно всплыть здесь, а не при коммите, чтобы TransactionIdempotencyService вернул оригинал
+        Transaction savedTransaction = transactionRepository.saveAndFlush(transaction);
 
-        try {
-            // Публикация в Kafka для других сервисов (асинхронно, неблокирующе)
-            publishTransactionToKafka(savedTransaction);
+        // Сообщение для других сервисов фиксируется вместе с транзакцией; в Kafka его отправит ретранслятор outbox
+        outbox.append(TRANSACTIONS_TOPIC, savedTransaction.getTransactionId(), TransactionEvent.from(savedTransaction));
 
-            // Проверка на алерты (асинхронно)
+        try {
+            // Проверка на алерты
             checkForTransactionAlerts(savedTransaction);
 
             // Запись метрик
@@ -69,8 +84,7 @@ public class TransactionService {
 
             return mapToResponse(savedTransaction);
         } catch (Exception e) {
-            // Если публикация в Kafka не удалась, транзакция уже сохранена
-            // Это приемлемо, так как у нас есть обработка DLQ
+            // Ошибка проверки алертов или метрик не отменяет сохраненную транзакцию
             log.error("Error in post-transaction processing for transaction: {}", 
                 savedTransaction.getTransactionId(), e);
             // Все равно возвращаем успех, так как транзакция сохранена
@@ -78,12 +92,20 @@ public class TransactionService {
         }
     }
 
+    // Текущий остаток из памяти книги остатков; счет без транзакций - нулевой остаток
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AccountBalanceResponse getAccountBalance(String accountNumber) {
+        log.debug("Fetching balance for account: {}", accountNumber);
+        return AccountBalanceResponse.builder()
+                .accountNumber(accountNumber)
+                .balance(ledger.getBalance(accountNumber))
+                .build();
+    }
+
     @Transactional(readOnly = true)
     public List<TransactionResponse> getAllTransactions() {
         log.debug("Fetching all transactions");
-        return transactionRepository.findAll().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return transactionRepository.findAllResponses();
     }
 
     @Transactional(readOnly = true)
@@ -100,260 +122,174 @@ public class TransactionService {
                 .map(this::mapToResponse);
     }
 
+    // История счета страницами по (transactionDate DESC, id DESC). Курсор - ключ последней строки страницы:
+    // следующая начинается сразу за ним по индексу, поэтому глубокие страницы стоят столько же, сколько первая.
+    // from и to включительные; курсор продолжает запрос с теми же фильтрами
     @Transactional(readOnly = true)
-    public List<TransactionResponse> getTransactionsByAccount(String accountNumber) {
-        log.debug("Fetching transactions for account: {}", accountNumber);
-        return transactionRepository.findByAccountNumber(accountNumber).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    public TransactionPageResponse getTransactionsByAccount(String accountNumber, String cursor, int size,
+                                                            LocalDateTime from, LocalDateTime to,
+                                                            Transaction.TransactionType type) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        log.debug("Fetching transactions for account: {}, size: {}, type: {}, from: {}, to: {}",
+                accountNumber, size, type, from, to);
+
+        TransactionCursor position = cursor != null ? TransactionCursor.decode(cursor) : TransactionCursor.first(to);
+        LocalDateTime since = from != null ? from : TransactionCursor.MIN_DATE;
+        // Лишняя строка показывает, есть ли следующая страница
+        List<TransactionResponse> rows = type == null
+                ? transactionRepository.findAccountHistory(accountNumber,
+                        position.transactionDate(), position.id(), since, size + 1)
+                : transactionRepository.findAccountHistoryByType(accountNumber, type,
+                        position.transactionDate(), position.id(), since, size + 1);
+
+        if (rows.size() <= size) {
+            return TransactionPageResponse.builder().items(rows).build();
+        }
+        List<TransactionResponse> items = rows.subList(0, size);
+        TransactionResponse last = items.get(size - 1);
+        return TransactionPageResponse.builder()
+                .items(items)
+                .nextCursor(new TransactionCursor(last.getTransactionDate(), last.getId()).encode())
+                .build();
     }
 
     @Transactional(readOnly = true)
     public List<TransactionResponse> getRecentTransactionsByAccount(String accountNumber, int limit) {
         log.debug("Fetching recent {} transactions for account: {}", limit, accountNumber);
-        return transactionRepository.findRecentTransactionsByAccount(accountNumber, limit).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return transactionRepository.findRecentResponsesByAccount(accountNumber, limit);
     }
 
     @Transactional(readOnly = true)
     public List<TransactionResponse> getTransactionsByStatus(Transaction.TransactionStatus status) {
         log.debug("Fetching transactions with status: {}", status);
-        return transactionRepository.findByStatus(status).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return transactionRepository.findResponsesByStatus(status);
     }
 
     @Transactional(readOnly = true)
     public List<TransactionResponse> getHighValueTransactions(BigDecimal minAmount) {
         log.debug("Fetching high value transactions with min amount: {}", minAmount);
-        return transactionRepository.findByAmountGreaterThanEqual(minAmount).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return transactionRepository.findResponsesByAmountGreaterThanEqual(minAmount);
     }
 
+    // Смена статуса выполняется в полосе счета транзакции (AccountLedger): переход в FAILED/CANCELLED/REVERSED
+    // и обратно сторнирует или возвращает сумму транзакции в остатке в одной транзакции БД со статусом
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TransactionResponse updateTransactionStatus(Long id, TransactionStatusUpdate statusUpdate) {
         log.info("Updating transaction status for id: {} to {}", id, statusUpdate.getStatus());
 
-        return transactionRepository.findById(id)
-                .map(transaction -> {
-                    Transaction.TransactionStatus oldStatus = transaction.getStatus();
-                    transaction.setStatus(statusUpdate.getStatus());
-
-                    if (statusUpdate.getFailureReason() != null) {
-                        transaction.setFailureReason(statusUpdate.getFailureReason());
-                    }
-
-                    Transaction updatedTransaction = transactionRepository.save(transaction);
-
-                    // Запись метрик изменения статуса
-                    metricsService.recordTransactionStatusChange(updatedTransaction, oldStatus);
-
-                    // Публикация обновления статуса в Kafka
-                    publishTransactionStatusUpdate(updatedTransaction, oldStatus);
-
-                    log.info("Transaction status updated: {} from {} to {}",
-                            updatedTransaction.getTransactionId(), oldStatus, updatedTransaction.getStatus());
-
-                    return mapToResponse(updatedTransaction);
-                })
+        String accountNumber = transactionRepository.findAccountNumberById(id)
                 .orElseThrow(() -> {
                     log.warn("Transaction not found for status update: {}", id);
                     return new RuntimeException("Transaction not found with id: " + id);
                 });
+        return ledger.adjust(accountNumber, new StatusChange(() -> transactionRepository.findById(id), statusUpdate));
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TransactionResponse updateTransactionStatusByTransactionId(String transactionId, TransactionStatusUpdate statusUpdate) {
         log.info("Updating transaction status for transactionId: {} to {}", transactionId, statusUpdate.getStatus());
 
-        return transactionRepository.findByTransactionId(transactionId)
-                .map(transaction -> {
-                    Transaction.TransactionStatus oldStatus = transaction.getStatus();
-                    transaction.setStatus(statusUpdate.getStatus());
-
-                    if (statusUpdate.getFailureReason() != null) {
-                        transaction.setFailureReason(statusUpdate.getFailureReason());
-                    }
-
-                    Transaction updatedTransaction = transactionRepository.save(transaction);
-
-                    // Запись метрик изменения статуса
-                    metricsService.recordTransactionStatusChange(updatedTransaction, oldStatus);
-
-                    log.info("Transaction status updated: {} from {} to {}",
-                            updatedTransaction.getTransactionId(), oldStatus, updatedTransaction.getStatus());
-
-                    return mapToResponse(updatedTransaction);
-                })
+        String accountNumber = transactionRepository.findAccountNumberByTransactionId(transactionId)
                 .orElseThrow(() -> {
                     log.warn("Transaction not found for status update: {}", transactionId);
                     return new RuntimeException("Transaction not found with transactionId: " + transactionId);
                 });
+        return ledger.adjust(accountNumber, new StatusChange(
+                () -> transactionRepository.findByTransactionId(transactionId), statusUpdate));
     }
 
-    private void publishTransactionToKafka(Transaction transaction) {
-        try {
-            kafkaTemplate.send("transactions", transaction.getTransactionId(), transaction)
-                .whenComplete((result, exception) -> {
-                    if (exception != null) {
-                        log.error("Failed to publish transaction to Kafka: {}", 
-                            transaction.getTransactionId(), exception);
-                        // Сохранение неудачного сообщения для повторной попытки или обработки DLQ
-                        handleKafkaPublishFailure("transactions", transaction.getTransactionId(), 
-                            transaction, exception);
-                    } else {
-                        log.debug("Transaction published to Kafka: {} to partition: {}, offset: {}", 
-                            transaction.getTransactionId(), 
-                            result != null ? result.getRecordMetadata().partition() : "unknown",
-                            result != null ? result.getRecordMetadata().offset() : "unknown");
-                    }
-                });
-        } catch (Exception e) {
-            log.error("Failed to publish transaction to Kafka: {}", transaction.getTransactionId(), e);
-            handleKafkaPublishFailure("transactions", transaction.getTransactionId(), transaction, e);
+    // Транзакция перечитывается в транзакции БД полосы, поэтому сторно считается от текущего статуса;
+    // параллельную смену статуса на другом экземпляре сервиса отклонит проверка @Version при сохранении
+    private final class StatusChange implements AccountLedger.Adjustment<TransactionResponse> {
+
+        private final Supplier<Optional<Transaction>> lookup;
+        private final TransactionStatusUpdate statusUpdate;
+        private Transaction transaction;
+
+        StatusChange(Supplier<Optional<Transaction>> lookup, TransactionStatusUpdate statusUpdate) {
+            this.lookup = lookup;
+            this.statusUpdate = statusUpdate;
         }
-    }
 
-    private void publishTransactionStatusUpdate(Transaction transaction, Transaction.TransactionStatus oldStatus) {
-        try {
-            var statusUpdate = new TransactionStatusUpdateEvent(transaction, oldStatus);
-            kafkaTemplate.send("transaction-status-updates", transaction.getTransactionId(), statusUpdate)
-                .whenComplete((result, exception) -> {
-                    if (exception != null) {
-                        log.error("Failed to publish transaction status update to Kafka: {}", 
-                            transaction.getTransactionId(), exception);
-                        handleKafkaPublishFailure("transaction-status-updates", 
-                            transaction.getTransactionId(), statusUpdate, exception);
-                    } else {
-                        log.debug("Transaction status update published to Kafka: {}", 
-                            transaction.getTransactionId());
-                    }
-                });
-        } catch (Exception e) {
-            log.error("Failed to publish transaction status update to Kafka: {}", 
-                transaction.getTransactionId(), e);
-            var statusUpdate = new TransactionStatusUpdateEvent(transaction, oldStatus);
-            handleKafkaPublishFailure("transaction-status-updates", 
-                transaction.getTransactionId(), statusUpdate, e);
+        @Override
+        public BigDecimal amount() {
+            transaction = lookup.get()
+                    .orElseThrow(() -> new IllegalStateException("Transaction disappeared before status update"));
+            return AccountLedger.postedAmount(transaction, statusUpdate.getStatus())
+                    .subtract(AccountLedger.postedAmount(transaction, transaction.getStatus()));
         }
-    }
 
-    // Обработка ошибки публикации в Kafka
-    private void handleKafkaPublishFailure(String topic, String key, Object message, Throwable exception) {
-        // Попытка отправить в DLQ топик
-        try {
-            String dlqTopic = topic + "-dlq";
-            kafkaTemplate.send(dlqTopic, key, message);
-            log.warn("Message sent to DLQ topic: {} for key: {}", dlqTopic, key);
-        } catch (Exception dlqException) {
-            log.error("Failed to send message to DLQ topic: {} for key: {}", 
-                topic + "-dlq", key, dlqException);
-            // В продакшн системе можно сохранить это в базу данных
-            // или использовать паттерн outbox для гарантированной доставки
+        @Override
+        public TransactionResponse write(BigDecimal balanceBefore, BigDecimal balanceAfter) {
+            return applyStatusUpdate(transaction, statusUpdate);
         }
     }
 
-    // Проверка транзакции на наличие алертов
-    private void checkForTransactionAlerts(Transaction transaction) {
-        // Проверка на транзакции с высокой суммой
-        if (transaction.isHighValueTransaction()) {
-            createHighValueTransactionAlert(transaction);
-        }
+    // Общая часть смены статуса по id и по transactionId: оба пути публикуют одно и то же событие
+    private TransactionResponse applyStatusUpdate(Transaction transaction, TransactionStatusUpdate statusUpdate) {
+        Transaction.TransactionStatus oldStatus = transaction.getStatus();
+        transaction.setStatus(statusUpdate.getStatus());
 
-        // Проверка на подозрительные транзакции
-        if (transaction.isSuspiciousTransaction()) {
-            createSuspiciousTransactionAlert(transaction);
+        if (statusUpdate.getFailureReason() != null) {
+            transaction.setFailureReason(statusUpdate.getFailureReason());
         }
 
-        // Проверка на множественные неудачные транзакции
-        checkForMultipleFailedTransactions(transaction.getAccountNumber());
-    }
+        Transaction updatedTransaction = transactionRepository.save(transaction);
 
-    private void createHighValueTransactionAlert(Transaction transaction) {
-        TransactionAlert alert = TransactionAlert.builder()
-                .alertType(TransactionAlert.AlertType.HIGH_VALUE_TRANSACTION)
-                .status(TransactionAlert.AlertStatus.ACTIVE)
-                .transactionId(transaction.getTransactionId())
-                .accountNumber(transaction.getAccountNumber())
-                .amount(transaction.getAmount())
-                .currency(transaction.getCurrency())
-                .message(String.format("High value transaction detected: %s %s for account %s",
-                        transaction.getAmount(), transaction.getCurrency(), transaction.getAccountNumber()))
-                .severity(6)
-                .details("Transaction exceeds high value threshold")
-                .build();
+        // Запись метрик изменения статуса
+        metricsService.recordTransactionStatusChange(updatedTransaction, oldStatus);
+        publishFailureStatusChange(updatedTransaction, oldStatus);
 
-        alertRepository.save(alert);
-        metricsService.recordTransactionAlert(alert);
+        // Обновление статуса уходит в Kafka через outbox после коммита
+        outbox.append(STATUS_UPDATES_TOPIC, updatedTransaction.getTransactionId(),
+                TransactionStatusUpdateEvent.from(updatedTransaction, oldStatus));
 
-        // Публикация алерта в Kafka
-        try {
-            kafkaTemplate.send("transaction-alerts", transaction.getTransactionId(), alert);
-        } catch (Exception e) {
-            log.error("Failed to publish transaction alert to Kafka", e);
-        }
+        log.info("Transaction status updated: {} from {} to {}",
+                updatedTransaction.getTransactionId(), oldStatus, updatedTransaction.getStatus());
 
-        log.warn("High value transaction alert created: {} for account: {}",
-                transaction.getTransactionId(), transaction.getAccountNumber());
+        return mapToResponse(updatedTransaction);
     }
 
-    private void createSuspiciousTransactionAlert(Transaction transaction) {
-        TransactionAlert alert = TransactionAlert.builder()
-                .alertType(TransactionAlert.AlertType.SUSPICIOUS_ACTIVITY)
-                .status(TransactionAlert.AlertStatus.ACTIVE)
-                .transactionId(transaction.getTransactionId())
-                .accountNumber(transaction.getAccountNumber())
-                .amount(transaction.getAmount())
-                .currency(transaction.getCurrency())
-                .message(String.format("Suspicious transaction detected: %s %s for account %s",
-                        transaction.getAmount(), transaction.getCurrency(), transaction.getAccountNumber()))
-                .severity(9)
-                .details("Transaction exceeds suspicious activity threshold")
-                .build();
+    // Проверка транзакции правилами алертов (суммы, частота, дробление, новые контрагенты, неудачные попытки)
+    private void checkForTransactionAlerts(Transaction transaction) {
+        for (TransactionAlert alert : ruleEngine.evaluate(transaction)) {
+            alertRepository.save(alert);
+            metricsService.recordTransactionAlert(alert);
 
-        alertRepository.save(alert);
-        metricsService.recordTransactionAlert(alert);
+            outbox.append(ALERTS_TOPIC, transaction.getTransactionId(), TransactionAlertEvent.from(alert));
+            if (alert.getAlertType() == TransactionAlert.AlertType.SUSPICIOUS_ACTIVITY) {
+                outbox.append(HIGH_VALUE_TOPIC, transaction.getTransactionId(), TransactionEvent.from(transaction));
+            }
 
-        // Публикация подозрительного алерта в Kafka
-        try {
-            kafkaTemplate.send("transaction-alerts", transaction.getTransactionId(), alert);
-            kafkaTemplate.send("high-value-transactions", transaction.getTransactionId(), transaction);
-        } catch (Exception e) {
-            log.error("Failed to publish suspicious transaction alert to Kafka", e);
+            log.warn("{} alert created (severity {}): {} for account: {}", alert.getAlertType(), alert.getSeverity(),
+                    transaction.getTransactionId(), transaction.getAccountNumber());
         }
-
-        log.error("SUSPICIOUS transaction alert created: {} for account: {}",
-                transaction.getTransactionId(), transaction.getAccountNumber());
     }
 
-    private void checkForMultipleFailedTransactions(String accountNumber) {
-        LocalDateTime since = LocalDateTime.now().minusHours(1);
-        Long failedCount = transactionRepository.countFailedTransactionsSince(accountNumber, since);
-
-        if (failedCount >= 3) {
-            createMultipleFailedTransactionsAlert(accountNumber, failedCount);
+    private void publishFailureStatusChange(Transaction transaction, Transaction.TransactionStatus oldStatus) {
+        boolean failed = transaction.getStatus() == Transaction.TransactionStatus.FAILED;
+        if (failed != (oldStatus == Transaction.TransactionStatus.FAILED)) {
+            eventPublisher.publishEvent(new TransactionFailureStatusChangedEvent(
+                    transaction.getAccountNumber(), transaction.getTransactionDate(), failed));
         }
     }
 
-    private void createMultipleFailedTransactionsAlert(String accountNumber, Long failedCount) {
-        TransactionAlert alert = TransactionAlert.builder()
-                .alertType(TransactionAlert.AlertType.MULTIPLE_FAILED_ATTEMPTS)
-                .status(TransactionAlert.AlertStatus.ACTIVE)
-                .transactionId("SYSTEM-" + System.currentTimeMillis())
-                .accountNumber(accountNumber)
-                .amount(BigDecimal.ZERO)
-                .currency("USD")
-                .message(String.format("Multiple failed transactions detected for account %s: %d attempts",
-                        accountNumber, failedCount))
-                .severity(7)
-                .details("Account shows multiple failed transaction attempts in a short period")
+    // Используется также TransactionIngestionService для пакетной загрузки
+    static Transaction toTransaction(TransactionRequest request) {
+        return Transaction.builder()
+                .type(request.getType())
+                .amount(request.getAmount())
+                .currency(request.getCurrency())
+                .accountNumber(request.getAccountNumber())
+                .counterpartyAccountNumber(request.getCounterpartyAccountNumber())
+                .description(request.getDescription())
+                .branchCode(request.getBranchCode())
+                .channel(request.getChannel())
+                .referenceNumber(request.getReferenceNumber())
+                .category(request.getCategory())
                 .build();
-
-        alertRepository.save(alert);
-        metricsService.recordTransactionAlert(alert);
-
-        log.warn("Multiple failed transactions alert created for account: {}, count: {}",
-                accountNumber, failedCount);
     }
 
     private TransactionResponse mapToResponse(Transaction transaction) {
@@ -381,27 +317,4 @@ public class TransactionService {
                 .suspiciousTransaction(transaction.isSuspiciousTransaction())
                 .build();
     }
-
-    // Внутренний класс для событий Kafka
-    @Data
-    @Builder
-    private static class TransactionStatusUpdateEvent {
-        private String transactionId;
-        private Transaction.TransactionStatus oldStatus;
-        private Transaction.TransactionStatus newStatus;
-        private LocalDateTime updateTime;
-        private String accountNumber;
-        private BigDecimal amount;
-        private String currency;
-
-        public TransactionStatusUpdateEvent(Transaction transaction, Transaction.TransactionStatus oldStatus) {
-            this.transactionId = transaction.getTransactionId();
-            this.oldStatus = oldStatus;
-            this.newStatus = transaction.getStatus();
-            this.updateTime = LocalDateTime.now();
-            this.accountNumber = transaction.getAccountNumber();
-            this.amount = transaction.getAmount();
-            this.currency = transaction.getCurrency();
-        }
-    }
-}
\ No newline at end of file
+}
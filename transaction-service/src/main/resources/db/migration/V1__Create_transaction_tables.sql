@@ -0,0 +1,71 @@
+-- Baseline of the schema previously maintained by hibernate ddl-auto; IF NOT EXISTS keeps it safe on such databases
+CREATE TABLE IF NOT EXISTS transactions (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id VARCHAR(36) NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    amount NUMERIC(15, 2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    account_number VARCHAR(20) NOT NULL,
+    counterparty_account_number VARCHAR(20),
+    transaction_date TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    description VARCHAR(500),
+    failure_reason VARCHAR(1000),
+    branch_code VARCHAR(10),
+    channel VARCHAR(50),
+    balance_after NUMERIC(15, 2),
+    balance_before NUMERIC(15, 2),
+    reference_number VARCHAR(50),
+    category VARCHAR(100),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_transactions_transaction_id ON transactions(transaction_id);
+CREATE INDEX IF NOT EXISTS idx_transactions_account_number ON transactions(account_number);
+CREATE INDEX IF NOT EXISTS idx_transactions_transaction_date ON transactions(transaction_date);
+CREATE INDEX IF NOT EXISTS idx_transactions_status ON transactions(status);
+CREATE INDEX IF NOT EXISTS idx_transactions_type ON transactions(type);
+
+CREATE TABLE IF NOT EXISTS transaction_alerts (
+    id BIGSERIAL PRIMARY KEY,
+    alert_type VARCHAR(255) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    transaction_id VARCHAR(36) NOT NULL,
+    account_number VARCHAR(20) NOT NULL,
+    amount NUMERIC(15, 2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    message VARCHAR(255) NOT NULL,
+    severity INTEGER NOT NULL,
+    details VARCHAR(1000),
+    investigation_notes VARCHAR(500),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    reviewed_at TIMESTAMP,
+    resolved_at TIMESTAMP,
+    reviewed_by VARCHAR(255),
+    resolved_by VARCHAR(255),
+    resolution_notes VARCHAR(1000)
+);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_alerts_account_number ON transaction_alerts(account_number);
+CREATE INDEX IF NOT EXISTS idx_transaction_alerts_status ON transaction_alerts(status);
+
+CREATE TABLE IF NOT EXISTS transaction_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    topic VARCHAR(100) NOT NULL,
+    message_key VARCHAR(100),
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP,
+    failed_at TIMESTAMP,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(500)
+);
+
+-- Relay reads pending messages in id order
+CREATE INDEX IF NOT EXISTS idx_transaction_outbox_pending ON transaction_outbox(id) WHERE sent_at IS NULL AND failed_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_transaction_outbox_sent_at ON transaction_outbox(sent_at);
+
+COMMENT ON TABLE transactions IS 'Bank transactions';
+COMMENT ON TABLE transaction_outbox IS 'Kafka messages written with the change they describe, published by the outbox relay';
@@ -0,0 +1,6 @@
+-- Hibernate pooled optimizer reserves 50 ids per nextval, which lets inserts go out in JDBC batches.
+-- INCREMENT BY must match allocationSize of the Transaction id generator
+CREATE SEQUENCE IF NOT EXISTS transactions_seq INCREMENT BY 50;
+
+-- With the pooled optimizer nextval is the top of the reserved block, so start a full block above existing ids
+SELECT setval('transactions_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM transactions), false);
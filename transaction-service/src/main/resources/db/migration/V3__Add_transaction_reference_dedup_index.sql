@@ -0,0 +1,10 @@
+-- Authoritative idempotency check for channel retries: one transaction per (channel, reference_number).
+-- Channel is optional, so the expression folds NULL into '' to keep NULL channels unique as well;
+-- empty references are treated as absent, the same as in TransactionIdempotencyService.
+-- Existing duplicates must be cleaned up before this migration, otherwise the index build fails
+CREATE UNIQUE INDEX IF NOT EXISTS uk_transactions_channel_reference
+    ON transactions (COALESCE(channel, ''), reference_number)
+    WHERE reference_number IS NOT NULL AND reference_number <> '';
+
+-- Warm-up of the in-memory filter reads recent keys by creation time
+CREATE INDEX IF NOT EXISTS idx_transactions_created_at ON transactions(created_at);
@@ -0,0 +1,6 @@
+-- Outbox payloads are Avro single-object encoded events (TransactionEventCodec) instead of JSON text.
+-- Messages still pending at deploy time keep their JSON as UTF-8 bytes; consumers fall back to JSON
+-- for payloads without the Avro single-object marker
+ALTER TABLE transaction_outbox ALTER COLUMN payload TYPE BYTEA USING convert_to(payload, 'UTF8');
+
+COMMENT ON COLUMN transaction_outbox.payload IS 'Avro single-object encoded event (schemas in resources/avro)';
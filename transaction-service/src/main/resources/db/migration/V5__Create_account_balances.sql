@@ -0,0 +1,34 @@
+-- Current balance per account maintained by AccountLedger. version grows by one with every posting;
+-- a posting applies only if the row still has the version it was computed from
+CREATE TABLE account_balances (
+    account_number VARCHAR(20) PRIMARY KEY,
+    balance NUMERIC(15, 2) NOT NULL,
+    version BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+COMMENT ON TABLE account_balances IS 'Running balance per account: signed sum of its transactions (AccountLedger)';
+
+-- Existing history: running balances in posting order (transaction date, then id), so the ledger
+-- continues from the balance the history already implies
+UPDATE transactions t
+SET balance_before = r.balance_after - r.signed_amount,
+    balance_after = r.balance_after
+FROM (
+    SELECT id, signed_amount,
+           SUM(signed_amount) OVER (PARTITION BY account_number ORDER BY transaction_date, id) AS balance_after
+    FROM (
+        SELECT id, account_number, transaction_date,
+               CASE WHEN type IN ('DEPOSIT', 'REFUND') THEN amount ELSE -amount END AS signed_amount
+        FROM transactions
+    ) s
+) r
+WHERE t.id = r.id;
+
+INSERT INTO account_balances (account_number, balance, version, updated_at)
+SELECT account_number,
+       SUM(CASE WHEN type IN ('DEPOSIT', 'REFUND') THEN amount ELSE -amount END),
+       COUNT(*),
+       CURRENT_TIMESTAMP
+FROM transactions
+GROUP BY account_number;
@@ -0,0 +1,10 @@
+-- Keyset pagination of account history: rows of one account in (transaction_date DESC, id DESC) order, so a page
+-- starts at its cursor with a single index range and deep pages cost the same as the first one.
+-- type is included for the type filter, which is then checked in the index before any heap row is read
+CREATE INDEX IF NOT EXISTS idx_transactions_account_history
+    ON transactions (account_number, transaction_date DESC, id DESC) INCLUDE (type);
+
+-- The history index serves every lookup by account_number alone; idx_account_number is the name
+-- hibernate ddl-auto gave the same index on databases created before Flyway
+DROP INDEX IF EXISTS idx_transactions_account_number;
+DROP INDEX IF EXISTS idx_account_number;
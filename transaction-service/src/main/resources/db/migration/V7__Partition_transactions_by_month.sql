@@ -0,0 +1,113 @@
+-- transactions becomes range-partitioned by month on transaction_date: date-range queries read only the
+-- partitions of their range, each partition carries its own small indexes, and old months are detached
+-- or dropped as a whole (TransactionPartitionMaintenance). Existing rows are copied in this transaction,
+-- so on large tables the migration needs a maintenance window.
+-- Unique constraints of a partitioned table must contain the partition key: the primary key becomes
+-- (transaction_date, id), transaction_id (a UUID generated by the service) is indexed without a unique
+-- constraint, and the idempotency key moves to transaction_reference_keys below
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+
+CREATE TABLE transactions (
+    id BIGINT NOT NULL,
+    transaction_id VARCHAR(36) NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    amount NUMERIC(15, 2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    account_number VARCHAR(20) NOT NULL,
+    counterparty_account_number VARCHAR(20),
+    transaction_date TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    description VARCHAR(500),
+    failure_reason VARCHAR(1000),
+    branch_code VARCHAR(10),
+    channel VARCHAR(50),
+    balance_after NUMERIC(15, 2),
+    balance_before NUMERIC(15, 2),
+    reference_number VARCHAR(50),
+    category VARCHAR(100),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+    -- Named explicitly: transactions_pkey still belongs to the table being replaced
+    CONSTRAINT pk_transactions PRIMARY KEY (transaction_date, id)
+) PARTITION BY RANGE (transaction_date);
+
+-- Catches rows outside the pre-created monthly partitions (e.g. backdated transaction dates)
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+-- Every month with existing rows, then the current month and three months ahead;
+-- TransactionPartitionMaintenance keeps creating partitions in advance
+DO $$
+DECLARE
+    month_start DATE;
+    last_month DATE := (date_trunc('month', CURRENT_DATE) + INTERVAL '3 months')::DATE;
+BEGIN
+    month_start := COALESCE(
+            (SELECT date_trunc('month', MIN(transaction_date))::DATE FROM transactions_unpartitioned),
+            date_trunc('month', CURRENT_DATE)::DATE);
+    month_start := LEAST(month_start, date_trunc('month', CURRENT_DATE)::DATE);
+    WHILE month_start <= last_month LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+            'transactions_p' || to_char(month_start, 'YYYY_MM'),
+            month_start,
+            (month_start + INTERVAL '1 month')::DATE);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+END $$;
+
+-- Idempotency arbiter for (channel, reference_number), replacing the unique index on transactions.
+-- The primary key keeps the name uk_transactions_channel_reference that TransactionIdempotencyService
+-- recognizes in constraint violations; transaction_date lets retention remove keys of dropped months
+CREATE TABLE transaction_reference_keys (
+    channel VARCHAR(50) NOT NULL,
+    reference_number VARCHAR(50) NOT NULL,
+    transaction_date TIMESTAMP NOT NULL,
+    CONSTRAINT uk_transactions_channel_reference PRIMARY KEY (channel, reference_number)
+);
+
+CREATE INDEX idx_transaction_reference_keys_date ON transaction_reference_keys(transaction_date);
+
+-- Same key as the former index: NULL channel folds into '', empty references are treated as absent
+CREATE FUNCTION register_transaction_reference() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO transaction_reference_keys (channel, reference_number, transaction_date)
+    VALUES (COALESCE(NEW.channel, ''), NEW.reference_number, NEW.transaction_date);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_transactions_reference_key
+    AFTER INSERT ON transactions
+    FOR EACH ROW
+    WHEN (NEW.reference_number IS NOT NULL AND NEW.reference_number <> '')
+    EXECUTE FUNCTION register_transaction_reference();
+
+INSERT INTO transactions (id, transaction_id, type, amount, currency, account_number, counterparty_account_number,
+                          transaction_date, status, description, failure_reason, branch_code, channel,
+                          balance_after, balance_before, reference_number, category, created_at, updated_at, version)
+SELECT id, transaction_id, type, amount, currency, account_number, counterparty_account_number,
+       transaction_date, status, description, failure_reason, branch_code, channel,
+       balance_after, balance_before, reference_number, category, created_at, updated_at, version
+FROM transactions_unpartitioned;
+
+DROP TABLE transactions_unpartitioned;
+
+-- Indexes are built after the copy and are created on every partition, including future ones.
+-- Date ranges are served by the primary key, which leads with transaction_date, so there is no separate
+-- transaction_date index; created_at is no longer indexed because its only query is bounded by transaction_date
+-- too. JPA loads, updates and version-checks rows by id alone, which the primary key cannot serve: without
+-- idx_transactions_id every status update would scan each partition in full
+CREATE INDEX idx_transactions_id ON transactions(id);
+CREATE INDEX idx_transactions_transaction_id ON transactions(transaction_id);
+CREATE INDEX idx_transactions_account_history
+    ON transactions (account_number, transaction_date DESC, id DESC) INCLUDE (type);
+CREATE INDEX idx_transactions_status ON transactions(status);
+CREATE INDEX idx_transactions_type ON transactions(type);
+-- Lookup of the original transaction on an idempotent replay; uniqueness is enforced by transaction_reference_keys
+CREATE INDEX idx_transactions_channel_reference
+    ON transactions (COALESCE(channel, ''), reference_number)
+    WHERE reference_number IS NOT NULL AND reference_number <> '';
+
+COMMENT ON TABLE transactions IS 'Bank transactions, range-partitioned by month on transaction_date';
+COMMENT ON TABLE transaction_reference_keys IS 'Idempotency keys (channel, reference_number) of transactions';
@@ -0,0 +1,38 @@
+-- Transactions in FAILED, CANCELLED and REVERSED status do not post to the balance (AccountLedger.postedAmount):
+-- from now on a status change across that boundary posts a reversing amount through the account's ledger lane.
+-- V5 backfilled balances from every status, so running balances and account_balances are recomputed with the
+-- same rule. The version of every recomputed row moves on, so a ledger that cached the old balance reloads it
+UPDATE transactions t
+SET balance_before = r.balance_after - r.posted_amount,
+    balance_after = r.balance_after
+FROM (
+    SELECT id, transaction_date, posted_amount,
+           SUM(posted_amount) OVER (PARTITION BY account_number ORDER BY transaction_date, id) AS balance_after
+    FROM (
+        SELECT id, account_number, transaction_date,
+               CASE
+                   WHEN status IN ('FAILED', 'CANCELLED', 'REVERSED') THEN 0
+                   WHEN type IN ('DEPOSIT', 'REFUND') THEN amount
+                   ELSE -amount
+               END AS posted_amount
+        FROM transactions
+    ) s
+) r
+WHERE t.transaction_date = r.transaction_date
+  AND t.id = r.id;
+
+UPDATE account_balances b
+SET balance = r.balance,
+    version = b.version + 1,
+    updated_at = CURRENT_TIMESTAMP
+FROM (
+    SELECT account_number,
+           SUM(CASE
+                   WHEN status IN ('FAILED', 'CANCELLED', 'REVERSED') THEN 0
+                   WHEN type IN ('DEPOSIT', 'REFUND') THEN amount
+                   ELSE -amount
+               END) AS balance
+    FROM transactions
+    GROUP BY account_number
+) r
+WHERE b.account_number = r.account_number;
@@ -1,8 +1,12 @@
 package com.bank.transaction.controller;
 
+import com.bank.transaction.dto.AccountBalanceResponse;
+import com.bank.transaction.dto.TransactionPageResponse;
 import com.bank.transaction.dto.TransactionRequest;
 import com.bank.transaction.dto.TransactionResponse;
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.TransactionIdempotencyService;
+import com.bank.transaction.service.TransactionIngestionService;
 import com.bank.transaction.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -13,6 +17,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,6 +38,12 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private TransactionIngestionService ingestionService;
+
+    @MockBean
+    private TransactionIdempotencyService idempotencyService;
+
     @Test
     void shouldCreateTransaction() throws Exception {
         TransactionRequest request = TransactionRequest.builder()
@@ -53,7 +64,7 @@ class TransactionControllerTest {
                 .status(Transaction.TransactionStatus.PENDING)
                 .build();
 
-        when(transactionService.createTransaction(any(TransactionRequest.class))).thenReturn(response);
+        when(idempotencyService.createTransaction(any(TransactionRequest.class))).thenReturn(response);
 
         mockMvc.perform(post("/api/transactions")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -88,12 +99,32 @@ class TransactionControllerTest {
                 .accountNumber("1234567890")
                 .build();
 
-        when(transactionService.getTransactionsByAccount("1234567890")).thenReturn(List.of(response));
+        when(transactionService.getTransactionsByAccount("1234567890", "next", 20,
+                LocalDateTime.of(2024, 3, 1, 0, 0), null, Transaction.TransactionType.PAYMENT))
+                .thenReturn(TransactionPageResponse.builder().items(List.of(response)).nextCursor("after").build());
+
+        mockMvc.perform(get("/api/transactions/account/1234567890")
+                        .param("cursor", "next")
+                        .param("size", "20")
+                        .param("from", "2024-03-01T00:00:00")
+                        .param("type", "PAYMENT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.items[0].accountNumber").value("1234567890"))
+                .andExpect(jsonPath("$.data.nextCursor").value("after"));
+    }
+
+    @Test
+    void shouldGetAccountBalance() throws Exception {
+        when(transactionService.getAccountBalance("1234567890")).thenReturn(AccountBalanceResponse.builder()
+                .accountNumber("1234567890")
+                .balance(new BigDecimal("2500.00"))
+                .build());
 
-        mockMvc.perform(get("/api/transactions/account/1234567890"))
+        mockMvc.perform(get("/api/transactions/account/1234567890/balance"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.data[0].accountNumber").value("1234567890"));
+                .andExpect(jsonPath("$.data.balance").value(2500.00));
     }
 
     @Test
@@ -0,0 +1,96 @@
+package com.bank.transaction.event;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionAlert;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionEventCodecTest {
+
+    private final TransactionEventCodec codec = new TransactionEventCodec();
+
+    @Test
+    void shouldRoundTripTransactionEventWithSingleObjectHeader() {
+        TransactionEvent event = new TransactionEvent("tx-1", Transaction.TransactionType.TRANSFER,
+                new BigDecimal("15000.50"), "USD", "ACC001", "ACC002", LocalDateTime.of(2024, 3, 10, 14, 0, 5),
+                Transaction.TransactionStatus.PENDING, "NYC001", "ONLINE", "REF-1", "TRANSFER", "Rent");
+
+        byte[] payload = codec.encode(event);
+
+        assertEquals((byte) 0xC3, payload[0]);
+        assertEquals((byte) 0x01, payload[1]);
+        assertEquals(event, codec.decodeTransaction(payload));
+    }
+
+    @Test
+    void shouldNormalizeAmountScaleAndKeepOptionalFieldsEmpty() {
+        TransactionEvent event = new TransactionEvent("tx-2", Transaction.TransactionType.DEPOSIT,
+                new BigDecimal("100.5"), "EUR", "ACC001", null, LocalDateTime.of(2024, 3, 10, 9, 30),
+                Transaction.TransactionStatus.COMPLETED, null, null, null, null, null);
+
+        TransactionEvent decoded = codec.decodeTransaction(codec.encode(event));
+
+        assertEquals(new BigDecimal("100.50"), decoded.amount());
+        assertNull(decoded.counterpartyAccountNumber());
+        assertNull(decoded.description());
+    }
+
+    @Test
+    void shouldRoundTripAlertAndStatusUpdateEvents() {
+        TransactionAlertEvent alert = new TransactionAlertEvent(TransactionAlert.AlertType.SUSPICIOUS_ACTIVITY,
+                "tx-3", "ACC001", new BigDecimal("60000.00"), "USD", 9, "suspicious-amount: 60000.00 USD",
+                "Rule suspicious-amount", LocalDateTime.of(2024, 3, 10, 14, 0));
+        TransactionStatusUpdateEvent statusUpdate = new TransactionStatusUpdateEvent("tx-3",
+                Transaction.TransactionStatus.PENDING, Transaction.TransactionStatus.FAILED, "Insufficient funds",
+                LocalDateTime.of(2024, 3, 10, 14, 1, 2, 345_000_000), "ACC001", new BigDecimal("60000.00"), "USD");
+
+        assertEquals(alert, codec.decodeAlert(codec.encode(alert)));
+        assertEquals(statusUpdate, codec.decodeStatusUpdate(codec.encode(statusUpdate)));
+    }
+
+    @Test
+    void shouldReadRecordWrittenWithRegisteredSchemaVersion() throws Exception {
+        // Запись, закодированная вне сервиса по файлу схемы, как это делает потребитель или другой производитель
+        Schema schema;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("avro/transaction-event-v1.avsc")) {
+            schema = new Schema.Parser().parse(in);
+        }
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("transactionId", "tx-4");
+        record.put("type", new GenericData.EnumSymbol(schema.getField("type").schema(), "PAYMENT"));
+        record.put("amount", ByteBuffer.wrap(new BigDecimal("12.34").unscaledValue().toByteArray()));
+        record.put("currency", "USD");
+        record.put("accountNumber", "ACC001");
+        record.put("transactionDate", 0L);
+        record.put("status", new GenericData.EnumSymbol(schema.getField("status").schema(), "UNKNOWN"));
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        new BinaryMessageEncoder<GenericRecord>(GenericData.get(), schema).encode(record, payload);
+
+        TransactionEvent decoded = codec.decodeTransaction(payload.toByteArray());
+
+        assertEquals(Transaction.TransactionType.PAYMENT, decoded.type());
+        assertEquals(new BigDecimal("12.34"), decoded.amount());
+        assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0), decoded.transactionDate());
+        assertNull(decoded.status());
+    }
+
+    @Test
+    void shouldRejectJsonPayloadAndUnsupportedEvents() {
+        byte[] json = "{\"transactionId\":\"tx-5\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decodeTransaction(json));
+        assertThrows(IllegalArgumentException.class, () -> codec.encode("not an event"));
+    }
+}
@@ -0,0 +1,299 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.model.AccountBalance;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.repository.AccountBalanceBatchRepository;
+import com.bank.transaction.repository.AccountBalanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountLedgerTest {
+
+    @Mock
+    private AccountBalanceRepository balanceRepository;
+
+    @Mock
+    private AccountBalanceBatchRepository balanceBatchRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private TransactionMetricsService metricsService;
+
+    private AccountLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        // Одна полоса, выполняющая проводки в потоке теста
+        ledger = new AccountLedger(balanceRepository, balanceBatchRepository, transactionTemplate,
+                metricsService, new TransactionProperties.Ledger(), Runnable::run);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void shouldCreateBalanceOnFirstPostingAndContinueFromMemory() {
+        when(balanceRepository.findById("ACC001")).thenReturn(Optional.empty());
+        when(balanceRepository.insertIfAbsent(eq("ACC001"), eq(new BigDecimal("100.00")), any())).thenReturn(1);
+        when(balanceRepository.advance(eq("ACC001"), eq(new BigDecimal("60.00")), eq(1L), any())).thenReturn(1);
+
+        List<BigDecimal> first = ledger.post("ACC001", new BigDecimal("100.00"), List::of);
+        List<BigDecimal> second = ledger.post("ACC001", new BigDecimal("-40.00"), List::of);
+
+        assertEquals(List.of(BigDecimal.ZERO, new BigDecimal("100.00")), first);
+        assertEquals(List.of(new BigDecimal("100.00"), new BigDecimal("60.00")), second);
+        assertEquals(new BigDecimal("60.00"), ledger.getBalance("ACC001"));
+        // Остаток читается из БД только при первом обращении к счету
+        verify(balanceRepository, times(1)).findById("ACC001");
+    }
+
+    @Test
+    void shouldReloadBalanceChangedByAnotherWriter() {
+        when(balanceRepository.findById("ACC001"))
+                .thenReturn(Optional.of(row("ACC001", "100.00", 3)))
+                .thenReturn(Optional.of(row("ACC001", "300.00", 4)));
+        when(balanceRepository.advance(eq("ACC001"), any(), eq(3L), any())).thenReturn(0);
+        when(balanceRepository.advance(eq("ACC001"), eq(new BigDecimal("250.00")), eq(4L), any())).thenReturn(1);
+        List<List<BigDecimal>> writes = new ArrayList<>();
+
+        ledger.post("ACC001", new BigDecimal("-50.00"), (before, after) -> writes.add(List.of(before, after)));
+
+        // Writer выполняется только для проводки, которая прошла по версии
+        assertEquals(List.of(List.of(new BigDecimal("300.00"), new BigDecimal("250.00"))), writes);
+        verify(metricsService).recordLedgerStalePosting();
+    }
+
+    @Test
+    void shouldGiveUpWhenBalanceKeepsChanging() {
+        when(balanceRepository.findById("ACC001")).thenReturn(Optional.of(row("ACC001", "100.00", 3)));
+        when(balanceRepository.advance(eq("ACC001"), any(), anyLong(), any())).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> ledger.post("ACC001", BigDecimal.TEN, (before, after) -> {
+            throw new AssertionError("Writer must not run for a stale balance");
+        }));
+
+        verify(balanceRepository, times(3)).advance(eq("ACC001"), any(), anyLong(), any());
+        verify(metricsService, times(3)).recordLedgerStalePosting();
+    }
+
+    @Test
+    void shouldKeepBalanceWhenWriterFails() {
+        when(balanceRepository.findById("ACC001")).thenReturn(Optional.of(row("ACC001", "100.00", 1)));
+        when(balanceRepository.advance(eq("ACC001"), any(), eq(1L), any())).thenReturn(1);
+
+        DataIntegrityViolationException conflict = new DataIntegrityViolationException("duplicate reference");
+        DataIntegrityViolationException thrown = assertThrows(DataIntegrityViolationException.class,
+                () -> ledger.post("ACC001", BigDecimal.TEN, (before, after) -> {
+                    throw conflict;
+                }));
+
+        assertSame(conflict, thrown);
+        // Откаченная проводка не сдвигает остаток в памяти
+        assertEquals(new BigDecimal("100.00"), ledger.getBalance("ACC001"));
+    }
+
+    @Test
+    void shouldNotApplyPostingThatTimedOutInQueue() {
+        List<Runnable> queued = new ArrayList<>();
+        AccountLedger queuedLedger = new AccountLedger(balanceRepository, balanceBatchRepository, transactionTemplate,
+                metricsService, ledgerWithTimeout(Duration.ofMillis(10)), queued::add);
+
+        assertThrows(IllegalStateException.class, () -> queuedLedger.post("ACC001", BigDecimal.TEN, (before, after) -> {
+            throw new AssertionError("Writer must not run for a cancelled posting");
+        }));
+
+        // Полоса освободилась после таймаута: снятая проводка не выполняется
+        queued.forEach(Runnable::run);
+        verifyNoInteractions(balanceRepository);
+    }
+
+    @Test
+    void shouldWaitForPostingThatStartedBeforeTimeout() {
+        when(balanceRepository.findById("ACC001")).thenReturn(Optional.of(row("ACC001", "100.00", 1)));
+        when(balanceRepository.advance(eq("ACC001"), any(), eq(1L), any())).thenReturn(1);
+        CountDownLatch started = new CountDownLatch(1);
+        AccountLedger slowLedger = new AccountLedger(balanceRepository, balanceBatchRepository, transactionTemplate,
+                metricsService, ledgerWithTimeout(Duration.ofMillis(10)),
+                task -> {
+                    // Полоса начинает проводку до того, как поток запроса начнет ждать
+                    new Thread(task).start();
+                    await(started);
+                });
+
+        String result = slowLedger.post("ACC001", BigDecimal.TEN, (before, after) -> {
+            started.countDown();
+            sleep(100);
+            return "written";
+        });
+
+        // Проводка началась до таймаута и закоммичена - вызывающий получает ее результат, а не ошибку
+        assertEquals("written", result);
+    }
+
+    @Test
+    void shouldLockBatchBalancesInAccountOrderAndWriteThemAfterAssigning() {
+        when(balanceBatchRepository.lockAll(List.of("ACC001", "ACC002")))
+                .thenReturn(List.of(row("ACC001", "100.00", 2), row("ACC002", "0", 1)));
+        Transaction deposit = transaction("ACC001", Transaction.TransactionType.DEPOSIT, "50.00");
+        Transaction withdrawal = transaction("ACC002", Transaction.TransactionType.WITHDRAWAL, "30.00");
+        Transaction payment = transaction("ACC001", Transaction.TransactionType.PAYMENT, "20.00");
+
+        AccountLedger.BatchPosting batch = ledger.lockBatch(List.of("ACC002", "ACC001", "ACC002"), 500);
+        batch.assign(List.of(deposit, withdrawal));
+        batch.assign(List.of(payment));
+        batch.write();
+
+        // Счета без строки получают нулевой остаток, затем все строки блокируются в порядке номера счета
+        // и перезаписываются в той же транзакции после назначения остатков
+        InOrder order = inOrder(balanceBatchRepository);
+        order.verify(balanceBatchRepository).insertMissing(List.of("ACC001", "ACC002"), 500);
+        order.verify(balanceBatchRepository).lockAll(List.of("ACC001", "ACC002"));
+        order.verify(balanceBatchRepository).updateAll(argThat(rows -> rows.size() == 2
+                && rows.get(0).getBalance().equals(new BigDecimal("130.00")) && rows.get(0).getVersion() == 3
+                && rows.get(1).getBalance().equals(new BigDecimal("-30.00")) && rows.get(1).getVersion() == 2), eq(500));
+        verify(transactionTemplate, never()).execute(any());
+
+        assertEquals(new BigDecimal("100.00"), deposit.getBalanceBefore());
+        assertEquals(new BigDecimal("150.00"), deposit.getBalanceAfter());
+        assertEquals(new BigDecimal("0"), withdrawal.getBalanceBefore());
+        assertEquals(new BigDecimal("-30.00"), withdrawal.getBalanceAfter());
+        assertEquals(new BigDecimal("150.00"), payment.getBalanceBefore());
+        assertEquals(new BigDecimal("130.00"), payment.getBalanceAfter());
+    }
+
+    @Test
+    void shouldContinueFromBatchBalancesOnlyAfterCommit() {
+        when(balanceBatchRepository.lockAll(List.of("ACC001"))).thenReturn(List.of(row("ACC001", "100.00", 2)));
+        when(balanceRepository.findById("ACC001")).thenReturn(Optional.of(row("ACC001", "100.00", 2)));
+        assertEquals(new BigDecimal("100.00"), ledger.getBalance("ACC001"));
+
+        AccountLedger.BatchPosting batch = ledger.lockBatch(List.of("ACC001"), 500);
+        batch.assign(List.of(transaction("ACC001", Transaction.TransactionType.DEPOSIT, "50.00")));
+        batch.write();
+
+        // Пока пакет не закоммичен, в памяти остается остаток до него
+        assertEquals(new BigDecimal("100.00"), ledger.getBalance("ACC001"));
+        batch.committed();
+        assertEquals(new BigDecimal("150.00"), ledger.getBalance("ACC001"));
+    }
+
+    @Test
+    void shouldRejectTransactionOfAccountWithoutLockedBalance() {
+        AccountLedger.BatchPosting batch = ledger.lockBatch(List.of(), 500);
+
+        assertThrows(IllegalStateException.class, () -> batch.assign(
+                List.of(transaction("ACC001", Transaction.TransactionType.DEPOSIT, "10.00"))));
+    }
+
+    @Test
+    void shouldSignAmountByTransactionType() {
+        BigDecimal amount = new BigDecimal("10.00");
+
+        assertEquals(amount, AccountLedger.signedAmount(Transaction.TransactionType.DEPOSIT, amount));
+        assertEquals(amount, AccountLedger.signedAmount(Transaction.TransactionType.REFUND, amount));
+        assertEquals(amount.negate(), AccountLedger.signedAmount(Transaction.TransactionType.WITHDRAWAL, amount));
+        assertEquals(amount.negate(), AccountLedger.signedAmount(Transaction.TransactionType.TRANSFER, amount));
+        assertEquals(amount.negate(), AccountLedger.signedAmount(Transaction.TransactionType.PAYMENT, amount));
+    }
+
+    @Test
+    void shouldLeaveFailedCancelledAndReversedTransactionsOutOfBalance() {
+        Transaction withdrawal = transaction("ACC001", Transaction.TransactionType.WITHDRAWAL, "10.00");
+
+        assertEquals(new BigDecimal("-10.00"), AccountLedger.postedAmount(withdrawal, null));
+        assertEquals(new BigDecimal("-10.00"), AccountLedger.postedAmount(withdrawal, Transaction.TransactionStatus.COMPLETED));
+        assertEquals(BigDecimal.ZERO, AccountLedger.postedAmount(withdrawal, Transaction.TransactionStatus.FAILED));
+        assertEquals(BigDecimal.ZERO, AccountLedger.postedAmount(withdrawal, Transaction.TransactionStatus.CANCELLED));
+        assertEquals(BigDecimal.ZERO, AccountLedger.postedAmount(withdrawal, Transaction.TransactionStatus.REVERSED));
+    }
+
+    @Test
+    void shouldAdjustBalanceByAmountResolvedInLaneAndSkipZeroAdjustments() {
+        when(balanceRepository.findById("ACC001")).thenReturn(Optional.of(row("ACC001", "100.00", 3)));
+        when(balanceRepository.advance(eq("ACC001"), eq(new BigDecimal("130.00")), eq(3L), any())).thenReturn(1);
+
+        assertEquals(List.of(new BigDecimal("100.00"), new BigDecimal("130.00")), ledger.adjust("ACC001", adjustment("30.00")));
+        assertEquals(List.of(new BigDecimal("130.00"), new BigDecimal("130.00")), ledger.adjust("ACC001", adjustment("0")));
+
+        // Смена статуса без влияния на остаток не пишет account_balances
+        verify(balanceRepository, times(1)).advance(any(), any(), anyLong(), any());
+        assertEquals(new BigDecimal("130.00"), ledger.getBalance("ACC001"));
+    }
+
+    private static AccountLedger.Adjustment<List<BigDecimal>> adjustment(String amount) {
+        return new AccountLedger.Adjustment<>() {
+            @Override
+            public BigDecimal amount() {
+                return new BigDecimal(amount);
+            }
+
+            @Override
+            public List<BigDecimal> write(BigDecimal balanceBefore, BigDecimal balanceAfter) {
+                return List.of(balanceBefore, balanceAfter);
+            }
+        };
+    }
+
+    private static TransactionProperties.Ledger ledgerWithTimeout(Duration writeTimeout) {
+        TransactionProperties.Ledger properties = new TransactionProperties.Ledger();
+        properties.setWriteTimeout(writeTimeout);
+        return properties;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static AccountBalance row(String accountNumber, String balance, long version) {
+        return AccountBalance.builder()
+                .accountNumber(accountNumber)
+                .balance(new BigDecimal(balance))
+                .version(version)
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static Transaction transaction(String accountNumber, Transaction.TransactionType type, String amount) {
+        return Transaction.builder()
+                .accountNumber(accountNumber)
+                .type(type)
+                .amount(new BigDecimal(amount))
+                .currency("USD")
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.event.TransactionFailureStatusChangedEvent;
+import com.bank.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FailedTransactionWindowTest {
+
+    private static final Instant START = Instant.parse("2024-03-01T10:00:00Z");
+
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final MutableClock clock = new MutableClock(START);
+    private FailedTransactionWindow window;
+
+    @BeforeEach
+    void setUp() {
+        window = new FailedTransactionWindow(transactionRepository, new TransactionProperties(), clock);
+    }
+
+    @Test
+    void shouldCountFailuresWithinWindow() {
+        recordFailure("ACC001", now().minusMinutes(50));
+        recordFailure("ACC001", now().minusMinutes(5));
+        recordFailure("ACC002", now());
+
+        assertEquals(2, window.count("ACC001"));
+        assertEquals(1, window.count("ACC002"));
+        assertEquals(0, window.count("ACC003"));
+    }
+
+    @Test
+    void shouldExpireFailuresOlderThanWindow() {
+        recordFailure("ACC001", now().minusMinutes(50));
+        recordFailure("ACC001", now());
+
+        clock.advance(Duration.ofMinutes(15));
+        assertEquals(1, window.count("ACC001"));
+
+        clock.advance(Duration.ofHours(1));
+        assertEquals(0, window.count("ACC001"));
+    }
+
+    @Test
+    void shouldIgnoreFailuresOutsideWindow() {
+        recordFailure("ACC001", now().minusHours(2));
+
+        assertEquals(0, window.count("ACC001"));
+        assertEquals(0, window.trackedAccounts());
+    }
+
+    @Test
+    void shouldUncountTransactionLeavingFailedStatus() {
+        LocalDateTime transactionDate = now().minusMinutes(10);
+        recordFailure("ACC001", transactionDate);
+        recordFailure("ACC001", transactionDate);
+
+        window.onFailureStatusChanged(new TransactionFailureStatusChangedEvent("ACC001", transactionDate, false));
+
+        assertEquals(1, window.count("ACC001"));
+    }
+
+    @Test
+    void shouldRebuildFromDatabase() {
+        when(transactionRepository.findFailedTransactionDatesSince(any(LocalDateTime.class))).thenReturn(List.of(
+                new Object[]{"ACC001", now().minusMinutes(30)},
+                new Object[]{"ACC001", now().minusMinutes(20)},
+                new Object[]{"ACC001", now().minusMinutes(10)}));
+
+        window.rebuild();
+
+        assertEquals(3, window.count("ACC001"));
+    }
+
+    @Test
+    void shouldEvictIdleAccounts() {
+        recordFailure("ACC001", now());
+        clock.advance(Duration.ofMinutes(61));
+
+        // Очистка запускается очередной записью после истечения интервала
+        recordFailure("ACC002", now());
+
+        assertEquals(1, window.trackedAccounts());
+        assertEquals(1, window.count("ACC002"));
+    }
+
+    private void recordFailure(String accountNumber, LocalDateTime transactionDate) {
+        window.onFailureStatusChanged(new TransactionFailureStatusChangedEvent(accountNumber, transactionDate, true));
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.bank.transaction.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentKeyFilterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final RecentKeyFilter filter = new RecentKeyFilter(10_000, 0.01, Duration.ofHours(1), clock::get);
+
+    @Test
+    void shouldAlwaysRecognizeAddedKeys() {
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("ONLINE\u0000REF" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("ONLINE\u0000REF" + i));
+        }
+    }
+
+    @Test
+    void shouldKeepFalsePositivesNearConfiguredRate() {
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("ONLINE\u0000REF" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("MOBILE\u0000REF" + i)) {
+                falsePositives++;
+            }
+        }
+        // Расчетная доля 1%; запас на разброс
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void shouldForgetKeysAfterTwoWindows() {
+        filter.put("ONLINE\u0000REF1");
+
+        clock.addAndGet(Duration.ofMinutes(61).toNanos());
+        assertTrue(filter.mightContain("ONLINE\u0000REF1"));
+
+        clock.addAndGet(Duration.ofMinutes(61).toNanos());
+        assertFalse(filter.mightContain("ONLINE\u0000REF1"));
+    }
+}
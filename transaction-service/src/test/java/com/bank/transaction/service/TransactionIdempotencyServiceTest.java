@@ -0,0 +1,147 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.dto.TransactionResponse;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionIdempotencyServiceTest {
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionMetricsService metricsService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionIdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new TransactionIdempotencyService(transactionService, transactionRepository,
+                metricsService, transactionTemplate, new TransactionProperties());
+    }
+
+    @Test
+    void shouldReplayRetryFromCacheWithoutSecondInsert() {
+        TransactionRequest request = request("REF-001");
+        TransactionResponse original = response("REF-001");
+        when(transactionService.createTransaction(request)).thenReturn(original);
+
+        TransactionResponse first = idempotencyService.createTransaction(request);
+        TransactionResponse retry = idempotencyService.createTransaction(request);
+
+        assertSame(original, first);
+        assertSame(original, retry);
+        verify(transactionService, times(1)).createTransaction(any(TransactionRequest.class));
+        verify(metricsService).recordIdempotentReplay("cache");
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void shouldReturnOriginalWhenUniqueIndexRejectsConcurrentRetry() {
+        TransactionRequest request = request("REF-002");
+        TransactionResponse original = response("REF-002");
+        passThroughTransactionTemplate();
+        when(transactionService.createTransaction(request)).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement", new SQLException(
+                        "duplicate key value violates unique constraint \"uk_transactions_channel_reference\"")));
+        when(transactionRepository.findResponseByChannelAndReferenceNumber("ONLINE", "REF-002"))
+                .thenReturn(Optional.of(original));
+
+        assertSame(original, idempotencyService.createTransaction(request));
+        verify(metricsService).recordIdempotentReplay("conflict");
+
+        // Следующий повтор обслуживается из кэша
+        assertSame(original, idempotencyService.createTransaction(request));
+        verify(transactionService, times(1)).createTransaction(any(TransactionRequest.class));
+    }
+
+    @Test
+    void shouldLookUpOriginalWhenFilterWasWarmedFromDatabase() {
+        TransactionResponse original = response("REF-003");
+        passThroughTransactionTemplate();
+        when(transactionRepository.findReferenceKeysCreatedSince(any(LocalDateTime.class)))
+                .thenReturn(List.<Object[]>of(new Object[]{"ONLINE", "REF-003"}));
+        when(transactionRepository.findResponseByChannelAndReferenceNumber("ONLINE", "REF-003"))
+                .thenReturn(Optional.of(original));
+        idempotencyService.warmUp();
+
+        assertSame(original, idempotencyService.createTransaction(request("REF-003")));
+        verify(transactionService, never()).createTransaction(any(TransactionRequest.class));
+        verify(metricsService).recordIdempotentReplay("database");
+    }
+
+    @Test
+    void shouldRethrowUnrelatedIntegrityViolation() {
+        TransactionRequest request = request("REF-004");
+        DataIntegrityViolationException violation = new DataIntegrityViolationException(
+                "could not execute statement", new SQLException("null value in column \"currency\""));
+        when(transactionService.createTransaction(request)).thenThrow(violation);
+
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class,
+                () -> idempotencyService.createTransaction(request)));
+    }
+
+    @Test
+    void shouldBypassDeduplicationWithoutReferenceNumber() {
+        TransactionRequest request = request(null);
+        when(transactionService.createTransaction(request)).thenReturn(response(null));
+
+        idempotencyService.createTransaction(request);
+        idempotencyService.createTransaction(request);
+
+        verify(transactionService, times(2)).createTransaction(request);
+        verify(metricsService, never()).recordIdempotentReplay(any());
+    }
+
+    private void passThroughTransactionTemplate() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private static TransactionRequest request(String referenceNumber) {
+        return TransactionRequest.builder()
+                .type(Transaction.TransactionType.PAYMENT)
+                .amount(new BigDecimal("250.00"))
+                .currency("USD")
+                .accountNumber("ACC001")
+                .channel("ONLINE")
+                .referenceNumber(referenceNumber)
+                .build();
+    }
+
+    private static TransactionResponse response(String referenceNumber) {
+        return TransactionResponse.builder()
+                .id(1L)
+                .transactionId("tx-1")
+                .channel("ONLINE")
+                .referenceNumber(referenceNumber)
+                .build();
+    }
+}
@@ -0,0 +1,191 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.dto.TransactionBatchResponse;
+import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.event.TransactionAlertEvent;
+import com.bank.transaction.event.TransactionEvent;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionAlert;
+import com.bank.transaction.repository.TransactionAlertRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionIngestionServiceTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private TransactionRuleEngine ruleEngine;
+
+    @Mock
+    private TransactionAlertRepository alertRepository;
+
+    @Mock
+    private TransactionOutbox outbox;
+
+    @Mock
+    private TransactionMetricsService metricsService;
+
+    @Mock
+    private AccountLedger ledger;
+
+    @Mock
+    private AccountLedger.BatchPosting balances;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionProperties properties;
+    private TransactionIngestionService ingestionService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TransactionProperties();
+        properties.getBatch().setChunkSize(2);
+        properties.getBatch().setMaxSize(10);
+        ingestionService = new TransactionIngestionService(entityManager, ruleEngine,
+                alertRepository, outbox, metricsService, properties, ledger, transactionTemplate);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void shouldInsertInChunksAndEvaluateAlertsOncePerBatch() {
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(ledger.lockBatch(List.of("ACC001", "ACC001", "ACC002"), 2)).thenReturn(balances);
+        when(ruleEngine.evaluate(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            List<TransactionAlert> alerts = new ArrayList<>();
+            if (transaction.isHighValueTransaction()) {
+                alerts.add(alert(TransactionAlert.AlertType.HIGH_VALUE_TRANSACTION));
+            }
+            if (transaction.isSuspiciousTransaction()) {
+                alerts.add(alert(TransactionAlert.AlertType.SUSPICIOUS_ACTIVITY));
+            }
+            return alerts;
+        });
+
+        TransactionBatchResponse response = ingestionService.ingest(List.of(
+                request("ACC001", "100.00"),
+                request("ACC001", "20000.00"),
+                request("ACC002", "60000.00")));
+
+        assertEquals(3, response.getReceived());
+        assertEquals(3, response.getInserted());
+        // Крупная: 1 алерт, подозрительная: 2 алерта
+        assertEquals(3, response.getAlertsCreated());
+
+        verify(session).setJdbcBatchSize(2);
+        verify(entityManager, times(3)).persist(any(Transaction.class));
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+        verify(ruleEngine).preloadCounterparties(List.of("ACC001", "ACC001", "ACC002"));
+        verify(ruleEngine, times(3)).evaluate(any(Transaction.class));
+
+        // Остатки блокируются в транзакции загрузки, назначаются каждому чанку до его вставки
+        // и пишутся в той же транзакции после последнего чанка
+        InOrder order = inOrder(ledger, transactionTemplate, balances, entityManager);
+        order.verify(transactionTemplate).execute(any());
+        order.verify(ledger).lockBatch(any(), eq(2));
+        order.verify(balances).assign(argThat(chunk -> chunk.size() == 2));
+        order.verify(entityManager, times(2)).persist(any(Transaction.class));
+        order.verify(balances).assign(argThat(chunk -> chunk.size() == 1));
+        order.verify(entityManager).persist(any(Transaction.class));
+        order.verify(balances).write();
+        order.verify(balances).committed();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionOutbox.Message>> messages = ArgumentCaptor.forClass(List.class);
+        verify(outbox, times(2)).appendAll(messages.capture());
+        List<TransactionOutbox.Message> all = new ArrayList<>();
+        messages.getAllValues().forEach(all::addAll);
+        assertEquals(List.of(
+                TransactionService.TRANSACTIONS_TOPIC,
+                TransactionService.TRANSACTIONS_TOPIC,
+                TransactionService.ALERTS_TOPIC,
+                TransactionService.TRANSACTIONS_TOPIC,
+                TransactionService.ALERTS_TOPIC,
+                TransactionService.ALERTS_TOPIC,
+                TransactionService.HIGH_VALUE_TOPIC), all.stream().map(TransactionOutbox.Message::topic).toList());
+        assertInstanceOf(TransactionEvent.class, all.get(0).payload());
+        assertInstanceOf(TransactionAlertEvent.class, all.get(2).payload());
+        assertEquals(all.get(3).payload(), all.get(6).payload());
+
+        verify(metricsService, times(3)).recordTransactionAlert(any(TransactionAlert.class));
+        verify(metricsService).recordBatchIngestion(eq(3), anyLong());
+    }
+
+    @Test
+    void shouldNotWriteBalancesWhenBatchFails() {
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(ledger.lockBatch(any(), eq(2))).thenReturn(balances);
+        RuntimeException failure = new IllegalStateException("insert failed");
+        doThrow(failure).when(entityManager).flush();
+
+        RuntimeException thrown = assertThrows(RuntimeException.class,
+                () -> ingestionService.ingest(List.of(request("ACC001", "100.00"))));
+
+        // Блокировки и незаписанные остатки уходят вместе с откатом транзакции пакета
+        assertSame(failure, thrown);
+        verify(balances, never()).write();
+        verify(balances, never()).committed();
+        verifyNoInteractions(outbox);
+    }
+
+    @Test
+    void shouldRejectBatchAboveMaxSize() {
+        List<TransactionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            requests.add(request("ACC001", "100.00"));
+        }
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> ingestionService.ingest(requests));
+
+        assertEquals("Batch size must not exceed 10 transactions", exception.getMessage());
+        verifyNoInteractions(entityManager, outbox, ledger);
+    }
+
+    private static TransactionAlert alert(TransactionAlert.AlertType alertType) {
+        return TransactionAlert.builder()
+                .alertType(alertType)
+                .status(TransactionAlert.AlertStatus.ACTIVE)
+                .severity(5)
+                .build();
+    }
+
+    private static TransactionRequest request(String accountNumber, String amount) {
+        return TransactionRequest.builder()
+                .type(Transaction.TransactionType.DEPOSIT)
+                .amount(new BigDecimal(amount))
+                .currency("USD")
+                .accountNumber(accountNumber)
+                .branchCode("NYC001")
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.model.OutboxEvent;
+import com.bank.transaction.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionOutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxRepository;
+
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Mock
+    private TransactionMetricsService metricsService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionProperties properties;
+    private TransactionOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TransactionProperties();
+        properties.getOutbox().setMaxAttempts(2);
+        relay = new TransactionOutboxRelay(outboxRepository, kafkaTemplate, metricsService,
+                transactionTemplate, properties);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void shouldPublishBatchInOrderAndMarkItSent() {
+        when(outboxRepository.tryLockRelay(anyLong())).thenReturn(true);
+        when(outboxRepository.findNextBatch(anyInt())).thenReturn(List.of(event(1L), event(2L)));
+        when(kafkaTemplate.send(any(), any(), any())).thenReturn(acknowledged());
+
+        assertEquals(2, relay.relayOnce());
+
+        var order = inOrder(kafkaTemplate);
+        order.verify(kafkaTemplate).send("transactions", "tx-1", payload(1L));
+        order.verify(kafkaTemplate).send("transactions", "tx-2", payload(2L));
+        verify(outboxRepository).markSent(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(metricsService).recordOutboxPublished(eq(2), any(Duration.class));
+        assertEquals(0, relay.getBackoffMs());
+    }
+
+    @Test
+    void shouldStopAtFirstFailedMessageAndBackOff() {
+        OutboxEvent failed = event(2L);
+        when(outboxRepository.tryLockRelay(anyLong())).thenReturn(true);
+        when(outboxRepository.findNextBatch(anyInt())).thenReturn(List.of(event(1L), failed, event(3L)));
+        when(kafkaTemplate.send(any(), any(), any()))
+                .thenReturn(acknowledged())
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("Broker not available")))
+                .thenReturn(acknowledged());
+
+        assertEquals(1, relay.relayOnce());
+
+        verify(outboxRepository).markSent(eq(List.of(1L)), any(LocalDateTime.class));
+        assertEquals(1, failed.getAttempts());
+        assertNull(failed.getFailedAt());
+        assertTrue(failed.getLastError().contains("Broker not available"));
+        assertEquals(properties.getOutbox().getInitialBackoffMs(), relay.getBackoffMs());
+        verify(metricsService).recordOutboxPublishFailure("transactions");
+    }
+
+    @Test
+    void shouldParkMessageAfterMaxAttempts() {
+        OutboxEvent poison = event(1L);
+        poison.setAttempts(1);
+        when(outboxRepository.tryLockRelay(anyLong())).thenReturn(true);
+        when(outboxRepository.findNextBatch(anyInt())).thenReturn(List.of(poison));
+        when(kafkaTemplate.send(any(), any(), any())).thenThrow(new KafkaException("Record too large"));
+
+        assertEquals(0, relay.relayOnce());
+
+        assertEquals(2, poison.getAttempts());
+        assertNotNull(poison.getFailedAt());
+        verify(outboxRepository, never()).markSent(any(), any());
+        verify(metricsService).recordOutboxMessageParked("transactions");
+    }
+
+    @Test
+    void shouldSkipWhenAnotherInstanceHoldsRelayLock() {
+        when(outboxRepository.tryLockRelay(anyLong())).thenReturn(false);
+
+        assertEquals(0, relay.relayOnce());
+
+        verify(outboxRepository, never()).findNextBatch(anyInt());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private static OutboxEvent event(long id) {
+        return OutboxEvent.builder()
+                .id(id)
+                .topic("transactions")
+                .messageKey("tx-" + id)
+                .payload(payload(id))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static byte[] payload(long id) {
+        return new byte[]{(byte) 0xC3, 0x01, (byte) id};
+    }
+
+    private static CompletableFuture<SendResult<String, byte[]>> acknowledged() {
+        return CompletableFuture.completedFuture(null);
+    }
+}
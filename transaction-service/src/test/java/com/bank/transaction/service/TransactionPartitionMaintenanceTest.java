@@ -0,0 +1,128 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.repository.TransactionPartitionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionPartitionMaintenanceTest {
+
+    @Mock
+    private TransactionPartitionRepository partitionRepository;
+
+    @Mock
+    private TransactionMetricsService metricsService;
+
+    private TransactionProperties.Partitions properties;
+    private TransactionPartitionMaintenance maintenance;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TransactionProperties.Partitions();
+        Clock clock = Clock.fixed(Instant.parse("2024-03-15T10:00:00Z"), ZoneOffset.UTC);
+        maintenance = new TransactionPartitionMaintenance(partitionRepository, metricsService, properties, clock);
+    }
+
+    @Test
+    void shouldCreateCurrentAndFuturePartitionsAndKeepHistoryByDefault() {
+        maintenance.maintain();
+
+        verify(partitionRepository).createMonthlyPartition(YearMonth.of(2024, 3));
+        verify(partitionRepository).createMonthlyPartition(YearMonth.of(2024, 6));
+        verify(partitionRepository, times(4)).createMonthlyPartition(any());
+        verify(partitionRepository, never()).findMonthlyPartitions();
+    }
+
+    @Test
+    void shouldMoveRowsOutOfDefaultPartitionWhenPartitionCannotBeCreated() {
+        doThrow(new DataIntegrityViolationException("updated partition constraint for default partition would be violated"))
+                .when(partitionRepository).createMonthlyPartition(YearMonth.of(2024, 4));
+        when(partitionRepository.createMonthlyPartitionFromDefault(YearMonth.of(2024, 4))).thenReturn(12);
+
+        maintenance.maintain();
+
+        verify(partitionRepository).createMonthlyPartitionFromDefault(YearMonth.of(2024, 4));
+        verify(partitionRepository, times(1)).createMonthlyPartitionFromDefault(any());
+        verify(partitionRepository).createMonthlyPartition(YearMonth.of(2024, 5));
+        verifyNoInteractions(metricsService);
+    }
+
+    @Test
+    void shouldCountFailureAndContinueWhenPartitionCannotBeCreatedFromDefault() {
+        doThrow(new DataIntegrityViolationException("default partition contains rows"))
+                .when(partitionRepository).createMonthlyPartition(YearMonth.of(2024, 4));
+        doThrow(new DataAccessResourceFailureException("lock timeout"))
+                .when(partitionRepository).createMonthlyPartitionFromDefault(YearMonth.of(2024, 4));
+
+        maintenance.maintain();
+
+        verify(metricsService).recordPartitionMaintenanceFailure("create");
+        verify(partitionRepository).createMonthlyPartition(YearMonth.of(2024, 5));
+        verify(partitionRepository).createMonthlyPartition(YearMonth.of(2024, 6));
+    }
+
+    @Test
+    void shouldDetachExpiredPartitions() {
+        properties.setRetentionMonths(12);
+        when(partitionRepository.findMonthlyPartitions())
+                .thenReturn(List.of(YearMonth.of(2023, 2), YearMonth.of(2023, 3), YearMonth.of(2024, 3)));
+
+        maintenance.maintain();
+
+        // Хранятся 12 месяцев, включая текущий: с апреля 2023 по март 2024
+        verify(partitionRepository).detachPartition(YearMonth.of(2023, 2));
+        verify(partitionRepository).detachPartition(YearMonth.of(2023, 3));
+        verify(partitionRepository, times(2)).detachPartition(any());
+        verify(partitionRepository, never()).dropPartition(any());
+    }
+
+    @Test
+    void shouldDropExpiredPartitionsWhenConfigured() {
+        properties.setRetentionMonths(1);
+        properties.setRetentionAction(TransactionProperties.Partitions.RetentionAction.DROP);
+        when(partitionRepository.findMonthlyPartitions()).thenReturn(List.of(YearMonth.of(2024, 2), YearMonth.of(2024, 3)));
+
+        maintenance.maintain();
+
+        verify(partitionRepository).dropPartition(YearMonth.of(2024, 2));
+        verify(partitionRepository, never()).detachPartition(any());
+    }
+
+    @Test
+    void shouldCountFailureAndRemoveOtherPartitionsWhenRemovalFails() {
+        properties.setRetentionMonths(1);
+        when(partitionRepository.findMonthlyPartitions()).thenReturn(List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2)));
+        doThrow(new DataAccessResourceFailureException("lock timeout"))
+                .when(partitionRepository).detachPartition(YearMonth.of(2024, 1));
+
+        maintenance.maintain();
+
+        // Ключи января удаляются только вместе с его партицией, поэтому остаются до успешного повтора
+        verify(partitionRepository).detachPartition(YearMonth.of(2024, 2));
+        verify(metricsService).recordPartitionMaintenanceFailure("retention");
+    }
+
+    @Test
+    void shouldSkipMaintenanceWhenDisabled() {
+        properties.setMaintenanceEnabled(false);
+
+        maintenance.maintain();
+
+        verifyNoInteractions(partitionRepository);
+    }
+}
@@ -0,0 +1,235 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionProperties;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionAlert;
+import com.bank.transaction.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TransactionRuleEngineTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    private final FailedTransactionWindow failedTransactionWindow = mock(FailedTransactionWindow.class);
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TransactionProperties properties = new TransactionProperties();
+
+    @BeforeEach
+    void setUp() {
+        when(failedTransactionWindow.getWindow()).thenReturn(Duration.ofHours(1));
+    }
+
+    @Test
+    void shouldEvaluateAmountRulesInConfiguredOrder() {
+        TransactionRuleEngine engine = engine(
+                amountRule("high-value", TransactionAlert.AlertType.HIGH_VALUE_TRANSACTION, "10000"),
+                amountRule("suspicious-amount", TransactionAlert.AlertType.SUSPICIOUS_ACTIVITY, "50000"));
+
+        List<TransactionAlert> alerts = engine.evaluate(transaction("60000.00", START, null));
+
+        assertEquals(List.of(TransactionAlert.AlertType.HIGH_VALUE_TRANSACTION, TransactionAlert.AlertType.SUSPICIOUS_ACTIVITY),
+                alerts.stream().map(TransactionAlert::getAlertType).toList());
+        assertEquals("high-value: 60000.00 USD for account ACC001", alerts.get(0).getMessage());
+        assertEquals("Rule high-value", alerts.get(0).getDetails());
+        assertTrue(engine.evaluate(transaction("500.00", START, null)).isEmpty());
+    }
+
+    @Test
+    void shouldFireVelocityRuleOncePerWindow() {
+        TransactionRuleEngine engine = engine(windowRule("velocity", TransactionProperties.AlertRule.Type.VELOCITY, 3, "60s"));
+
+        assertTrue(engine.evaluate(transaction("100.00", START, null)).isEmpty());
+        assertTrue(engine.evaluate(transaction("100.00", START.plusSeconds(10), null)).isEmpty());
+        List<TransactionAlert> alerts = engine.evaluate(transaction("100.00", START.plusSeconds(20), null));
+        assertEquals(1, alerts.size());
+        assertEquals("velocity: 3 transactions within 1m for account ACC001", alerts.get(0).getMessage());
+
+        // Серия продолжается, но правило уже сработало в этом окне
+        assertTrue(engine.evaluate(transaction("100.00", START.plusSeconds(30), null)).isEmpty());
+        assertEquals(1.0, meterRegistry.get("transaction.rules.hits").tag("rule", "velocity").counter().count());
+        assertEquals(4, meterRegistry.get("transaction.rules.evaluation").tag("rule", "velocity").timer().count());
+    }
+
+    @Test
+    void shouldNotFireVelocityRuleForTransactionsSpreadBeyondWindow() {
+        TransactionRuleEngine engine = engine(windowRule("velocity", TransactionProperties.AlertRule.Type.VELOCITY, 3, "60s"));
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(engine.evaluate(transaction("100.00", START.plusSeconds(40L * i), null)).isEmpty());
+        }
+    }
+
+    @Test
+    void shouldCountOnlyAmountsJustBelowThresholdForStructuring() {
+        TransactionProperties.AlertRule structuring = windowRule("structuring",
+                TransactionProperties.AlertRule.Type.STRUCTURING, 2, "24h");
+        structuring.setMinAmount(new BigDecimal("9000"));
+        structuring.setMaxAmount(new BigDecimal("10000"));
+        TransactionRuleEngine engine = engine(structuring);
+
+        assertTrue(engine.evaluate(transaction("9500.00", START, null)).isEmpty());
+        assertTrue(engine.evaluate(transaction("12000.00", START.plusMinutes(5), null)).isEmpty());
+        assertTrue(engine.evaluate(transaction("500.00", START.plusMinutes(10), null)).isEmpty());
+        assertEquals(1, engine.evaluate(transaction("9900.00", START.plusHours(3), null)).size());
+    }
+
+    @Test
+    void shouldDetectBurstOfNewCounterparties() {
+        when(transactionRepository.findCounterpartiesByAccountNumber(eq("ACC001"), any())).thenReturn(List.of("KNOWN"));
+        TransactionRuleEngine engine = engine(windowRule("new-counterparty-burst",
+                TransactionProperties.AlertRule.Type.NEW_COUNTERPARTY_BURST, 2, "1h"));
+
+        assertTrue(engine.evaluate(transaction("100.00", START, "KNOWN")).isEmpty());
+        assertTrue(engine.evaluate(transaction("100.00", START.plusMinutes(1), "CP1")).isEmpty());
+        assertTrue(engine.evaluate(transaction("100.00", START.plusMinutes(2), "CP1")).isEmpty());
+        assertEquals(1, engine.evaluate(transaction("100.00", START.plusMinutes(3), "CP2")).size());
+
+        // Известные контрагенты счета загружаются из БД один раз
+        verify(transactionRepository, times(1)).findCounterpartiesByAccountNumber(eq("ACC001"), any());
+    }
+
+    @Test
+    void shouldSeeChangesOfOwnTransactionButApplyThemOnlyAfterCommit() {
+        TransactionRuleEngine engine = engine(windowRule("velocity", TransactionProperties.AlertRule.Type.VELOCITY, 3, "60s"));
+
+        inTransaction(false, () -> {
+            assertTrue(engine.evaluate(transaction("100.00", START, null)).isEmpty());
+            assertTrue(engine.evaluate(transaction("100.00", START.plusSeconds(10), null)).isEmpty());
+            assertEquals(1, engine.evaluate(transaction("100.00", START.plusSeconds(20), null)).size());
+        });
+
+        // Откаченные транзакции не попали в окно, и правило не считается сработавшим
+        inTransaction(true, () -> {
+            assertTrue(engine.evaluate(transaction("100.00", START.plusSeconds(30), null)).isEmpty());
+            assertTrue(engine.evaluate(transaction("100.00", START.plusSeconds(40), null)).isEmpty());
+        });
+        assertEquals(1, engine.evaluate(transaction("100.00", START.plusSeconds(50), null)).size());
+    }
+
+    @Test
+    void shouldNotRememberCounterpartiesOfRolledBackTransaction() {
+        when(transactionRepository.findCounterpartiesByAccountNumber(eq("ACC001"), any())).thenReturn(List.of());
+        TransactionRuleEngine engine = engine(windowRule("new-counterparty-burst",
+                TransactionProperties.AlertRule.Type.NEW_COUNTERPARTY_BURST, 2, "1h"));
+
+        inTransaction(false, () -> assertTrue(engine.evaluate(transaction("100.00", START, "CP1")).isEmpty()));
+        inTransaction(true, () -> assertTrue(engine.evaluate(transaction("100.00", START.plusMinutes(1), "CP2")).isEmpty()));
+
+        // CP1 остался новым после отката, CP2 стал известным после коммита
+        assertEquals(1, engine.evaluate(transaction("100.00", START.plusMinutes(2), "CP1")).size());
+        assertTrue(engine.evaluate(transaction("100.00", START.plusMinutes(3), "CP2")).isEmpty());
+    }
+
+    @Test
+    void shouldRaiseFailedAttemptsAlertFromWindowCountOncePerWindow() {
+        when(failedTransactionWindow.count("ACC001")).thenReturn(3);
+        TransactionProperties.AlertRule failedAttempts = new TransactionProperties.AlertRule();
+        failedAttempts.setName("multiple-failed-attempts");
+        failedAttempts.setType(TransactionProperties.AlertRule.Type.FAILED_ATTEMPTS);
+        failedAttempts.setAlertType(TransactionAlert.AlertType.MULTIPLE_FAILED_ATTEMPTS);
+        failedAttempts.setCount(3);
+        TransactionRuleEngine engine = engine(failedAttempts);
+
+        List<TransactionAlert> alerts = engine.evaluate(transaction("100.00", START, null));
+        assertEquals(1, alerts.size());
+        assertEquals("multiple-failed-attempts: 3 failed transactions within 1h for account ACC001",
+                alerts.get(0).getMessage());
+        assertTrue(engine.evaluate(transaction("100.00", START.plusMinutes(5), null)).isEmpty());
+        assertEquals(1, engine.evaluate(transaction("100.00", START.plusMinutes(61), null)).size());
+    }
+
+    @Test
+    void shouldHotReloadRulesAndKeepPreviousOnInvalidConfig() {
+        TransactionRuleEngine engine = engine(amountRule("high-value", TransactionAlert.AlertType.HIGH_VALUE_TRANSACTION, "10000"));
+
+        properties.getAlertRules().setDefinitions(List.of(
+                amountRule("small-payments", TransactionAlert.AlertType.UNUSUAL_PATTERN, "100")));
+        assertTrue(engine.reload());
+        assertEquals(TransactionAlert.AlertType.UNUSUAL_PATTERN,
+                engine.evaluate(transaction("500.00", START, null)).get(0).getAlertType());
+
+        TransactionProperties.AlertRule invalid = windowRule("velocity", TransactionProperties.AlertRule.Type.VELOCITY, 0, "60s");
+        properties.getAlertRules().setDefinitions(List.of(invalid));
+        assertFalse(engine.reload());
+        assertEquals(1, engine.evaluate(transaction("500.00", START, null)).size());
+    }
+
+    @Test
+    void shouldRejectInvalidRulesOnStartup() {
+        TransactionProperties.AlertRule duplicate = amountRule("high-value", TransactionAlert.AlertType.HIGH_VALUE_TRANSACTION, "1");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> engine(
+                amountRule("high-value", TransactionAlert.AlertType.HIGH_VALUE_TRANSACTION, "10000"), duplicate));
+
+        assertEquals("Duplicate alert rule name: high-value", exception.getMessage());
+    }
+
+    private TransactionRuleEngine engine(TransactionProperties.AlertRule... rules) {
+        properties.getAlertRules().setDefinitions(List.of(rules));
+        return new TransactionRuleEngine(properties, failedTransactionWindow, transactionRepository,
+                new TransactionMetricsService(meterRegistry));
+    }
+
+    // Имитирует завершение транзакции БД так же, как AbstractPlatformTransactionManager
+    private static void inTransaction(boolean commit, Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            if (commit) {
+                synchronizations.forEach(TransactionSynchronization::afterCommit);
+            }
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(commit
+                    ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static TransactionProperties.AlertRule amountRule(String name, TransactionAlert.AlertType alertType,
+                                                              String minAmount) {
+        TransactionProperties.AlertRule rule = new TransactionProperties.AlertRule();
+        rule.setName(name);
+        rule.setType(TransactionProperties.AlertRule.Type.AMOUNT);
+        rule.setAlertType(alertType);
+        rule.setMinAmount(new BigDecimal(minAmount));
+        return rule;
+    }
+
+    private static TransactionProperties.AlertRule windowRule(String name, TransactionProperties.AlertRule.Type type,
+                                                              int count, String window) {
+        TransactionProperties.AlertRule rule = new TransactionProperties.AlertRule();
+        rule.setName(name);
+        rule.setType(type);
+        rule.setCount(count);
+        rule.setWindow(Duration.parse("PT" + window.toUpperCase()));
+        return rule;
+    }
+
+    private static Transaction transaction(String amount, LocalDateTime transactionDate, String counterparty) {
+        return Transaction.builder()
+                .transactionId("tx-" + transactionDate)
+                .type(Transaction.TransactionType.TRANSFER)
+                .amount(new BigDecimal(amount))
+                .currency("USD")
+                .accountNumber("ACC001")
+                .counterpartyAccountNumber(counterparty)
+                .transactionDate(transactionDate)
+                .status(Transaction.TransactionStatus.PENDING)
+                .build();
+    }
+}
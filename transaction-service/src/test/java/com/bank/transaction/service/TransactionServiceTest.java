@@ -1,18 +1,30 @@
 package com.bank.transaction.service;
 
+import com.bank.transaction.dto.AccountBalanceResponse;
+import com.bank.transaction.dto.TransactionPageResponse;
 import com.bank.transaction.dto.TransactionRequest;
 import com.bank.transaction.dto.TransactionResponse;
+import com.bank.transaction.dto.TransactionStatusUpdate;
+import com.bank.transaction.event.TransactionAlertEvent;
+import com.bank.transaction.event.TransactionEvent;
+import com.bank.transaction.event.TransactionFailureStatusChangedEvent;
+import com.bank.transaction.event.TransactionStatusUpdateEvent;
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionAlert;
+import com.bank.transaction.repository.TransactionAlertRepository;
 import com.bank.transaction.repository.TransactionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,7 +45,16 @@ class TransactionServiceTest {
     private TransactionMetricsService metricsService;
 
     @Mock
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private TransactionOutbox outbox;
+
+    @Mock
+    private TransactionRuleEngine ruleEngine;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AccountLedger ledger;
 
     @InjectMocks
     private TransactionService transactionService;
@@ -64,7 +85,8 @@ class TransactionServiceTest {
 
     @Test
     void shouldCreateTransaction() {
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(sampleTransaction);
+        postWithOpeningBalance(new BigDecimal("500.00"));
+        when(transactionRepository.saveAndFlush(any(Transaction.class))).thenReturn(sampleTransaction);
 
         TransactionResponse response = transactionService.createTransaction(validRequest);
 
@@ -73,8 +95,39 @@ class TransactionServiceTest {
         assertEquals("USD", response.getCurrency());
         assertEquals("1234567890", response.getAccountNumber());
 
-        verify(transactionRepository).save(any(Transaction.class));
+        verify(transactionRepository).saveAndFlush(any(Transaction.class));
+        verify(outbox).append("transactions", "test-transaction-id", TransactionEvent.from(sampleTransaction));
         verify(metricsService).recordTransactionCreation(any(Transaction.class));
+
+        ArgumentCaptor<Transaction> saved = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository).saveAndFlush(saved.capture());
+        assertEquals(new BigDecimal("500.00"), saved.getValue().getBalanceBefore());
+        assertEquals(new BigDecimal("1500.00"), saved.getValue().getBalanceAfter());
+        verify(ledger).post(eq("1234567890"), eq(new BigDecimal("1000.00")), any());
+    }
+
+    @Test
+    void shouldPostWithdrawalAsNegativeAmount() {
+        postWithOpeningBalance(new BigDecimal("500.00"));
+        when(transactionRepository.saveAndFlush(any(Transaction.class))).thenReturn(sampleTransaction);
+        validRequest.setType(Transaction.TransactionType.WITHDRAWAL);
+
+        transactionService.createTransaction(validRequest);
+
+        ArgumentCaptor<Transaction> saved = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository).saveAndFlush(saved.capture());
+        assertEquals(new BigDecimal("-500.00"), saved.getValue().getBalanceAfter());
+        verify(ledger).post(eq("1234567890"), eq(new BigDecimal("-1000.00")), any());
+    }
+
+    @Test
+    void shouldReadBalanceFromLedger() {
+        when(ledger.getBalance("1234567890")).thenReturn(new BigDecimal("2500.00"));
+
+        AccountBalanceResponse response = transactionService.getAccountBalance("1234567890");
+
+        assertEquals("1234567890", response.getAccountNumber());
+        assertEquals(new BigDecimal("2500.00"), response.getBalance());
     }
 
     @Test
@@ -88,14 +141,53 @@ class TransactionServiceTest {
     }
 
     @Test
-    void shouldGetTransactionsByAccount() {
-        when(transactionRepository.findByAccountNumber("1234567890")).thenReturn(List.of(sampleTransaction));
+    void shouldGetFirstPageOfAccountHistory() {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 10, 14, 0, 5, 123_456_000);
+        when(transactionRepository.findAccountHistory("1234567890", TransactionCursor.MAX_DATE, Long.MAX_VALUE,
+                TransactionCursor.MIN_DATE, 3))
+                .thenReturn(List.of(historyRow(7L, now), historyRow(5L, now), historyRow(9L, now.minusDays(1))));
+
+        TransactionPageResponse page = transactionService.getTransactionsByAccount("1234567890", null, 2, null, null, null);
 
-        List<TransactionResponse> responses = transactionService.getTransactionsByAccount("1234567890");
+        assertEquals(List.of(7L, 5L), page.getItems().stream().map(TransactionResponse::getId).toList());
+        // Курсор указывает на последнюю строку страницы
+        assertEquals(new TransactionCursor(now, 5L), TransactionCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void shouldContinueAccountHistoryFromCursorWithFilters() {
+        LocalDateTime position = LocalDateTime.of(2024, 3, 10, 14, 0);
+        LocalDateTime from = LocalDateTime.of(2024, 3, 1, 0, 0);
+        String cursor = new TransactionCursor(position, 42L).encode();
+        when(transactionRepository.findAccountHistoryByType("1234567890", Transaction.TransactionType.WITHDRAWAL,
+                position, 42L, from, 3))
+                .thenReturn(List.of(historyRow(41L, position.minusHours(1))));
 
-        assertFalse(responses.isEmpty());
-        assertEquals(1, responses.size());
-        assertEquals("1234567890", responses.get(0).getAccountNumber());
+        TransactionPageResponse page = transactionService.getTransactionsByAccount("1234567890", cursor, 2,
+                from, LocalDateTime.of(2024, 3, 31, 0, 0), Transaction.TransactionType.WITHDRAWAL);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void shouldRejectInvalidHistoryRequest() {
+        assertThrows(IllegalArgumentException.class, () ->
+                transactionService.getTransactionsByAccount("1234567890", "not a cursor!", 50, null, null, null));
+        assertThrows(IllegalArgumentException.class, () ->
+                transactionService.getTransactionsByAccount("1234567890", "AAAA", 50, null, null, null));
+        assertThrows(IllegalArgumentException.class, () ->
+                transactionService.getTransactionsByAccount("1234567890", null, 501, null, null, null));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void shouldDeriveFlagsInProjectionConstructor() {
+        TransactionResponse suspicious = projection(Transaction.SUSPICIOUS_THRESHOLD);
+
+        assertTrue(suspicious.isHighValueTransaction());
+        assertTrue(suspicious.isSuspiciousTransaction());
+        assertFalse(projection(null).isSuspiciousTransaction());
     }
 
     @Test
@@ -110,7 +202,9 @@ class TransactionServiceTest {
                 .status(Transaction.TransactionStatus.PENDING)
                 .build();
 
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(highValueTransaction);
+        postWithOpeningBalance(BigDecimal.ZERO);
+        when(transactionRepository.saveAndFlush(any(Transaction.class))).thenReturn(highValueTransaction);
+        when(ruleEngine.evaluate(highValueTransaction)).thenReturn(List.of(alert(TransactionAlert.AlertType.HIGH_VALUE_TRANSACTION)));
         when(alertRepository.save(any(TransactionAlert.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         TransactionRequest highValueRequest = TransactionRequest.builder()
@@ -125,5 +219,128 @@ class TransactionServiceTest {
         assertNotNull(response);
         assertTrue(response.isHighValueTransaction());
         verify(alertRepository).save(any(TransactionAlert.class));
+        verify(outbox).append(eq("transaction-alerts"), eq("high-value-tx"), any(TransactionAlertEvent.class));
+    }
+
+    @Test
+    void shouldPublishSuspiciousTransactionToHighValueTopic() {
+        postWithOpeningBalance(BigDecimal.ZERO);
+        when(transactionRepository.saveAndFlush(any(Transaction.class))).thenReturn(sampleTransaction);
+        when(ruleEngine.evaluate(sampleTransaction)).thenReturn(List.of(
+                alert(TransactionAlert.AlertType.SUSPICIOUS_ACTIVITY), alert(TransactionAlert.AlertType.UNUSUAL_PATTERN)));
+
+        transactionService.createTransaction(validRequest);
+
+        verify(alertRepository, times(2)).save(any(TransactionAlert.class));
+        verify(outbox, times(2)).append(eq("transaction-alerts"), eq("test-transaction-id"), any(TransactionAlertEvent.class));
+        verify(outbox).append("high-value-transactions", "test-transaction-id", TransactionEvent.from(sampleTransaction));
+    }
+
+    @Test
+    void shouldPublishFailureChangeOnlyWhenStatusBecomesFailed() {
+        when(transactionRepository.findAccountNumberById(1L)).thenReturn(Optional.of("1234567890"));
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        adjustWithBalance(BigDecimal.ZERO);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transactionService.updateTransactionStatus(1L, TransactionStatusUpdate.builder()
+                .status(Transaction.TransactionStatus.FAILED)
+                .failureReason("Insufficient funds")
+                .build());
+        transactionService.updateTransactionStatus(1L, TransactionStatusUpdate.builder()
+                .status(Transaction.TransactionStatus.FAILED)
+                .build());
+
+        ArgumentCaptor<TransactionFailureStatusChangedEvent> event =
+                ArgumentCaptor.forClass(TransactionFailureStatusChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals("1234567890", event.getValue().getAccountNumber());
+        assertTrue(event.getValue().isFailed());
+    }
+
+    @Test
+    void shouldPublishStatusUpdateWhenStatusChangesByTransactionId() {
+        when(transactionRepository.findAccountNumberByTransactionId("test-transaction-id")).thenReturn(Optional.of("1234567890"));
+        when(transactionRepository.findByTransactionId("test-transaction-id")).thenReturn(Optional.of(sampleTransaction));
+        adjustWithBalance(BigDecimal.ZERO);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TransactionResponse response = transactionService.updateTransactionStatusByTransactionId("test-transaction-id",
+                TransactionStatusUpdate.builder().status(Transaction.TransactionStatus.REVERSED).build());
+
+        assertEquals(Transaction.TransactionStatus.REVERSED, response.getStatus());
+        ArgumentCaptor<TransactionStatusUpdateEvent> event = ArgumentCaptor.forClass(TransactionStatusUpdateEvent.class);
+        verify(outbox).append(eq("transaction-status-updates"), eq("test-transaction-id"), event.capture());
+        assertEquals(Transaction.TransactionStatus.PENDING, event.getValue().oldStatus());
+        assertEquals(Transaction.TransactionStatus.REVERSED, event.getValue().newStatus());
+    }
+
+    @Test
+    void shouldReverseAmountInBalanceWhenStatusLeavesAndReturnsToPostingState() {
+        when(transactionRepository.findAccountNumberById(1L)).thenReturn(Optional.of("1234567890"));
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        List<BigDecimal> amounts = new ArrayList<>();
+        when(ledger.adjust(eq("1234567890"), any())).thenAnswer(invocation -> {
+            AccountLedger.Adjustment<?> adjustment = invocation.getArgument(1);
+            amounts.add(adjustment.amount());
+            return adjustment.write(BigDecimal.ZERO, BigDecimal.ZERO);
+        });
+
+        transactionService.updateTransactionStatus(1L, status(Transaction.TransactionStatus.COMPLETED));
+        transactionService.updateTransactionStatus(1L, status(Transaction.TransactionStatus.REVERSED));
+        transactionService.updateTransactionStatus(1L, status(Transaction.TransactionStatus.CANCELLED));
+        transactionService.updateTransactionStatus(1L, status(Transaction.TransactionStatus.COMPLETED));
+
+        // Сторно депозита при выходе из проводимых статусов и возврат суммы при обратном переходе
+        assertEquals(List.of(new BigDecimal("0.00"), new BigDecimal("-1000.00"), BigDecimal.ZERO, new BigDecimal("1000.00")),
+                amounts);
+        assertEquals(Transaction.TransactionStatus.COMPLETED, sampleTransaction.getStatus());
+    }
+
+    private static TransactionStatusUpdate status(Transaction.TransactionStatus status) {
+        return TransactionStatusUpdate.builder().status(status).build();
+    }
+
+    // Полоса книги остатков выполняет смену статуса сразу, в потоке теста
+    private void adjustWithBalance(BigDecimal balance) {
+        when(ledger.adjust(any(), any())).thenAnswer(invocation -> {
+            AccountLedger.Adjustment<?> adjustment = invocation.getArgument(1);
+            BigDecimal amount = adjustment.amount();
+            return adjustment.write(balance, balance.add(amount));
+        });
+    }
+
+    // Полоса книги остатков выполняет запись сразу, в потоке теста
+    private void postWithOpeningBalance(BigDecimal openingBalance) {
+        when(ledger.post(any(), any(), any())).thenAnswer(invocation -> {
+            BigDecimal amount = invocation.getArgument(1);
+            AccountLedger.Posting<?> writer = invocation.getArgument(2);
+            return writer.write(openingBalance, openingBalance.add(amount));
+        });
+    }
+
+    private TransactionAlert alert(TransactionAlert.AlertType alertType) {
+        return TransactionAlert.builder()
+                .alertType(alertType)
+                .status(TransactionAlert.AlertStatus.ACTIVE)
+                .accountNumber("1234567890")
+                .severity(5)
+                .build();
+    }
+
+    // Так строку отдает JPQL-проекция TransactionRepository.RESPONSE_SELECT
+    private static TransactionResponse historyRow(long id, LocalDateTime transactionDate) {
+        return TransactionResponse.builder()
+                .id(id)
+                .accountNumber("1234567890")
+                .transactionDate(transactionDate)
+                .build();
+    }
+
+    private TransactionResponse projection(BigDecimal amount) {
+        return new TransactionResponse(1L, "test-transaction-id", Transaction.TransactionType.DEPOSIT, amount,
+                "USD", "1234567890", null, null, Transaction.TransactionStatus.COMPLETED, "Test deposit",
+                null, null, null, null, null, null, null, null, null);
     }
-}
\ No newline at end of file
+}